@@ -10,16 +10,29 @@ conn.defaultSchema={{ db_schema }}
 conn.dbHandlerClass={{ db_handler }}
 
 sys.cluster.heartbeat_port={{ heartbeat_port }}
+sys.cluster.handler_threads=4
+sys.cluster.client_sockets=4
+sys.cluster.dirty_batch_window=5
+sys.cluster.dirty_batch_size=1000
 sys.masterRepo=svarog
 
 sys.core.cleanup_time=30
 sys.core.is_debug=false
+sys.core.compact_objects=true
+sys.core.optimistic_save=false
 sys.service_class=
 sys.force_timezone=
 
 sys.jdbc.batch_size=10
+sys.jdbc.fetch_size=1000
+sys.jdbc.constraint_batch_size=500
+sys.jdbc.copy_batch_size=0
+sys.jdbc.sql_cache_size=1000
 sys.conf.path=conf
 sys.lock.max_wait_time = 10
+sys.sequence.block_size = 1000
+sys.rule_engine.state_durability = ACTION
+sys.rule_engine.state_batch_size = 100
 
 sys.defaultLocale=mk_MK
 sys.defaultDateFormat=dd/MM/yyyy
@@ -33,6 +46,7 @@ sys.gis.default_srid=NULL
 sys.gis.geom_handler=POSTGIS
 sys.gis.grid_size=10
 sys.gis.tile_cache=100
+sys.gis.tile_delta_threshold=64
 sys.gis.precision_scale=1000
 sys.gis.allow_boundary_intersect=false
 sys.gis.legal_sdi_unit_type=1
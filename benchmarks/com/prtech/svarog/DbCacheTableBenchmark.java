@@ -0,0 +1,108 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *
+ *******************************************************************************/
+package com.prtech.svarog;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.prtech.svarog_common.DbDataObject;
+
+/**
+ * Benchmark of the DbCacheTable reads and writes under contention. The cache
+ * table is shared by all benchmark threads and configured as LRU cache smaller
+ * than the key range, so the writes cause evictions. Requires a configured
+ * svarog.properties, but doesn't access the database.
+ *
+ * @author ristepejov
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DbCacheTableBenchmark {
+
+	static final int CACHE_SIZE = 10000;
+	static final int KEY_RANGE = 12000;
+
+	DbCacheTable cacheTable;
+	DbDataObject[] objects;
+
+	@Setup
+	public void setup() {
+		DbDataObject descriptor = new DbDataObject(svCONST.OBJECT_TYPE_TABLE);
+		descriptor.setVal("cache_type", "LRU");
+		descriptor.setVal("cache_size", (long) CACHE_SIZE);
+		cacheTable = new DbCacheTable(descriptor, null);
+		objects = new DbDataObject[KEY_RANGE];
+		for (int i = 0; i < KEY_RANGE; i++) {
+			DbDataObject dbo = new DbDataObject(svCONST.OBJECT_TYPE_NOTES);
+			dbo.setObjectId((long) i + 1);
+			dbo.setParentId(1L);
+			dbo.setVal("NOTE_NAME", "NOTE_" + i);
+			dbo.setIsDirty(false);
+			objects[i] = dbo;
+			if (i < CACHE_SIZE)
+				cacheTable.addObject(dbo);
+		}
+	}
+
+	private DbDataObject randomObject() {
+		return objects[ThreadLocalRandom.current().nextInt(KEY_RANGE)];
+	}
+
+	@Benchmark
+	@Threads(4)
+	public DbDataObject get() {
+		return cacheTable.getObject(randomObject().getObjectId());
+	}
+
+	@Benchmark
+	@Threads(4)
+	public void put() {
+		cacheTable.addObject(randomObject());
+	}
+
+	@Benchmark
+	@Group("readWrite")
+	@GroupThreads(3)
+	public DbDataObject readWriteGet() {
+		return cacheTable.getObject(randomObject().getObjectId());
+	}
+
+	@Benchmark
+	@Group("readWrite")
+	@GroupThreads(1)
+	public void readWritePut() {
+		cacheTable.addObject(randomObject());
+	}
+
+}
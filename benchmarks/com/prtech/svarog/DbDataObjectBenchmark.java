@@ -0,0 +1,111 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *
+ *******************************************************************************/
+package com.prtech.svarog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.prtech.svarog_common.DbDataArray;
+import com.prtech.svarog_common.DbDataObject;
+
+/**
+ * Benchmark of the DbDataObject field access by name and of the DbDataArray
+ * sorting and grouping of a list of objects. Doesn't require a database.
+ *
+ * @author ristepejov
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DbDataObjectBenchmark {
+
+	static final String[] FIELDS = { "NOTE_NAME", "NOTE_TEXT", "GROUP_CODE", "SORT_ORDER", "AMOUNT" };
+
+	@Param({ "1000", "10000" })
+	int arraySize;
+
+	DbDataObject dbo;
+	List<DbDataObject> items;
+	Long value = 1L;
+
+	@Setup
+	public void setup() {
+		dbo = newObject(0);
+		Random random = new Random(42);
+		items = new ArrayList<DbDataObject>(arraySize);
+		for (int i = 0; i < arraySize; i++)
+			items.add(newObject(random.nextInt(arraySize)));
+		Collections.shuffle(items, random);
+	}
+
+	private DbDataObject newObject(int index) {
+		DbDataObject obj = new DbDataObject(svCONST.OBJECT_TYPE_NOTES);
+		obj.setObjectId((long) index + 1);
+		obj.setParentId((long) index % 7);
+		obj.setVal("NOTE_NAME", "NOTE_" + index);
+		obj.setVal("NOTE_TEXT", "text");
+		obj.setVal("GROUP_CODE", "GROUP_" + index % 10);
+		obj.setVal("SORT_ORDER", (long) index);
+		obj.setVal("AMOUNT", (long) index * 3);
+		return obj;
+	}
+
+	@Benchmark
+	public DbDataObject setVal() {
+		for (String field : FIELDS)
+			dbo.setVal(field, value);
+		return dbo;
+	}
+
+	@Benchmark
+	public int getVal() {
+		int found = 0;
+		for (String field : FIELDS)
+			if (dbo.getVal(field) != null)
+				found++;
+		return found;
+	}
+
+	@Benchmark
+	public ArrayList<DbDataObject> getSortedItems() {
+		return new DbDataArray(new ArrayList<DbDataObject>(items)).getSortedItems("SORT_ORDER");
+	}
+
+	@Benchmark
+	public HashMap<String, DbDataArray> groupItemsByColumn() {
+		return new DbDataArray(items).groupItemsByColumn(new String[] { "GROUP_CODE", "PARENT_ID" });
+	}
+
+}
@@ -0,0 +1,89 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *
+ *******************************************************************************/
+package com.prtech.svarog;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.prtech.svarog_common.DbDataObject;
+import com.prtech.svarog_common.DbQueryExpression;
+import com.prtech.svarog_common.DbQueryObject;
+import com.prtech.svarog_common.DbQueryObject.DbJoinType;
+import com.prtech.svarog_common.DbQueryObject.LinkType;
+import com.prtech.svarog_common.DbSearchCriterion;
+import com.prtech.svarog_common.DbSearchCriterion.DbCompareOperand;
+import com.prtech.svarog_common.DbSearchExpression;
+
+/**
+ * Benchmark of the SQL generation of a single type query and of a query joining
+ * the users to their default user groups via link. Only the object type
+ * descriptors are loaded from the database, the benchmarked generation doesn't
+ * execute any query. Requires a configured svarog.properties and an installed
+ * svarog database.
+ *
+ * @author ristepejov
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DbQueryExpressionBenchmark {
+
+	DbDataObject dbtUser;
+	DbDataObject dbtGroup;
+	DbDataObject linkType;
+
+	@Setup
+	public void setup() throws SvException {
+		dbtUser = SvCore.getDbt(svCONST.OBJECT_TYPE_USER);
+		dbtGroup = SvCore.getDbt(svCONST.OBJECT_TYPE_GROUP);
+		linkType = SvCore.getLinkType("USER_DEFAULT_GROUP", svCONST.OBJECT_TYPE_USER, svCONST.OBJECT_TYPE_GROUP);
+	}
+
+	@Benchmark
+	public String singleType() throws SvException {
+		DbSearchExpression search = new DbSearchExpression();
+		search.addDbSearchItem(new DbSearchCriterion("USER_NAME", DbCompareOperand.LIKE, "ADMIN%"));
+		search.addDbSearchItem(new DbSearchCriterion("PARENT_ID", DbCompareOperand.EQUAL, 0L));
+		DbQueryObject query = new DbQueryObject(dbtUser, search, null, null);
+		return new DbQueryExpression(query).getSQLExpression();
+	}
+
+	@Benchmark
+	public String linkedTypes() throws SvException {
+		DbQueryObject users = new DbQueryObject(dbtUser,
+				new DbSearchCriterion("USER_NAME", DbCompareOperand.LIKE, "ADMIN%"), DbJoinType.INNER, linkType,
+				LinkType.DBLINK, null, null);
+		DbQueryObject groups = new DbQueryObject(dbtGroup, null, DbJoinType.INNER, null, null, null, null);
+		DbQueryExpression q = new DbQueryExpression();
+		q.addItem(users);
+		q.addItem(groups);
+		return q.getSQLExpression();
+	}
+
+}
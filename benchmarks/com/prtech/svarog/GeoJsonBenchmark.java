@@ -0,0 +1,80 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *
+ *******************************************************************************/
+package com.prtech.svarog;
+
+import java.util.concurrent.TimeUnit;
+
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.io.ParseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.prtech.svarog_geojson.GeoJsonReader;
+import com.prtech.svarog_geojson.GeoJsonWriter;
+
+/**
+ * Benchmark of writing and reading a GeoJSON geometry collection of parcel
+ * like polygons with GeoJsonWriter and GeoJsonReader. Doesn't require a
+ * database.
+ *
+ * @author ristepejov
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeoJsonBenchmark {
+
+	@Param({ "10", "50" })
+	int gridSize;
+
+	Geometry collection;
+	String geoJson;
+	GeoJsonWriter writer;
+	GeoJsonReader reader;
+
+	@Setup
+	public void setup() {
+		GeometryFactory factory = new GeometryFactory();
+		collection = factory.createGeometryCollection(SvSDITileBenchmark.gridPolygons(factory, gridSize, 8));
+		writer = new GeoJsonWriter();
+		reader = new GeoJsonReader(factory);
+		geoJson = writer.write(collection);
+	}
+
+	@Benchmark
+	public String write() {
+		return writer.write(collection);
+	}
+
+	@Benchmark
+	public Geometry read() throws ParseException {
+		return reader.read(geoJson);
+	}
+
+}
@@ -0,0 +1,138 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *
+ *******************************************************************************/
+package com.prtech.svarog;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.prtech.svarog_common.DbDataArray;
+import com.prtech.svarog_common.DbDataObject;
+
+/**
+ * Benchmark of the JsonIO based serialization of a DbDataArray to JSON and
+ * the round-trip back to a DbDataArray. The writeJson, writeSimpleJson and
+ * readJson benchmarks measure the streaming serialization of the same array,
+ * to be compared with toJson, toSimpleJson and parseFromJson which build the
+ * JsonObject tree. Doesn't require a database.
+ *
+ * @author ristepejov
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonIOBenchmark {
+
+	@Param({ "100", "1000" })
+	int arraySize;
+
+	DbDataArray dba;
+	JsonObject json;
+	String jsonString;
+
+	@Setup
+	public void setup() {
+		dba = new DbDataArray();
+		DateTime now = new DateTime();
+		for (int i = 0; i < arraySize; i++) {
+			DbDataObject dbo = new DbDataObject(svCONST.OBJECT_TYPE_NOTES);
+			dbo.setObjectId((long) i + 1);
+			dbo.setPkid((long) i + 1);
+			dbo.setParentId(1L);
+			dbo.setDtInsert(now);
+			dbo.setDtDelete(now.plusYears(100));
+			dbo.setVal("NOTE_NAME", "NOTE_" + i);
+			dbo.setVal("NOTE_TEXT", "Some \"quoted\" note text");
+			dbo.setVal("SORT_ORDER", (long) i);
+			dbo.setVal("IS_ACTIVE", i % 2 == 0);
+			dba.addDataItem(dbo);
+		}
+		json = dba.toJson();
+		jsonString = json.toString();
+	}
+
+	@Benchmark
+	public String toJson() {
+		return dba.toJson().toString();
+	}
+
+	@Benchmark
+	public String writeJson() throws IOException {
+		StringWriter writer = new StringWriter();
+		dba.writeJson(writer);
+		return writer.toString();
+	}
+
+	@Benchmark
+	public JsonObject toSimpleJson() {
+		return dba.toSimpleJson();
+	}
+
+	@Benchmark
+	public String writeSimpleJson() throws IOException {
+		StringWriter writer = new StringWriter();
+		dba.writeSimpleJson(writer);
+		return writer.toString();
+	}
+
+	@Benchmark
+	public DbDataArray roundTrip() {
+		DbDataArray result = new DbDataArray();
+		result.fromJson(dba.toJson());
+		return result;
+	}
+
+	@Benchmark
+	public DbDataArray fromJson() {
+		DbDataArray result = new DbDataArray();
+		result.fromJson(json);
+		return result;
+	}
+
+	@Benchmark
+	public DbDataArray parseFromJson() {
+		DbDataArray result = new DbDataArray();
+		result.fromJson(JsonParser.parseString(jsonString).getAsJsonObject());
+		return result;
+	}
+
+	@Benchmark
+	public DbDataArray readJson() throws IOException {
+		DbDataArray result = new DbDataArray();
+		result.readJson(new StringReader(jsonString));
+		return result;
+	}
+
+}
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *
+ *******************************************************************************/
+package com.prtech.svarog;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.prtech.svarog_common.DbDataObject;
+import com.prtech.svarog_common.SvCharId;
+
+/**
+ * Benchmark of DbDataObject.getVal/setVal by string key, for interned field
+ * names versus names unknown to the interning table. Run with "-prof gc" to
+ * get the bytes allocated per lookup (gc.alloc.rate.norm). Doesn't require a
+ * database.
+ *
+ * @author ristepejov
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SvCharIdBenchmark {
+
+	static final String INTERNED_KEY = "BENCH_INTERNED_FIELD";
+	static final String PLAIN_KEY = "BENCH_PLAIN_FIELD";
+
+	DbDataObject dbo;
+	Long value = 1L;
+
+	@Setup
+	public void setup() {
+		SvCharId.intern(INTERNED_KEY);
+		dbo = new DbDataObject();
+		dbo.setVal(INTERNED_KEY, value);
+		dbo.setVal(PLAIN_KEY, value);
+	}
+
+	@Benchmark
+	public Object getValInterned() {
+		return dbo.getVal(INTERNED_KEY);
+	}
+
+	@Benchmark
+	public Object getValPlain() {
+		return dbo.getVal(PLAIN_KEY);
+	}
+
+	@Benchmark
+	public void setValInterned() {
+		dbo.setVal(INTERNED_KEY, value);
+	}
+
+	@Benchmark
+	public void setValPlain() {
+		dbo.setVal(PLAIN_KEY, value);
+	}
+
+}
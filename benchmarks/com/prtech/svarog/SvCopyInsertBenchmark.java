@@ -0,0 +1,105 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *
+ *******************************************************************************/
+package com.prtech.svarog;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.prtech.svarog_common.DbDataArray;
+import com.prtech.svarog_common.DbDataObject;
+
+/**
+ * Benchmark of the import throughput (objects/sec) of new notes saved with
+ * JDBC insert batches versus the copy of the database handler. Each
+ * invocation is rolled back. Requires a configured svarog.properties and an
+ * installed svarog database with a handler supporting copy (PostgreSQL).
+ *
+ * @author ristepejov
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class SvCopyInsertBenchmark {
+
+	static final int ROWS = 10000;
+
+	SvWriter svw;
+	int oldCopyBatchSize;
+
+	@Setup
+	public void setup() throws SvException {
+		oldCopyBatchSize = SvConf.getCopyBatchSize();
+		svw = new SvWriter();
+		svw.setAutoCommit(false);
+	}
+
+	@TearDown
+	public void tearDown() {
+		SvConf.setCopyBatchSize(oldCopyBatchSize);
+		svw.release();
+	}
+
+	DbDataArray getNotes() throws SvException {
+		Long parentId = SvSequence.getSeqNextVal("BENCH_COPY_INSERT", (SvCore) null);
+		DbDataArray notes = new DbDataArray();
+		for (int i = 0; i < ROWS; i++) {
+			DbDataObject note = new DbDataObject(svCONST.OBJECT_TYPE_NOTES);
+			note.setParentId(parentId);
+			note.setVal("NOTE_NAME", "BENCH_NOTE_" + i);
+			note.setVal("NOTE_TEXT", "text");
+			notes.addDataItem(note);
+		}
+		return notes;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public void batchInsert() throws SvException {
+		SvConf.setCopyBatchSize(0);
+		save();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public void copyInsert() throws SvException {
+		SvConf.setCopyBatchSize(ROWS);
+		save();
+	}
+
+	private void save() throws SvException {
+		try {
+			svw.saveObject(getNotes(), true, false);
+		} finally {
+			svw.dbRollback();
+		}
+	}
+
+}
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *
+ *******************************************************************************/
+package com.prtech.svarog;
+
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.prtech.svarog_common.DbDataObject;
+import com.prtech.svarog_common.SvCharId;
+import com.prtech.svarog_common.SvFieldSchema;
+
+/**
+ * Benchmark of creating and filling a typed DbDataObject with LinkedHashMap
+ * storage versus the compact array backed storage, followed by reading all
+ * fields. Run with "-prof gc" to get the bytes allocated per object
+ * (gc.alloc.rate.norm). Doesn't require a database.
+ *
+ * @author ristepejov
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SvFieldMapBenchmark {
+
+	@Param({ "10", "20", "40" })
+	int fieldCount;
+
+	SvCharId[] fieldIds;
+	SvFieldSchema schema;
+	LinkedHashMap<SvCharId, Object> template;
+	Long value = 1L;
+
+	@Setup
+	public void setup() {
+		fieldIds = new SvCharId[fieldCount];
+		template = new LinkedHashMap<SvCharId, Object>();
+		for (int i = 0; i < fieldCount; i++) {
+			fieldIds[i] = SvCharId.intern("BENCH_FIELD_" + i);
+			template.put(fieldIds[i], null);
+		}
+		schema = new SvFieldSchema(template.keySet());
+	}
+
+	@Benchmark
+	public DbDataObject mapObject() {
+		return fillAndRead(new DbDataObject(1L, template));
+	}
+
+	@Benchmark
+	public DbDataObject compactObject() {
+		return fillAndRead(new DbDataObject(1L, schema));
+	}
+
+	private DbDataObject fillAndRead(DbDataObject dbo) {
+		for (SvCharId fieldId : fieldIds)
+			dbo.setVal(fieldId, value);
+		for (SvCharId fieldId : fieldIds)
+			if (dbo.getVal(fieldId) == null)
+				throw new IllegalStateException();
+		return dbo;
+	}
+
+}
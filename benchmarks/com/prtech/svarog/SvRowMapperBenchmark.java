@@ -0,0 +1,105 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *
+ *******************************************************************************/
+package com.prtech.svarog;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.locationtech.jts.io.ParseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.prtech.svarog_common.DbDataObject;
+import com.prtech.svarog_common.DbQueryObject;
+
+/**
+ * Benchmark of the rows/sec materialised from a result set of a wide table (the
+ * field descriptors). The reusedPlan benchmark decodes the rows with a single
+ * row mapping plan per query, while perRowPlan resolves the column metadata
+ * for each row, as svarog did before the plans were introduced. Requires a
+ * configured svarog.properties and an installed svarog database.
+ *
+ * @author ristepejov
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SvRowMapperBenchmark {
+
+	static final int ROWS = 1000;
+
+	SvReader svr;
+	DbQueryObject query;
+	String sql;
+
+	@Setup
+	public void setup() throws SvException {
+		svr = new SvReader();
+		DbDataObject dbt = SvCore.getDbt(svCONST.OBJECT_TYPE_FIELD);
+		query = new DbQueryObject(SvCore.repoDbt, SvCore.repoDbtFields, dbt, SvCore.getFields(dbt.getObjectId()),
+				null, null, null);
+		sql = query.getSQLExpression(false, false).toString();
+	}
+
+	@TearDown
+	public void tearDown() {
+		svr.release();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public void reusedPlan(Blackhole bh) throws SQLException, ParseException, SvException {
+		try (PreparedStatement ps = svr.dbGetConn().prepareStatement(sql)) {
+			ps.setMaxRows(ROWS);
+			svr.bindQueryVals(ps, query.getSQLParamVals());
+			try (ResultSet rs = ps.executeQuery()) {
+				SvRowMapper plan = svr.getRowMapper(query, Sv.TBL, rs.getMetaData());
+				while (rs.next())
+					bh.consume(svr.getObjectFromRecord(rs, plan));
+			}
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public void perRowPlan(Blackhole bh) throws SQLException, ParseException, SvException {
+		try (PreparedStatement ps = svr.dbGetConn().prepareStatement(sql)) {
+			ps.setMaxRows(ROWS);
+			svr.bindQueryVals(ps, query.getSQLParamVals());
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next())
+					bh.consume(svr.getObjectFromRecord(rs, svr.getRowMapper(query, Sv.TBL, rs.getMetaData())));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *
+ *******************************************************************************/
+package com.prtech.svarog;
+
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryCollection;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.prtech.svarog.SvSDITile.SDIRelation;
+
+/**
+ * Benchmark of SvSDITile.getRelations over an in-memory tile holding a grid of
+ * parcel like polygons. Each invocation queries the tile with a random
+ * polygon of the size of a parcel. Requires a configured svarog.properties,
+ * but doesn't access the database.
+ *
+ * @author ristepejov
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SvSDITileBenchmark {
+
+	static final double TILE_SIZE = 10000;
+
+	@Param({ "100", "300" })
+	int gridSize;
+
+	@Param({ "INTERSECTS", "WITHIN" })
+	SDIRelation relation;
+
+	SvSDITile tile;
+	Geometry[] queries;
+	int queryIndex = 0;
+
+	/**
+	 * Method to generate a grid of square polygons with a number of vertices
+	 * per edge, covering the envelope from 0,0 to TILE_SIZE,TILE_SIZE
+	 * 
+	 * @param factory      The geometry factory
+	 * @param gridSize     The number of polygons per row/column
+	 * @param edgeVertices The number of vertices per polygon edge
+	 * @return The array of polygons
+	 */
+	static Geometry[] gridPolygons(GeometryFactory factory, int gridSize, int edgeVertices) {
+		double cell = TILE_SIZE / gridSize;
+		Geometry[] polygons = new Geometry[gridSize * gridSize];
+		for (int x = 0; x < gridSize; x++)
+			for (int y = 0; y < gridSize; y++)
+				polygons[x * gridSize + y] = square(factory, x * cell, y * cell, cell * 0.98, edgeVertices);
+		return polygons;
+	}
+
+	static Geometry square(GeometryFactory factory, double minX, double minY, double size, int edgeVertices) {
+		Coordinate[] ring = new Coordinate[edgeVertices * 4 + 1];
+		double step = size / edgeVertices;
+		for (int i = 0; i < edgeVertices; i++) {
+			ring[i] = new Coordinate(minX + i * step, minY);
+			ring[edgeVertices + i] = new Coordinate(minX + size, minY + i * step);
+			ring[2 * edgeVertices + i] = new Coordinate(minX + size - i * step, minY + size);
+			ring[3 * edgeVertices + i] = new Coordinate(minX, minY + size - i * step);
+		}
+		ring[edgeVertices * 4] = ring[0];
+		return factory.createPolygon(ring);
+	}
+
+	@Setup
+	public void setup() throws SvException {
+		final GeometryFactory factory = SvUtil.sdiFactory;
+		final Geometry[] polygons = gridPolygons(factory, gridSize, 4);
+		tile = new SvSDITile() {
+			@Override
+			GeometryCollection loadGeometries() {
+				return factory.createGeometryCollection(polygons);
+			}
+		};
+		tile.tileTypeId = 0L;
+		tile.tilelId = "BENCH_TILE_" + gridSize;
+		tile.prepareEnvelope(new Envelope(0, TILE_SIZE, 0, TILE_SIZE));
+		tile.loadTile();
+
+		Random random = new Random(42);
+		double cell = TILE_SIZE / gridSize;
+		queries = new Geometry[1024];
+		for (int i = 0; i < queries.length; i++)
+			queries[i] = square(factory, random.nextDouble() * (TILE_SIZE - cell),
+					random.nextDouble() * (TILE_SIZE - cell), cell, 4);
+	}
+
+	@Benchmark
+	public Set<Geometry> getRelations() throws SvException {
+		queryIndex = (queryIndex + 1) & (queries.length - 1);
+		return tile.getRelations(queries[queryIndex], relation);
+	}
+
+}
@@ -0,0 +1,69 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *
+ *******************************************************************************/
+package com.prtech.svarog;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark comparing the throughput (values/sec) of the block allocated
+ * sequence generator against the per value, in transaction generator. Requires
+ * a configured svarog.properties and an installed svarog database.
+ *
+ * @author ristepejov
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SvSequenceBenchmark {
+
+	static final String BLOCK_SEQ_KEY = "BENCH_SEQ_BLOCK";
+	static final String SINGLE_SEQ_KEY = "BENCH_SEQ_SINGLE";
+
+	@Setup
+	public void setup() {
+		SvSequence.clearSeqBlocks();
+	}
+
+	@Benchmark
+	public Long blockAllocated() throws SvException {
+		return SvSequence.getSeqNextVal(BLOCK_SEQ_KEY, (SvCore) null);
+	}
+
+	@Benchmark
+	public Long perValue() throws SvException {
+		SvSequence svs = new SvSequence();
+		try {
+			return svs.getSeqNextVal(SINGLE_SEQ_KEY);
+		} finally {
+			svs.release();
+		}
+	}
+
+}
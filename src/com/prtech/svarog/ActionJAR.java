@@ -76,23 +76,43 @@ public class ActionJAR extends SvCore {
 	 * @throws SvException
 	 *             A rule engine raised exception
 	 */
-	@SuppressWarnings("resource")
 	public Object execute(DbDataObject dataObject, DbDataArray resultsObject, Map<Object, Object> params,
 			String className, String methodName, Long actionId) throws SvException {
+		Method m = null;
+		try {
+			m = getActionMethod(className, methodName);
+		} catch (Exception e) {
+			throw (new SvException("system.error.re_java_err", instanceUser, dataObject, actionId, e));
+		}
+		return execute(dataObject, resultsObject, params, m, actionId);
+	}
+
+	/**
+	 * Method for executing a JAR action of the rule engine, with the action
+	 * method already resolved
+	 * 
+	 * @param dataObject
+	 *            The object upon which the action is executed
+	 * @param resultsObject
+	 *            The object containing the result of the action
+	 * @param params
+	 *            A map containing additional parameters to be sent to the
+	 *            executed method
+	 * @param m
+	 *            The action method, or null if the class wasn't found
+	 * @param actionId
+	 *            The id of the action which is executed
+	 * @return The resulting object from the action execution
+	 * @throws SvException
+	 *             A rule engine raised exception
+	 */
+	public Object execute(DbDataObject dataObject, DbDataArray resultsObject, Map<Object, Object> params, Method m,
+			Long actionId) throws SvException {
 		Object result = null;
 		try {
 			params.put("SV_CORE", this);
-			Object o = null;
-			SvClassLoader svl = SvClassLoader.getInstance();
-			Class<?> actClass = svl.loadClass(className);
-			if (actClass != null) {
-				Class<?>[] cArg = new Class[3];
-				cArg[0] = DbDataObject.class;
-				cArg[1] = DbDataArray.class;
-				cArg[2] = Map.class;
-				Method m = actClass.getMethod(methodName, cArg);
-
-				o = actClass.newInstance();
+			if (m != null) {
+				Object o = m.getDeclaringClass().newInstance();
 				Object myargs[] = { dataObject, resultsObject, params };
 				result = m.invoke(o, myargs);
 			}
@@ -102,4 +122,29 @@ public class ActionJAR extends SvCore {
 		return result;
 	}
 
+	/**
+	 * Method to resolve the method of a JAR action from the svarog class loader
+	 * 
+	 * @param className
+	 *            The name of the class owner of the method
+	 * @param methodName
+	 *            The name of the method to be executed
+	 * @return The action method or null if the class wasn't found
+	 * @throws Exception
+	 *             Pass through of class loading and reflection exceptions
+	 */
+	@SuppressWarnings("resource")
+	static Method getActionMethod(String className, String methodName) throws Exception {
+		SvClassLoader svl = SvClassLoader.getInstance();
+		Class<?> actClass = svl.loadClass(className);
+		if (actClass != null) {
+			Class<?>[] cArg = new Class[3];
+			cArg[0] = DbDataObject.class;
+			cArg[1] = DbDataArray.class;
+			cArg[2] = Map.class;
+			return actClass.getMethod(methodName, cArg);
+		}
+		return null;
+	}
+
 }
@@ -25,6 +25,65 @@ import javax.script.*;
  */
 public class ActionJS {
 
+	/**
+	 * Shared script engine manager. Creating the manager discovers all engine
+	 * factories on the class path, so it is done only once.
+	 */
+	static final ScriptEngineManager engineManager = new ScriptEngineManager();
+
+	/**
+	 * Method to compile a JavaScript action, so it can be evaluated repeatedly
+	 * without parsing the source.
+	 * 
+	 * @param script
+	 *            JavaScript code to be compiled
+	 * @return The compiled script, or null if the engine doesn't support
+	 *         compilation
+	 * @throws ScriptException
+	 *             An exception raised by the JavaScript engine
+	 */
+	static CompiledScript compile(String script) throws ScriptException {
+		ScriptEngine engine = engineManager.getEngineByName("JavaScript");
+		if (engine instanceof Compilable)
+			return ((Compilable) engine).compile(script);
+		return null;
+	}
+
+	/**
+	 * Execute a compiled JavaScript action. Each execution gets its own
+	 * bindings. If the engine doesn't declare thread safety, the executions of
+	 * the same script are serialised.
+	 * 
+	 * @param script
+	 *            The compiled JavaScript code
+	 * @param action_id
+	 *            The object id of the executed action
+	 * @param jsonData
+	 *            Data Object/Array in JSON format
+	 * @param jsonResults
+	 *            Execution results in JSON format
+	 * @return jsonResults New execution results in JSON format, updated with
+	 *         current result and errors
+	 * @throws ScriptException
+	 *             An exception raised by the JavaScript engine
+	 */
+	public String execute(CompiledScript script, Long action_id, String jsonData, String jsonResults)
+			throws ScriptException {
+		Bindings bindings = script.getEngine().createBindings();
+		bindings.put("action_id", action_id);
+		bindings.put("data", jsonData);
+		bindings.put("results", jsonResults);
+
+		if (script.getEngine().getFactory().getParameter("THREADING") == null)
+			synchronized (script) {
+				script.eval(bindings);
+			}
+		else
+			script.eval(bindings);
+
+		return bindings.get("results").toString();
+	}
+
 	/**
 	 * Prepare statement using SQL query input string with DbDataObject
 	 * properties as bind parameters. Execute query and return true if
@@ -46,8 +105,7 @@ public class ActionJS {
 	public String execute(String script, Long action_id, String jsonData, String jsonResults) throws ScriptException {
 
 		// initialize script engine
-		ScriptEngineManager factory = new ScriptEngineManager();
-		ScriptEngine engine = factory.getEngineByName("JavaScript");
+		ScriptEngine engine = engineManager.getEngineByName("JavaScript");
 
 		// set script input parameters
 		engine.put("action_id", action_id);
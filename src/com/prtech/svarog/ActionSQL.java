@@ -37,6 +37,38 @@ import com.prtech.svarog_common.DbDataObject;
  */
 public class ActionSQL extends SvCore {
 
+	/**
+	 * Pattern matching the {FIELD_NAME} bind placeholders of the SQL actions
+	 */
+	static final Pattern fieldPattern = Pattern.compile("(\\{)(.*?)(\\})");
+
+	/**
+	 * Parsed SQL action, holding the names of the fields to be bound, so the SQL
+	 * text isn't parsed on each execution
+	 */
+	static final class SqlTemplate {
+		final String sql;
+		final ArrayList<String> fieldNames;
+		final boolean isCall;
+
+		/**
+		 * Constructor parsing the field names from the SQL text
+		 * 
+		 * @param sql
+		 *            The SQL text of the action
+		 */
+		SqlTemplate(String sql) {
+			this.sql = sql;
+			this.fieldNames = new ArrayList<String>();
+			Matcher matcher = fieldPattern.matcher(sql);
+			while (matcher.find()) {
+				fieldNames.add(matcher.group(2));
+			}
+			String callSql = "{ ? = " + fieldPattern.matcher(sql).replaceAll("?") + "}";
+			this.isCall = callSql.toLowerCase().startsWith("call");
+		}
+	}
+
 	/**
 	 * Default Constructor. This constructor can be used only within the svarog
 	 * package since it will run with system privileges.
@@ -80,6 +112,39 @@ public class ActionSQL extends SvCore {
 	 */
 	public Object execute(String sql, DbDataObject dbo, Long exec_id, String calltype, Long rettype, String arrayType,
 			Map<Object, Object> params, Boolean autoCommit) throws SvException {
+		return execute(new SqlTemplate(sql), dbo, exec_id, calltype, rettype, arrayType, params, autoCommit);
+	}
+
+	/**
+	 * Method for executing an already parsed SQL based action of the rule
+	 * engine
+	 * 
+	 * @param sql
+	 *            The parsed SQL query to be executed
+	 * @param dbo
+	 *            Database object the rule action is executed on
+	 * @param exec_id
+	 *            Id of the rule execution saved in database.
+	 * @param calltype
+	 *            Execute query, get result or execute stored procedure.
+	 * @param rettype
+	 *            In case of stored procedure type of return parameter to be
+	 *            binded.
+	 * @param arrayType
+	 *            The array type that should be used for returning values (SQL
+	 *            type)
+	 * @param params
+	 *            Hashmap containing additional parameters passed to the
+	 *            bindParams method
+	 * @param autoCommit
+	 *            Flag to enable/disable auto commit/rollback on
+	 *            success/exception
+	 * @return Object result of execution, can be of different type
+	 * @throws SvException
+	 *             Pass through underlying exceptions
+	 */
+	Object execute(SqlTemplate sql, DbDataObject dbo, Long exec_id, String calltype, Long rettype, String arrayType,
+			Map<Object, Object> params, Boolean autoCommit) throws SvException {
 		Object retVal = null;
 		try {
 			this.dbSetAutoCommit(false);
@@ -121,13 +186,13 @@ public class ActionSQL extends SvCore {
 	 *             failure
 	 * 
 	 */
-	Object executeImpl(String sql, DbDataObject dbo, Long exec_id, String calltype, Long rettype, String arrayType,
-			Map<Object, Object> params) throws SvException {
+	Object executeImpl(SqlTemplate sql, DbDataObject dbo, Long exec_id, String calltype, Long rettype,
+			String arrayType, Map<Object, Object> params) throws SvException {
 		Object result = null;
 		CallableStatement cst = null;
 		ResultSet rs = null;
 		try {
-			cst = this.dbGetConn().prepareCall(sql);
+			cst = this.dbGetConn().prepareCall(sql.sql);
 			prepareGet(sql, dbo, exec_id, rettype, arrayType, params, cst);
 			if (calltype.equals("Execute")) {
 				result = cst.executeUpdate();
@@ -141,7 +206,7 @@ public class ActionSQL extends SvCore {
 				result = cst.getObject(1);
 			}
 		} catch (SQLException e) {
-			throw (new SvException("system.error.re_action_sql_err", instanceUser, dbo, sql, e));
+			throw (new SvException("system.error.re_action_sql_err", instanceUser, dbo, sql.sql, e));
 		} finally {
 			closeResource((AutoCloseable) rs, instanceUser);
 			closeResource((AutoCloseable) cst, instanceUser);
@@ -154,7 +219,7 @@ public class ActionSQL extends SvCore {
 	 * properties as bind parameters.
 	 * 
 	 * @param sql
-	 *            SQL query to be executed
+	 *            The parsed SQL query to be executed
 	 * @param dbo
 	 *            Database object the rule action is executed on
 	 * @param exec_id
@@ -173,16 +238,12 @@ public class ActionSQL extends SvCore {
 	 *             Throws system.error.re_action_sql_err in case of SQL failure
 	 * 
 	 */
-	private void prepareGet(String sql, DbDataObject dbo, Long exec_id, Long rettype, String arrayType,
+	private void prepareGet(SqlTemplate sql, DbDataObject dbo, Long exec_id, Long rettype, String arrayType,
 			Map<Object, Object> params, CallableStatement cst) throws SvException {
 
-		String pattern = "(\\{)(.*?)(\\})";
-		ArrayList<String> fieldNames = getFieldNames(sql, pattern);
-		sql = "{ ? = " + sql.replaceAll(pattern, "?") + "}";
-
 		int offset;
 		try {
-			if (sql.toLowerCase().startsWith("call")) {
+			if (sql.isCall) {
 				if (rettype == java.sql.Types.ARRAY) {
 					cst.registerOutParameter(1, rettype.intValue(), arrayType);
 				} else {
@@ -192,30 +253,10 @@ public class ActionSQL extends SvCore {
 			} else {
 				offset = 1;
 			}
-			bindParams(cst, dbo, exec_id, fieldNames, offset, params);
+			bindParams(cst, dbo, exec_id, sql.fieldNames, offset, params);
 		} catch (SQLException e) {
-			throw (new SvException("system.error.re_action_sql_err", instanceUser, dbo, sql, e));
-		}
-	}
-
-	/**
-	 * Parse SQL query to extract field names to be binded in prepared
-	 * statement.
-	 * 
-	 * @param sql
-	 *            SQL query template
-	 * @param pattern
-	 *            Regular expression pattern for matching results
-	 * @return String array list with results matched
-	 * 
-	 */
-	private ArrayList<String> getFieldNames(String sql, String pattern) {
-		ArrayList<String> fieldNames = new ArrayList<String>();
-		Matcher matcher = Pattern.compile(pattern).matcher(sql);
-		while (matcher.find()) {
-			fieldNames.add(matcher.group(2));
+			throw (new SvException("system.error.re_action_sql_err", instanceUser, dbo, sql.sql, e));
 		}
-		return fieldNames;
 	}
 
 	/**
@@ -132,8 +132,12 @@ public class CodeList extends SvCore implements ISvCodeList {
 	 * @return Key/value map with categorie Id and label text
 	 */
 	public HashMap<String, Long> getCodeListValues(Long codeListObjectId) {
+		SvCodeListSnapshot snapshot = getSnapshot(codeListObjectId);
+		if (snapshot != null)
+			return new HashMap<>(snapshot.getIdsByValue());
+
 		HashMap<String, Long> catList = new HashMap<>();
-		DbDataArray object = getCodeListBase(codeListObjectId);
+		DbDataArray object = loadCodeList(codeListObjectId);
 		for (DbDataObject dbo : object.getItems()) {
 			catList.put(dbo.getAsString("CODE_VALUE"), dbo.getObjectId());
 		}
@@ -152,8 +156,13 @@ public class CodeList extends SvCore implements ISvCodeList {
 	public HashMap<Long, String> getCodeListId(String languageId, Long codeListObjectId, boolean traslateLabels) {
 		String langId = languageId != null ? languageId : SvConf.getDefaultLocale();
 
+		SvCodeListSnapshot snapshot = getSnapshot(codeListObjectId);
+		if (snapshot != null)
+			return new HashMap<Long, String>(
+					traslateLabels ? snapshot.getTranslation(langId).labelsById : snapshot.getValuesById());
+
 		HashMap<Long, String> catList = new HashMap<Long, String>();
-		DbDataArray object = getCodeListBase(codeListObjectId);
+		DbDataArray object = loadCodeList(codeListObjectId);
 		for (DbDataObject dbo : object.getItems()) {
 			String value = (traslateLabels ? I18n.getText(langId, dbo.getAsString("label_code"))
 					: dbo.getAsString("CODE_VALUE"));
@@ -176,34 +185,62 @@ public class CodeList extends SvCore implements ISvCodeList {
 	 * @return data array containing the code list
 	 */
 	public DbDataArray getCodeListBase(String codeListName) {
-		HashMap<String, Long> lists = null;
-		Long codeListObjectId = 0L;
-		lists = getCodeListValues(Sv.ROOT_CODELIST);
-		// find the crop codes
-		codeListObjectId = lists.get(codeListName);
-
-		SvReader svr = null;
-		DbDataArray object = null;
-		try {
-			svr = new SvReader(this);
-			object = svr.getObjectsByParentId(codeListObjectId, svCONST.OBJECT_TYPE_CODE, null, null, null,
-					"SORT_ORDER");
-		} catch (SvException e) {
-			log4j.error("Error loading the code list " + codeListObjectId + ":" + e.getFormattedMessage());
-		} finally {
-			if (svr != null)
-				svr.release();
-		}
-		return object;
+		return getCodeListBase(getCodeListObjectId(codeListName));
+	}
 
+	/**
+	 * Method to resolve the object id of a code list by its code, from the root
+	 * level of code lists
+	 * 
+	 * @param codeListName The code of the list
+	 * @return The object id of the list or null if there's no such list
+	 */
+	public Long getCodeListObjectId(String codeListName) {
+		SvCodeListSnapshot snapshot = getSnapshot(Sv.ROOT_CODELIST);
+		return snapshot != null ? snapshot.getIdsByValue().get(codeListName)
+				: getCodeListValues(Sv.ROOT_CODELIST).get(codeListName);
 	}
 
 	/**
 	 * Method to return sorted list of codes based on the parent code object Id.
+	 * The codes are read-only copies, to modify a code load it with SvReader.
 	 * 
 	 * @param codeListObjectId the Id of the list
 	 */
 	public DbDataArray getCodeListBase(Long codeListObjectId) {
+		SvCodeListSnapshot snapshot = getSnapshot(codeListObjectId);
+		return snapshot != null ? new DbDataArray(snapshot.getCodes().getItems()) : loadCodeList(codeListObjectId);
+	}
+
+	/**
+	 * Method to get the snapshot of a code list. If the snapshot isn't cached,
+	 * the codes are loaded and a new snapshot is compiled.
+	 * 
+	 * @param codeListObjectId the Id of the list
+	 * @return The snapshot or null if the codes couldn't be loaded
+	 */
+	SvCodeListSnapshot getSnapshot(Long codeListObjectId) {
+		if (codeListObjectId == null)
+			return null;
+		SvCodeListSnapshot snapshot = SvCodeListSnapshot.get(codeListObjectId);
+		if (snapshot == null) {
+			long generation = SvCodeListSnapshot.getGeneration();
+			DbDataArray object = loadCodeList(codeListObjectId);
+			if (object != null) {
+				snapshot = SvCodeListSnapshot.compile(object, generation);
+				SvCodeListSnapshot.put(codeListObjectId, snapshot);
+			}
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Method to load the sorted list of codes from the database
+	 * 
+	 * @param codeListObjectId the Id of the list
+	 * @return The codes of the list or null if they couldn't be loaded
+	 */
+	DbDataArray loadCodeList(Long codeListObjectId) {
 		SvReader svr = null;
 		DbDataArray object = null;
 		try {
@@ -254,8 +291,12 @@ public class CodeList extends SvCore implements ISvCodeList {
 	public HashMap<String, String> getCodeList(String languageId, Long codeListObjectId, Boolean includeLabels) {
 		String langId = languageId != null ? languageId : SvConf.getDefaultLocale();
 
+		SvCodeListSnapshot snapshot = getSnapshot(codeListObjectId);
+		if (snapshot != null && includeLabels)
+			return new HashMap<String, String>(snapshot.getTranslation(langId).labelsByValue);
+
 		HashMap<String, String> catList = new HashMap<String, String>();
-		DbDataArray object = getCodeListBase(codeListObjectId);
+		DbDataArray object = snapshot != null ? snapshot.getCodes() : loadCodeList(codeListObjectId);
 		for (DbDataObject dbo : object.getItems()) {
 			String label = "";
 			if (includeLabels)
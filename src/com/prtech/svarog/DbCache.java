@@ -14,6 +14,7 @@
  *******************************************************************************/
 package com.prtech.svarog;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
@@ -209,7 +210,7 @@ public class DbCache {
 			lExpiry = objectDescriptor.getVal(Sv.CACHE_EXPIRY) == null ? lExpiry
 					: (Long) objectDescriptor.getVal(Sv.CACHE_EXPIRY);
 		}
-		if (!Sv.PERM.equals(cacheType)) {
+		if (!Sv.PERM.equals(cacheType) && !(Sv.PERM + Sv.REPL).equals(cacheType)) {
 			builder = builder.expireAfterAccess(lSize, TimeUnit.MINUTES);
 			builder = builder.maximumSize(lExpiry);
 		}
@@ -405,6 +406,30 @@ public class DbCache {
 			tbl.removeObject(objectId, key);
 	}
 
+	/**
+	 * Method to check if the cache of an object type is replicated to the other
+	 * cluster nodes
+	 * 
+	 * @param objectType Type Id of the objects
+	 * @return True if the cache_type of the object type has the _REPL suffix
+	 */
+	static boolean isReplicated(Long objectType) {
+		DbCacheTable tbl = cacheStorage.get(objectType);
+		return tbl != null && tbl.isReplicated();
+	}
+
+	/**
+	 * Method for removing a batch of objects of the same type from the cache
+	 * 
+	 * @param objectIds  Ids of the objects to be removed
+	 * @param objectType Type Id of the objects to be removed
+	 */
+	static void removeObjects(Collection<Long> objectIds, Long objectType) {
+		DbCacheTable tbl = cacheStorage.get(objectType);
+		if (tbl != null)
+			tbl.removeObjects(objectIds);
+	}
+
 	/**
 	 * Method for removing supporting object information such as parent/child
 	 * relationships which are cached
@@ -461,5 +486,6 @@ public class DbCache {
 	static void clean() {
 		cacheStorage.clear();
 		initCache();
+		SvSqlCache.invalidateAll();
 	}
 }
@@ -16,9 +16,13 @@ package com.prtech.svarog;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
@@ -65,6 +69,12 @@ public class DbCacheTable {
 	private Cache<String, ConcurrentHashMap<String, CopyOnWriteArrayList<Long>>> objLinkedIdCache = null;
 
 	private Cache<String, Long> objHistoryDateCache = null;
+
+	/**
+	 * Flag if the new versions of the objects are replicated to the other
+	 * cluster nodes instead of invalidated
+	 */
+	private boolean replicated = false;
 	// when the cache is evicting records we need to remove the object support
 	// in form of
 	// unique maps and parent lists
@@ -82,6 +92,10 @@ public class DbCacheTable {
 		if (objectdDescriptor != null) {
 			if (objectdDescriptor.getVal("cache_type") != null)
 				cType = (String) objectdDescriptor.getVal("cache_type");
+			if (cType.endsWith(Sv.REPL)) {
+				replicated = true;
+				cType = cType.substring(0, cType.length() - Sv.REPL.length());
+			}
 
 			if (cType.equals("LRU") || cType.equals("LRU_TTL")) {
 				if (objectdDescriptor.getVal("cache_size") != null)
@@ -540,6 +554,31 @@ public class DbCacheTable {
 
 	}
 
+	/**
+	 * Method for removing a batch of objects with one bulk invalidation of the
+	 * object cache. The supporting information of each removed object is
+	 * removed as by {@link #removeObject(Long, String)}, once per parent.
+	 * 
+	 * Same as with a single object, the parent of an object which isn't cached
+	 * is unknown, so its parent list is kept until it expires.
+	 * 
+	 * @param objectIds The ids of the objects to be removed
+	 */
+	void removeObjects(Collection<Long> objectIds) {
+		Map<Long, DbDataObject> cached = objCache.getAllPresent(objectIds);
+		if (cached.isEmpty())
+			return;
+		objCache.invalidateAll(cached.keySet());
+		Set<Long> parentIds = new HashSet<Long>();
+		for (DbDataObject dbo : cached.values())
+			if (dbo.getParentId() != null && parentIds.add(dbo.getParentId()))
+				removeObjectSupport(dbo);
+	}
+
+	boolean isReplicated() {
+		return replicated;
+	}
+
 	void removeObjectSupport(DbDataObject dbo) {
 		if (dbo != null) {
 			removeObjectSupport(dbo.getParentId());
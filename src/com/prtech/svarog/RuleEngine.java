@@ -16,6 +16,7 @@ package com.prtech.svarog;
 
 import java.lang.reflect.Array;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -41,6 +42,10 @@ public class RuleEngine extends SvCore {
 	 * for the rule engine
 	 */
 	ISvRuleEngineSave ruleEngineSave = null;
+	/**
+	 * The state persistence used if ruleEngineSave is not set
+	 */
+	private SvRuleEngineSave defaultSave = null;
 
 	/**
 	 * Constructor to create a SvCore inherited object according to a user
@@ -166,20 +171,21 @@ public class RuleEngine extends SvCore {
 	 *            The array holding the action results
 	 * @param params
 	 *            Additional parameters passed to the action
-	 * @param fileData
-	 *            The fileData containing the SQL source code
+	 * @param actionPlan
+	 *            The prepared action holding the parsed SQL source code
 	 * @throws SvException
 	 */
 	private void execSQL(DbDataObject currentAction, DbDataObject obj, DbDataObject execObj, DbDataArray actionResults,
-			Map<Object, Object> params, byte[] fileData) throws SvException {
+			Map<Object, Object> params, SvRulePlan.ActionPlan actionPlan) throws SvException {
 		ActionSQL as = null;
 		try {
 			as = new ActionSQL(this);
 			String calltype = currentAction.getVal("CODE_SUBTYPE").toString();
 			String actionReturn = currentAction.getVal("RETURN_TYPE").toString().toUpperCase();
-			Long rettype = new Long(Class.forName("java.sql.Types").getDeclaredField(actionReturn).getInt(null));
+			Long rettype = Long.valueOf(java.sql.Types.class.getDeclaredField(actionReturn).getInt(null));
 			String className = currentAction.getVal("CLASS_NAME").toString();
-			String sql = new String(fileData, "UTF-8");
+			ActionSQL.SqlTemplate sql = actionPlan.sql != null ? actionPlan.sql
+					: new ActionSQL.SqlTemplate(new String(actionPlan.fileData, "UTF-8"));
 			Object result = as.execute(sql, obj, execObj.getObject_id(), calltype, rettype, className, params, false);
 			addResults(result, actionResults, currentAction.getObject_id());
 		} catch (Exception e) {
@@ -204,19 +210,23 @@ public class RuleEngine extends SvCore {
 	 *            The array holding the action results
 	 * @param params
 	 *            Additional parameters passed to the action
-	 * @param fileData
-	 *            The fileData containing the jar byte code
+	 * @param actionPlan
+	 *            The prepared action holding the resolved method
 	 * @throws SvException
 	 */
 	private void execJAR(DbDataObject currentAction, DbDataObject obj, DbDataObject execObj, DbDataArray actionResults,
-			Map<Object, Object> params, byte[] fileData) throws SvException {
+			Map<Object, Object> params, SvRulePlan.ActionPlan actionPlan) throws SvException {
 		ActionJAR aj = null;
 		try {
 			aj = new ActionJAR(this);
-			String className = currentAction.getVal("CLASS_NAME").toString();
-			String methodName = currentAction.getVal("METHOD_NAME").toString();
-
-			Object result = aj.execute(obj, actionResults, params, className, methodName, currentAction.getObject_id());
+			Object result = null;
+			if (actionPlan.method != null)
+				result = aj.execute(obj, actionResults, params, actionPlan.method, currentAction.getObject_id());
+			else {
+				String className = currentAction.getVal("CLASS_NAME").toString();
+				String methodName = currentAction.getVal("METHOD_NAME").toString();
+				result = aj.execute(obj, actionResults, params, className, methodName, currentAction.getObject_id());
+			}
 			addResults(result, actionResults, currentAction.getObject_id());
 		} catch (Exception e) {
 			if (e instanceof SvException)
@@ -239,22 +249,26 @@ public class RuleEngine extends SvCore {
 	 *            The object over which the action is executed
 	 * @param actionResults
 	 *            The array holding the action results
-	 * @param fileData
-	 *            The fileData containing the java script code
+	 * @param actionPlan
+	 *            The prepared action holding the compiled java script code
 	 * @throws SvException
 	 */
-	private void execJS(DbDataObject currentAction, DbDataObject obj, DbDataArray actionResults, byte[] jsFileData)
-			throws SvException {
+	private void execJS(DbDataObject currentAction, DbDataObject obj, DbDataArray actionResults,
+			SvRulePlan.ActionPlan actionPlan) throws SvException {
 
 		ActionJS ajs = new ActionJS();
 
 		String jsonObj = obj.toJson().toString();
 		String jsonResultsBefore = actionResults.toJson().toString();
 
-		String js;
 		try {
-			js = new String(jsFileData, "UTF-8");
-			String jsonResultsAfter = ajs.execute(js, currentAction.getObject_id(), jsonObj, jsonResultsBefore);
+			String jsonResultsAfter = null;
+			if (actionPlan.script != null)
+				jsonResultsAfter = ajs.execute(actionPlan.script, currentAction.getObject_id(), jsonObj,
+						jsonResultsBefore);
+			else
+				jsonResultsAfter = ajs.execute(new String(actionPlan.fileData, "UTF-8"),
+						currentAction.getObject_id(), jsonObj, jsonResultsBefore);
 
 			// reload action results from JSON
 			Gson gson = new GsonBuilder().create();
@@ -330,7 +344,7 @@ public class RuleEngine extends SvCore {
 			if (actionFiles.getItems().size() < 1) {
 				log4j.warn("Action doesn't have any files attached. Skipping action execution. Action data:"
 						+ currentAction.toJson());
-				fileData = null;
+				return null;
 			}
 			DbDataObject fileObj = actionFiles.getItems().get(0);
 			needFileLoad = !SvClassLoader.isJarLoaded(fileObj.getObject_id().toString());
@@ -363,6 +377,51 @@ public class RuleEngine extends SvCore {
 		return fileData;
 	}
 
+	/**
+	 * Method to get the compiled plan of a rule. If the plan isn't cached for
+	 * the current version of the rule, the actions are loaded, sorted, their
+	 * files fetched and the plan compiled and cached.
+	 * 
+	 * @param svr
+	 *            The reader used to load the actions
+	 * @param ruleObj
+	 *            The rule object
+	 * @return The rule plan or null if the rule has no actions
+	 * @throws SvException
+	 */
+	private SvRulePlan getRulePlan(SvReader svr, DbDataObject ruleObj) throws SvException {
+		SvRulePlan plan = SvRulePlan.get(ruleObj);
+		if (plan == null) {
+			// get rule actions objects from database
+			DbDataArray dbActions = svr.getObjectsByParentId(ruleObj.getObject_id(), svCONST.OBJECT_TYPE_ACTION, null,
+					svCONST.MAX_ACTIONS_PER_RULE, 0);
+			if (dbActions == null || dbActions.getItems().size() < 1)
+				return null;
+			List<DbDataObject> actions = dbActions.getSortedItems("SORT_ORDER");
+			List<byte[]> actionFiles = new ArrayList<>(actions.size());
+			for (DbDataObject currentAction : actions) {
+				if (!currentAction.getVal(SvRulePlan.CODE_TYPE).toString().equals("Executor"))
+					actionFiles.add(getActionFile(currentAction));
+				else
+					actionFiles.add(null);
+			}
+			plan = SvRulePlan.compile(ruleObj, actions, actionFiles);
+		}
+		return plan;
+	}
+
+	/**
+	 * Method to invalidate the cached execution plan of a rule. The plans are
+	 * invalidated automatically when the rule or its actions are saved, but not
+	 * when only the file attached to an action is replaced.
+	 * 
+	 * @param ruleId
+	 *            The id of the rule
+	 */
+	public static void invalidateRulePlan(Long ruleId) {
+		SvRulePlan.invalidate(ruleId);
+	}
+
 	/**
 	 * The main rule execution method.
 	 * 
@@ -385,18 +444,15 @@ public class RuleEngine extends SvCore {
 		SvReader svr = null;
 
 		Boolean success = false;
-		final String CODE_TYPE = "code_type";
 		try {
 			svr = new SvReader(this);
 			DbDataObject ruleObj = svr.getObjectById(rule_id, svCONST.OBJECT_TYPE_RULE, null);
 			if (ruleObj != null) {
 				if (log4j.isDebugEnabled())
 					log4j.trace("Executing rule object= " + ruleObj.toJson().toString());
-				// get rule actions objects from database
-				DbDataArray dbActions = svr.getObjectsByParentId(ruleObj.getObject_id(), svCONST.OBJECT_TYPE_ACTION,
-						null, svCONST.MAX_ACTIONS_PER_RULE, 0);
+				SvRulePlan plan = getRulePlan(svr, ruleObj);
 				// if actions fetched ok, start executing
-				if (dbActions != null && dbActions.getItems().size() > 0) {
+				if (plan != null) {
 					success = true;
 
 					// initiate new rule execution object
@@ -404,31 +460,27 @@ public class RuleEngine extends SvCore {
 					execObj.setObject_type(svCONST.OBJECT_TYPE_EXECUTION);
 					execObj.setParent_id(rule_id);
 					execObj.setVal("OBJ_EXEC_ON", obj.getObject_id());
+					if (ruleEngineSave == null)
+						getDefaultSave().startExecution(svr, execObj, success);
 
 					// Boolean loop = true;
 					String actionType = null;
 
-					for (DbDataObject currentAction : dbActions.getSortedItems("SORT_ORDER")) {
-
-						byte[] fileData = null;
-						if (!currentAction.getVal(CODE_TYPE).toString().equals("Executor")) {
-
-							fileData = getActionFile(currentAction);
-							if (fileData == null) {
-								continue;
-							}
-						}
+					for (SvRulePlan.ActionPlan actionPlan : plan.getActions()) {
+						DbDataObject currentAction = actionPlan.action;
+						if (actionPlan.fileData == null && !actionPlan.codeType.equals("Executor"))
+							continue;
 						try {
 							// execute JavaScript action
-							switch ((String) currentAction.getVal(CODE_TYPE)) {
+							switch (actionPlan.codeType) {
 							case "JavaScript":
-								execJS(currentAction, obj, actionResults, fileData);
+								execJS(currentAction, obj, actionResults, actionPlan);
 								break;
 							case "SQL":
-								execSQL(currentAction, obj, execObj, actionResults, params, fileData);
+								execSQL(currentAction, obj, execObj, actionResults, params, actionPlan);
 								break;
 							case "Java":
-								execJAR(currentAction, obj, execObj, actionResults, params, fileData);
+								execJAR(currentAction, obj, execObj, actionResults, params, actionPlan);
 								break;
 							case "Executor":
 								execExecutor(currentAction, obj, actionResults, params);
@@ -500,6 +552,8 @@ public class RuleEngine extends SvCore {
 			Boolean success) throws SvException {
 		if (ruleEngineSave != null)
 			ruleEngineSave.saveFinalState(parentCore, targetObject, actionResults, success);
+		else
+			getDefaultSave().saveFinalState(parentCore, targetObject, actionResults, success);
 
 	}
 
@@ -508,7 +562,19 @@ public class RuleEngine extends SvCore {
 		if (ruleEngineSave != null)
 			ruleEngineSave.saveCurrentState(parentCore, currentAction, execObj, actionResults, success);
 		else
-			saveCurrentState(execObj, actionResults, success);
+			getDefaultSave().saveCurrentState(parentCore, currentAction, execObj, actionResults, success);
+	}
+
+	/**
+	 * Method to get the state persistence used when no custom ISvRuleEngineSave
+	 * was set. The durability is configured by sys.rule_engine.state_durability
+	 * 
+	 * @return The default rule engine save instance
+	 */
+	private SvRuleEngineSave getDefaultSave() {
+		if (defaultSave == null)
+			defaultSave = new SvRuleEngineSave();
+		return defaultSave;
 	}
 
 	/**
@@ -594,56 +660,6 @@ public class RuleEngine extends SvCore {
 		return resultObj;
 	}
 
-	/**
-	 * Method for saving the current state of the rule execution
-	 * 
-	 * @param execObj
-	 *            The execution descriptor
-	 * @param actionResults
-	 *            The result of executed acctions
-	 * @param success
-	 *            The state of success
-	 * @throws SvException
-	 */
-	private void saveCurrentState(DbDataObject execObj, DbDataArray actionResults, Boolean success) throws SvException {
-
-		SvWriter svw = null;
-
-		try {
-			svw = new SvWriter(this);
-			String currExecutionStatus = execObj.getVal("exec_state") != null ? execObj.getVal("exec_state").toString()
-					: "PASS";
-			for (DbDataObject actionResult : actionResults.getItems()) {
-				String currResult = "";
-				String exec_state = actionResult.getVal("exec_state").toString();
-				if (exec_state.equals("PASS") || exec_state.equals("WARNING"))
-					currResult = "PASS";
-				else
-					currResult = "FAIL";
-
-				if (currExecutionStatus.equals("PASS") && currResult.equals("FAIL"))
-					execObj.setVal("exec_state", "FAIL");
-
-			}
-
-			if (execObj.getIs_dirty() || !execObj.getVal("IS_SUCCESSFUL").equals(success)) {
-				execObj.setVal("IS_SUCCESSFUL", success);
-				svw.saveObject(execObj); // TO DO TRANSACTION
-			}
-
-			for (DbDataObject actionResult : actionResults.getItems()) {
-				if (actionResult.getIs_dirty()) {
-					actionResult.setParent_id(execObj.getObject_id());
-					svw.saveObject(actionResult);
-				}
-			}
-		} finally {
-			if (svw != null)
-				svw.release();
-		}
-
-	}
-
 	public ISvRuleEngineSave getRuleEngineSave() {
 		return ruleEngineSave;
 	}
@@ -193,6 +193,7 @@ public class Sv {
 	public static final String LIMIT_OFFSET = "LIMIT_OFFSET";
 	public static final String OFFSET = "{OFFSET}";
 	public static final String LIMIT = "{LIMIT}";
+	public static final String QUESTION_MARK = "?";
 	public static final String OR = "OR";
 	public static final SvCharId USER_NAME = new SvCharId("USER_NAME");
 	public static final SvCharId ACL_CONFIG_UNQ = new SvCharId("acl_config_unq");
@@ -226,6 +227,7 @@ public class Sv {
 	public static final String SDI_SYSTEM_BOUNDARY = "SDI_SYSTEM_BOUNDARY";
 	public static final String ENVELOPE = "ENVELOPE";
 	public static final String PERM = "PERM";
+	public static final String REPL = "_REPL";
 	public static final String GEOM = "GEOM";
 	public static final String PARAM_TYPE = "PARAM_TYPE";
 	public static final String SDI_SPIKE_MAX_ANGLE = "SDI_SPIKE_MAX_ANGLE";
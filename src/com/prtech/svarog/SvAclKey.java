@@ -36,7 +36,7 @@ public class SvAclKey {
 		else
 			this.objectTypeId = dboAcl.getObject_type();
 
-		hash = (Long.toString(objectId) + "-" + Long.toString(objectTypeId)).hashCode();
+		hash = 31 * Long.hashCode(objectId) + Long.hashCode(objectTypeId);
 	}
 
 	public long getObjectId() {
@@ -63,8 +63,8 @@ public class SvAclKey {
 		if (!(obj instanceof SvAclKey)) {
 			return false;
 		}
-		return (Long.toString(objectId) + "-" + Long.toString(objectTypeId)).equals(
-				Long.toString(((SvAclKey) obj).objectId) + "-" + Long.toString(((SvAclKey) obj).objectTypeId));
+		SvAclKey other = (SvAclKey) obj;
+		return objectId == other.objectId && objectTypeId == other.objectTypeId;
 	}
 
 }
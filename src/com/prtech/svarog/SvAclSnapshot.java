@@ -0,0 +1,260 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *
+ *******************************************************************************/
+package com.prtech.svarog;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.prtech.svarog.SvCore.SvAccess;
+import com.prtech.svarog_common.DbDataArray;
+import com.prtech.svarog_common.DbDataObject;
+import com.prtech.svarog_common.DboFactory;
+
+/**
+ * Immutable, compiled set of the access control lists (ACLs) granted to a user,
+ * either directly or via the user groups. The snapshot is shared by all SvCore
+ * instances running under the same user, so the permission checks don't load
+ * or copy the ACLs per instance. The ACLs are indexed by object type and
+ * config unique id, keeping only the highest access per pair.
+ * 
+ * The snapshots are invalidated when ACL, SID_ACL or user group objects are
+ * changed (locally or via cluster dirty notifications), when the user group
+ * membership of a user changes and when the user logs off.
+ * 
+ * @author ristepejov
+ *
+ */
+public final class SvAclSnapshot {
+
+	/**
+	 * Cache of snapshots per user object id. Sized the same as the default
+	 * LRU_TTL svarog cache. The snapshots expire after write, so a missed
+	 * invalidation is bounded even for an active user.
+	 */
+	private static final Cache<Long, SvAclSnapshot> snapshots = CacheBuilder.newBuilder().maximumSize(5000)
+			.expireAfterWrite(10, TimeUnit.MINUTES).<Long, SvAclSnapshot>build();
+
+	/**
+	 * Generation of the security configuration, increased on each invalidation.
+	 * Snapshots compiled in a generation older than the last invalidation of
+	 * all users or of the specific user are discarded, so a snapshot compiled
+	 * while the security objects were changed is never used.
+	 */
+	private static final AtomicLong generation = new AtomicLong();
+
+	/**
+	 * The generation of the last invalidation of all users
+	 */
+	private static final AtomicLong invalidatedAll = new AtomicLong();
+
+	/**
+	 * The generation of the last invalidation per user object id, newer than
+	 * the last invalidation of all users
+	 */
+	private static final ConcurrentHashMap<Long, Long> invalidatedUsers = new ConcurrentHashMap<Long, Long>();
+
+	private final long snapshotGeneration;
+	private final Map<SvAclKey, Map<String, DbDataObject>> acls;
+	private final Map<String, DbDataObject> aclsByLabel;
+
+	private SvAclSnapshot(long snapshotGeneration, Map<SvAclKey, Map<String, DbDataObject>> acls,
+			Map<String, DbDataObject> aclsByLabel) {
+		this.snapshotGeneration = snapshotGeneration;
+		this.acls = acls;
+		this.aclsByLabel = aclsByLabel;
+	}
+
+	/**
+	 * Method to compile a snapshot from the list of ACLs granted to a user. If
+	 * the same object type and config unique id is granted multiple times, the
+	 * ACL with the highest access is kept.
+	 * 
+	 * @param permissions    The list of ACL objects
+	 * @param fromGeneration The generation returned by getGeneration before the
+	 *                       ACLs were loaded
+	 * @return The compiled snapshot
+	 */
+	static SvAclSnapshot compile(DbDataArray permissions, long fromGeneration) {
+		HashMap<SvAclKey, Map<String, DbDataObject>> acls = new HashMap<SvAclKey, Map<String, DbDataObject>>();
+		HashMap<String, DbDataObject> aclsByLabel = new HashMap<String, DbDataObject>();
+		for (DbDataObject dboAcl : permissions.getItems()) {
+			if (!dboAcl.getObjectType().equals(svCONST.OBJECT_TYPE_ACL))
+				continue;
+			// make sure the ACL is read-only since it is shared
+			DboFactory.makeDboReadOnly(dboAcl);
+			SvAclKey key = new SvAclKey(dboAcl);
+			Map<String, DbDataObject> pMap = acls.get(key);
+			if (pMap == null) {
+				pMap = new HashMap<String, DbDataObject>();
+				acls.put(key, pMap);
+			}
+			String unqConfig = (String) dboAcl.getVal(Sv.ACL_CONFIG_UNQ);
+			DbDataObject dbo = pMap.get(unqConfig);
+			if (dbo == null || ((SvAccess) dbo.getVal(Sv.ACCESS_TYPE))
+					.compareTo((SvAccess) dboAcl.getVal(Sv.ACCESS_TYPE)) < 0)
+				pMap.put(unqConfig, dboAcl);
+			aclsByLabel.put((String) dboAcl.getVal(Sv.LABEL_CODE), dboAcl);
+		}
+		for (Entry<SvAclKey, Map<String, DbDataObject>> entry : acls.entrySet())
+			entry.setValue(Collections.unmodifiableMap(entry.getValue()));
+		return new SvAclSnapshot(fromGeneration, Collections.unmodifiableMap(acls),
+				Collections.unmodifiableMap(aclsByLabel));
+	}
+
+	/**
+	 * Method to get the current snapshot of a user
+	 * 
+	 * @param userId The object id of the user
+	 * @return The snapshot or null if it isn't compiled or is stale
+	 */
+	static SvAclSnapshot get(Long userId) {
+		SvAclSnapshot snapshot = snapshots.getIfPresent(userId);
+		if (snapshot != null && isStale(userId, snapshot)) {
+			snapshots.invalidate(userId);
+			snapshot = null;
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Method to publish the compiled snapshot of a user. The snapshot is not
+	 * published if the security configuration changed while it was compiled.
+	 * 
+	 * @param userId   The object id of the user
+	 * @param snapshot The compiled snapshot
+	 */
+	static void put(Long userId, SvAclSnapshot snapshot) {
+		if (!isStale(userId, snapshot))
+			snapshots.put(userId, snapshot);
+	}
+
+	/**
+	 * Method to check if the snapshot was compiled before the last invalidation
+	 * of the user
+	 * 
+	 * @param userId   The object id of the user
+	 * @param snapshot The compiled snapshot
+	 * @return True if the snapshot can't be used
+	 */
+	private static boolean isStale(Long userId, SvAclSnapshot snapshot) {
+		if (snapshot.snapshotGeneration < invalidatedAll.get())
+			return true;
+		Long invalidated = invalidatedUsers.get(userId);
+		return invalidated != null && snapshot.snapshotGeneration < invalidated;
+	}
+
+	/**
+	 * @return The current generation of the security configuration
+	 */
+	static long getGeneration() {
+		return generation.get();
+	}
+
+	/**
+	 * Method to invalidate the snapshot of a single user
+	 * 
+	 * @param userId The object id of the user
+	 */
+	static void invalidate(Long userId) {
+		if (userId == null)
+			return;
+		invalidatedUsers.merge(userId, generation.incrementAndGet(), Math::max);
+		snapshots.invalidate(userId);
+	}
+
+	/**
+	 * Method to invalidate the snapshots of all users
+	 */
+	static void invalidateAll() {
+		long current = generation.incrementAndGet();
+		invalidatedAll.accumulateAndGet(current, Math::max);
+		// the per user invalidations up to now are covered by this one
+		invalidatedUsers.values().removeIf(invalidated -> invalidated <= current);
+		snapshots.invalidateAll();
+	}
+
+	/**
+	 * Method to check if a change of an object of the specific type changes the
+	 * granted permissions
+	 * 
+	 * @param objectType The object type id
+	 * @return True if the type is ACL, SID_ACL or user group
+	 */
+	static boolean isSecurityType(Long objectType) {
+		return objectType != null && (objectType.equals(svCONST.OBJECT_TYPE_ACL)
+				|| objectType.equals(svCONST.OBJECT_TYPE_SID_ACL) || objectType.equals(svCONST.OBJECT_TYPE_GROUP));
+	}
+
+	/**
+	 * Method to get the ACLs granted over an object (type)
+	 * 
+	 * @param key The ACL key of the object
+	 * @return Read-only map of ACLs by config unique id, or null if there are
+	 *         none
+	 */
+	public Map<String, DbDataObject> getAcls(SvAclKey key) {
+		return acls.get(key);
+	}
+
+	/**
+	 * Method to check if the snapshot grants the required access over an object
+	 * (type) and config unique id
+	 * 
+	 * @param key         The ACL key of the object
+	 * @param unqConfigId The config unique id, null for access over the whole
+	 *                    type
+	 * @param accessLevel The required access level
+	 * @return True if the access is granted
+	 */
+	public boolean hasAccess(SvAclKey key, String unqConfigId, SvAccess accessLevel) {
+		Map<String, DbDataObject> aclMap = acls.get(key);
+		if (aclMap == null)
+			return false;
+		DbDataObject acl = aclMap.get(unqConfigId);
+		return acl != null && ((SvAccess) acl.getVal(Sv.ACCESS_TYPE)).getAccessLevelValue() >= accessLevel
+				.getAccessLevelValue();
+	}
+
+	/**
+	 * Method to get an ACL by its label code
+	 * 
+	 * @param labelCode The label code of the ACL
+	 * @return The ACL or null if it isn't granted
+	 */
+	public DbDataObject getAclByLabel(String labelCode) {
+		return aclsByLabel.get(labelCode);
+	}
+
+	/**
+	 * @return Read-only map of all ACLs by object key and config unique id
+	 */
+	public Map<SvAclKey, Map<String, DbDataObject>> getAcls() {
+		return acls;
+	}
+
+	/**
+	 * @return Read-only map of all ACLs by label code
+	 */
+	public Map<String, DbDataObject> getAclsByLabel() {
+		return aclsByLabel;
+	}
+}
@@ -0,0 +1,260 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *
+ *******************************************************************************/
+package com.prtech.svarog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import com.prtech.svarog_common.DbDataArray;
+import com.prtech.svarog_common.DbDataObject;
+import com.prtech.svarog_common.DbQueryObject;
+
+/**
+ * Description of an aggregate query, executed by
+ * {@link SvReader#getAggregates}. The aggregate functions are computed by the
+ * database with GROUP BY, so only one row per group is returned instead of all
+ * objects matching the search.
+ *
+ * Example: count the objects and sum the AREA per STATUS
+ *
+ * <pre>
+ * new SvAggregate().groupBy("STATUS").count("CNT").sum("AREA", "TOTAL_AREA")
+ * </pre>
+ *
+ * @author ristepejov
+ *
+ */
+public class SvAggregate {
+
+	/**
+	 * The aggregate functions supported by all databases
+	 */
+	public enum AggregateFunction {
+		SUM, COUNT, MIN, MAX, AVG
+	}
+
+	/**
+	 * The table prefix of the source query, its columns are named
+	 * PREFIX_FIELD_NAME
+	 */
+	static final String PREFIX = "AGG";
+	private static final String SOURCE_ALIAS = "AGG_SRC";
+	private static final Pattern NAME_PATTERN = Pattern.compile("[A-Z][A-Z0-9_]*");
+
+	private final List<String> groupByFields = new ArrayList<String>();
+	private final List<AggregateFunction> functions = new ArrayList<AggregateFunction>();
+	private final List<String> fieldNames = new ArrayList<String>();
+	private final List<String> aliases = new ArrayList<String>();
+
+	/**
+	 * Method to add a field to the GROUP BY clause. The value of the field is
+	 * returned in each aggregate row under the field name.
+	 *
+	 * @param fieldName The name of the field
+	 * @return This aggregate, for chaining
+	 * @throws SvException If the field name or alias is already used
+	 */
+	public SvAggregate groupBy(String fieldName) throws SvException {
+		String name = checkName(fieldName);
+		groupByFields.add(name);
+		return this;
+	}
+
+	/**
+	 * Method to add an aggregate value to the query
+	 *
+	 * @param function  The aggregate function
+	 * @param fieldName The field to aggregate, null to count the objects
+	 * @param alias     The name under which the value is returned in the
+	 *                  aggregate rows
+	 * @return This aggregate, for chaining
+	 * @throws SvException If the alias is not a valid name or is already used
+	 */
+	public SvAggregate add(AggregateFunction function, String fieldName, String alias) throws SvException {
+		if (function == null || (fieldName == null && !function.equals(AggregateFunction.COUNT)))
+			throw (new SvException("system.error.aggregate_field_err", svCONST.systemUser, null, fieldName));
+		String name = checkName(alias);
+		functions.add(function);
+		fieldNames.add(fieldName != null ? fieldName.trim().toUpperCase() : null);
+		aliases.add(name);
+		return this;
+	}
+
+	/**
+	 * Method to add the number of objects per group
+	 *
+	 * @param alias The name of the count in the aggregate rows
+	 * @return This aggregate, for chaining
+	 * @throws SvException If the alias is not a valid name or is already used
+	 */
+	public SvAggregate count(String alias) throws SvException {
+		return add(AggregateFunction.COUNT, null, alias);
+	}
+
+	/**
+	 * Method to add the sum of a field per group
+	 *
+	 * @param fieldName The field to aggregate
+	 * @param alias     The name of the value in the aggregate rows
+	 * @return This aggregate, for chaining
+	 * @throws SvException If the alias is not a valid name or is already used
+	 */
+	public SvAggregate sum(String fieldName, String alias) throws SvException {
+		return add(AggregateFunction.SUM, fieldName, alias);
+	}
+
+	/**
+	 * Method to add the minimum of a field per group
+	 *
+	 * @param fieldName The field to aggregate
+	 * @param alias     The name of the value in the aggregate rows
+	 * @return This aggregate, for chaining
+	 * @throws SvException If the alias is not a valid name or is already used
+	 */
+	public SvAggregate min(String fieldName, String alias) throws SvException {
+		return add(AggregateFunction.MIN, fieldName, alias);
+	}
+
+	/**
+	 * Method to add the maximum of a field per group
+	 *
+	 * @param fieldName The field to aggregate
+	 * @param alias     The name of the value in the aggregate rows
+	 * @return This aggregate, for chaining
+	 * @throws SvException If the alias is not a valid name or is already used
+	 */
+	public SvAggregate max(String fieldName, String alias) throws SvException {
+		return add(AggregateFunction.MAX, fieldName, alias);
+	}
+
+	/**
+	 * Method to add the average of a field per group
+	 *
+	 * @param fieldName The field to aggregate
+	 * @param alias     The name of the value in the aggregate rows
+	 * @return This aggregate, for chaining
+	 * @throws SvException If the alias is not a valid name or is already used
+	 */
+	public SvAggregate avg(String fieldName, String alias) throws SvException {
+		return add(AggregateFunction.AVG, fieldName, alias);
+	}
+
+	public List<String> getGroupByFields() {
+		return Collections.unmodifiableList(groupByFields);
+	}
+
+	public List<String> getAliases() {
+		return Collections.unmodifiableList(aliases);
+	}
+
+	/**
+	 * Method to verify the name of a group by field or an alias. The names are
+	 * used in the generated SQL, so only plain column names are allowed.
+	 *
+	 * @param name The name to verify
+	 * @return The upper case name
+	 * @throws SvException If the name isn't valid or already used
+	 */
+	private String checkName(String name) throws SvException {
+		String upperName = name != null ? name.trim().toUpperCase() : null;
+		if (upperName == null || !NAME_PATTERN.matcher(upperName).matches() || groupByFields.contains(upperName)
+				|| aliases.contains(upperName))
+			throw (new SvException("system.error.aggregate_alias_err", svCONST.systemUser, null, name));
+		return upperName;
+	}
+
+	/**
+	 * @return The fields which the source query must return
+	 */
+	ArrayList<String> getSourceFields() {
+		ArrayList<String> sourceFields = new ArrayList<String>();
+		sourceFields.add(Sv.OBJECT_ID);
+		for (String fieldName : groupByFields)
+			if (!sourceFields.contains(fieldName))
+				sourceFields.add(fieldName);
+		for (String fieldName : fieldNames)
+			if (fieldName != null && !sourceFields.contains(fieldName))
+				sourceFields.add(fieldName);
+		return sourceFields;
+	}
+
+	/**
+	 * Method to verify that the aggregated fields exist in the object type of
+	 * the query and can be aggregated
+	 *
+	 * @param query The source query
+	 * @return The field descriptors of the group by fields, in the order of the
+	 *         GROUP BY clause
+	 * @throws SvException If there are no aggregate values, or a field doesn't
+	 *                     exist or is a geometry
+	 */
+	DbDataObject[] getGroupByDescriptors(DbQueryObject query) throws SvException {
+		if (aliases.isEmpty())
+			throw (new SvException("system.error.aggregate_field_err", svCONST.systemUser, query.getDbt(), null));
+		for (String fieldName : getSourceFields()) {
+			DbDataObject field = getField(query, fieldName);
+			if (field == null || Sv.GEOMETRY.equals(field.getVal(Sv.FIELD_TYPE)))
+				throw (new SvException("system.error.aggregate_field_err", svCONST.systemUser, query.getDbt(),
+						fieldName));
+		}
+		DbDataObject[] descriptors = new DbDataObject[groupByFields.size()];
+		for (int i = 0; i < descriptors.length; i++)
+			descriptors[i] = getField(query, groupByFields.get(i));
+		return descriptors;
+	}
+
+	private static DbDataObject getField(DbQueryObject query, String fieldName) {
+		for (DbDataArray fields : new DbDataArray[] { query.getRepoFields(), query.getDbt_fields() })
+			if (fields != null)
+				for (DbDataObject field : fields.getItems())
+					if (fieldName.equals(field.getVal(Sv.FIELD_NAME)))
+						return field;
+		return null;
+	}
+
+	/**
+	 * Method to generate the aggregate SQL over the source query. The source
+	 * query carries the search criteria, the reference date and the ACL
+	 * restrictions, while the aggregate query only groups its rows.
+	 *
+	 * @param sourceSql The SQL of the source query
+	 * @return The aggregate SQL, returning the group by fields followed by the
+	 *         aggregate values
+	 */
+	String getSQL(String sourceSql) {
+		StringBuilder groupBy = new StringBuilder();
+		for (String fieldName : groupByFields)
+			groupBy.append(',').append(PREFIX).append('_').append(fieldName);
+		StringBuilder sql = new StringBuilder(sourceSql.length() + 200);
+		sql.append("SELECT ");
+		if (groupBy.length() > 0)
+			sql.append(groupBy.substring(1)).append(',');
+		for (int i = 0; i < aliases.size(); i++) {
+			sql.append(functions.get(i).name()).append('(');
+			if (fieldNames.get(i) != null)
+				sql.append(PREFIX).append('_').append(fieldNames.get(i));
+			else
+				sql.append('*');
+			sql.append(") ").append(aliases.get(i)).append(',');
+		}
+		sql.setLength(sql.length() - 1);
+		sql.append(" FROM (").append(sourceSql).append(") ").append(SOURCE_ALIAS);
+		if (groupBy.length() > 0)
+			sql.append(" GROUP BY ").append(groupBy.substring(1)).append(" ORDER BY ").append(groupBy.substring(1));
+		return sql.toString();
+	}
+}
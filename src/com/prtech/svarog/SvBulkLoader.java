@@ -0,0 +1,445 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *
+ *******************************************************************************/
+package com.prtech.svarog;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.Logger;
+
+import com.prtech.svarog_common.DbDataArray;
+import com.prtech.svarog_common.DbDataObject;
+
+/**
+ * Parallel bulk loader saving a stream of objects over multiple SvWriter
+ * connections. The objects are partitioned by object type (and by new/updated
+ * objects) into batches, which are fed into a bounded queue. Each writer runs
+ * in its own thread and takes the next batch as soon as it is done with the
+ * previous one, so no writer idles while there is work in the queue. When the
+ * queue is full the producer blocks, which keeps the memory bound on large
+ * migrations.
+ *
+ * The load is finished with a two phase commit over all writers. The first
+ * phase waits for all writers to flush their batches and verifies that none of
+ * them failed and all connections are valid. The second phase commits all
+ * writers. If any writer failed, all writers are rolled back. If a commit
+ * interval is configured, the writers commit periodically during the load and
+ * only the work since the last commit is rolled back on failure.
+ *
+ * @author ristepejov
+ *
+ */
+public class SvBulkLoader implements java.lang.AutoCloseable {
+	/**
+	 * Log4j instance used for logging
+	 */
+	private static final Logger log4j = SvConf.getLogger(SvBulkLoader.class);
+
+	/**
+	 * Marker batch used to signal the writer threads that there's no more work
+	 */
+	private static final DbDataArray END_OF_WORK = new DbDataArray();
+
+	private final List<SvWriter> writers;
+	private final AtomicBoolean isLoading = new AtomicBoolean(false);
+	private final AtomicReference<SvException> failure = new AtomicReference<>();
+	private BlockingQueue<DbDataArray> queue;
+
+	/**
+	 * Number of objects per batch
+	 */
+	private int batchSize = SvConf.getJDBCBatchSize();
+	/**
+	 * Max number of batches waiting in the queue
+	 */
+	private int queueCapacity;
+	/**
+	 * Default number of objects of a partition after which the writer commits. If
+	 * 0, the writers commit only at the end of the load
+	 */
+	private int commitInterval = 0;
+	/**
+	 * Commit intervals per object type
+	 */
+	private final HashMap<Long, Integer> typeCommitIntervals = new HashMap<>();
+	/**
+	 * Number of saved objects after which the progress is logged. If 0 the
+	 * progress isn't logged
+	 */
+	private long progressInterval = 0;
+
+	private final AtomicLong submittedCount = new AtomicLong();
+	private final AtomicLong savedCount = new AtomicLong();
+	private final AtomicLong committedCount = new AtomicLong();
+	private final AtomicLong batchCount = new AtomicLong();
+	private volatile long startTime = 0;
+	private volatile long endTime = 0;
+
+	/**
+	 * Writer thread which takes batches from the queue until it receives the
+	 * END_OF_WORK marker
+	 */
+	private class LoaderThread implements Runnable {
+		final SvWriter writer;
+		final HashMap<Long, Long> uncommittedByType = new HashMap<>();
+		long uncommitted = 0;
+
+		LoaderThread(SvWriter writer) {
+			this.writer = writer;
+		}
+
+		@Override
+		public void run() {
+			try {
+				DbDataArray batch;
+				while ((batch = queue.take()) != END_OF_WORK) {
+					// after a failure, drain the queue without saving
+					if (failure.get() == null)
+						saveBatch(batch);
+				}
+			} catch (InterruptedException e) {
+				failure.compareAndSet(null, new SvException("system.err.thread_interrupted", writer.instanceUser, e));
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		private void saveBatch(DbDataArray batch) {
+			try {
+				writer.saveObject(batch, true, false);
+				batchCount.incrementAndGet();
+				long saved = savedCount.addAndGet(batch.size());
+				uncommitted += batch.size();
+				Long objectType = batch.get(0).getObjectType();
+				Long typeCount = uncommittedByType.getOrDefault(objectType, 0L) + batch.size();
+				uncommittedByType.put(objectType, typeCount);
+				int interval = getCommitInterval(objectType);
+				if (interval > 0 && typeCount >= interval) {
+					writer.dbCommit();
+					committedCount.addAndGet(uncommitted);
+					uncommitted = 0;
+					uncommittedByType.clear();
+				}
+				if (progressInterval > 0 && saved / progressInterval != (saved - batch.size()) / progressInterval)
+					log4j.info("Bulk load progress, saved:" + saved + ", submitted:" + submittedCount.get()
+							+ ", objects/sec:" + (long) getThroughput());
+			} catch (SvException e) {
+				failure.compareAndSet(null, e);
+			} catch (RuntimeException e) {
+				failure.compareAndSet(null, new SvException("system.err.bulk_load_failed", writer.instanceUser, e));
+			}
+		}
+	}
+
+	/**
+	 * Constructor of the bulk loader. It will accept a list of writers, each of
+	 * them used by a separate thread.
+	 *
+	 * @param writers List of SvWriters. Each of the writers must be standalone
+	 *                (i.e. can't be shared)
+	 * @throws SvException If any of the writers in the list has a valid parent
+	 *                     core, "system.err.sv_core_is_shared" exception will be
+	 *                     thrown
+	 */
+	public SvBulkLoader(List<SvWriter> writers) throws SvException {
+		if (writers == null || writers.isEmpty())
+			throw (new SvException("system.err.no_writers", svCONST.systemUser));
+		for (SvWriter svw : writers) {
+			if (svw.getParentSvCore() != null)
+				throw (new SvException("system.err.sv_core_is_shared", svw.instanceUser));
+			svw.setAutoCommit(false);
+		}
+		this.writers = new ArrayList<>(writers);
+		this.queueCapacity = writers.size() * 4;
+	}
+
+	/**
+	 * Method to load a stream of objects. The stream is consumed in the calling
+	 * thread, which blocks if the writers can't keep up.
+	 *
+	 * @param objects The stream of objects to be saved
+	 * @return The number of saved objects
+	 * @throws SvException          The first exception raised by any of the
+	 *                              writers. All writers are rolled back
+	 * @throws InterruptedException If the calling thread was interrupted
+	 */
+	public long load(Stream<DbDataObject> objects) throws SvException, InterruptedException {
+		return load(objects.iterator());
+	}
+
+	/**
+	 * Method to load objects from an iterator. The iterator is consumed in the
+	 * calling thread, which blocks if the writers can't keep up.
+	 *
+	 * @param objects The iterator over the objects to be saved
+	 * @return The number of saved objects
+	 * @throws SvException          The first exception raised by any of the
+	 *                              writers. All writers are rolled back
+	 * @throws InterruptedException If the calling thread was interrupted
+	 */
+	public long load(Iterator<DbDataObject> objects) throws SvException, InterruptedException {
+		if (!isLoading.compareAndSet(false, true))
+			throw (new SvException("system.err.writer_busy", svCONST.systemUser));
+		try {
+			resetMetrics();
+			queue = new ArrayBlockingQueue<>(queueCapacity);
+			List<Thread> threads = new ArrayList<>(writers.size());
+			for (int i = 0; i < writers.size(); i++) {
+				Thread t = new Thread(new LoaderThread(writers.get(i)), "SvBulkLoader-" + i);
+				threads.add(t);
+				t.start();
+			}
+			try {
+				partition(objects);
+			} catch (InterruptedException e) {
+				failure.compareAndSet(null, new SvException("system.err.thread_interrupted", svCONST.systemUser, e));
+			} catch (RuntimeException e) {
+				// the source of the objects failed, roll back what was saved
+				failure.compareAndSet(null, new SvException("system.err.bulk_load_failed", svCONST.systemUser, e));
+			} finally {
+				for (int i = 0; i < threads.size(); i++)
+					queue.put(END_OF_WORK);
+				for (Thread t : threads)
+					t.join();
+				endTime = System.currentTimeMillis();
+			}
+			finish();
+			if (log4j.isDebugEnabled())
+				log4j.debug("Bulk load finished, saved:" + savedCount.get() + ", batches:" + batchCount.get()
+						+ ", objects/sec:" + (long) getThroughput());
+			return savedCount.get();
+		} finally {
+			isLoading.set(false);
+		}
+	}
+
+	/**
+	 * Method to split the objects in batches per partition and feed them into
+	 * the queue. It stops as soon as any of the writers fails.
+	 */
+	private void partition(Iterator<DbDataObject> objects) throws InterruptedException {
+		LinkedHashMap<String, DbDataArray> partitions = new LinkedHashMap<>();
+		while (objects.hasNext() && failure.get() == null) {
+			DbDataObject dbo = objects.next();
+			// new and updated objects can't share a batch
+			String key = dbo.getObjectType() + (dbo.getPkid() != 0L ? "U" : "N");
+			DbDataArray partition = partitions.get(key);
+			if (partition == null) {
+				partition = new DbDataArray();
+				partitions.put(key, partition);
+			}
+			partition.addDataItem(dbo);
+			submittedCount.incrementAndGet();
+			if (partition.size() >= batchSize) {
+				queue.put(partition);
+				partitions.remove(key);
+			}
+		}
+		for (DbDataArray partition : partitions.values())
+			if (failure.get() == null)
+				queue.put(partition);
+	}
+
+	/**
+	 * Method to finish the load with two phase commit. If any of the writers
+	 * failed or doesn't have a valid connection, all writers are rolled back.
+	 */
+	private void finish() throws SvException {
+		// phase one, all writers flushed their batches
+		SvException ex = failure.get();
+		if (ex == null && savedCount.get() != submittedCount.get())
+			ex = new SvException("system.err.bulk_load_failed", svCONST.systemUser);
+		if (ex == null)
+			ex = prepare();
+		if (ex != null) {
+			rollbackAll();
+			throw (ex);
+		}
+		// phase two, commit all
+		long uncommitted = savedCount.get() - committedCount.get();
+		for (int i = 0; i < writers.size(); i++) {
+			try {
+				writers.get(i).dbCommit();
+			} catch (SvException e) {
+				log4j.error("Bulk load commit failed after " + i + " of " + writers.size()
+						+ " writers were committed, rolling back the rest", e);
+				for (int j = i + 1; j < writers.size(); j++)
+					rollback(writers.get(j));
+				throw (e);
+			}
+		}
+		committedCount.addAndGet(uncommitted);
+	}
+
+	private SvException prepare() {
+		for (SvWriter svw : writers) {
+			try {
+				if (!svw.dbGetConn().isValid(5))
+					return new SvException("system.err.bulk_load_failed", svw.instanceUser);
+			} catch (SvException e) {
+				return e;
+			} catch (SQLException e) {
+				return new SvException("system.err.bulk_load_failed", svw.instanceUser, e);
+			}
+		}
+		return null;
+	}
+
+	private void rollbackAll() {
+		for (SvWriter svw : writers)
+			rollback(svw);
+	}
+
+	private void rollback(SvWriter svw) {
+		try {
+			svw.dbRollback();
+		} catch (SvException e) {
+			log4j.error("Bulk load writer can't be rolled back", e);
+		}
+	}
+
+	private void resetMetrics() {
+		failure.set(null);
+		submittedCount.set(0);
+		savedCount.set(0);
+		committedCount.set(0);
+		batchCount.set(0);
+		startTime = System.currentTimeMillis();
+		endTime = 0;
+	}
+
+	int getCommitInterval(Long objectType) {
+		Integer interval = typeCommitIntervals.get(objectType);
+		return interval != null ? interval : commitInterval;
+	}
+
+	/**
+	 * @return Number of objects read from the source
+	 */
+	public long getSubmittedCount() {
+		return submittedCount.get();
+	}
+
+	/**
+	 * @return Number of objects saved by the writers
+	 */
+	public long getSavedCount() {
+		return savedCount.get();
+	}
+
+	/**
+	 * @return Number of saved objects which were committed
+	 */
+	public long getCommittedCount() {
+		return committedCount.get();
+	}
+
+	/**
+	 * @return Number of batches saved by the writers
+	 */
+	public long getBatchCount() {
+		return batchCount.get();
+	}
+
+	/**
+	 * @return Milliseconds spent in the current or last load
+	 */
+	public long getElapsedMillis() {
+		if (startTime == 0)
+			return 0;
+		return (endTime != 0 ? endTime : System.currentTimeMillis()) - startTime;
+	}
+
+	/**
+	 * @return Saved objects per second in the current or last load
+	 */
+	public double getThroughput() {
+		long elapsed = getElapsedMillis();
+		return elapsed > 0 ? savedCount.get() * 1000.0 / elapsed : 0;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public void setBatchSize(int batchSize) {
+		this.batchSize = Math.max(1, batchSize);
+	}
+
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	public void setQueueCapacity(int queueCapacity) {
+		this.queueCapacity = Math.max(1, queueCapacity);
+	}
+
+	public int getCommitInterval() {
+		return commitInterval;
+	}
+
+	/**
+	 * Method to set the default commit interval
+	 *
+	 * @param commitInterval Number of objects of a partition after which the
+	 *                       writer commits. If 0, the writers commit only at the
+	 *                       end of the load
+	 */
+	public void setCommitInterval(int commitInterval) {
+		this.commitInterval = Math.max(0, commitInterval);
+	}
+
+	/**
+	 * Method to set the commit interval of a specific object type. The commit
+	 * covers all uncommitted work of the writer, not only the object type
+	 *
+	 * @param objectType     The id of the object type
+	 * @param commitInterval Number of objects of the type after which the writer
+	 *                       commits
+	 */
+	public void setCommitInterval(Long objectType, int commitInterval) {
+		typeCommitIntervals.put(objectType, Math.max(0, commitInterval));
+	}
+
+	public Map<Long, Integer> getTypeCommitIntervals() {
+		return typeCommitIntervals;
+	}
+
+	public long getProgressInterval() {
+		return progressInterval;
+	}
+
+	public void setProgressInterval(long progressInterval) {
+		this.progressInterval = Math.max(0, progressInterval);
+	}
+
+	@Override
+	public void close() throws Exception {
+		if (isLoading.get())
+			throw (new SvException("system.err.writer_busy", svCONST.systemUser));
+		for (SvWriter svw : writers)
+			svw.release();
+	}
+}
@@ -50,6 +50,8 @@ public class SvCluster extends SvCore {
 	static final byte NOTE_LOGOFF = 31;
 	static final byte NOTE_DIRTY_TILE = 32;
 	static final byte NOTE_ACK = 33;
+	static final byte NOTE_DIRTY_BATCH = 34;
+	static final byte NOTE_CACHE_REPLICA = 35;
 
 	static final String JOIN_TIME = "join_time";
 	static final String PART_TIME = "part_time";
@@ -542,6 +544,8 @@ public class SvCluster extends SvCore {
 
 		if (doMaintenance)
 			SvMaintenance.performMaintenance();
+		// publish the dirty objects still waiting in the coalescing window
+		SvClusterDirtyPublisher.flush();
 		// shut down all daemon threads
 		if (isCoordinator)
 			stopServers();
@@ -2,10 +2,15 @@ package com.prtech.svarog;
 
 import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.logging.log4j.Logger;
@@ -19,6 +24,16 @@ import com.google.gson.JsonObject;
 import com.prtech.svarog.SvCluster.DistributedLock;
 import com.prtech.svarog_common.DbDataObject;
 
+/**
+ * Class to implement the client side services of the Svarog Cluster. The
+ * client sends the requests to the coordinator over a pool of ZeroMQ dealer
+ * sockets, so multiple threads can wait for a response from the coordinator at
+ * the same time. Each request carries a correlation id, which allows the
+ * client to discard a late response to a request which already timed out.
+ * 
+ * @author ristepejov
+ *
+ */
 public class SvClusterClient implements Runnable {
 	/**
 	 * Log4j instance used for logging
@@ -46,9 +61,14 @@ public class SvClusterClient implements Runnable {
 	 */
 	static private ZContext context = null;
 	/**
-	 * The heart beat socket
+	 * The pool of heart beat sockets connected to the coordinator
 	 */
-	static ZMQ.Socket hbClientSock = null;
+	static BlockingQueue<ZMQ.Socket> hbClientSocks = null;
+
+	/**
+	 * Sequence of the correlation ids of the requests
+	 */
+	private static final AtomicLong correlationId = new AtomicLong();
 
 	/**
 	 * Flag if the client is running
@@ -113,19 +133,29 @@ public class SvClusterClient implements Runnable {
 		// Socket to talk to clients
 		if (context == null)
 			context = new ZContext();
-		hbClientSock = null;
-		ZMQ.Socket tmpSock = context.createSocket(SocketType.REQ);
+		hbClientSocks = null;
 		String[] address = ipAddressList.split(ipAddrDelimiter);
 		try {
 			for (String host : address) {
+				ZMQ.Socket tmpSock = context.createSocket(SocketType.DEALER);
 				boolean connected = tmpSock.connect("tcp://" + host);
 				if (connected) {
-					hbClientSock = tmpSock;
+					int poolSize = Math.max(SvConf.getClusterClientSockets(), 1);
+					BlockingQueue<ZMQ.Socket> socks = new ArrayBlockingQueue<ZMQ.Socket>(poolSize);
+					tmpSock.setReceiveTimeOut(heartBeatTimeOut);
+					socks.add(tmpSock);
+					for (int i = 1; i < poolSize; i++) {
+						tmpSock = context.createSocket(SocketType.DEALER);
+						tmpSock.connect("tcp://" + host);
+						tmpSock.setReceiveTimeOut(heartBeatTimeOut);
+						socks.add(tmpSock);
+					}
+					hbClientSocks = socks;
 					log4j.info("Heart-beat client connected to host:" + host);
 					lastIpAddressList = ipAddressList;
-					hbClientSock.setReceiveTimeOut(heartBeatTimeOut);
 					break;
-				}
+				} else
+					context.destroySocket(tmpSock);
 			}
 
 			// send joing message
@@ -145,11 +175,76 @@ public class SvClusterClient implements Runnable {
 		if (!isActive.get()) {
 			context.close();
 			context = null;
-			hbClientSock = null;
+			hbClientSocks = null;
 		}
 		return isActive.get();
 	}
 
+	/**
+	 * Method to send a request to the coordinator and wait for the response. The
+	 * request is sent over a socket borrowed from the pool, with an empty
+	 * delimiter frame and the correlation id in front of the message. Responses
+	 * to older requests, which timed out on the same socket, are discarded.
+	 * 
+	 * @param msg The message to be sent
+	 * @return The frames of the response or null if the coordinator didn't
+	 *         respond within the heart beat timeout
+	 * @throws SvException
+	 */
+	static List<byte[]> request(byte[] msg) throws SvException {
+		BlockingQueue<ZMQ.Socket> socks = hbClientSocks;
+		if (socks == null)
+			throw (new SvException(Sv.Exceptions.CLUSTER_INACTIVE, svCONST.systemUser));
+		ZMQ.Socket sock = null;
+		try {
+			sock = socks.poll(heartBeatTimeOut, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (sock == null) {
+			log4j.error("No heart beat socket available within timeout:" + heartBeatTimeOut);
+			return null;
+		}
+		try {
+			long requestId = correlationId.incrementAndGet();
+			byte[] requestIdFrame = ByteBuffer.allocate(SvUtil.sizeof.LONG).putLong(requestId).array();
+			if (!SvCluster.zmqSend(sock, new byte[0], ZMQ.SNDMORE) || !SvCluster.zmqSend(sock, requestIdFrame, ZMQ.SNDMORE)
+					|| !SvCluster.zmqSend(sock, msg, 0)) {
+				log4j.error("Error sending message to coordinator node");
+				return null;
+			}
+			long deadline = System.currentTimeMillis() + heartBeatTimeOut;
+			while (System.currentTimeMillis() < deadline) {
+				// the first frame is the empty delimiter
+				if (SvCluster.zmqRecv(sock, 0) == null)
+					return null;
+				if (!sock.hasReceiveMore())
+					continue;
+				List<byte[]> frames = SvClusterServer.recvMultipart(sock);
+				if (frames != null && frames.size() > 1 && Arrays.equals(frames.get(0), requestIdFrame))
+					return frames.subList(1, frames.size());
+				if (log4j.isDebugEnabled())
+					log4j.debug("Discarding late response from coordinator node");
+			}
+			return null;
+		} finally {
+			socks.offer(sock);
+		}
+	}
+
+	/**
+	 * Method to send a request to the coordinator and wait for a single frame
+	 * response
+	 * 
+	 * @param msg The message to be sent
+	 * @return The response or null if the coordinator didn't respond
+	 * @throws SvException
+	 */
+	static byte[] requestSingle(byte[] msg) throws SvException {
+		List<byte[]> response = request(msg);
+		return response != null ? response.get(0) : null;
+	}
+
 	/**
 	 * Override to have default shutdown
 	 */
@@ -162,24 +257,20 @@ public class SvClusterClient implements Runnable {
 	 * waiting for response
 	 */
 	static void partCluster() {
-		synchronized (hbClientSock) {
-			try {
-				ByteBuffer partBuffer = ByteBuffer.allocate(SvUtil.sizeof.BYTE + SvUtil.sizeof.LONG);
-				partBuffer.put(SvCluster.MSG_PART);
-				partBuffer.putLong(nodeId);
-				byte[] msgPart = null;
-				if (!SvCluster.zmqSend(hbClientSock, partBuffer.array(), 0))
-					log4j.error("Error sending part message to coordinator node");
-
-				msgPart = SvCluster.zmqRecv(hbClientSock, 0);
-				if (msgPart != null)
-					partBuffer = ByteBuffer.wrap(msgPart);
-				if (msgPart != null && partBuffer.get() != SvCluster.MSG_SUCCESS && partBuffer.getLong() != nodeId) {
-					log4j.error("Failed to perform a clean exit from the cluster");
-				}
-			} catch (Exception e) {
-				log4j.error("Error sending part cluster message", e);
+		try {
+			ByteBuffer partBuffer = ByteBuffer.allocate(SvUtil.sizeof.BYTE + SvUtil.sizeof.LONG);
+			partBuffer.put(SvCluster.MSG_PART);
+			partBuffer.putLong(nodeId);
+			byte[] msgPart = requestSingle(partBuffer.array());
+			if (msgPart != null)
+				partBuffer = ByteBuffer.wrap(msgPart);
+			else
+				log4j.error("Error sending part message to coordinator node");
+			if (msgPart != null && partBuffer.get() != SvCluster.MSG_SUCCESS && partBuffer.getLong() != nodeId) {
+				log4j.error("Failed to perform a clean exit from the cluster");
 			}
+		} catch (Exception e) {
+			log4j.error("Error sending part cluster message", e);
 		}
 	}
 
@@ -283,21 +374,19 @@ public class SvClusterClient implements Runnable {
 			return false;
 		}
 		byte[] byteToken = dboToken.toSimpleJson().toString().getBytes(ZMQ.CHARSET);
-		synchronized (hbClientSock) {
-			ByteBuffer msgBuffer = ByteBuffer.allocate(SvUtil.sizeof.BYTE + SvUtil.sizeof.LONG + byteToken.length);
-			msgBuffer.put(SvCluster.MSG_AUTH_TOKEN_PUT);
-			msgBuffer.putLong(nodeId);
-			msgBuffer.put(byteToken);
-			if (log4j.isDebugEnabled())
-				log4j.debug("Put token " + dboToken.toSimpleJson().toString() + " to coordinator from destination:"
-						+ Long.toString(nodeId));
-			if (!SvCluster.zmqSend(hbClientSock, msgBuffer.array(), 0))
-				log4j.error("Error sending message to coordinator node");
-			byte[] msg = SvCluster.zmqRecv(hbClientSock, 0);
-			msgBuffer = ByteBuffer.wrap(msg);
-			byte msgType = msgBuffer.get();
-			return msgType == SvCluster.MSG_SUCCESS;
+		ByteBuffer msgBuffer = ByteBuffer.allocate(SvUtil.sizeof.BYTE + SvUtil.sizeof.LONG + byteToken.length);
+		msgBuffer.put(SvCluster.MSG_AUTH_TOKEN_PUT);
+		msgBuffer.putLong(nodeId);
+		msgBuffer.put(byteToken);
+		if (log4j.isDebugEnabled())
+			log4j.debug("Put token " + dboToken.toSimpleJson().toString() + " to coordinator from destination:"
+					+ Long.toString(nodeId));
+		byte[] msg = requestSingle(msgBuffer.array());
+		if (msg == null) {
+			log4j.error("Error sending message to coordinator node");
+			return false;
 		}
+		return msg[0] == SvCluster.MSG_SUCCESS;
 	}
 
 	/**
@@ -314,33 +403,27 @@ public class SvClusterClient implements Runnable {
 			return null;
 		}
 		DbDataObject dboToken = null;
-		synchronized (hbClientSock) {
-			ByteBuffer msgBuffer = ByteBuffer
-					.allocate(SvUtil.sizeof.BYTE + SvUtil.sizeof.LONG + SvUtil.sizeof.LONG + SvUtil.sizeof.LONG);
-			msgBuffer.put(SvCluster.MSG_AUTH_TOKEN_GET);
-			UUID uid = UUID.fromString(token);
-			msgBuffer.putLong(nodeId);
-			msgBuffer.putLong(uid.getMostSignificantBits());
-			msgBuffer.putLong(uid.getLeastSignificantBits());
-			if (log4j.isDebugEnabled())
-				log4j.debug("Send token " + token + " for validation to coordinator from destination:"
-						+ Long.toString(nodeId));
-			if (!SvCluster.zmqSend(hbClientSock, msgBuffer.array(), 0))
-				log4j.error("Error sending message to coordinator node");
-			byte[] msg = SvCluster.zmqRecv(hbClientSock, 0);
-			msgBuffer = ByteBuffer.wrap(msg);
-			byte msgType = msgBuffer.get();
-			if (msgType == SvCluster.MSG_SUCCESS) {
-				dboToken = new DbDataObject();
-				String strToken = new String(
-						Arrays.copyOfRange(msgBuffer.array(), 1 + SvUtil.sizeof.LONG, msgBuffer.array().length),
-						ZMQ.CHARSET);
-				Gson g = new Gson();
-				dboToken.fromSimpleJson(g.fromJson(strToken, JsonObject.class));
-			}
-			if (log4j.isDebugEnabled())
-				log4j.debug("Token validated:" + (dboToken != null ? dboToken.toSimpleJson().toString() : "invalid"));
+		ByteBuffer msgBuffer = ByteBuffer
+				.allocate(SvUtil.sizeof.BYTE + SvUtil.sizeof.LONG + SvUtil.sizeof.LONG + SvUtil.sizeof.LONG);
+		msgBuffer.put(SvCluster.MSG_AUTH_TOKEN_GET);
+		UUID uid = UUID.fromString(token);
+		msgBuffer.putLong(nodeId);
+		msgBuffer.putLong(uid.getMostSignificantBits());
+		msgBuffer.putLong(uid.getLeastSignificantBits());
+		if (log4j.isDebugEnabled())
+			log4j.debug("Send token " + token + " for validation to coordinator from destination:"
+					+ Long.toString(nodeId));
+		byte[] msg = requestSingle(msgBuffer.array());
+		if (msg == null)
+			log4j.error("Error sending message to coordinator node");
+		else if (msg[0] == SvCluster.MSG_SUCCESS) {
+			dboToken = new DbDataObject();
+			String strToken = new String(Arrays.copyOfRange(msg, 1 + SvUtil.sizeof.LONG, msg.length), ZMQ.CHARSET);
+			Gson g = new Gson();
+			dboToken.fromSimpleJson(g.fromJson(strToken, JsonObject.class));
 		}
+		if (log4j.isDebugEnabled())
+			log4j.debug("Token validated:" + (dboToken != null ? dboToken.toSimpleJson().toString() : "invalid"));
 		return dboToken;
 	}
 
@@ -359,32 +442,30 @@ public class SvClusterClient implements Runnable {
 		}
 
 		byte msgType;
-		synchronized (hbClientSock) {
-			ByteBuffer msgBuffer = ByteBuffer
-					.allocate(SvUtil.sizeof.BYTE + SvUtil.sizeof.LONG + SvUtil.sizeof.LONG + SvUtil.sizeof.LONG);
-			msgBuffer.put(SvCluster.MSG_AUTH_TOKEN_SET);
-			UUID uid = UUID.fromString(token);
-			msgBuffer.putLong(nodeId);
-			msgBuffer.putLong(uid.getMostSignificantBits());
-			msgBuffer.putLong(uid.getLeastSignificantBits());
-			if (log4j.isDebugEnabled())
-				log4j.debug("Send token " + token + " for LRU refresh to coordinator from destination:"
-						+ Long.toString(nodeId));
-			if (!SvCluster.zmqSend(hbClientSock, msgBuffer.array(), 0))
-				log4j.error("Error sending message to coordinator node");
-			byte[] msg = SvCluster.zmqRecv(hbClientSock, 0);
-			msgBuffer = ByteBuffer.wrap(msg);
-			msgType = msgBuffer.get();
-			if (log4j.isDebugEnabled())
-				log4j.debug("Token refresh:"
-						+ (msgType == SvCluster.MSG_SUCCESS ? "succeded" : "failed, lets put the session"));
-
-			if (msgType == SvCluster.MSG_FAIL) {
-				DbDataObject svToken = DbCache.getObject(token, svCONST.OBJECT_TYPE_SECURITY_LOG);
-				if (SvClusterClient.putToken(svToken))
-					msgType = SvCluster.MSG_SUCCESS;
-			}
-
+		ByteBuffer msgBuffer = ByteBuffer
+				.allocate(SvUtil.sizeof.BYTE + SvUtil.sizeof.LONG + SvUtil.sizeof.LONG + SvUtil.sizeof.LONG);
+		msgBuffer.put(SvCluster.MSG_AUTH_TOKEN_SET);
+		UUID uid = UUID.fromString(token);
+		msgBuffer.putLong(nodeId);
+		msgBuffer.putLong(uid.getMostSignificantBits());
+		msgBuffer.putLong(uid.getLeastSignificantBits());
+		if (log4j.isDebugEnabled())
+			log4j.debug("Send token " + token + " for LRU refresh to coordinator from destination:"
+					+ Long.toString(nodeId));
+		byte[] msg = requestSingle(msgBuffer.array());
+		if (msg == null) {
+			log4j.error("Error sending message to coordinator node");
+			return false;
+		}
+		msgType = msg[0];
+		if (log4j.isDebugEnabled())
+			log4j.debug(
+					"Token refresh:" + (msgType == SvCluster.MSG_SUCCESS ? "succeded" : "failed, lets put the session"));
+
+		if (msgType == SvCluster.MSG_FAIL) {
+			DbDataObject svToken = DbCache.getObject(token, svCONST.OBJECT_TYPE_SECURITY_LOG);
+			if (SvClusterClient.putToken(svToken))
+				msgType = SvCluster.MSG_SUCCESS;
 		}
 		return msgType == SvCluster.MSG_SUCCESS;
 	}
@@ -404,31 +485,29 @@ public class SvClusterClient implements Runnable {
 		}
 
 		byte msgType;
-		synchronized (hbClientSock) {
-			byte[] key = null;
-			key = lockKey.getBytes(ZMQ.CHARSET);
-			// allocate one byte for message type, one long for node Id and the
-			// rest for the token
-			ByteBuffer msgBuffer = ByteBuffer
-					.allocate(SvUtil.sizeof.BYTE + SvUtil.sizeof.LONG + (key != null ? key.length : 0));
-			msgBuffer.put(SvCluster.MSG_LOCK);
-			msgBuffer.putLong(nodeId);
-			msgBuffer.put(key);
-			if (!SvCluster.zmqSend(hbClientSock, msgBuffer.array(), 0))
-				log4j.error("Error sending message to coordinator node");
-			byte[] msg = SvCluster.zmqRecv(hbClientSock, 0);
-			if (msg != null) {
-				msgBuffer = ByteBuffer.wrap(msg);
-				msgType = msgBuffer.get();
-				if (msgType == SvCluster.MSG_SUCCESS) {
-					if (msgBuffer.getLong() == nodeId)
-						hashCode = msgBuffer.getInt();
-					else
-						log4j.warn("Lock was acquired with wrong node id.");
-				} else if (log4j.isDebugEnabled())
-					log4j.debug("Lock not acquired! Lock is held by node:" + Long.toString(msgBuffer.getLong()));
-			}
-		}
+		byte[] key = null;
+		key = lockKey.getBytes(ZMQ.CHARSET);
+		// allocate one byte for message type, one long for node Id and the
+		// rest for the token
+		ByteBuffer msgBuffer = ByteBuffer
+				.allocate(SvUtil.sizeof.BYTE + SvUtil.sizeof.LONG + (key != null ? key.length : 0));
+		msgBuffer.put(SvCluster.MSG_LOCK);
+		msgBuffer.putLong(nodeId);
+		msgBuffer.put(key);
+		byte[] msg = requestSingle(msgBuffer.array());
+		if (msg != null) {
+			msgBuffer = ByteBuffer.wrap(msg);
+			msgType = msgBuffer.get();
+			if (msgType == SvCluster.MSG_SUCCESS) {
+				if (msgBuffer.getLong() == nodeId)
+					hashCode = msgBuffer.getInt();
+				else
+					log4j.warn("Lock was acquired with wrong node id.");
+			} else if (log4j.isDebugEnabled() && msgBuffer.remaining() >= 2 * SvUtil.sizeof.LONG)
+				log4j.debug("Lock not acquired! Lock is held by node:"
+						+ Long.toString(msgBuffer.getLong(SvUtil.sizeof.BYTE + SvUtil.sizeof.LONG)));
+		} else
+			log4j.error("Error sending message to coordinator node");
 		return hashCode;
 	}
 
@@ -445,19 +524,19 @@ public class SvClusterClient implements Runnable {
 			return result;
 		}
 		byte msgType;
-		synchronized (hbClientSock) {
-			ByteBuffer msgBuffer = ByteBuffer.allocate(SvUtil.sizeof.BYTE + SvUtil.sizeof.LONG + SvUtil.sizeof.INT);
-			msgBuffer.put(SvCluster.MSG_LOCK_RELEASE);
-			msgBuffer.putLong(nodeId);
-			msgBuffer.putInt(lockHash);
-			if (!SvCluster.zmqSend(hbClientSock, msgBuffer.array(), 0))
-				log4j.error("Error sending message to coordinator node");
-			byte[] msg = SvCluster.zmqRecv(hbClientSock, 0);
-			msgBuffer = ByteBuffer.wrap(msg);
-			msgType = msgBuffer.get();
-			if (msgType == SvCluster.MSG_SUCCESS && msgBuffer.getLong() == nodeId) {
-				result = true;
-			}
+		ByteBuffer msgBuffer = ByteBuffer.allocate(SvUtil.sizeof.BYTE + SvUtil.sizeof.LONG + SvUtil.sizeof.INT);
+		msgBuffer.put(SvCluster.MSG_LOCK_RELEASE);
+		msgBuffer.putLong(nodeId);
+		msgBuffer.putInt(lockHash);
+		byte[] msg = requestSingle(msgBuffer.array());
+		if (msg == null) {
+			log4j.error("Error sending message to coordinator node");
+			return result;
+		}
+		msgBuffer = ByteBuffer.wrap(msg);
+		msgType = msgBuffer.get();
+		if (msgType == SvCluster.MSG_SUCCESS && msgBuffer.getLong() == nodeId) {
+			result = true;
 		}
 		return result;
 	}
@@ -584,34 +663,25 @@ public class SvClusterClient implements Runnable {
 	 */
 	static boolean joinCluster() {
 		boolean result = true;
-		synchronized (hbClientSock) {
-			if (log4j.isDebugEnabled())
-				log4j.debug("Joining cluster with old nodeId:" + Long.toString(nodeId));
-			byte[] nodeInfo = SvCluster.getCurrentNodeInfo().getVal("node_info").toString().getBytes(ZMQ.CHARSET);
-			ByteBuffer joinBuffer = ByteBuffer.allocate(SvUtil.sizeof.BYTE + SvUtil.sizeof.LONG + nodeInfo.length);
-			joinBuffer.put(SvCluster.MSG_JOIN);
-			joinBuffer.putLong(nodeId);
-			joinBuffer.put(nodeInfo);
-			byte[] msgJoin = null;
-			byte[] msgLock = null;
-			try {
-				if (SvCluster.zmqSend(hbClientSock, joinBuffer.array(), 0)) {
-					msgJoin = SvCluster.zmqRecv(hbClientSock, 0);
-					if (processJoin(msgJoin)) {
-						// check if lock info follows the join
-						while (hbClientSock.hasReceiveMore()) {
-							msgLock = SvCluster.zmqRecv(hbClientSock, 0);
-							processJoinLock(msgLock);
-						}
-					}
-
-				}
-
-			} catch (Exception e) {
-				log4j.error("Error joining cluster:", e);
-				nodeId = 0L;
-				result = false;
+		if (log4j.isDebugEnabled())
+			log4j.debug("Joining cluster with old nodeId:" + Long.toString(nodeId));
+		byte[] nodeInfo = SvCluster.getCurrentNodeInfo().getVal("node_info").toString().getBytes(ZMQ.CHARSET);
+		ByteBuffer joinBuffer = ByteBuffer.allocate(SvUtil.sizeof.BYTE + SvUtil.sizeof.LONG + nodeInfo.length);
+		joinBuffer.put(SvCluster.MSG_JOIN);
+		joinBuffer.putLong(nodeId);
+		joinBuffer.put(nodeInfo);
+		try {
+			List<byte[]> response = request(joinBuffer.array());
+			result = processJoin(response != null ? response.get(0) : null);
+			if (result) {
+				// check if lock info follows the join
+				for (byte[] msgLock : response.subList(1, response.size()))
+					processJoinLock(msgLock);
 			}
+		} catch (Exception e) {
+			log4j.error("Error joining cluster:", e);
+			nodeId = 0L;
+			result = false;
 		}
 		return result;
 	}
@@ -652,21 +722,17 @@ public class SvClusterClient implements Runnable {
 	 */
 	private static byte[] sendHearBeat() {
 		byte[] msg = null;
-		synchronized (hbClientSock) {
-			try {
-				ByteBuffer msgBuffer = ByteBuffer.allocate(SvUtil.sizeof.BYTE + SvUtil.sizeof.LONG);
-				msgBuffer.put(SvCluster.MSG_HEARTBEAT);
-				msgBuffer.putLong(nodeId);
-
-				if (!SvCluster.zmqSend(hbClientSock, msgBuffer.array(), 0))
-					log4j.error("Error sending message to coordinator node");
-				msg = SvCluster.zmqRecv(hbClientSock, 0);
-				if (msg == null)
-					failOver();
-			} catch (Exception e) {
-				log4j.error("Heart beat thread sleep raised exception! Shutting down client", e);
-				shutdown(false);
-			}
+		try {
+			ByteBuffer msgBuffer = ByteBuffer.allocate(SvUtil.sizeof.BYTE + SvUtil.sizeof.LONG);
+			msgBuffer.put(SvCluster.MSG_HEARTBEAT);
+			msgBuffer.putLong(nodeId);
+
+			msg = requestSingle(msgBuffer.array());
+			if (msg == null)
+				failOver();
+		} catch (Exception e) {
+			log4j.error("Heart beat thread sleep raised exception! Shutting down client", e);
+			shutdown(false);
 		}
 		return msg;
 
@@ -683,12 +749,12 @@ public class SvClusterClient implements Runnable {
 			log4j.error("Heartbeat thread is already running. Shutdown first");
 			return;
 		}
-		if (hbClientSock == null) {
+		if (hbClientSocks == null) {
 			log4j.error("Heartbeat socket not available, ensure proper initialisation");
 			return;
 		}
 
-		while (isRunning.get() && hbClientSock != null) {
+		while (isRunning.get() && hbClientSocks != null) {
 			// send a heart beat message to the server
 			byte[] response = sendHearBeat();
 			// if response is received process is
@@ -0,0 +1,310 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *
+ *******************************************************************************/
+package com.prtech.svarog;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.logging.log4j.Logger;
+import org.zeromq.ZMQ;
+
+import com.prtech.svarog_common.DbDataArray;
+import com.prtech.svarog_common.DbDataObject;
+
+/**
+ * Background publisher of the dirty object notifications. The writers queue the
+ * ids of the saved objects without waiting on the publisher socket. The
+ * publisher thread coalesces the queued ids per object type over the window of
+ * sys.cluster.dirty_batch_window milliseconds, or until
+ * sys.cluster.dirty_batch_size ids are queued. It removes the duplicates and
+ * sends one NOTE_DIRTY_BATCH message per object type, with the sorted ids delta
+ * encoded as variable length numbers.
+ *
+ * The message holds the message type, the object type id, the number of ids and
+ * the encoded ids.
+ *
+ * @author ristepejov
+ *
+ */
+final class SvClusterDirtyPublisher {
+	/**
+	 * Log4j instance used for logging
+	 */
+	private static final Logger log4j = SvConf.getLogger(SvClusterDirtyPublisher.class);
+
+	/**
+	 * Time after which an idle publisher thread stops
+	 */
+	private static final long IDLE_TIMEOUT = TimeUnit.SECONDS.toNanos(1);
+
+	/**
+	 * Dirty ids of a single object type queued by a writer
+	 */
+	static final class DirtyRun {
+		final long objectTypeId;
+		final long[] objectIds;
+
+		DirtyRun(long objectTypeId, long[] objectIds) {
+			this.objectTypeId = objectTypeId;
+			this.objectIds = objectIds;
+		}
+	}
+
+	/**
+	 * Queue of the dirty ids waiting for the publisher
+	 */
+	private static final ConcurrentLinkedQueue<DirtyRun> pendingRuns = new ConcurrentLinkedQueue<DirtyRun>();
+	/**
+	 * Number of the queued dirty ids
+	 */
+	private static final AtomicInteger pendingCount = new AtomicInteger();
+	private static final AtomicBoolean publisherRunning = new AtomicBoolean(false);
+	private static volatile Thread publisher = null;
+
+	private SvClusterDirtyPublisher() {
+	}
+
+	/**
+	 * Method to queue the objects of an array for publishing. The array is split
+	 * in runs of objects of the same type.
+	 *
+	 * @param dba The list of dirty objects
+	 */
+	static void enqueue(DbDataArray dba) {
+		List<DbDataObject> items = dba.getItems();
+		int start = 0;
+		int count = 0;
+		while (start < items.size()) {
+			long objectTypeId = items.get(start).getObjectType();
+			int end = start + 1;
+			while (end < items.size() && items.get(end).getObjectType() == objectTypeId)
+				end++;
+			long[] objectIds = new long[end - start];
+			for (int i = start; i < end; i++)
+				objectIds[i - start] = items.get(i).getObjectId();
+			pendingRuns.add(new DirtyRun(objectTypeId, objectIds));
+			count += objectIds.length;
+			start = end;
+		}
+		if (count == 0)
+			return;
+		if (pendingCount.addAndGet(count) >= SvConf.getDirtyBatchSize())
+			LockSupport.unpark(publisher);
+		startPublisher();
+	}
+
+	private static void startPublisher() {
+		if (publisherRunning.compareAndSet(false, true)) {
+			Thread thread = new Thread(SvClusterDirtyPublisher::publishDirtyRuns, "SvClusterDirtyPublisher");
+			thread.setDaemon(true);
+			publisher = thread;
+			thread.start();
+		}
+	}
+
+	/**
+	 * The publisher loop. It waits for the coalescing window to pass or the batch
+	 * to fill up, then publishes the queued ids. It stops once the queue was
+	 * empty for a second.
+	 */
+	private static void publishDirtyRuns() {
+		long idleSince = System.nanoTime();
+		while (true) {
+			long window = TimeUnit.MILLISECONDS.toNanos(Math.max(SvConf.getDirtyBatchWindow(), 1));
+			if (pendingRuns.isEmpty()) {
+				if (System.nanoTime() - idleSince > IDLE_TIMEOUT) {
+					publisherRunning.set(false);
+					// a run queued after the check must not be left without a
+					// publisher
+					if (pendingRuns.isEmpty() || !publisherRunning.compareAndSet(false, true))
+						return;
+				}
+				LockSupport.parkNanos(window);
+				continue;
+			}
+			long deadline = System.nanoTime() + window;
+			long remaining = window;
+			while (pendingCount.get() < SvConf.getDirtyBatchSize() && remaining > 0) {
+				LockSupport.parkNanos(remaining);
+				remaining = deadline - System.nanoTime();
+			}
+			publish(drain());
+			idleSince = System.nanoTime();
+		}
+	}
+
+	/**
+	 * Method to publish the dirty ids still waiting in the queue from the
+	 * calling thread
+	 */
+	static void flush() {
+		if (!pendingRuns.isEmpty())
+			publish(drain());
+	}
+
+	/**
+	 * Method to take all queued runs and coalesce them per object type
+	 *
+	 * @return Map of sorted unique dirty ids per object type
+	 */
+	static Map<Long, long[]> drain() {
+		Map<Long, List<long[]>> runsByType = new HashMap<Long, List<long[]>>();
+		int drained = 0;
+		DirtyRun run;
+		while ((run = pendingRuns.poll()) != null) {
+			List<long[]> runs = runsByType.get(run.objectTypeId);
+			if (runs == null) {
+				runs = new ArrayList<long[]>();
+				runsByType.put(run.objectTypeId, runs);
+			}
+			runs.add(run.objectIds);
+			drained += run.objectIds.length;
+		}
+		pendingCount.addAndGet(-drained);
+
+		Map<Long, long[]> dirtyIds = new HashMap<Long, long[]>();
+		for (Entry<Long, List<long[]>> entry : runsByType.entrySet())
+			dirtyIds.put(entry.getKey(), coalesce(entry.getValue()));
+		return dirtyIds;
+	}
+
+	/**
+	 * Method to merge runs of ids into a single sorted array without duplicates
+	 *
+	 * @param runs The runs of ids
+	 * @return The sorted unique ids
+	 */
+	static long[] coalesce(List<long[]> runs) {
+		int size = 0;
+		for (long[] ids : runs)
+			size += ids.length;
+		long[] merged = new long[size];
+		int pos = 0;
+		for (long[] ids : runs) {
+			System.arraycopy(ids, 0, merged, pos, ids.length);
+			pos += ids.length;
+		}
+		Arrays.sort(merged);
+		int unique = 0;
+		for (int i = 0; i < merged.length; i++)
+			if (i == 0 || merged[i] != merged[unique - 1])
+				merged[unique++] = merged[i];
+		return Arrays.copyOf(merged, unique);
+	}
+
+	/**
+	 * Method to send the coalesced ids to the cluster. If we are coordinator,
+	 * broadcast through the proxy otherwise broadcast through the client.
+	 *
+	 * @param dirtyIds Map of sorted unique dirty ids per object type
+	 */
+	private static void publish(Map<Long, long[]> dirtyIds) {
+		ZMQ.Socket socket = SvCluster.isCoordinator() ? SvClusterNotifierProxy.pubServerSock
+				: SvClusterNotifierClient.pubServerSock;
+		if (socket == null || !SvCluster.getIsActive().get()) {
+			if (log4j.isDebugEnabled())
+				log4j.debug("Publisher socket is null! Dirty notifications for " + dirtyIds.size()
+						+ " object types are not sent");
+			return;
+		}
+		int batchSize = Math.max(SvConf.getDirtyBatchSize(), 1);
+		try {
+			synchronized (socket) {
+				for (Entry<Long, long[]> entry : dirtyIds.entrySet()) {
+					long[] ids = entry.getValue();
+					for (int from = 0; from < ids.length; from += batchSize) {
+						byte[] msg = encode(entry.getKey(), ids, from, Math.min(from + batchSize, ids.length));
+						if (!SvCluster.zmqSend(socket, msg, ZMQ.DONTWAIT))
+							log4j.error("Error publishing message to coordinator node");
+					}
+					if (log4j.isDebugEnabled())
+						log4j.debug("Sent dirty notification of " + ids.length + " objects of type " + entry.getKey());
+				}
+			}
+		} catch (SvException e) {
+			log4j.error("Error publishing dirty notifications", e);
+		}
+	}
+
+	/**
+	 * Method to encode a range of sorted ids into a NOTE_DIRTY_BATCH message
+	 *
+	 * @param objectTypeId The type of the objects
+	 * @param objectIds    The sorted ids
+	 * @param from         The first id to encode
+	 * @param to           The end of the range (exclusive)
+	 * @return The message bytes
+	 */
+	static byte[] encode(long objectTypeId, long[] objectIds, int from, int to) {
+		// a variable length long takes up to 10 bytes
+		ByteBuffer msgBuffer = ByteBuffer
+				.allocate(SvUtil.sizeof.BYTE + SvUtil.sizeof.LONG + SvUtil.sizeof.INT + 10 * (to - from));
+		msgBuffer.put(SvCluster.NOTE_DIRTY_BATCH);
+		msgBuffer.putLong(objectTypeId);
+		msgBuffer.putInt(to - from);
+		long previous = 0L;
+		for (int i = from; i < to; i++) {
+			long delta = objectIds[i] - previous;
+			while ((delta & ~0x7FL) != 0) {
+				msgBuffer.put((byte) ((delta & 0x7F) | 0x80));
+				delta >>>= 7;
+			}
+			msgBuffer.put((byte) delta);
+			previous = objectIds[i];
+		}
+		return Arrays.copyOf(msgBuffer.array(), msgBuffer.position());
+	}
+
+	/**
+	 * Method to decode the ids of a NOTE_DIRTY_BATCH message
+	 *
+	 * @param msgBuffer The message buffer positioned after the object type id
+	 * @return The decoded ids
+	 */
+	static long[] decode(ByteBuffer msgBuffer) {
+		long[] objectIds = new long[msgBuffer.getInt()];
+		long previous = 0L;
+		for (int i = 0; i < objectIds.length; i++) {
+			long delta = 0L;
+			int shift = 0;
+			byte b;
+			do {
+				b = msgBuffer.get();
+				delta |= (long) (b & 0x7F) << shift;
+				shift += 7;
+			} while ((b & 0x80) != 0);
+			previous += delta;
+			objectIds[i] = previous;
+		}
+		return objectIds;
+	}
+
+	/**
+	 * @return The number of dirty ids waiting to be published
+	 */
+	static int getPendingCount() {
+		return pendingCount.get();
+	}
+}
@@ -16,6 +16,7 @@ import org.zeromq.SocketType;
 import org.zeromq.ZContext;
 import org.zeromq.ZMQ;
 
+import com.google.common.primitives.Longs;
 import com.prtech.svarog_common.DbDataArray;
 import com.prtech.svarog_common.DbDataObject;
 
@@ -517,6 +518,24 @@ public class SvClusterNotifierClient implements Runnable {
 
 		}
 			break;
+		case SvCluster.NOTE_DIRTY_BATCH: {
+			long objectTypeId = msgBuffer.getLong();
+			try {
+				long[] objectIds = SvClusterDirtyPublisher.decode(msgBuffer);
+				if (log4j.isDebugEnabled())
+					log4j.trace("Received dirty notification for " + objectIds.length + " objects of type "
+							+ objectTypeId);
+				SvWriter.cacheCleanup(Longs.asList(objectIds), objectTypeId);
+			} catch (SvException e) {
+				log4j.info("Object dirty message not processed", e);
+			} catch (BufferUnderflowException ex) {
+				log4j.info("Malformed dirty batch of objects of type " + objectTypeId, ex);
+			}
+		}
+			break;
+		case SvCluster.NOTE_CACHE_REPLICA:
+			SvClusterReplica.processMessage(msgBuffer);
+			break;
 		case SvCluster.NOTE_DIRTY_TILE: {
 			long tileTypeId = msgBuffer.getLong();
 			while (hasObjects) {
@@ -283,8 +283,10 @@ public class SvClusterNotifierProxy implements Runnable {
 					+ Integer.toString(nodes.size()) + "");
 		if (nodes != null) {
 			try {
+				// the acks may have arrived before we started waiting
 				synchronized (nodes) {
-					nodes.wait(timeout);
+					if (!nodes.isEmpty())
+						nodes.wait(timeout);
 				}
 				if (log4j.isDebugEnabled())
 					log4j.debug(
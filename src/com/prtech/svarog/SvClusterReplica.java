@@ -0,0 +1,395 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *
+ *******************************************************************************/
+package com.prtech.svarog;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.Logger;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.zeromq.ZMQ;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.prtech.svarog_common.DbDataObject;
+import com.prtech.svarog_common.DboFactory;
+import com.prtech.svarog_common.SvCharId;
+
+/**
+ * Replication of the cached objects between the cluster nodes. For object
+ * types with a replicated cache type (PERM_REPL, LRU_REPL, TTL_REPL or
+ * LRU_TTL_REPL) the writing node doesn't publish a dirty notification, but
+ * the serialized new version of the object once the transaction is committed.
+ * The peers install the received version directly in the DbCacheTable, instead
+ * of reading it again from the database.
+ *
+ * Each replica carries the PKID of the object version. A replica is dropped if
+ * a node already cached or installed the same or a newer version of the
+ * object. Objects holding values which can't be serialized, such as
+ * geometries, are published as dirty notifications.
+ *
+ * A deleted object is published as a tombstone, which is a replica of the
+ * deleted version without values and with the time of deletion as dt_delete.
+ * The peers remove the object from the cache and record the PKID of the
+ * tombstone, so a delayed replica of the deleted version is dropped.
+ *
+ * @author ristepejov
+ *
+ */
+final class SvClusterReplica {
+	/**
+	 * Log4j instance used for logging
+	 */
+	private static final Logger log4j = SvConf.getLogger(SvClusterReplica.class);
+
+	private static final byte VAL_NULL = 0;
+	private static final byte VAL_STRING = 1;
+	private static final byte VAL_LONG = 2;
+	private static final byte VAL_INTEGER = 3;
+	private static final byte VAL_BOOLEAN = 4;
+	private static final byte VAL_DECIMAL = 5;
+	private static final byte VAL_DOUBLE = 6;
+	private static final byte VAL_DATETIME = 7;
+
+	/**
+	 * The latest installed PKID per object, so a delayed replica doesn't
+	 * overwrite a newer version which was already evicted from the cache
+	 */
+	private static final Cache<String, Long> installedVersions = CacheBuilder.newBuilder().maximumSize(10000)
+			.expireAfterWrite(10, TimeUnit.MINUTES).<String, Long>build();
+
+	private SvClusterReplica() {
+	}
+
+	/**
+	 * Method to check if the cache of the object type is replicated. The tables
+	 * and fields are never replicated, since the nodes reload them from the
+	 * database.
+	 *
+	 * @param objectType The object type id
+	 * @return True if the objects of the type are replicated
+	 */
+	static boolean isReplicated(Long objectType) {
+		return !objectType.equals(svCONST.OBJECT_TYPE_TABLE) && !objectType.equals(svCONST.OBJECT_TYPE_FIELD)
+				&& DbCache.isReplicated(objectType);
+	}
+
+	/**
+	 * Method to serialize an object version
+	 *
+	 * @param dbo The object to serialize
+	 * @return The serialized object or null if any of the values can't be
+	 *         serialized
+	 */
+	static byte[] encode(DbDataObject dbo) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeLong(dbo.getObjectType());
+			out.writeLong(dbo.getObjectId());
+			out.writeLong(dbo.getPkid());
+			writeValue(out, dbo.getParentId());
+			writeValue(out, dbo.getDtInsert());
+			writeValue(out, dbo.getDtDelete());
+			writeValue(out, dbo.getStatus());
+			writeValue(out, dbo.getUserId());
+			out.writeInt(dbo.getValuesMap().size());
+			for (Entry<SvCharId, Object> entry : dbo.getValuesMap().entrySet()) {
+				writeString(out, entry.getKey().toString());
+				if (!writeValue(out, entry.getValue()))
+					return null;
+			}
+		} catch (IOException e) {
+			log4j.error("Error serializing object " + dbo.getObjectId(), e);
+			return null;
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Method to serialize the tombstone of a deleted object
+	 *
+	 * @param objectType The object type id
+	 * @param objectId   The object id
+	 * @param pkid       The PKID of the deleted version
+	 * @param dtDelete   The time of deletion
+	 * @return The serialized tombstone
+	 */
+	static byte[] encodeTombstone(Long objectType, Long objectId, Long pkid, DateTime dtDelete) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeLong(objectType);
+			out.writeLong(objectId);
+			out.writeLong(pkid);
+			writeValue(out, null);
+			writeValue(out, null);
+			writeValue(out, dtDelete);
+			writeValue(out, null);
+			writeValue(out, null);
+			out.writeInt(0);
+		} catch (IOException e) {
+			// the stream is in memory, it doesn't throw
+			throw new IllegalStateException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Method to check if a decoded replica is the tombstone of a deleted object
+	 *
+	 * @param dbo The decoded replica
+	 * @return True if the version was deleted
+	 */
+	static boolean isTombstone(DbDataObject dbo) {
+		return dbo.getDtDelete() != null && dbo.getDtDelete().getMillis() < SvConf.MAX_DATE.getMillis();
+	}
+
+	/**
+	 * Method to get the key of the object of a serialized replica
+	 *
+	 * @param replica The serialized replica or tombstone
+	 * @return The object type and id of the replica
+	 */
+	static String getVersionKey(byte[] replica) {
+		ByteBuffer buffer = ByteBuffer.wrap(replica);
+		return buffer.getLong(0) + Sv.DOT + buffer.getLong(8);
+	}
+
+	/**
+	 * Method to read an object version serialized by encode
+	 *
+	 * @param in The input stream
+	 * @return The object version
+	 * @throws IOException If the stream doesn't hold a valid object
+	 */
+	static DbDataObject decode(DataInputStream in) throws IOException {
+		DbDataObject dbo = new DbDataObject(in.readLong());
+		dbo.setObjectId(in.readLong());
+		dbo.setPkid(in.readLong());
+		dbo.setParentId((Long) readValue(in));
+		dbo.setDtInsert((DateTime) readValue(in));
+		dbo.setDtDelete((DateTime) readValue(in));
+		dbo.setStatus((String) readValue(in));
+		dbo.setUserId((Long) readValue(in));
+		int valueCount = in.readInt();
+		for (int i = 0; i < valueCount; i++) {
+			SvCharId key = SvCharId.toSvCharId(readString(in));
+			dbo.setVal(key, readValue(in));
+		}
+		dbo.setIsDirty(false);
+		return dbo;
+	}
+
+	/**
+	 * Method to serialize a single value, shared with the keyset continuation
+	 * tokens
+	 *
+	 * @param out   The output stream
+	 * @param value The value to serialize
+	 * @return False if the type of the value isn't supported
+	 * @throws IOException If the stream can't be written
+	 */
+	static boolean writeValue(DataOutputStream out, Object value) throws IOException {
+		if (value == null)
+			out.writeByte(VAL_NULL);
+		else if (value instanceof String) {
+			out.writeByte(VAL_STRING);
+			writeString(out, (String) value);
+		} else if (value instanceof Long) {
+			out.writeByte(VAL_LONG);
+			out.writeLong((Long) value);
+		} else if (value instanceof Integer) {
+			out.writeByte(VAL_INTEGER);
+			out.writeInt((Integer) value);
+		} else if (value instanceof Boolean) {
+			out.writeByte(VAL_BOOLEAN);
+			out.writeBoolean((Boolean) value);
+		} else if (value instanceof BigDecimal) {
+			out.writeByte(VAL_DECIMAL);
+			writeString(out, ((BigDecimal) value).toString());
+		} else if (value instanceof Double) {
+			out.writeByte(VAL_DOUBLE);
+			out.writeDouble((Double) value);
+		} else if (value instanceof DateTime) {
+			out.writeByte(VAL_DATETIME);
+			out.writeLong(((DateTime) value).getMillis());
+			writeString(out, ((DateTime) value).getZone().getID());
+		} else
+			return false;
+		return true;
+	}
+
+	/**
+	 * Method to read a value serialized by writeValue
+	 *
+	 * @param in The input stream
+	 * @return The value
+	 * @throws IOException If the stream doesn't hold a valid value
+	 */
+	static Object readValue(DataInputStream in) throws IOException {
+		byte valueType = in.readByte();
+		switch (valueType) {
+		case VAL_NULL:
+			return null;
+		case VAL_STRING:
+			return readString(in);
+		case VAL_LONG:
+			return in.readLong();
+		case VAL_INTEGER:
+			return in.readInt();
+		case VAL_BOOLEAN:
+			return in.readBoolean();
+		case VAL_DECIMAL:
+			return new BigDecimal(readString(in));
+		case VAL_DOUBLE:
+			return in.readDouble();
+		case VAL_DATETIME:
+			long millis = in.readLong();
+			return new DateTime(millis, DateTimeZone.forID(readString(in)));
+		default:
+			throw new IOException("Unknown value type " + valueType);
+		}
+	}
+
+	static void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Method to read a string serialized by writeString. The streams hold the
+	 * whole message in memory, so a length above the available bytes means the
+	 * input is corrupt or forged and is rejected before allocating the buffer.
+	 *
+	 * @param in The input stream
+	 * @return The string
+	 * @throws IOException If the stream doesn't hold a valid string
+	 */
+	static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0 || length > in.available())
+			throw new IOException("Invalid string length " + length);
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Method to publish the serialized object versions to the cluster. If we
+	 * are coordinator, broadcast through the proxy otherwise broadcast through
+	 * the client. The replicas are sent in messages of up to
+	 * sys.cluster.dirty_batch_size objects.
+	 *
+	 * @param replicas The serialized object versions
+	 */
+	static void publish(List<byte[]> replicas) {
+		ZMQ.Socket socket = SvCluster.isCoordinator() ? SvClusterNotifierProxy.pubServerSock
+				: SvClusterNotifierClient.pubServerSock;
+		if (socket == null || !SvCluster.getIsActive().get()) {
+			if (log4j.isDebugEnabled())
+				log4j.debug("Publisher socket is null! " + replicas.size() + " replicas are not sent");
+			return;
+		}
+		int batchSize = Math.max(SvConf.getDirtyBatchSize(), 1);
+		try {
+			synchronized (socket) {
+				for (int from = 0; from < replicas.size(); from += batchSize) {
+					List<byte[]> batch = replicas.subList(from, Math.min(from + batchSize, replicas.size()));
+					int size = SvUtil.sizeof.BYTE + SvUtil.sizeof.INT;
+					for (byte[] replica : batch)
+						size += replica.length;
+					ByteBuffer msgBuffer = ByteBuffer.allocate(size);
+					msgBuffer.put(SvCluster.NOTE_CACHE_REPLICA);
+					msgBuffer.putInt(batch.size());
+					for (byte[] replica : batch)
+						msgBuffer.put(replica);
+					if (!SvCluster.zmqSend(socket, msgBuffer.array(), ZMQ.DONTWAIT))
+						log4j.error("Error publishing message to coordinator node");
+				}
+			}
+		} catch (SvException e) {
+			log4j.error("Error publishing cache replicas", e);
+		}
+	}
+
+	/**
+	 * Method to install the replicas of a NOTE_CACHE_REPLICA message
+	 *
+	 * @param msgBuffer The message buffer positioned after the message type
+	 */
+	static void processMessage(ByteBuffer msgBuffer) {
+		int count = msgBuffer.getInt();
+		byte[] data = new byte[msgBuffer.remaining()];
+		msgBuffer.get(data);
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+			for (int i = 0; i < count; i++) {
+				DbDataObject dbo = decode(in);
+				try {
+					if (!install(dbo) && log4j.isDebugEnabled())
+						log4j.debug("Dropped stale replica of object " + dbo.getObjectId() + " with pkid "
+								+ dbo.getPkid());
+				} catch (SvException e) {
+					log4j.info("Object replica not processed", e);
+				}
+			}
+		} catch (IOException e) {
+			log4j.info("Malformed cache replica message", e);
+		}
+	}
+
+	/**
+	 * Method to install an object version in the cache. The version is dropped
+	 * if the same or a newer version was already cached or installed. A
+	 * tombstone removes the object from the cache, unless a newer version was
+	 * installed.
+	 *
+	 * @param dbo The received object version
+	 * @return True if the version was installed
+	 * @throws SvException Pass through of the cache clean up exceptions
+	 */
+	static boolean install(DbDataObject dbo) throws SvException {
+		String versionKey = dbo.getObjectType() + Sv.DOT + dbo.getObjectId();
+		boolean isDeleted = isTombstone(dbo);
+		synchronized (installedVersions) {
+			Long installed = installedVersions.getIfPresent(versionKey);
+			// the tombstone has the PKID of the deleted version, which may have
+			// been installed already
+			if (installed != null && (isDeleted ? installed > dbo.getPkid() : installed >= dbo.getPkid()))
+				return false;
+			DbDataObject cached = DbCache.getObject(dbo.getObjectId(), dbo.getObjectType());
+			if (!isDeleted && cached != null && cached.getPkid() >= dbo.getPkid())
+				return false;
+			installedVersions.put(versionKey, dbo.getPkid());
+		}
+		// clean up the old version and everything derived from it, same as for
+		// a dirty notification
+		SvWriter.cacheCleanup(dbo.getObjectId(), dbo.getObjectType());
+		if (isDeleted)
+			return true;
+		DboFactory.makeDboReadOnly(dbo);
+		DbCache.addObject(dbo);
+		return true;
+	}
+}
@@ -4,14 +4,17 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -20,6 +23,7 @@ import org.joda.time.DateTime;
 import org.zeromq.SocketType;
 import org.zeromq.ZContext;
 import org.zeromq.ZMQ;
+import org.zeromq.ZMQException;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
@@ -29,8 +33,12 @@ import com.prtech.svarog_common.DboFactory;
 
 /**
  * Class to implement the server side services of the Svarog Cluster. The class
- * shall wrap a ZeroMQ response socket which will respond to different types of
- * messages
+ * shall wrap a ZeroMQ router socket which will respond to different types of
+ * messages. The server thread owns the router socket and dispatches the
+ * messages to a pool of handler threads. The distributed locks are partitioned
+ * between the handlers by the hash of the lock key, so the lock of a key is
+ * always acquired and released by the same handler thread, while the handlers
+ * send the responses back to the server thread over an in-process socket.
  * 
  * @author ristepejov
  *
@@ -67,6 +75,29 @@ public class SvClusterServer implements Runnable {
 	static private ZContext context = null;
 	static ZMQ.Socket hbServerSock = null;
 
+	/**
+	 * The socket on which the server thread receives the responses of the
+	 * handler threads
+	 */
+	static ZMQ.Socket replySock = null;
+
+	/**
+	 * In-process end point used by the handlers to send back the responses
+	 */
+	static final String REPLY_ENDPOINT = "inproc://svarog-cluster-replies";
+
+	/**
+	 * Max number of messages which the server thread forwards from one socket
+	 * before it checks the other
+	 */
+	static final int DISPATCH_BATCH = 100;
+
+	/**
+	 * The handler threads, each of them owning a partition of the distributed
+	 * locks
+	 */
+	private static volatile ClusterHandler[] handlers = null;
+
 	/**
 	 * Timestamp of the last contact with the coordinator
 	 */
@@ -87,8 +118,8 @@ public class SvClusterServer implements Runnable {
 	/**
 	 * Main Cluster server initalisation. It requires that the current state of the
 	 * server is not active (isActive=false). After the active check this method
-	 * will create the main ZMQ context as well as the REP socket for heart beat
-	 * messages.
+	 * will create the main ZMQ context as well as the ROUTER socket for heart beat
+	 * messages and the PULL socket for the responses of the handlers.
 	 * 
 	 * @return True if the server proxy was initialised correctly
 	 */
@@ -102,7 +133,7 @@ public class SvClusterServer implements Runnable {
 		nodeHeartBeats.clear();
 		// Socket to talk to clients
 		hbServerSock = null;
-		ZMQ.Socket tmpSock = context.createSocket(SocketType.REP);
+		ZMQ.Socket tmpSock = context.createSocket(SocketType.ROUTER);
 		try {
 			if (tmpSock.bind("tcp://*:" + SvConf.getHeartBeatPort()))
 				hbServerSock = tmpSock;
@@ -114,8 +145,11 @@ public class SvClusterServer implements Runnable {
 		if (hbServerSock == null) {
 			isActive.set(false);
 			log4j.error("Heartbeat socket failed to bind to required ports:" + SvConf.getHeartBeatPort());
-		} else
+		} else {
 			hbServerSock.setReceiveTimeOut(SvCluster.SOCKET_RECV_TIMEOUT);
+			replySock = context.createSocket(SocketType.PULL);
+			replySock.bind(REPLY_ENDPOINT);
+		}
 		// start the internal hearbeat client
 		return (hbServerSock != null);
 	}
@@ -162,36 +196,24 @@ public class SvClusterServer implements Runnable {
 					+ ". Main server thread is running:" + isRunning.get());
 			return;
 		}
-		// make sure we promote any locks if we got promoted from Worker to
-		// Coordinator
-		promoteLocalLocks();
-
 		lastGCTime = DateTime.now();
+		// start the handlers. Each handler makes sure we promote the locks of its
+		// partition if we got promoted from Worker to Coordinator
+		startHandlers();
 		log4j.info("Heartbeat server started");
-		
+
+		ZMQ.Poller poller = context.createPoller(2);
+		poller.register(hbServerSock, ZMQ.Poller.POLLIN);
+		poller.register(replySock, ZMQ.Poller.POLLIN);
 		while (isRunning.get()) {
 			try {
-				byte[] msg = SvCluster.zmqRecv(hbServerSock, 0);
-				if (msg != null) {
-					ByteBuffer msgBuffer = ByteBuffer.wrap(msg);
-					byte msgType = msgBuffer.get();
-					long nodeId = msgBuffer.getLong();
-					int sockFlag;
-					if (msgType == SvCluster.MSG_JOIN) {
-						Iterator<ByteBuffer> iterator = processJoin(nodeId, msgBuffer).iterator();
-						sockFlag = ZMQ.SNDMORE;
-						while (iterator.hasNext()) {
-							ByteBuffer b = iterator.next();
-							if (!iterator.hasNext())
-								sockFlag = 0;
-							SvCluster.zmqSend(hbServerSock, b.array(), sockFlag);
-						}
-					} else {
-						byte[] response = processMessage(msgType, nodeId, msgBuffer);
-						SvCluster.zmqSend(hbServerSock, response, 0);
-					}
-				} else
-					clusterMaintenance();
+				if (poll(poller) > 0) {
+					if (poller.pollin(1))
+						forwardResponses();
+					if (poller.pollin(0))
+						dispatchRequests();
+				}
+				clusterMaintenance();
 			} catch (SvException e) {
 				if (!e.getLabelCode().equals(Sv.Exceptions.CLUSTER_INACTIVE))
 					log4j.error("Exception in sending message:" + Arrays.toString((byte[])e.getConfigData()), e);
@@ -199,8 +221,10 @@ public class SvClusterServer implements Runnable {
 					isRunning.set(false);
 			}
 		}
+		poller.close();
 
 		// make sure we clear the locks on shutdown
+		stopHandlers();
 		clearDistributedLocks();
 		log4j.info("Heartbeat server shut down");
 
@@ -212,6 +236,254 @@ public class SvClusterServer implements Runnable {
 
 	}
 
+	/**
+	 * Method to poll the server sockets and handle termination errors
+	 * 
+	 * @param poller The poller holding the router and the reply sockets
+	 * @return The number of sockets with pending messages
+	 * @throws SvException
+	 */
+	private static int poll(ZMQ.Poller poller) throws SvException {
+		try {
+			return poller.poll(SvCluster.SOCKET_RECV_TIMEOUT);
+		} catch (ZMQException e) {
+			if (e.getErrorCode() == zmq.ZError.ETERM)
+				throw (new SvException(Sv.Exceptions.CLUSTER_INACTIVE, svCONST.systemUser, e));
+			else
+				throw (new SvException(Sv.Exceptions.CLUSTER_COMMUNICATION_ERROR, svCONST.systemUser, e));
+		}
+	}
+
+	/**
+	 * Method to receive a multi part message without waiting
+	 * 
+	 * @param socket The socket from which the message is received
+	 * @return The list of frames, or null if there's no pending message
+	 * @throws SvException
+	 */
+	static List<byte[]> recvMultipart(ZMQ.Socket socket) throws SvException {
+		byte[] frame = SvCluster.zmqRecv(socket, ZMQ.DONTWAIT);
+		if (frame == null)
+			return null;
+		List<byte[]> frames = new ArrayList<byte[]>();
+		frames.add(frame);
+		while (socket.hasReceiveMore())
+			frames.add(SvCluster.zmqRecv(socket, 0));
+		return frames;
+	}
+
+	/**
+	 * Method to send a response to a client. The envelope identifying the client
+	 * is sent first, followed by the frames of the response
+	 * 
+	 * @param socket   The socket over which the response is sent
+	 * @param envelope The envelope of the request
+	 * @param response The frames of the response
+	 * @throws SvException
+	 */
+	static void sendResponse(ZMQ.Socket socket, List<byte[]> envelope, List<byte[]> response) throws SvException {
+		for (byte[] frame : envelope)
+			SvCluster.zmqSend(socket, frame, ZMQ.SNDMORE);
+		for (int i = 0; i < response.size(); i++)
+			SvCluster.zmqSend(socket, response.get(i), i < response.size() - 1 ? ZMQ.SNDMORE : 0);
+	}
+
+	/**
+	 * Method to forward the responses of the handlers to the router socket
+	 * 
+	 * @throws SvException
+	 */
+	private static void forwardResponses() throws SvException {
+		List<byte[]> frames = recvMultipart(replySock);
+		for (int i = 0; i < DISPATCH_BATCH && frames != null; i++) {
+			for (int j = 0; j < frames.size(); j++)
+				SvCluster.zmqSend(hbServerSock, frames.get(j), j < frames.size() - 1 ? ZMQ.SNDMORE : 0);
+			if (i < DISPATCH_BATCH - 1)
+				frames = recvMultipart(replySock);
+		}
+	}
+
+	/**
+	 * Method to dispatch the messages received on the router socket to the
+	 * handlers
+	 * 
+	 * @throws SvException
+	 */
+	private static void dispatchRequests() throws SvException {
+		List<byte[]> frames = recvMultipart(hbServerSock);
+		for (int i = 0; i < DISPATCH_BATCH && frames != null; i++) {
+			dispatch(frames);
+			if (i < DISPATCH_BATCH - 1)
+				frames = recvMultipart(hbServerSock);
+		}
+	}
+
+	/**
+	 * Method to dispatch a message to a handler. The lock messages are dispatched
+	 * to the handler owning the partition of the lock key, while the other
+	 * messages are dispatched by the node which sent them, so the messages of a
+	 * node are processed in order.
+	 * 
+	 * @param frames The frames of the message. The last frame is the payload, the
+	 *               frames before it are the envelope of the client
+	 * @throws SvException
+	 */
+	private static void dispatch(List<byte[]> frames) throws SvException {
+		byte[] msg = frames.get(frames.size() - 1);
+		List<byte[]> envelope = new ArrayList<byte[]>(frames.subList(0, frames.size() - 1));
+		if (msg == null || msg.length < SvUtil.sizeof.BYTE + SvUtil.sizeof.LONG) {
+			sendResponse(hbServerSock, envelope, Collections.singletonList(new byte[] { SvCluster.MSG_UNKNOWN }));
+			return;
+		}
+		ByteBuffer msgBuffer = ByteBuffer.wrap(msg);
+		byte msgType = msgBuffer.get();
+		long nodeId = msgBuffer.getLong();
+		String lockKey = null;
+		if (msgType == SvCluster.MSG_LOCK)
+			lockKey = new String(Arrays.copyOfRange(msg, 1 + SvUtil.sizeof.LONG, msg.length), ZMQ.CHARSET);
+		else if (msgType == SvCluster.MSG_LOCK_RELEASE && msgBuffer.remaining() >= SvUtil.sizeof.INT)
+			lockKey = getLockKey(msgBuffer.getInt(), nodeId);
+
+		ClusterHandler[] current = handlers;
+		int partition = lockKey != null ? getPartition(lockKey, current.length)
+				: (int) Math.floorMod(nodeId, (long) current.length);
+		current[partition].submit(envelope, msg);
+	}
+
+	/**
+	 * Method to find the key of a lock held by a node
+	 * 
+	 * @param lockHash The hash of the lock
+	 * @param nodeId   The node holding the lock
+	 * @return The key of the lock or null if the node doesn't hold it
+	 */
+	private static String getLockKey(Integer lockHash, long nodeId) {
+		CopyOnWriteArrayList<DistributedLock> locks = nodeLocks.get(nodeId);
+		if (locks != null)
+			for (DistributedLock d : locks)
+				if (lockHash.equals(d.getLockHash()))
+					return d.getKey();
+		return null;
+	}
+
+	/**
+	 * Method to get the partition of the handler owning a lock key
+	 * 
+	 * @param lockKey    The key of the lock
+	 * @param partitions The number of partitions
+	 * @return The partition owning the key
+	 */
+	static int getPartition(String lockKey, int partitions) {
+		return Math.floorMod(lockKey.hashCode(), partitions);
+	}
+
+	/**
+	 * Method to start the handler threads
+	 */
+	private void startHandlers() {
+		ClusterHandler[] newHandlers = new ClusterHandler[Math.max(SvConf.getClusterHandlerThreads(), 1)];
+		for (int i = 0; i < newHandlers.length; i++)
+			newHandlers[i] = new ClusterHandler(i, newHandlers.length);
+		handlers = newHandlers;
+		for (ClusterHandler handler : newHandlers) {
+			handler.thread = new Thread(handler);
+			handler.thread.setName("SvClusterHandlerThread-" + handler.partition);
+			handler.thread.start();
+		}
+	}
+
+	/**
+	 * Method to wait for the handler threads to finish the pending messages and
+	 * release the locks of their partitions
+	 */
+	private static void stopHandlers() {
+		ClusterHandler[] current = handlers;
+		if (current == null)
+			return;
+		try {
+			for (ClusterHandler handler : current)
+				handler.thread.join(2L * heartBeatTimeOut);
+		} catch (InterruptedException e) {
+			log4j.error("Cluster handlers shutdown interrupted", e);
+			Thread.currentThread().interrupt();
+		}
+		handlers = null;
+	}
+
+	/**
+	 * Handler thread processing the messages dispatched by the server thread. The
+	 * handler owns the distributed locks which keys hash to its partition, as
+	 * the re-entrant lock of a key must be released by the thread which acquired
+	 * it.
+	 */
+	private class ClusterHandler implements Runnable {
+		private final int partition;
+		private final int partitions;
+		private final BlockingQueue<Runnable> tasks = new LinkedBlockingQueue<Runnable>();
+		private ZMQ.Socket pushSock = null;
+		private Thread thread = null;
+
+		ClusterHandler(int partition, int partitions) {
+			this.partition = partition;
+			this.partitions = partitions;
+		}
+
+		void submit(List<byte[]> envelope, byte[] msg) {
+			tasks.add(() -> process(envelope, msg));
+		}
+
+		void submit(Runnable task) {
+			tasks.add(task);
+		}
+
+		/**
+		 * Method to process a message and send the response back to the server
+		 * thread
+		 * 
+		 * @param envelope The envelope of the client
+		 * @param msg      The message payload
+		 */
+		private void process(List<byte[]> envelope, byte[] msg) {
+			ByteBuffer msgBuffer = ByteBuffer.wrap(msg);
+			byte msgType = msgBuffer.get();
+			long nodeId = msgBuffer.getLong();
+			try {
+				List<byte[]> response = new ArrayList<byte[]>();
+				if (msgType == SvCluster.MSG_JOIN) {
+					for (ByteBuffer b : processJoin(nodeId, msgBuffer))
+						response.add(b.array());
+				} else
+					response.add(processMessage(msgType, nodeId, msgBuffer));
+				sendResponse(pushSock, envelope, response);
+			} catch (SvException e) {
+				if (!e.getLabelCode().equals(Sv.Exceptions.CLUSTER_INACTIVE))
+					log4j.error("Exception in sending message:" + Arrays.toString((byte[]) e.getConfigData()), e);
+			} catch (RuntimeException e) {
+				log4j.error("Malformatted message " + Integer.toString(msgType) + " from node " + nodeId, e);
+			}
+		}
+
+		@Override
+		public void run() {
+			pushSock = context.createSocket(SocketType.PUSH);
+			pushSock.connect(REPLY_ENDPOINT);
+			promoteLocalLocks(partition, partitions);
+			while (isRunning.get() || !tasks.isEmpty()) {
+				try {
+					Runnable task = tasks.poll(SvCluster.SOCKET_RECV_TIMEOUT, TimeUnit.MILLISECONDS);
+					if (task != null)
+						task.run();
+				} catch (InterruptedException e) {
+					log4j.error("Cluster handler interrupted", e);
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+			releaseDistributedLocks(partition, partitions);
+			context.destroySocket(pushSock);
+		}
+	}
+
 	/**
 	 * Method to handle Authentication messages between the cluster nodes and the
 	 * coordinator
@@ -577,33 +849,55 @@ public class SvClusterServer implements Runnable {
 
 	}
 
-	private static void promoteLocalLocks() {
+	/**
+	 * Method to promote the locks from the local worker cache, which belong to a
+	 * partition. It is invoked by the handler owning the partition.
+	 * 
+	 * @param partition  The partition of the handler
+	 * @param partitions The number of partitions
+	 */
+	private static void promoteLocalLocks(int partition, int partitions) {
 
-		SvClusterServer.distributedLocks.putAll(SvClusterClient.localDistributedLocks);
+		for (Entry<String, DistributedLock> entry : SvClusterClient.localDistributedLocks.entrySet())
+			if (getPartition(entry.getKey(), partitions) == partition)
+				SvClusterServer.distributedLocks.put(entry.getKey(), entry.getValue());
 		if (SvClusterClient.localDistributedLocks.size() > 0) {
 			if (log4j.isDebugEnabled())
 				log4j.debug("Promoting locks from the local worker cache. Total locks count:"
-						+ SvClusterClient.localDistributedLocks.size());
+						+ SvClusterClient.localDistributedLocks.size() + ", partition:" + partition);
 
 			for (Entry<Long, CopyOnWriteArrayList<DistributedLock>> entry : SvClusterClient.localNodeLocks.entrySet()) {
 				CopyOnWriteArrayList<DistributedLock> myLocks = entry.getValue();
 				if (myLocks != null)
-					for (DistributedLock d : myLocks) {
-						SvClusterServer.getDistributedLock(d.getKey(), d.getNodeId());
-						SvClusterServer.updateDistributedLock(d.getKey(), d.getLockHash());
-					}
+					for (DistributedLock d : myLocks)
+						if (getPartition(d.getKey(), partitions) == partition) {
+							SvClusterServer.getDistributedLock(d.getKey(), d.getNodeId());
+							SvClusterServer.updateDistributedLock(d.getKey(), d.getLockHash());
+						}
 			}
 		}
 
 	}
 
 	/**
-	 * Method to clear all disributed locks and unlock the object in SvLocks
+	 * Method to unlock the objects in SvLocks of the distributed locks which
+	 * belong to a partition. It is invoked by the handler owning the partition.
+	 * 
+	 * @param partition  The partition of the handler
+	 * @param partitions The number of partitions
 	 */
-	private void clearDistributedLocks() {
+	private static void releaseDistributedLocks(int partition, int partitions) {
 		for (Entry<String, DistributedLock> entry : SvClusterServer.distributedLocks.entrySet())
-			SvLock.releaseLock(entry.getValue().getKey(), entry.getValue().getLock());
+			if (getPartition(entry.getKey(), partitions) == partition
+					&& entry.getValue().getLock().isHeldByCurrentThread())
+				SvLock.releaseLock(entry.getValue().getKey(), entry.getValue().getLock());
+	}
 
+	/**
+	 * Method to clear all disributed locks. The objects in SvLocks are unlocked
+	 * by the handlers before they shut down.
+	 */
+	private void clearDistributedLocks() {
 		SvClusterServer.nodeLocks.clear();
 		SvClusterServer.distributedLocks.clear();
 
@@ -672,7 +966,38 @@ public class SvClusterServer implements Runnable {
 	 * @param nodeId The node for which the distributed locks shall be cleaned
 	 */
 	static void clusterCleanUp(Long nodeId) {
-		SvCluster.clusterCleanUp(nodeId, SvClusterServer.nodeLocks, false);
+		ClusterHandler[] current = handlers;
+		if (current == null) {
+			SvCluster.clusterCleanUp(nodeId, SvClusterServer.nodeLocks, false);
+			return;
+		}
+		// each handler releases the locks of its own partition
+		for (ClusterHandler handler : current)
+			handler.submit(() -> partitionCleanUp(nodeId, handler.partition, handler.partitions));
+	}
+
+	/**
+	 * Method to clean up the distributed locks acquired by a node, which belong
+	 * to a partition
+	 * 
+	 * @param nodeId     The node for which the distributed locks shall be cleaned
+	 * @param partition  The partition of the handler
+	 * @param partitions The number of partitions
+	 */
+	private static void partitionCleanUp(Long nodeId, int partition, int partitions) {
+		CopyOnWriteArrayList<DistributedLock> nodeLock = nodeLocks.get(nodeId);
+		if (nodeLock != null) {
+			for (DistributedLock dstLock : nodeLock)
+				if (getPartition(dstLock.getKey(), partitions) == partition) {
+					SvLock.releaseLock(dstLock.getKey(), dstLock.getLock());
+					synchronized (distributedLocks) {
+						distributedLocks.remove(dstLock.getKey(), dstLock);
+					}
+					nodeLock.remove(dstLock);
+				}
+			if (nodeLock.isEmpty())
+				nodeLocks.remove(nodeId, nodeLock);
+		}
 	}
 
 }
@@ -0,0 +1,321 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *
+ *******************************************************************************/
+package com.prtech.svarog;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.prtech.svarog_common.DbDataArray;
+import com.prtech.svarog_common.DbDataObject;
+import com.prtech.svarog_common.DboFactory;
+import com.prtech.svarog_common.ISvOnSave;
+
+/**
+ * Immutable snapshot of a single code list, with the codes sorted by sort
+ * order and indexed by code value and object id. The labels of the codes are
+ * translated once per locale and kept with the snapshot, so the CodeList
+ * methods don't read the codes or translate the labels per call.
+ *
+ * A snapshot is invalidated when a code of the list is saved or deleted, while
+ * a save of a label only drops the translations of the lists using that label.
+ *
+ * @author ristepejov
+ *
+ */
+final class SvCodeListSnapshot {
+
+	/**
+	 * Translated labels of the codes in a single locale
+	 */
+	static final class Translation {
+		final Map<Long, String> labelsById;
+		final Map<String, String> labelsByValue;
+
+		Translation(Map<Long, String> labelsById, Map<String, String> labelsByValue) {
+			this.labelsById = labelsById;
+			this.labelsByValue = labelsByValue;
+		}
+	}
+
+	/**
+	 * Cache of snapshots per code list object id. The snapshots expire after
+	 * write, so a missed invalidation is bounded even for a frequently read list.
+	 */
+	private static final Cache<Long, SvCodeListSnapshot> snapshots = initSnapshotCache();
+
+	/**
+	 * Generation of the codes configuration, increased on every change of a
+	 * code. It is only compared when a snapshot is published, so a snapshot
+	 * loaded while a code was saved is never used, while the published snapshots
+	 * of other lists stay valid.
+	 */
+	private static final AtomicLong generation = new AtomicLong();
+
+	private final long snapshotGeneration;
+	private final DbDataArray codes;
+	private final Map<String, Long> idsByValue;
+	private final Map<Long, String> valuesById;
+	private final Set<String> labelCodes;
+	private final Map<String, Translation> translations = new ConcurrentHashMap<String, Translation>();
+
+	private SvCodeListSnapshot(long snapshotGeneration, DbDataArray codes, Map<String, Long> idsByValue,
+			Map<Long, String> valuesById, Set<String> labelCodes) {
+		this.snapshotGeneration = snapshotGeneration;
+		this.codes = codes;
+		this.idsByValue = idsByValue;
+		this.valuesById = valuesById;
+		this.labelCodes = labelCodes;
+	}
+
+	/**
+	 * Method to create the snapshot cache and register the on save callbacks
+	 * invalidating the snapshots when codes or labels are saved
+	 *
+	 * @return The snapshot cache
+	 */
+	private static Cache<Long, SvCodeListSnapshot> initSnapshotCache() {
+		/**
+		 * Call back to invalidate the snapshot of the list holding the saved code
+		 */
+		class SvCodeListCallback implements ISvOnSave {
+
+			@Override
+			public boolean beforeSave(SvCore parentCore, DbDataObject dbo) {
+				return true;
+			}
+
+			@Override
+			public void afterSave(SvCore parentCore, DbDataObject dbo) throws SvException {
+				if (dbo.getObjectType().equals(svCONST.OBJECT_TYPE_LABEL))
+					invalidateLabelOnCommit(parentCore, (String) dbo.getVal(Sv.LABEL_CODE));
+				else
+					invalidateOnCommit(parentCore, dbo.getObjectId(), dbo.getParentId());
+			}
+		}
+
+		ISvOnSave callback = new SvCodeListCallback();
+		SvCore.registerOnSaveCallback(callback, svCONST.OBJECT_TYPE_CODE);
+		SvCore.registerOnSaveCallback(callback, svCONST.OBJECT_TYPE_LABEL);
+		return CacheBuilder.newBuilder().maximumSize(5000).expireAfterWrite(10, TimeUnit.MINUTES)
+				.<Long, SvCodeListSnapshot>build();
+	}
+
+	/**
+	 * Method to compile a snapshot from the codes of a list
+	 *
+	 * @param codes          The codes of the list sorted by sort order
+	 * @param fromGeneration The generation returned by getGeneration before the
+	 *                       codes were loaded
+	 * @return The compiled snapshot
+	 */
+	static SvCodeListSnapshot compile(DbDataArray codes, long fromGeneration) {
+		DbDataArray readOnlyCodes = new DbDataArray();
+		Map<String, Long> idsByValue = new HashMap<String, Long>();
+		Map<Long, String> valuesById = new LinkedHashMap<Long, String>();
+		Set<String> labelCodes = new HashSet<String>();
+		for (DbDataObject dbo : codes.getItems()) {
+			readOnlyCodes.addDataItem(readOnlyCopy(dbo));
+			idsByValue.put(dbo.getAsString(Sv.CODE_VALUE), dbo.getObjectId());
+			valuesById.put(dbo.getObjectId(), dbo.getAsString(Sv.CODE_VALUE));
+			if (dbo.getVal(Sv.LABEL_CODE) != null)
+				labelCodes.add(dbo.getAsString(Sv.LABEL_CODE));
+		}
+		return new SvCodeListSnapshot(fromGeneration, readOnlyCodes,
+				Collections.unmodifiableMap(idsByValue), Collections.unmodifiableMap(valuesById),
+				Collections.unmodifiableSet(labelCodes));
+	}
+
+	/**
+	 * Method to create a read-only copy of a code, so the snapshot doesn't share
+	 * the objects of the cache with the callers
+	 *
+	 * @param dbo The code object
+	 * @return The read-only copy
+	 */
+	private static DbDataObject readOnlyCopy(DbDataObject dbo) {
+		DbDataObject copy = new DbDataObject(dbo.getObjectType());
+		copy.setValuesMap(dbo.getValuesMap());
+		copy.setObjectId(dbo.getObjectId());
+		copy.setPkid(dbo.getPkid());
+		copy.setParentId(dbo.getParentId());
+		copy.setStatus(dbo.getStatus());
+		copy.setDtInsert(dbo.getDtInsert());
+		copy.setDtDelete(dbo.getDtDelete());
+		copy.setUserId(dbo.getUserId());
+		copy.setIsDirty(false);
+		DboFactory.makeDboReadOnly(copy);
+		return copy;
+	}
+
+	/**
+	 * Method to get the current snapshot of a code list
+	 *
+	 * @param codeListId The object id of the code list, 0 for the root level
+	 * @return The snapshot or null if it isn't compiled
+	 */
+	static SvCodeListSnapshot get(Long codeListId) {
+		return snapshots.getIfPresent(codeListId);
+	}
+
+	/**
+	 * Method to publish the compiled snapshot of a code list. The snapshot is
+	 * not published if any code changed while it was compiled. If a code
+	 * changed while the snapshot was published, it is removed again.
+	 *
+	 * @param codeListId The object id of the code list
+	 * @param snapshot   The compiled snapshot
+	 */
+	static void put(Long codeListId, SvCodeListSnapshot snapshot) {
+		if (snapshot.snapshotGeneration != generation.get())
+			return;
+		snapshots.put(codeListId, snapshot);
+		if (snapshot.snapshotGeneration != generation.get())
+			snapshots.asMap().remove(codeListId, snapshot);
+	}
+
+	/**
+	 * @return The current generation of the codes configuration
+	 */
+	static long getGeneration() {
+		return generation.get();
+	}
+
+	/**
+	 * Method to invalidate the snapshots affected by a change of a code. If the
+	 * parent of the code isn't known, the lists holding the code are
+	 * invalidated, or all lists if none holds it.
+	 *
+	 * @param objectId The object id of the changed code
+	 * @param parentId The id of the code list, or null if unknown
+	 */
+	static void invalidate(Long objectId, Long parentId) {
+		generation.incrementAndGet();
+		boolean found = false;
+		for (Map.Entry<Long, SvCodeListSnapshot> entry : snapshots.asMap().entrySet())
+			if (entry.getValue().valuesById.containsKey(objectId)) {
+				snapshots.invalidate(entry.getKey());
+				found = true;
+			}
+		if (parentId != null)
+			snapshots.invalidate(parentId);
+		else if (!found)
+			snapshots.invalidateAll();
+	}
+
+	/**
+	 * Method to invalidate the snapshots affected by a change of a code made in
+	 * a transaction. The snapshots are invalidated immediately and again after
+	 * the commit, so a snapshot loaded from the old codes in the meantime is
+	 * dropped too.
+	 *
+	 * @param svc      The core which changed the code
+	 * @param objectId The object id of the changed code
+	 * @param parentId The id of the code list, or null if unknown
+	 * @throws SvException Pass through of underlying exceptions
+	 */
+	static void invalidateOnCommit(SvCore svc, Long objectId, Long parentId) throws SvException {
+		invalidate(objectId, parentId);
+		if (svc != null)
+			svc.runAfterCommit(() -> invalidate(objectId, parentId));
+	}
+
+	/**
+	 * Method to drop the translations using the label changed in a transaction,
+	 * immediately and again after the commit
+	 *
+	 * @param svc       The core which changed the label
+	 * @param labelCode The label code of the changed label
+	 * @throws SvException Pass through of underlying exceptions
+	 */
+	static void invalidateLabelOnCommit(SvCore svc, String labelCode) throws SvException {
+		invalidateLabel(labelCode);
+		if (svc != null)
+			svc.runAfterCommit(() -> invalidateLabel(labelCode));
+	}
+
+	/**
+	 * Method to drop the translations of all lists using the changed label
+	 *
+	 * @param labelCode The label code of the changed label
+	 */
+	static void invalidateLabel(String labelCode) {
+		for (SvCodeListSnapshot snapshot : snapshots.asMap().values())
+			if (labelCode == null || snapshot.labelCodes.contains(labelCode))
+				snapshot.translations.clear();
+	}
+
+	/**
+	 * Method to invalidate the snapshots of all code lists
+	 */
+	static void invalidateAll() {
+		generation.incrementAndGet();
+		snapshots.invalidateAll();
+	}
+
+	/**
+	 * Method to get the translated labels of the codes in a locale. The
+	 * translation is done once per locale, by the first caller.
+	 *
+	 * @param languageId The id of the locale
+	 * @return The translated labels
+	 */
+	Translation getTranslation(String languageId) {
+		Translation translation = translations.get(languageId);
+		if (translation == null) {
+			Map<Long, String> labelsById = new LinkedHashMap<Long, String>();
+			Map<String, String> labelsByValue = new HashMap<String, String>();
+			for (DbDataObject dbo : codes.getItems()) {
+				String label = I18n.getText(languageId, dbo.getAsString(Sv.LABEL_CODE));
+				labelsById.put(dbo.getObjectId(), label);
+				labelsByValue.put(dbo.getAsString(Sv.CODE_VALUE), label);
+			}
+			translation = new Translation(Collections.unmodifiableMap(labelsById),
+					Collections.unmodifiableMap(labelsByValue));
+			translations.put(languageId, translation);
+		}
+		return translation;
+	}
+
+	/**
+	 * @return The codes of the list sorted by sort order. The array is shared
+	 *         and must not be modified.
+	 */
+	DbDataArray getCodes() {
+		return codes;
+	}
+
+	/**
+	 * @return Read-only map of code object ids by code value
+	 */
+	Map<String, Long> getIdsByValue() {
+		return idsByValue;
+	}
+
+	/**
+	 * @return Read-only map of code values by code object id, in sort order
+	 */
+	Map<Long, String> getValuesById() {
+		return valuesById;
+	}
+}
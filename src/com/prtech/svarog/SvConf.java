@@ -93,6 +93,26 @@ public class SvConf {
 	 * Variable holding the svarog global limit for sending JDBC batches
 	 */
 	private static Integer jdbcBatchSize = null;
+	/**
+	 * Variable holding the number of rows fetched per round-trip by the streaming
+	 * cursors
+	 */
+	private static int jdbcFetchSize = 1000;
+	/**
+	 * Variable holding the max number of objects validated by a single unique
+	 * constraints query, when saving arrays of objects
+	 */
+	private static int constraintBatchSize = 500;
+	/**
+	 * Variable holding the number of new objects streamed by a single copy into
+	 * the repo and type tables. Zero disables the copy inserts.
+	 */
+	private static int copyBatchSize = 0;
+	/**
+	 * Variable holding the max number of query shapes with cached SQL text. Zero
+	 * disables the SQL cache.
+	 */
+	private static int sqlCacheSize = 1000;
 	/**
 	 * Variable holding the svarog global limit for sending JDBC batches
 	 */
@@ -103,6 +123,12 @@ public class SvConf {
 	 */
 	private static int maxLockCount;
 
+	/**
+	 * Number of sequence values reserved in the database per round-trip by the
+	 * out-of-transaction sequence generator.
+	 */
+	private static int sequenceBlockSize = 1000;
+
 	/**
 	 * Maximum time before the node will perform cluster maintenance.
 	 */
@@ -129,6 +155,30 @@ public class SvConf {
 	 */
 	private static int heartBeatTimeOut;
 
+	/**
+	 * Number of handler threads of the cluster coordinator. The distributed
+	 * locks are partitioned between the handlers by the hash of the lock key.
+	 */
+	private static int clusterHandlerThreads = 4;
+
+	/**
+	 * Number of sockets the cluster client uses to send concurrent requests to
+	 * the coordinator
+	 */
+	private static int clusterClientSockets = 4;
+
+	/**
+	 * Time in milliseconds over which the dirty object notifications are
+	 * coalesced before they are published to the cluster. Zero publishes each
+	 * saved array synchronously.
+	 */
+	private static int dirtyBatchWindow = 5;
+
+	/**
+	 * Max number of dirty object ids published in a single notification
+	 */
+	private static int dirtyBatchSize = 1000;
+
 	private static String admUnitClass;
 
 	private static boolean intersectSysBoundary;
@@ -201,6 +251,21 @@ public class SvConf {
 	 * Flag to enable svarog to recalculate geometry area/perimeter
 	 */
 	static boolean sdiOverrideGeomCalc;
+	/**
+	 * Number of object changes applied to a loaded tile, before its spatial index
+	 * is rebuilt from the geometries held in memory
+	 */
+	private static int sdiTileDeltaThreshold = 64;
+	/**
+	 * Durability of the rule engine execution state, saved per action, per rule
+	 * or asynchronously by a background writer
+	 */
+	private static SvRuleEngineSave.Durability ruleStateDurability = SvRuleEngineSave.Durability.ACTION;
+	/**
+	 * Max number of rule execution states saved in one batch by the background
+	 * writer
+	 */
+	private static int ruleStateBatchSize = 100;
 
 	private static boolean clusterEnabled = true;
 	/**
@@ -314,6 +379,19 @@ public class SvConf {
 	 */
 	private static boolean overrideTimeStamps = true;
 
+	/**
+	 * flag to enable the compact, array backed field storage for objects of a
+	 * known type
+	 */
+	private static boolean compactObjects = true;
+
+	/**
+	 * flag to enable the optimistic save mode, in which the pre-save repo read is
+	 * served from the cache and stale versions are detected by the invalidation
+	 * update
+	 */
+	private static boolean optimisticSave = false;
+
 	private static boolean deleteCodesOnUpgrade = false;
 
 	private static int maxRequestsPerMinute;
@@ -534,9 +612,18 @@ public class SvConf {
 			defaultSchema = getProperty(mainProperties, "conn.defaultSchema", "SVAROG").toUpperCase();
 			sdiGridSize = getProperty(mainProperties, "sys.gis.grid_size", 10.0);
 			sdiOverrideGeomCalc = getProperty(mainProperties, "sys.gis.override_user_area_perim", false);
+			sdiTileDeltaThreshold = getProperty(mainProperties, "sys.gis.tile_delta_threshold", 64);
 
 			maxLockTimeout = getProperty(mainProperties, "sys.lock.max_wait_time", 5) * 60L * 1000L;
 			maxLockCount = getProperty(mainProperties, "sys.lock.max_count", 5000);
+			sequenceBlockSize = getProperty(mainProperties, "sys.sequence.block_size", 1000);
+			ruleStateDurability = SvRuleEngineSave.Durability.valueOf(
+					getProperty(mainProperties, "sys.rule_engine.state_durability", "ACTION").trim().toUpperCase());
+			ruleStateBatchSize = getProperty(mainProperties, "sys.rule_engine.state_batch_size", 100);
+			jdbcFetchSize = getProperty(mainProperties, "sys.jdbc.fetch_size", 1000);
+			constraintBatchSize = getProperty(mainProperties, "sys.jdbc.constraint_batch_size", 500);
+			copyBatchSize = getProperty(mainProperties, "sys.jdbc.copy_batch_size", 0);
+			sqlCacheSize = getProperty(mainProperties, "sys.jdbc.sql_cache_size", 1000);
 			multiSelectSeparator = getProperty(mainProperties, "sys.codes.multiselect_separator", "");
 			sdiEnabled = getProperty(mainProperties, "sys.gis.enable_spatial", false);
 
@@ -545,11 +632,17 @@ public class SvConf {
 			heartBeatPort = getProperty(mainProperties, "sys.cluster.heartbeat_port", 6783);
 			heartBeatInterval = getProperty(mainProperties, "sys.cluster.heartbeat_interval", 1000);
 			heartBeatTimeOut = getProperty(mainProperties, "sys.cluster.heartbeat_timeout", 10000);
+			clusterHandlerThreads = getProperty(mainProperties, "sys.cluster.handler_threads", 4);
+			clusterClientSockets = getProperty(mainProperties, "sys.cluster.client_sockets", 4);
+			dirtyBatchWindow = getProperty(mainProperties, "sys.cluster.dirty_batch_window", 5);
+			dirtyBatchSize = getProperty(mainProperties, "sys.cluster.dirty_batch_size", 1000);
 			vmBridgeIPAddress = getProperty(mainProperties, "sys.cluster.vmbridge_ip", "");
 			clusterEnabled = getProperty(mainProperties, "sys.cluster.enabled", true);
 			deleteCodesOnUpgrade = getProperty(mainProperties, "sys.codes.delete_upgrade", false);
 
 			overrideTimeStamps = getProperty(mainProperties, "sys.core.override_timestamp", true);
+			compactObjects = getProperty(mainProperties, "sys.core.compact_objects", true);
+			optimisticSave = getProperty(mainProperties, "sys.core.optimistic_save", false);
 			maxRequestsPerMinute = getProperty(mainProperties, "sys.max.requests_per_min", 60);
 
 			admUnitClass = getProperty(mainProperties, "sys.gis.legal_sdi_unit_type", "0");
@@ -1007,6 +1100,30 @@ public class SvConf {
 		SvConf.sdiGridSize = sdiGridSize;
 	}
 
+	public static int getSdiTileDeltaThreshold() {
+		return sdiTileDeltaThreshold;
+	}
+
+	public static void setSdiTileDeltaThreshold(int sdiTileDeltaThreshold) {
+		SvConf.sdiTileDeltaThreshold = sdiTileDeltaThreshold;
+	}
+
+	public static SvRuleEngineSave.Durability getRuleStateDurability() {
+		return ruleStateDurability;
+	}
+
+	public static void setRuleStateDurability(SvRuleEngineSave.Durability ruleStateDurability) {
+		SvConf.ruleStateDurability = ruleStateDurability;
+	}
+
+	public static int getRuleStateBatchSize() {
+		return ruleStateBatchSize;
+	}
+
+	public static void setRuleStateBatchSize(int ruleStateBatchSize) {
+		SvConf.ruleStateBatchSize = ruleStateBatchSize;
+	}
+
 	public static long getMaxLockTimeout() {
 		return maxLockTimeout;
 	}
@@ -1015,6 +1132,46 @@ public class SvConf {
 		SvConf.maxLockTimeout = maxLockTimeout;
 	}
 
+	public static int getJDBCFetchSize() {
+		return jdbcFetchSize;
+	}
+
+	public static void setJDBCFetchSize(int jdbcFetchSize) {
+		SvConf.jdbcFetchSize = jdbcFetchSize;
+	}
+
+	public static int getConstraintBatchSize() {
+		return constraintBatchSize;
+	}
+
+	public static void setConstraintBatchSize(int constraintBatchSize) {
+		SvConf.constraintBatchSize = constraintBatchSize;
+	}
+
+	public static int getCopyBatchSize() {
+		return copyBatchSize;
+	}
+
+	public static void setCopyBatchSize(int copyBatchSize) {
+		SvConf.copyBatchSize = copyBatchSize;
+	}
+
+	public static int getSqlCacheSize() {
+		return sqlCacheSize;
+	}
+
+	public static void setSqlCacheSize(int sqlCacheSize) {
+		SvConf.sqlCacheSize = sqlCacheSize;
+	}
+
+	public static int getSequenceBlockSize() {
+		return sequenceBlockSize;
+	}
+
+	public static void setSequenceBlockSize(int sequenceBlockSize) {
+		SvConf.sequenceBlockSize = sequenceBlockSize;
+	}
+
 	public static String getMultiSelectSeparator() {
 		return multiSelectSeparator;
 	}
@@ -1079,6 +1236,22 @@ public class SvConf {
 		SvConf.overrideTimeStamps = overrideTimeStamps;
 	}
 
+	public static boolean isCompactObjects() {
+		return compactObjects;
+	}
+
+	public static void setCompactObjects(boolean compactObjects) {
+		SvConf.compactObjects = compactObjects;
+	}
+
+	public static boolean isOptimisticSave() {
+		return optimisticSave;
+	}
+
+	public static void setOptimisticSave(boolean optimisticSave) {
+		SvConf.optimisticSave = optimisticSave;
+	}
+
 	public static int getHeartBeatTimeOut() {
 		return heartBeatTimeOut;
 	}
@@ -1087,6 +1260,38 @@ public class SvConf {
 		SvConf.heartBeatTimeOut = heartBeatTimeOut;
 	}
 
+	public static int getClusterHandlerThreads() {
+		return clusterHandlerThreads;
+	}
+
+	public static void setClusterHandlerThreads(int clusterHandlerThreads) {
+		SvConf.clusterHandlerThreads = clusterHandlerThreads;
+	}
+
+	public static int getClusterClientSockets() {
+		return clusterClientSockets;
+	}
+
+	public static void setClusterClientSockets(int clusterClientSockets) {
+		SvConf.clusterClientSockets = clusterClientSockets;
+	}
+
+	public static int getDirtyBatchWindow() {
+		return dirtyBatchWindow;
+	}
+
+	public static void setDirtyBatchWindow(int dirtyBatchWindow) {
+		SvConf.dirtyBatchWindow = dirtyBatchWindow;
+	}
+
+	public static int getDirtyBatchSize() {
+		return dirtyBatchSize;
+	}
+
+	public static void setDirtyBatchSize(int dirtyBatchSize) {
+		SvConf.dirtyBatchSize = dirtyBatchSize;
+	}
+
 	public static String getAdmUnitClass() {
 		return admUnitClass;
 	}
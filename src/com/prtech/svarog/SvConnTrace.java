@@ -16,6 +16,9 @@ package com.prtech.svarog;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -36,6 +39,84 @@ class SvConnTrace {
 	 */
 	int usageCount = 0;
 
+	/**
+	 * Serialized versions of the replicated objects saved in the current
+	 * transaction, which are published to the cluster after the commit
+	 */
+	private List<byte[]> pendingReplicas = null;
+
+	/**
+	 * Actions which must run only after the current transaction is committed,
+	 * such as applying the changes to the node local caches
+	 */
+	private List<Runnable> pendingActions = null;
+
+	/**
+	 * Method to queue the replicas of the saved objects until the transaction
+	 * is committed
+	 * 
+	 * @param replicas The serialized object versions
+	 */
+	void addReplicas(List<byte[]> replicas) {
+		synchronized (this) {
+			if (pendingReplicas == null)
+				pendingReplicas = new ArrayList<byte[]>();
+			pendingReplicas.addAll(replicas);
+		}
+	}
+
+	/**
+	 * Method to drop the queued replicas of objects deleted in the current
+	 * transaction
+	 * 
+	 * @param versionKeys The keys of the deleted objects
+	 */
+	void removeReplicas(Set<String> versionKeys) {
+		synchronized (this) {
+			if (pendingReplicas != null)
+				pendingReplicas.removeIf(replica -> versionKeys.contains(SvClusterReplica.getVersionKey(replica)));
+		}
+	}
+
+	/**
+	 * Method to take the replicas queued in the current transaction
+	 * 
+	 * @return The queued replicas or null if there are none
+	 */
+	List<byte[]> takeReplicas() {
+		synchronized (this) {
+			List<byte[]> replicas = pendingReplicas;
+			pendingReplicas = null;
+			return replicas;
+		}
+	}
+
+	/**
+	 * Method to queue an action until the transaction is committed
+	 * 
+	 * @param action The action to run after the commit
+	 */
+	void addAction(Runnable action) {
+		synchronized (this) {
+			if (pendingActions == null)
+				pendingActions = new ArrayList<Runnable>();
+			pendingActions.add(action);
+		}
+	}
+
+	/**
+	 * Method to take the actions queued in the current transaction
+	 * 
+	 * @return The queued actions or null if there are none
+	 */
+	List<Runnable> takeActions() {
+		synchronized (this) {
+			List<Runnable> actions = pendingActions;
+			pendingActions = null;
+			return actions;
+		}
+	}
+
 	/**
 	 * Method to increase the usageCount to mark another instance using the
 	 * connection
@@ -76,6 +157,9 @@ class SvConnTrace {
 			if (usageCount == 0) {
 				if (log4j.isDebugEnabled())
 					log4j.trace("Usage count is zero. Performing physical rollback/close on the connection");
+				// the uncommitted replicas are rolled back with the connection
+				pendingReplicas = null;
+				pendingActions = null;
 				try {
 					if (this.connection != null && !this.connection.isClosed()) {
 						if (!this.connection.getAutoCommit())
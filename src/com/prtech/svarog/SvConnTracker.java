@@ -76,6 +76,17 @@ class SvConnTracker {
 		return tracker.get(toCore) != null;
 	}
 
+	/**
+	 * Method to get the trace of the connection used by an SvCore instance
+	 * 
+	 * @param toCore
+	 *            SoftReference to the SvCore instance
+	 * @return The connection trace or null if the instance has no connection
+	 */
+	static SvConnTrace getTrace(SoftReference<SvCore> toCore) {
+		return tracker.get(toCore);
+	}
+
 	/**
 	 * A method to fetch a tracked connection from the connection pool
 	 * 
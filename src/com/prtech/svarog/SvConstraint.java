@@ -14,11 +14,15 @@
  *******************************************************************************/
 package com.prtech.svarog;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.ResourceBundle;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.joda.time.DateTime;
 
 import com.prtech.svarog_common.DbDataArray;
 import com.prtech.svarog_common.DbDataObject;
@@ -150,6 +154,73 @@ public class SvConstraint {
 		return bindVals;
 	}
 
+	/**
+	 * Method to get the number of bind parameters needed per object by the
+	 * constraint query
+	 * 
+	 * @return The number of bind parameters
+	 */
+	int getParamCount() {
+		return fields.size() + (Sv.PARENT.equals(uniqueLevel) ? 2 : 1);
+	}
+
+	/**
+	 * Method to build the in-memory key of the unique values of an object. The
+	 * key follows the semantics of the SQL check, so null values are equal to
+	 * 'NaN' and numbers are compared by value
+	 * 
+	 * @param dbo The object for which the key is built
+	 * @return List of the normalised unique values
+	 */
+	List<Object> getUniqueKey(DbDataObject dbo) {
+		ArrayList<Object> key = new ArrayList<>(fields.size() + 1);
+		if (Sv.PARENT.equals(uniqueLevel))
+			key.add(dbo.getParentId());
+		for (DbDataObject fld : fields)
+			key.add(normaliseValue(dbo.getVal((String) fld.getVal(Sv.FIELD_NAME))));
+		return key;
+	}
+
+	private static Object normaliseValue(Object value) {
+		if (value == null)
+			return "NaN";
+		if (value instanceof Number) {
+			try {
+				return new BigDecimal(value.toString()).stripTrailingZeros();
+			} catch (NumberFormatException e) {
+				return value.toString();
+			}
+		}
+		if (value instanceof DateTime)
+			return ((DateTime) value).getMillis();
+		return value;
+	}
+
+	/**
+	 * Method to find duplicates of the unique values within an array of objects,
+	 * without querying the database
+	 * 
+	 * @param dba The array of objects
+	 * @return The first object which has the same unique values as a previous
+	 *         object in the array, or null if there are no duplicates
+	 */
+	DbDataObject findDuplicate(DbDataArray dba) {
+		if (fields.size() < 1 || uniqueLevel == null)
+			return null;
+		HashMap<List<Object>, DbDataObject> keys = new HashMap<>(dba.size() * 2);
+		for (DbDataObject dbo : dba.getItems()) {
+			DbDataObject other = keys.putIfAbsent(getUniqueKey(dbo), dbo);
+			// two versions of the same object don't violate the constraint
+			if (other != null && (other.getObjectId() == 0L || !other.getObjectId().equals(dbo.getObjectId())))
+				return dbo;
+		}
+		return null;
+	}
+
+	public String getConstraintName() {
+		return constraintName;
+	}
+
 	public void initSQL() {
 
 		StringBuilder b = getBase();
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *
+ *******************************************************************************/
+package com.prtech.svarog;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+
+/**
+ * Buffer of rows in the CSV format expected by ISvDatabaseIO.copyIn. Values
+ * are appended field by field and each row is closed with endRow. Null values
+ * are written as unquoted empty values, while strings are always quoted so
+ * empty strings are kept apart from nulls.
+ * 
+ * When used for the repo rows, the buffer also carries the pre-allocated keys
+ * of the rows.
+ * 
+ * @author ristepejov
+ *
+ */
+final class SvCopyRows {
+
+	private final StringBuilder rows;
+	private boolean isFirstValue = true;
+	private int rowCount = 0;
+
+	/**
+	 * The pre-allocated PKIDs of the rows
+	 */
+	final long[] pkids;
+	/**
+	 * The pre-allocated object ids of the rows
+	 */
+	final long[] objectIds;
+
+	SvCopyRows(int expectedRows) {
+		this(expectedRows, null, null);
+	}
+
+	SvCopyRows(int expectedRows, long[] pkids, long[] objectIds) {
+		this.rows = new StringBuilder(expectedRows * 128);
+		this.pkids = pkids;
+		this.objectIds = objectIds;
+	}
+
+	/**
+	 * Method to append a value to the current row. Supported values are null,
+	 * Boolean, BigDecimal, any other Number, java.sql.Timestamp and String. Any
+	 * other value is appended as quoted string using its toString method
+	 * 
+	 * @param value The value to append
+	 * @return This buffer
+	 */
+	SvCopyRows add(Object value) {
+		if (!isFirstValue)
+			rows.append(',');
+		isFirstValue = false;
+		if (value == null)
+			return this;
+		if (value instanceof BigDecimal)
+			rows.append(((BigDecimal) value).toPlainString());
+		else if (value instanceof Number || value instanceof Boolean || value instanceof java.sql.Timestamp)
+			rows.append(value.toString());
+		else
+			appendQuoted(value.toString());
+		return this;
+	}
+
+	private void appendQuoted(String value) {
+		rows.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"')
+				rows.append('"');
+			rows.append(c);
+		}
+		rows.append('"');
+	}
+
+	/**
+	 * Method to close the current row
+	 * 
+	 * @return This buffer
+	 */
+	SvCopyRows endRow() {
+		rows.append('\n');
+		isFirstValue = true;
+		rowCount++;
+		return this;
+	}
+
+	int getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * @return Reader over the buffered rows
+	 */
+	Reader getReader() {
+		return new StringReader(rows.toString());
+	}
+
+	@Override
+	public String toString() {
+		return rows.toString();
+	}
+}
@@ -32,13 +32,17 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantLock;
 import org.apache.commons.io.IOUtils;
 import org.apache.logging.log4j.Logger;
@@ -69,6 +73,7 @@ import com.prtech.svarog_interfaces.ISvDatabaseIO;
 import com.prtech.svarog_common.ISvOnSave;
 import com.prtech.svarog_common.ResponseHandler;
 import com.prtech.svarog_common.SvCharId;
+import com.prtech.svarog_common.SvFieldSchema;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.io.ParseException;
 import org.locationtech.jts.io.WKBReader;
@@ -232,15 +237,42 @@ public abstract class SvCore implements ISvCore, java.lang.AutoCloseable {
 	private static HashMap<String, DbDataObject> repoDbtMap = new HashMap<String, DbDataObject>(1, 1);
 
 	/**
-	 * Map containing all key maps for the specified Object Type
+	 * The field layout of an object type, built once from the field descriptors
+	 * and published as a whole, so a reader never sees the maps of different
+	 * versions of the fields
 	 */
-	private static HashMap<Long, LinkedHashMap<SvCharId, Object>> dbtKeyMap = new HashMap<Long, LinkedHashMap<SvCharId, Object>>();
+	private static final class TypeFields {
+		/**
+		 * All keys of the object type, without the field descriptors
+		 */
+		final LinkedHashMap<SvCharId, Object> emptyMap;
+		/**
+		 * All keys of the object type with the field descriptors
+		 */
+		final LinkedHashMap<SvCharId, Object> keyMap;
+		/**
+		 * The shared field schema, used for creating objects with compact, array
+		 * backed field storage
+		 */
+		final SvFieldSchema schema;
+
+		TypeFields(LinkedHashMap<SvCharId, Object> emptyMap, LinkedHashMap<SvCharId, Object> keyMap) {
+			this.emptyMap = emptyMap;
+			this.keyMap = keyMap;
+			this.schema = new SvFieldSchema(emptyMap.keySet());
+		}
+	}
+
+	/**
+	 * Map containing the field layout of the specified Object Type
+	 */
+	private static final ConcurrentHashMap<Long, TypeFields> dbtFieldsMap = new ConcurrentHashMap<Long, TypeFields>();
 
 	/**
-	 * Map containing all keys the specified Object Type, without the field
-	 * descriptors
+	 * Registry of the object types, fields and link types loaded from the
+	 * database, null until the configuration is loaded
 	 */
-	private static HashMap<Long, LinkedHashMap<SvCharId, Object>> emptyKeyMap = new HashMap<Long, LinkedHashMap<SvCharId, Object>>();
+	private static final AtomicReference<SvMetadata> metadata = new AtomicReference<SvMetadata>();
 
 	/**
 	 * Flag with information about the successful Svarog initialization
@@ -301,13 +333,10 @@ public abstract class SvCore implements ISvCore, java.lang.AutoCloseable {
 	protected DbDataObject previousUser = null;
 
 	/**
-	 * The permissions associated with this instance
-	 */
-	private HashMap<SvAclKey, HashMap<String, DbDataObject>> instancePermissions = null;
-	/**
-	 * The permissions indexed by key (label_code)
+	 * The permissions associated with this instance, shared with all instances
+	 * running under the same user
 	 */
-	private HashMap<String, DbDataObject> permissionKeys = null;
+	private SvAclSnapshot instanceAcls = null;
 
 	/**
 	 * The user object under which objects saved by this instance will be registered
@@ -724,6 +753,9 @@ public abstract class SvCore implements ISvCore, java.lang.AutoCloseable {
 		DbDataObject tableObj = getDbtByName(tableName);
 		DbDataArray fields = null;
 		DbDataObject retField = null;
+		SvMetadata registry = metadata.get();
+		if (tableObj != null && registry != null && registry.hasFields(tableObj.getObjectId()))
+			return registry.getField(tableObj.getObjectId(), fieldName);
 		if (tableObj != null)
 			fields = DbCache.getObjectsByParentId(tableObj.getObjectId(), svCONST.OBJECT_TYPE_FIELD_SORT);
 		if (fields != null)
@@ -746,6 +778,9 @@ public abstract class SvCore implements ISvCore, java.lang.AutoCloseable {
 	 * @return List of the link types
 	 */
 	public static List<DbDataObject> getLinkTypes(Long typeId1, Long typeId2, boolean bidirectional) {
+		SvMetadata registry = metadata.get();
+		if (registry != null)
+			return new ArrayList<>(registry.getLinkTypes(typeId1, typeId2, bidirectional));
 		ArrayList<DbDataObject> retval = new ArrayList<>();
 		for (DbDataObject link : dbLinkTypes.getItems()) {
 			if ((link.getVal(Sv.Link.LINK_OBJ_TYPE_1).equals(typeId1)
@@ -889,6 +924,9 @@ public abstract class SvCore implements ISvCore, java.lang.AutoCloseable {
 			return null;
 		String objName = objectName.toUpperCase();
 		objectSchema = (objectSchema != null ? objectSchema : SvConf.getDefaultSchema());
+		SvMetadata registry = metadata.get();
+		if (registry != null)
+			return registry.getDbt(objName, objectSchema);
 		DbDataObject objType = dbtMap.get(objectSchema + Sv.DOT + objName);
 		if (objType == null) {
 			objName = objectSchema + Sv.DOT + SvConf.getMasterRepo() + "_" + objName;
@@ -1264,6 +1302,7 @@ public abstract class SvCore implements ISvCore, java.lang.AutoCloseable {
 		if (objectTypes != null && fieldTypes != null) {
 			repoDbtMap.clear();
 			dbtMap.clear();
+			metadata.set(null);
 			prepareTables(objectTypes, fieldTypes, linkTypes);
 			for (DbDataObject dbo : objectTypes.getItems()) {
 				DboFactory.makeDboReadOnly(dbo);
@@ -1282,6 +1321,8 @@ public abstract class SvCore implements ISvCore, java.lang.AutoCloseable {
 				if (dbo.getVal(Sv.SORT_ORDER) == null)
 					throw new SvException("Base configuration error, field " + dbo.getAsString(Sv.FIELD_NAME)
 							+ ". must have sort order!", svCONST.systemUser, dbo, null);
+				// register the canonical id of the field name
+				SvCharId.intern((String) dbo.getVal(Sv.FIELD_NAME));
 				DbCache.addObject(dbo, null, true);
 			}
 		}
@@ -1350,6 +1391,8 @@ public abstract class SvCore implements ISvCore, java.lang.AutoCloseable {
 			public void run() {
 				try {
 					log4j.info("Shutting down svarog");
+					// save the rule execution states queued for the background writer
+					SvRuleEngineSave.flushOnShutdown(30000);
 					// Svarog shut down executing list of executors
 					if (SvConf.isClusterEnabled()) {
 						log4j.info("Shutting down the cluster infrastructure");
@@ -1416,6 +1459,34 @@ public abstract class SvCore implements ISvCore, java.lang.AutoCloseable {
 		initSysObjects(objectTypes, fieldTypes, linkTypes);
 
 		prepareCache(objectTypes, linkTypes, formTypes);
+
+		// index the loaded configuration and replace the previous registry
+		HashMap<Long, DbDataArray> fields = new HashMap<Long, DbDataArray>();
+		for (DbDataObject dbt : objectTypes.getItems()) {
+			DbDataArray dbtFields = DbCache.getObjectsByParentId(dbt.getObjectId(), svCONST.OBJECT_TYPE_FIELD_SORT);
+			if (dbtFields != null)
+				fields.put(dbt.getObjectId(), dbtFields);
+		}
+		metadata.set(new SvMetadata(dbtMap.values(), fields, linkTypes, SvConf.getMasterRepo() + "_"));
+		dbtFieldsMap.clear();
+	}
+
+	/**
+	 * Method to invalidate the field descriptors of an object type after the
+	 * fields of the type have been changed. The next lookups of the fields are
+	 * served from the cache.
+	 * 
+	 * The invalidation is local to this node. The other cluster nodes invoke it
+	 * when they process the dirty notification of the changed table or field
+	 * descriptor, see {@link SvWriter#cacheCleanup(Long, Long)}.
+	 * 
+	 * @param objectTypeId The id of the changed object type
+	 */
+	static void invalidateMetadata(Long objectTypeId) {
+		if (objectTypeId == null)
+			return;
+		metadata.updateAndGet(registry -> registry != null ? registry.withoutFields(objectTypeId) : null);
+		dbtFieldsMap.remove(objectTypeId);
 	}
 
 	/**
@@ -1734,6 +1805,16 @@ public abstract class SvCore implements ISvCore, java.lang.AutoCloseable {
 		} catch (SQLException ex) {
 			throw (new SvException("system.error.sql_err", this.instanceUser, null, null, ex));
 		}
+		// the replicas are published once the new versions are visible to the
+		// other nodes
+		SvConnTrace connTrace = SvConnTracker.getTrace(weakThis);
+		List<byte[]> replicas = connTrace != null ? connTrace.takeReplicas() : null;
+		if (replicas != null)
+			SvClusterReplica.publish(replicas);
+		List<Runnable> actions = connTrace != null ? connTrace.takeActions() : null;
+		if (actions != null)
+			for (Runnable action : actions)
+				runAction(action);
 	}
 
 	/**
@@ -1752,6 +1833,80 @@ public abstract class SvCore implements ISvCore, java.lang.AutoCloseable {
 		} catch (SQLException ex) {
 			throw (new SvException("system.error.sql_err", this.instanceUser, null, null, ex));
 		}
+		SvConnTrace connTrace = SvConnTracker.getTrace(weakThis);
+		if (connTrace != null) {
+			connTrace.takeReplicas();
+			connTrace.takeActions();
+		}
+	}
+
+	/**
+	 * Method to run an action once the current transaction is committed. The
+	 * action is dropped if the transaction is rolled back. If the connection is
+	 * in auto commit mode, the action runs immediately.
+	 * 
+	 * @param action The action to run after the commit
+	 * @throws SvException Any underlying exception is re-thrown
+	 */
+	void runAfterCommit(Runnable action) throws SvException {
+		try {
+			Connection conn = this.dbGetConn();
+			SvConnTrace connTrace = SvConnTracker.getTrace(weakThis);
+			if (conn.getAutoCommit() || connTrace == null)
+				runAction(action);
+			else
+				connTrace.addAction(action);
+		} catch (SQLException ex) {
+			throw (new SvException("system.error.sql_err", this.instanceUser, null, null, ex));
+		}
+	}
+
+	private static void runAction(Runnable action) {
+		try {
+			action.run();
+		} catch (RuntimeException e) {
+			log4j.error("Post commit action failed", e);
+		}
+	}
+
+	/**
+	 * Method to queue the replicas of the saved objects, so they are published
+	 * to the cluster after the commit of the current transaction. If the
+	 * connection is in auto commit mode, the replicas are published immediately.
+	 * 
+	 * @param replicas The serialized object versions
+	 * @throws SvException Any underlying exception is re-thrown
+	 */
+	void queueReplicas(List<byte[]> replicas) throws SvException {
+		try {
+			Connection conn = this.dbGetConn();
+			SvConnTrace connTrace = SvConnTracker.getTrace(weakThis);
+			if (conn.getAutoCommit() || connTrace == null)
+				SvClusterReplica.publish(replicas);
+			else
+				connTrace.addReplicas(replicas);
+		} catch (SQLException ex) {
+			throw (new SvException("system.error.sql_err", this.instanceUser, null, null, ex));
+		}
+	}
+
+	/**
+	 * Method to queue the tombstones of the deleted replicated objects. The
+	 * replicas of the same objects queued in the current transaction are
+	 * dropped, since they must not be installed after the delete is committed.
+	 * 
+	 * @param tombstones The serialized tombstones
+	 * @throws SvException Any underlying exception is re-thrown
+	 */
+	void queueTombstones(List<byte[]> tombstones) throws SvException {
+		SvConnTrace connTrace = SvConnTracker.getTrace(weakThis);
+		if (connTrace != null) {
+			Set<String> versionKeys = new HashSet<String>();
+			for (byte[] tombstone : tombstones)
+				versionKeys.add(SvClusterReplica.getVersionKey(tombstone));
+			connTrace.removeReplicas(versionKeys);
+		}
+		queueReplicas(tombstones);
 	}
 
 	/**
@@ -1893,8 +2048,7 @@ public abstract class SvCore implements ISvCore, java.lang.AutoCloseable {
 					throw (new SvException("system.error.can_not_switch_to_same_user", instanceUser));
 
 				// reset all lazy loaded user specific config
-				instancePermissions = null;
-				permissionKeys = null;
+				instanceAcls = null;
 				saveAsUser = null;
 				instanceUserDefaultGroup = null;
 			} else
@@ -2106,27 +2260,65 @@ public abstract class SvCore implements ISvCore, java.lang.AutoCloseable {
 	 * @param rowLimit The maximum number of rows/objects to be returned by the
 	 *                 query
 	 * @param offset   The offset from which query will start returning objects.
-	 * @return A ResultSet containing the results from the DB
+	 * @return The SQL text of the query. Except on Oracle, the row limit and the
+	 *         offset are parameters bound by {@link #getBindVals}
 	 * @throws SvException Any underlying exception is re-thrown
 	 */
-	private StringBuilder getSQLStatement(DbQuery query, Integer rowLimit, Integer offset) throws SvException {
-		StringBuilder sqlQry;
-		sqlQry = query.getSQLExpression(false, includeGeometries);
-		if (rowLimit != null && offset != null && (rowLimit > 0 || offset > 0)) {
-			String sRowLimit = SvConf.getSqlkw().getString(Sv.LIMIT_OFFSET).replace(Sv.OFFSET, offset.toString())
-					.replace(Sv.LIMIT, rowLimit.toString());
-			int orderPos = sqlQry.indexOf(Sv.ORDER_BY);
+	private String getSQLStatement(DbQuery query, Integer rowLimit, Integer offset) throws SvException {
+		String sql = SvSqlCache.getSQL(query, includeGeometries);
+		if (isPaged(rowLimit, offset)) {
 			if (SvConf.getDbType().equals(SvDbType.ORACLE)) {
+				StringBuilder sqlQry = new StringBuilder(sql);
+				String sRowLimit = SvConf.getSqlkw().getString(Sv.LIMIT_OFFSET).replace(Sv.OFFSET, offset.toString())
+						.replace(Sv.LIMIT, rowLimit.toString());
+				int orderPos = sqlQry.indexOf(Sv.ORDER_BY);
 				if (orderPos > 0)
 					sqlQry.insert(orderPos, Sv.SPACE + Sv.AND + Sv.SPACE + sRowLimit + Sv.SPACE + Sv.AND + Sv.SPACE);
 				else
 					sqlQry.append(Sv.SPACE + Sv.AND + Sv.SPACE + sRowLimit);
+				sql = sqlQry.toString();
 			} else
-				sqlQry.append(Sv.SPACE + sRowLimit);
+				sql = sql + Sv.SPACE + SvConf.getSqlkw().getString(Sv.LIMIT_OFFSET).replace(Sv.OFFSET, Sv.QUESTION_MARK)
+						.replace(Sv.LIMIT, Sv.QUESTION_MARK);
 		}
 		if (log4j.isDebugEnabled())
-			log4j.trace("Generating SQL: " + sqlQry);
-		return sqlQry;
+			log4j.trace("Generating SQL: " + sql);
+		return sql;
+	}
+
+	private static boolean isPaged(Integer rowLimit, Integer offset) {
+		return rowLimit != null && offset != null && (rowLimit > 0 || offset > 0);
+	}
+
+	/**
+	 * Method to get the values bound to the statement generated by
+	 * getSQLStatement. The row limit and the offset are bound in the order in
+	 * which they appear in the LIMIT_OFFSET keyword.
+	 * 
+	 * @param query    The query for which the statement was generated
+	 * @param rowLimit The maximum number of rows/objects to be returned
+	 * @param offset   The offset from which query will start returning objects.
+	 * @return The list of values to bind
+	 * @throws SvException Any underlying exception is re-thrown
+	 */
+	private ArrayList<Object> getBindVals(DbQuery query, Integer rowLimit, Integer offset) throws SvException {
+		ArrayList<Object> bindVals = query.getSQLParamVals();
+		if (isPaged(rowLimit, offset) && !SvConf.getDbType().equals(SvDbType.ORACLE)) {
+			String limitOffset = SvConf.getSqlkw().getString(Sv.LIMIT_OFFSET);
+			int limitPos = limitOffset.indexOf(Sv.LIMIT);
+			int offsetPos = limitOffset.indexOf(Sv.OFFSET);
+			bindVals = new ArrayList<Object>(bindVals);
+			if (limitPos >= 0 && (offsetPos < 0 || limitPos < offsetPos)) {
+				bindVals.add(rowLimit);
+				if (offsetPos >= 0)
+					bindVals.add(offset);
+			} else if (offsetPos >= 0) {
+				bindVals.add(offset);
+				if (limitPos >= 0)
+					bindVals.add(rowLimit);
+			}
+		}
+		return bindVals;
 	}
 
 	/**
@@ -2148,7 +2340,8 @@ public abstract class SvCore implements ISvCore, java.lang.AutoCloseable {
 			if (isAdmin()) {
 				result = true;
 			} else {
-				if (getPermissionsByKey() != null && getPermissionsByKey().containsKey(permissionKey))
+				SvAclSnapshot acls = getAclSnapshot();
+				if (acls != null && acls.getAclByLabel(permissionKey) != null)
 					result = true;
 			}
 		} catch (SvException e) {
@@ -2157,19 +2350,6 @@ public abstract class SvCore implements ISvCore, java.lang.AutoCloseable {
 		return result;
 	}
 
-	/**
-	 * Method to generate an ACL key from an ACL object type
-	 * 
-	 * @param dboAcl DbDataObject instance of ACL type
-	 * @return SvAclKey object generated from the dbo
-	 */
-	private SvAclKey getAclKey(DbDataObject dboAcl) {
-		if (dboAcl.getObjectType().equals(svCONST.OBJECT_TYPE_ACL))
-			return new SvAclKey(dboAcl);
-		else
-			return null;
-	}
-
 	/**
 	 * Method to return a map all access control list (ACL) objects by key based on
 	 * the label_code of the ACL.
@@ -2177,13 +2357,8 @@ public abstract class SvCore implements ISvCore, java.lang.AutoCloseable {
 	 * @return Key/Value map of ACLs mapped by LABEL_CODE
 	 */
 	public HashMap<String, DbDataObject> getPermissionsByKey() throws SvException {
-		if (permissionKeys == null) {
-			permissionKeys = new HashMap<String, DbDataObject>();
-			for (HashMap<String, DbDataObject> pMap : getPermissions().values())
-				for (DbDataObject dboAcl : pMap.values())
-					permissionKeys.put((String) dboAcl.getVal(Sv.LABEL_CODE), dboAcl);
-		}
-		return permissionKeys;
+		SvAclSnapshot acls = getAclSnapshot();
+		return acls != null ? new HashMap<String, DbDataObject>(acls.getAclsByLabel()) : null;
 	}
 
 	/**
@@ -2298,91 +2473,70 @@ public abstract class SvCore implements ISvCore, java.lang.AutoCloseable {
 	 *         the user is system
 	 * @throws SvException Any underlying exception is re-thrown
 	 */
-	@SuppressWarnings("unchecked")
 	public HashMap<SvAclKey, HashMap<String, DbDataObject>> getPermissions() throws SvException {
-		HashMap<SvAclKey, HashMap<String, DbDataObject>> tmpPermissions = getPermissionsImpl();
+		SvAclSnapshot acls = getAclSnapshot();
 		HashMap<SvAclKey, HashMap<String, DbDataObject>> permissions = null;
-		if (tmpPermissions != null) {
-			permissions = new HashMap<SvAclKey, HashMap<String, DbDataObject>>(tmpPermissions.size());
-			for (Entry<SvAclKey, HashMap<String, DbDataObject>> objPermission : tmpPermissions.entrySet()) {
-				permissions.put(objPermission.getKey(),
-						(HashMap<String, DbDataObject>) objPermission.getValue().clone());
-			}
+		if (acls != null) {
+			permissions = new HashMap<SvAclKey, HashMap<String, DbDataObject>>(acls.getAcls().size());
+			for (Entry<SvAclKey, Map<String, DbDataObject>> objPermission : acls.getAcls().entrySet())
+				permissions.put(objPermission.getKey(), new HashMap<String, DbDataObject>(objPermission.getValue()));
 		}
 		return permissions;
 	}
 
 	/**
-	 * Method to get a {@link DbDataArray} holding all permissions (ACLs) for the
-	 * current user
+	 * Method to get the compiled snapshot of all permissions (ACLs) for the
+	 * current user. The snapshot is immutable and shared between all SvCore
+	 * instances of the user, so it is compiled only once per user until the
+	 * security configuration changes.
 	 * 
-	 * @return Reference to the {@link DbDataArray} holding the permissions. Null if
-	 *         the user is system
+	 * @return Reference to the {@link SvAclSnapshot} holding the permissions.
+	 *         Null if the user is system
 	 * @throws SvException Any underlying exception is re-thrown
 	 */
-	HashMap<SvAclKey, HashMap<String, DbDataObject>> getPermissionsImpl() throws SvException {
+	SvAclSnapshot getAclSnapshot() throws SvException {
 		// system and service users have no permissions, they are gods
 		if (isSystem() || isService())
 			return null;
+		// if the lazy loaded instance permissions is null, then try the
+		// snapshot shared by all instances of the user
+		if (instanceAcls == null)
+			instanceAcls = SvAclSnapshot.get(instanceUser.getObjectId());
+		if (instanceAcls != null)
+			return instanceAcls;
 
 		String lockKey = (String) instanceUser.getVal(Sv.USER_NAME) + "-ACL";
 		ReentrantLock lock = null;
 		SvReader svr = null;
-		// if the lazy loaded instance permissions is null, then load
-		if (instancePermissions == null) {
-			try {
-				// instantiate a system level SvReader
-				svr = new SvReader();
-				// lock the user key
-				lock = SvLock.getLock(lockKey, true, SvConf.getMaxLockTimeout());
-				if (lock != null) {
-					if (instancePermissions == null) {
-						instancePermissions = new HashMap<SvAclKey, HashMap<String, DbDataObject>>();
-						// make sure to check first if we have already cached a
-						// list of permissions for this specific user in the
-						// svarog system cache
-						DbDataArray permissions = DbCache.getObjectsByParentId(instanceUser.getObjectId(),
-								svCONST.OBJECT_TYPE_ACL);
-
-						if (permissions == null) {
-							// if there is nothing cached, make sure to get all
-							// permissions from the db
-							permissions = getPermissions(this.instanceUser, svr);
-							// after fetching the objects from the DB, cache
-							// them please
-							DbCache.addArrayByParentId(permissions, svCONST.OBJECT_TYPE_ACL, instanceUser.getObjectId(),
-									false);
-						}
-						// now process all access control objects for faster
-						// indexing using aclkeys
-						for (DbDataObject dboAcl : permissions.getItems()) {
-							SvAclKey key = getAclKey(dboAcl);
-							HashMap<String, DbDataObject> pMap = instancePermissions.get(key);
-							if (pMap != null) {
-								DbDataObject dbo = pMap.get((String) dboAcl.getVal(Sv.ACL_CONFIG_UNQ));
-								if (dbo == null || ((SvAccess) dbo.getVal(Sv.ACCESS_TYPE))
-										.compareTo((SvAccess) dboAcl.getVal(Sv.ACCESS_TYPE)) < 0)
-									pMap.put((String) dboAcl.getVal(Sv.ACL_CONFIG_UNQ), dboAcl);
-							} else {
-								pMap = new HashMap<String, DbDataObject>();
-								// make sure the ACL is read-only so we
-								DboFactory.makeDboReadOnly(dboAcl);
-								pMap.put((String) dboAcl.getVal(Sv.ACL_CONFIG_UNQ), dboAcl);
-								instancePermissions.put(key, pMap);
-							}
-						}
-					}
-
+		try {
+			// instantiate a system level SvReader
+			svr = new SvReader();
+			// lock the user key
+			lock = SvLock.getLock(lockKey, true, SvConf.getMaxLockTimeout());
+			if (lock != null) {
+				// another instance of the same user might have compiled the
+				// snapshot while we were waiting for the lock
+				instanceAcls = SvAclSnapshot.get(instanceUser.getObjectId());
+				if (instanceAcls == null) {
+					// the generation must be read before loading, so a
+					// concurrent change of the ACLs discards this snapshot
+					long generation = SvAclSnapshot.getGeneration();
+					// the snapshot cache replaces the per user ACL arrays
+					// previously kept in the svarog system cache
+					DbDataArray permissions = getPermissions(this.instanceUser, svr);
+					// now compile all access control objects for faster
+					// indexing using aclkeys and share them
+					instanceAcls = SvAclSnapshot.compile(permissions, generation);
+					SvAclSnapshot.put(instanceUser.getObjectId(), instanceAcls);
 				}
-
-			} finally {
-				if (lock != null)
-					SvLock.releaseLock(lockKey, lock);
-				if (svr != null)
-					svr.release();
 			}
+		} finally {
+			if (lock != null)
+				SvLock.releaseLock(lockKey, lock);
+			if (svr != null)
+				svr.release();
 		}
-		return instancePermissions;
+		return instanceAcls;
 	}
 
 	/**
@@ -2481,25 +2635,37 @@ public abstract class SvCore implements ISvCore, java.lang.AutoCloseable {
 	 */
 	public DbDataObject createDboByType(DbDataObject dbt) {
 		DbDataObject dbo = null;
-		LinkedHashMap<SvCharId, Object> emptyMap = emptyKeyMap.get(dbt.getObjectId());
-		if (emptyMap == null) {
-			DbDataArray dbfs = DbCache.getObjectsByParentId(dbt.getObjectId(), svCONST.OBJECT_TYPE_FIELD_SORT);
-			emptyMap = new LinkedHashMap<SvCharId, Object>(dbfs.size(), 1);
+		TypeFields typeFields = getTypeFields(dbt.getObjectId());
+		if (SvConf.isCompactObjects())
+			dbo = new DbDataObject(dbt.getObjectId(), typeFields.schema);
+		else
+			dbo = new DbDataObject(dbt.getObjectId(), typeFields.emptyMap);
+		return dbo;
+
+	}
+
+	/**
+	 * Method to get the field layout of an object type. The layout is built from
+	 * the field descriptors on the first use and published atomically.
+	 * 
+	 * @param objectTypeId The id of the object type
+	 * @return The field layout of the type
+	 */
+	private static TypeFields getTypeFields(Long objectTypeId) {
+		return dbtFieldsMap.computeIfAbsent(objectTypeId, typeId -> {
+			DbDataArray dbfs = DbCache.getObjectsByParentId(typeId, svCONST.OBJECT_TYPE_FIELD_SORT);
+			LinkedHashMap<SvCharId, Object> emptyMap = new LinkedHashMap<SvCharId, Object>(dbfs.size(), 1);
 			LinkedHashMap<SvCharId, Object> keyMap = new LinkedHashMap<SvCharId, Object>(dbfs.size(), 1);
 
 			for (DbDataObject dbf : dbfs.getSortedItems(Sv.SORT_ORDER)) {
-				emptyMap.put(new SvCharId((String) dbf.getVal(Sv.FIELD_NAME)), null);
+				emptyMap.put(SvCharId.intern((String) dbf.getVal(Sv.FIELD_NAME)), null);
 				if (!Sv.PKID.equals((String) dbf.getVal(Sv.FIELD_NAME)))
-					keyMap.put(new SvCharId((String) dbf.getVal(Sv.FIELD_NAME)), dbf);
+					keyMap.put(SvCharId.intern((String) dbf.getVal(Sv.FIELD_NAME)), dbf);
 				else
-					keyMap.put(new SvCharId((String) dbf.getVal(Sv.FIELD_NAME)), null);
+					keyMap.put(SvCharId.intern((String) dbf.getVal(Sv.FIELD_NAME)), null);
 			}
-			dbtKeyMap.put(dbt.getObjectId(), keyMap);
-			emptyKeyMap.put(dbt.getObjectId(), emptyMap);
-		}
-		dbo = new DbDataObject(dbt.getObjectId(), emptyMap);
-		return dbo;
-
+			return new TypeFields(emptyMap, keyMap);
+		});
 	}
 
 	void recordPostProcess(SvCharId fieldName, Object fieldVal, DbDataObject dbo, DbDataObject dbf) throws SvException {
@@ -2525,64 +2691,60 @@ public abstract class SvCore implements ISvCore, java.lang.AutoCloseable {
 	}
 
 	/**
-	 * A method for converting a row from the resultset into a DbDataObject
+	 * Method to compute the row mapping plan for a query from the metadata of
+	 * its result set. The plan shall be computed once per executed query and
+	 * used for decoding all rows.
 	 * 
-	 * @param rs        A ResultSet object which contains the data
-	 * @param tblPrefix String prefix of the metadata fields. MUST BE UPPERCASED!!!
 	 * @param query     the Svarog DbQuery object which was used for execution
+	 * @param tblPrefix String prefix of the metadata fields. MUST BE UPPERCASED!!!
 	 * @param rsmt      The metadata of the resultset
+	 * @return The row mapping plan
+	 * @throws SQLException Underlying exceptions from the JDBC structures
+	 */
+	SvRowMapper getRowMapper(DbQuery query, String tblPrefix, ResultSetMetaData rsmt) throws SQLException {
+		HashMap<SvCharId, Object> fields = null;
+		if (query.getReturnType() != null)
+			fields = getTypeFields(query.getReturnType().getObjectId()).keyMap;
+		return new SvRowMapper(query, tblPrefix, rsmt, fields);
+	}
+
+	/**
+	 * A method for converting a row from the resultset into a DbDataObject
+	 * 
+	 * @param rs   A ResultSet object which contains the data
+	 * @param plan The row mapping plan computed from the resultset metadata
 	 * 
 	 * @return DbDataObject containing the data.
 	 * @throws SQLException   Underlying exceptions from the JDBC structures
 	 * @throws ParseException Exception from conversion of datatypes between DB/Java
 	 * @throws SvException    Re-throws any underlying exception
 	 */
-	private DbDataObject getObjectFromRecord(ResultSet rs, String tblPrefix, DbQuery query, ResultSetMetaData rsmt)
+	DbDataObject getObjectFromRecord(ResultSet rs, SvRowMapper plan)
 			throws SQLException, ParseException, SvException {
 		DbDataObject object = null;
-		Long typeId = query.getReturnType() != null ? query.getReturnType().getObjectId() : 0L;
-		boolean isExpression = query instanceof DbQueryExpression;
-		boolean isReverse = isExpression ? ((DbQueryExpression) query).getIsReverseExpression() : false;
-		int numberOfColumns = rs.getMetaData().getColumnCount();
-		if (!typeId.equals(0L)) {
-			object = createDboByType(query.getReturnType());
+		if (plan.hasReturnType && !plan.returnType.getObjectId().equals(0L)) {
+			object = createDboByType(plan.returnType);
 		} else
 			object = new DbDataObject();
 
-		String fieldName = "";
-		if (query.getReturnType() != null && !isReverse) {
-			tblPrefix = tblPrefix + query.getReturnTypeSequence();
-		}
-		// end of part which should be moved one up
-		String fieldType = "";
-		HashMap<SvCharId, Object> fields = dbtKeyMap.get(typeId);
-
-		for (int colIndex = 1; colIndex <= numberOfColumns; colIndex++) {
-			fieldName = rsmt.getColumnName(colIndex).toUpperCase();
-			if (query.getReturnType() != null) {
-				fieldName = fieldName.substring(tblPrefix.length() + 1);
-				// if the column is not a repo field, process it
-				if (svCONST.repoFieldNames.indexOf(fieldName) < 0) {
-					SvCharId fieldId = new SvCharId(fieldName);
-					DbDataObject dbf = (DbDataObject) fields.get(fieldId);
-					fieldType = (dbf != null ? (String) dbf.getVal(Sv.FIELD_TYPE) : null);
-					Object fieldVal = getObjectFromCol(rs, fieldType, colIndex, rsmt);
-					object.setVal(fieldId, fieldVal);
-					if (fieldVal instanceof Geometry) {
-						((Geometry) fieldVal).setUserData(object);
-					}
-					recordPostProcess(fieldId, fieldVal, object, dbf);
+		for (int i = 0; i < plan.columnCount; i++) {
+			SvCharId fieldId = plan.fieldIds[i];
+			// repo fields are not mapped
+			if (fieldId == null)
+				continue;
+			Object fieldVal = getObjectFromCol(rs, plan.fieldTypes[i], i + 1, plan.sqlTypes[i], plan.scales[i]);
+			object.setVal(fieldId, fieldVal);
+			if (plan.hasReturnType) {
+				if (fieldVal instanceof Geometry) {
+					((Geometry) fieldVal).setUserData(object);
 				}
-			} else {
-				Object obj = getObjectFromCol(rs, null, colIndex, rsmt);
-				fieldName = fieldName.replace(tblPrefix + "_", "").toUpperCase();
-				object.setVal(fieldName, obj);
+				recordPostProcess(fieldId, fieldVal, object, plan.fieldDescriptors[i]);
 			}
 		}
-		if (query.getReturnType() != null && (!isExpression || (isExpression && query.getReturnTypes().size() == 1))) {
-			setObjectRepoData(object, rs, tblPrefix);
-			object.setObjectType(query.getReturnType().getObjectId());
-			if (hasGeometries(query.getReturnType().getObjectId()))
+		if (plan.setRepoData) {
+			setObjectRepoData(object, rs, plan);
+			object.setObjectType(plan.returnType.getObjectId());
+			if (plan.hasGeometries)
 				DboFactory.dboIsGeometryType(object);
 			if (includeGeometries)
 				DboFactory.dboHasGeometry(object);
@@ -2594,22 +2756,29 @@ public abstract class SvCore implements ISvCore, java.lang.AutoCloseable {
 	/**
 	 * Method to populate basic object data from a resultset
 	 * 
-	 * @param object    The DbDataObject instance which will be initialised from the
-	 *                  resultset
-	 * @param rs        The JDBC resultset which will be used for initialising the
-	 *                  object metadata
-	 * @param colPrefix The column prefix used in the query
+	 * @param object The DbDataObject instance which will be initialised from the
+	 *               resultset
+	 * @param rs     The JDBC resultset which will be used for initialising the
+	 *               object metadata
+	 * @param plan   The row mapping plan holding the indexes of the repo columns
 	 * @throws SQLException Any underlying exception is re-thrown
 	 */
-	private void setObjectRepoData(DbDataObject object, ResultSet rs, String colPrefix) throws SQLException {
-		object.setPkid(rs.getLong(colPrefix + "_PKID"));
-		object.setObjectId(rs.getLong(colPrefix + "_OBJECT_ID"));
-		object.setDtInsert(new DateTime(rs.getTimestamp(colPrefix + "_DT_INSERT")));
-		object.setDtDelete(new DateTime(rs.getTimestamp(colPrefix + "_DT_DELETE")));
-		object.setParentId(rs.getLong(colPrefix + "_PARENT_ID"));
-		object.setObjectType(rs.getLong(colPrefix + "_OBJECT_TYPE"));
-		object.setStatus(rs.getString(colPrefix + "_STATUS"));
-		object.setUserId(rs.getLong(colPrefix + "_USER_ID"));
+	private void setObjectRepoData(DbDataObject object, ResultSet rs, SvRowMapper plan) throws SQLException {
+		int[] idx = plan.repoIndexes;
+		String colPrefix = plan.repoPrefix;
+		object.setPkid(idx[0] != SvRowMapper.SKIP ? rs.getLong(idx[0]) : rs.getLong(colPrefix + "_PKID"));
+		object.setObjectId(idx[1] != SvRowMapper.SKIP ? rs.getLong(idx[1]) : rs.getLong(colPrefix + "_OBJECT_ID"));
+		object.setDtInsert(new DateTime(
+				idx[2] != SvRowMapper.SKIP ? rs.getTimestamp(idx[2]) : rs.getTimestamp(colPrefix + "_DT_INSERT")));
+		object.setDtDelete(new DateTime(
+				idx[3] != SvRowMapper.SKIP ? rs.getTimestamp(idx[3]) : rs.getTimestamp(colPrefix + "_DT_DELETE")));
+		object.setParentId(idx[4] != SvRowMapper.SKIP ? rs.getLong(idx[4]) : rs.getLong(colPrefix + "_PARENT_ID"));
+		object.setObjectType(
+				idx[5] != SvRowMapper.SKIP ? rs.getLong(idx[5]) : rs.getLong(colPrefix + "_OBJECT_TYPE"));
+		object.setStatus(idx[6] != SvRowMapper.SKIP ? rs.getString(idx[6]) : rs.getString(colPrefix + "_STATUS"));
+		object.setUserId(idx[7] != SvRowMapper.SKIP ? rs.getLong(idx[7]) : rs.getLong(colPrefix + "_USER_ID"));
+		if (plan.metaPkidIndex != SvRowMapper.SKIP)
+			object.setMetaPkid(rs.getLong(plan.metaPkidIndex));
 	}
 
 	/**
@@ -2620,6 +2789,8 @@ public abstract class SvCore implements ISvCore, java.lang.AutoCloseable {
 	 *                  fetched
 	 * @param fieldType The type of the field
 	 * @param colIndex  The index of the field in the resultset
+	 * @param sqlType   The JDBC type of the column
+	 * @param scale     The scale of the column if it is numeric
 	 * @return A java object of the specific type (string, number, geometry,
 	 *         boolean)
 	 * @throws SQLException   Any of the vcalls to the ResultSet methods raised an
@@ -2629,7 +2800,7 @@ public abstract class SvCore implements ISvCore, java.lang.AutoCloseable {
 	 * @throws SvException    If the getDbHandler thrown exception
 	 */
 
-	private Object getObjectFromCol(ResultSet rs, String fieldType, int colIndex, ResultSetMetaData rsmt)
+	private Object getObjectFromCol(ResultSet rs, String fieldType, int colIndex, int sqlType, int scale)
 			throws SQLException, ParseException, SvException {
 
 		Object obj = null;
@@ -2657,7 +2828,7 @@ public abstract class SvCore implements ISvCore, java.lang.AutoCloseable {
 				}
 			}
 		}
-		switch (rsmt.getColumnType(colIndex)) {
+		switch (sqlType) {
 		case java.sql.Types.TIMESTAMP:
 			obj = rs.getTimestamp(colIndex);
 			if (obj != null)
@@ -2665,7 +2836,7 @@ public abstract class SvCore implements ISvCore, java.lang.AutoCloseable {
 			break;
 		case java.sql.Types.NUMERIC:
 			obj = rs.getBigDecimal(colIndex);
-			if (obj != null && rsmt.getScale(colIndex) == 0)
+			if (obj != null && scale == 0)
 				obj = ((BigDecimal) obj).longValue();
 			break;
 		}
@@ -2717,21 +2888,14 @@ public abstract class SvCore implements ISvCore, java.lang.AutoCloseable {
 	protected boolean hasDbtAccess(DbDataObject dbt, String unqConfigId, SvAccess accessLevel) throws SvException {
 		boolean hasAccess = false;
 		if (!isSystem() && !isService()) {
-			SvAclKey aclKey = new SvAclKey(dbt);
-			HashMap<String, DbDataObject> aclMap = getPermissions().get(aclKey);
-			if (aclMap != null) {
-				DbDataObject acl = aclMap.get(unqConfigId);
-				if (acl != null) {
-					SvAccess accessType = (SvAccess) acl.getVal(Sv.ACCESS_TYPE);
-					hasAccess = accessType.getAccessLevelValue() >= accessLevel.getAccessLevelValue();
-				}
-			}
+			SvAclSnapshot acls = getAclSnapshot();
+			hasAccess = acls != null && acls.hasAccess(new SvAclKey(dbt), unqConfigId, accessLevel);
 		} else
 			hasAccess = true;
 		return hasAccess;
 	}
 
-	protected boolean authoriseDqoByConfig(DbQueryObject dqo, HashMap<String, DbDataObject> aclMap,
+	protected boolean authoriseDqoByConfig(DbQueryObject dqo, Map<String, DbDataObject> aclMap,
 			SvAccess accessLevel) {
 		boolean hasAccess = false;
 		// create expression to hold the config criteria
@@ -2772,7 +2936,7 @@ public abstract class SvCore implements ISvCore, java.lang.AutoCloseable {
 
 	}
 
-	protected boolean authoriseDqoByConfigType(DbQueryObject dqo, HashMap<String, DbDataObject> aclMap,
+	protected boolean authoriseDqoByConfigType(DbQueryObject dqo, Map<String, DbDataObject> aclMap,
 			SvAccess accessLevel) throws SvException {
 		boolean hasAccess = false;
 		DbDataObject dbt = dqo.getDbt();
@@ -2835,7 +2999,8 @@ public abstract class SvCore implements ISvCore, java.lang.AutoCloseable {
 		if (!isSystem() && !isService() && dqo.getDbt() != null) {
 			DbDataObject dbt = dqo.getDbt();
 			SvAclKey aclKey = new SvAclKey(dbt);
-			HashMap<String, DbDataObject> aclMap = this.getPermissionsImpl().get(aclKey);
+			SvAclSnapshot acls = this.getAclSnapshot();
+			Map<String, DbDataObject> aclMap = acls != null ? acls.getAcls(aclKey) : null;
 			if (aclMap != null) {
 				// check for full table access via null key
 				DbDataObject acl = aclMap.get(null);
@@ -2945,24 +3110,19 @@ public abstract class SvCore implements ISvCore, java.lang.AutoCloseable {
 		try {
 			conn = this.dbGetConn();
 			// execute the db query to fetch data for the requested item
-			ps = conn.prepareStatement(getSQLStatement(fullQuery, rowLimit, offset).toString());
+			ps = conn.prepareStatement(getSQLStatement(fullQuery, rowLimit, offset));
 			// bind the parameters
-			bindQueryVals(ps, fullQuery.getSQLParamVals());
+			bindQueryVals(ps, getBindVals(fullQuery, rowLimit, offset));
 			// System.out.println("Before exec "+new DateTime().toString());
 			rs = ps.executeQuery();
 			// System.out.println("After exec "+new DateTime().toString());
-			String tblPrefix = Sv.TBL;
-			if ((fullQuery instanceof DbQueryExpression) && ((DbQueryExpression) fullQuery).getIsReverseExpression()) {
-				if (fullQuery.getReturnTypes().size() == 1) {
-					tblPrefix = ((DbQueryExpression) fullQuery).getRootQueryObject().getSqlTablePrefix();
-				}
-			}
-			ResultSetMetaData rsmt = rs.getMetaData();
+			String tblPrefix = getTblPrefix(fullQuery);
+			// must use uppercase table prefix!!!
+			SvRowMapper plan = getRowMapper(fullQuery, tblPrefix, rs.getMetaData());
 			while (rs.next()) {
 				// System.out.println("After rs next:"+new
 				// DateTime().toString());
-				// must use uppercase table prefix!!!
-				DbDataObject obj = getObjectFromRecord(rs, tblPrefix, fullQuery, rsmt);
+				DbDataObject obj = getObjectFromRecord(rs, plan);
 				// System.out.println("After object parsing:"+new
 				// DateTime().toString());
 				if (obj != null)
@@ -3001,6 +3161,129 @@ public abstract class SvCore implements ISvCore, java.lang.AutoCloseable {
 		}
 	}
 
+	/**
+	 * Method to compute aggregate values over the objects matching a query. The
+	 * query object is used as a source of the aggregate SQL, so the read access,
+	 * the reference date and the power of attorney criteria apply exactly as in
+	 * {@link #getObjects(DbQuery, Integer, Integer)}, but only one row per group
+	 * is transferred from the database.
+	 * 
+	 * @param query     The query object selecting the objects to aggregate
+	 * @param aggregate The description of the groups and aggregate values
+	 * @return Array of aggregate rows, each holding the group by fields and the
+	 *         aggregate values under their aliases
+	 * @throws SvException If a field can't be aggregated, or any underlying
+	 *                     exception is re-thrown
+	 */
+	DbDataArray getAggregates(DbQueryObject query, SvAggregate aggregate) throws SvException {
+		DbDataObject[] groupByDescriptors = aggregate.getGroupByDescriptors(query);
+		authoriseSelectQuery(query);
+		query.setSqlTablePrefix(SvAggregate.PREFIX);
+		query.setCustomFieldsList(aggregate.getSourceFields());
+
+		Connection conn = null;
+		ResultSet rs = null;
+		PreparedStatement ps = null;
+		DbQuery fullQuery = addEmpoweredCriteria(query);
+		DbDataArray result = new DbDataArray();
+		String sql = null;
+		try {
+			conn = this.dbGetConn();
+			sql = aggregate.getSQL(SvSqlCache.getSQL(fullQuery, false));
+			if (log4j.isDebugEnabled())
+				log4j.trace("Generating SQL: " + sql);
+			ps = conn.prepareStatement(sql);
+			bindQueryVals(ps, fullQuery.getSQLParamVals());
+			rs = ps.executeQuery();
+			ResultSetMetaData metaData = rs.getMetaData();
+			List<String> aliases = aggregate.getAliases();
+			while (rs.next()) {
+				DbDataObject row = new DbDataObject();
+				for (int i = 0; i < groupByDescriptors.length; i++)
+					row.setVal(aggregate.getGroupByFields().get(i),
+							getObjectFromCol(rs, (String) groupByDescriptors[i].getVal(Sv.FIELD_TYPE), i + 1,
+									metaData.getColumnType(i + 1), metaData.getScale(i + 1)));
+				for (int i = 0; i < aliases.size(); i++)
+					row.setVal(aliases.get(i), rs.getObject(groupByDescriptors.length + i + 1));
+				result.addDataItem(row);
+			}
+			return result;
+		} catch (SQLException ex) {
+			log4j.error("Error in getAggregates() with query:" + sql, ex);
+			throw (new SvException("system.error.sql_statement_err", instanceUser, null, query, ex.getCause()));
+		} catch (ParseException ex) {
+			throw (new SvException("system.error.wkb_parse_err", instanceUser, null, query, ex.getCause()));
+		} finally {
+			if (rs != null)
+				try {
+					rs.close();
+				} catch (Exception ex) {
+					log4j.error("Error releasing result set", ex);
+				}
+			if (ps != null)
+				try {
+					ps.close();
+				} catch (Exception ex) {
+					log4j.error("Error releasing prepared statement", ex);
+				}
+		}
+	}
+
+	/**
+	 * Method to get the table prefix of the columns of the root query object,
+	 * which shall be used while parsing the result set
+	 * 
+	 * @param query The query which was executed
+	 * @return The uppercased table prefix
+	 */
+	private String getTblPrefix(DbQuery query) {
+		String tblPrefix = Sv.TBL;
+		if ((query instanceof DbQueryExpression) && ((DbQueryExpression) query).getIsReverseExpression()
+				&& query.getReturnTypes().size() == 1)
+			tblPrefix = ((DbQueryExpression) query).getRootQueryObject().getSqlTablePrefix();
+		return tblPrefix;
+	}
+
+	/**
+	 * Method to open a streaming cursor over the results of a DbQuery. Unlike
+	 * {@link #getObjects(DbQuery, Integer, Integer)} the objects are not
+	 * materialised in a DbDataArray, but read from the live result set one by
+	 * one. The statement is executed with auto commit disabled and the
+	 * configured fetch size, so Postgres uses a server side cursor.
+	 * 
+	 * @param query     {@link DbQueryObject} to be executed against the
+	 *                  underlying DB
+	 * @param fetchSize The number of rows fetched per round-trip. If null,
+	 *                  {@link SvConf#getJDBCFetchSize()} is used
+	 * @return An open {@link SvObjectCursor} which must be closed by the caller
+	 * @throws SvException Any underlying exception is re-thrown
+	 */
+	SvObjectCursor getObjectsCursor(DbQuery query, Integer fetchSize) throws SvException {
+		// Check for read access to all query objects in the DbQuery
+		authoriseSelectQuery(query);
+		DbQuery fullQuery = addEmpoweredCriteria(query);
+		SvObjectCursor cursor = null;
+		PreparedStatement ps = null;
+		try {
+			Connection conn = this.dbGetConn();
+			boolean oldAutoCommit = conn.getAutoCommit();
+			if (oldAutoCommit)
+				conn.setAutoCommit(false);
+			cursor = new SvObjectCursor(this, fullQuery, getTblPrefix(fullQuery), oldAutoCommit);
+			ps = conn.prepareStatement(getSQLStatement(fullQuery, null, null), ResultSet.TYPE_FORWARD_ONLY,
+					ResultSet.CONCUR_READ_ONLY);
+			ps.setFetchSize(fetchSize != null ? fetchSize : SvConf.getJDBCFetchSize());
+			bindQueryVals(ps, fullQuery.getSQLParamVals());
+			cursor.open(ps, ps.executeQuery());
+			return cursor;
+		} catch (SQLException ex) {
+			closeResource((AutoCloseable) ps, instanceUser);
+			if (cursor != null)
+				cursor.close();
+			throw (new SvException("system.error.sql_statement_err", instanceUser, null, query, ex));
+		}
+	}
+
 	/**
 	 * Method to get the object type for a certain object ID.
 	 * 
@@ -3132,23 +3415,34 @@ public abstract class SvCore implements ISvCore, java.lang.AutoCloseable {
 			throws SQLException {
 		if (value == null)
 			ps.setNull(bindAtPosition, java.sql.Types.NUMERIC);
-		else {
-			Long fScale = (Long) dbf.getVal(Sv.FIELD_SCALE);
-			if (fScale != null && fScale > 0) {
-				BigDecimal bdcml;
-				if (value instanceof BigDecimal) {
-					bdcml = (BigDecimal) value;
-					if (bdcml.scale() > fScale) {
-						bdcml = bdcml.setScale(fScale.intValue(), BigDecimal.ROUND_HALF_UP);
-					}
-				} else {
-					double dbl = ((Number) value).doubleValue();
-					bdcml = BigDecimal.valueOf(dbl).setScale(fScale.intValue(), BigDecimal.ROUND_HALF_UP);
+		else
+			ps.setBigDecimal(bindAtPosition, getNumericValue(dbf, value));
+	}
+
+	/**
+	 * Method to convert the value of a numeric field to BigDecimal, rounded to
+	 * the scale of the field
+	 * 
+	 * @param dbf   The descriptor of the field
+	 * @param value The not null numeric value
+	 * @return The value as BigDecimal
+	 */
+	static BigDecimal getNumericValue(DbDataObject dbf, Object value) {
+		Long fScale = (Long) dbf.getVal(Sv.FIELD_SCALE);
+		if (fScale != null && fScale > 0) {
+			BigDecimal bdcml;
+			if (value instanceof BigDecimal) {
+				bdcml = (BigDecimal) value;
+				if (bdcml.scale() > fScale) {
+					bdcml = bdcml.setScale(fScale.intValue(), BigDecimal.ROUND_HALF_UP);
 				}
-				ps.setBigDecimal(bindAtPosition, bdcml);
-			} else
-				ps.setBigDecimal(bindAtPosition, new BigDecimal(((Number) value).longValue()));
-		}
+			} else {
+				double dbl = ((Number) value).doubleValue();
+				bdcml = BigDecimal.valueOf(dbl).setScale(fScale.intValue(), BigDecimal.ROUND_HALF_UP);
+			}
+			return bdcml;
+		} else
+			return new BigDecimal(((Number) value).longValue());
 	}
 
 	/**
@@ -3163,12 +3457,21 @@ public abstract class SvCore implements ISvCore, java.lang.AutoCloseable {
 	private void bindDateTime(PreparedStatement ps, int bindAtPosition, Object value) throws SQLException {
 		if (value == null)
 			ps.setNull(bindAtPosition, java.sql.Types.TIMESTAMP);
-		else if (value.getClass().equals(DateTime.class)) {
-			ps.setTimestamp(bindAtPosition, new Timestamp(((DateTime) value).getMillis()));
-		} else {
-			DateTime dt = new DateTime(value.toString());
-			ps.setTimestamp(bindAtPosition, new Timestamp(dt.getMillis()));
-		}
+		else
+			ps.setTimestamp(bindAtPosition, getTimestampValue(value));
+	}
+
+	/**
+	 * Method to convert the value of a date/time field to Timestamp
+	 * 
+	 * @param value The not null DateTime value or its string representation
+	 * @return The value as Timestamp
+	 */
+	static Timestamp getTimestampValue(Object value) {
+		if (value.getClass().equals(DateTime.class))
+			return new Timestamp(((DateTime) value).getMillis());
+		else
+			return new Timestamp(new DateTime(value.toString()).getMillis());
 	}
 
 	/**
@@ -3189,19 +3492,67 @@ public abstract class SvCore implements ISvCore, java.lang.AutoCloseable {
 		if (value == null)
 			ps.setString(bindAtPosition, null);
 		else {
-			Boolean sv_multi = (Boolean) dbf.getVal(Sv.SV_MULTISELECT);
-			if (value instanceof ArrayList<?> && sv_multi != null && sv_multi) {
-				StringBuilder bindVal = new StringBuilder();
-				for (String oVal : (ArrayList<String>) value) {
-					bindVal.append(oVal + SvConf.getMultiSelectSeparator());
-				}
-				bindVal.setLength(bindVal.length() - 1);
-				value = bindVal.toString();
-			}
+			String strValue = getStringValue(dbf, value);
 			if (type.equals(DbFieldType.TEXT) && !SvConf.getDbType().equals(SvDbType.POSTGRES)) {
-				ps.setCharacterStream(bindAtPosition, lob.stringReader(value.toString()));
+				ps.setCharacterStream(bindAtPosition, lob.stringReader(strValue));
 			} else
-				ps.setString(bindAtPosition, value.toString());
+				ps.setString(bindAtPosition, strValue);
+		}
+	}
+
+	/**
+	 * Method to convert the value of a string field to String, joining the
+	 * values of multi select fields with the configured separator
+	 * 
+	 * @param dbf   The descriptor of the field
+	 * @param value The not null value
+	 * @return The value as String
+	 */
+	@SuppressWarnings("unchecked")
+	static String getStringValue(DbDataObject dbf, Object value) {
+		Boolean sv_multi = (Boolean) dbf.getVal(Sv.SV_MULTISELECT);
+		if (value instanceof ArrayList<?> && sv_multi != null && sv_multi) {
+			StringBuilder bindVal = new StringBuilder();
+			for (String oVal : (ArrayList<String>) value) {
+				bindVal.append(oVal + SvConf.getMultiSelectSeparator());
+			}
+			bindVal.setLength(bindVal.length() - 1);
+			return bindVal.toString();
+		}
+		return value.toString();
+	}
+
+	/**
+	 * Method to convert a field value to the value appended to the copy rows.
+	 * The conversion matches the binding done by bindInsertQueryVars, except
+	 * for geometries which aren't supported by the copy.
+	 * 
+	 * @param dbf   The descriptor of the field
+	 * @param value The value of the field
+	 * @return The converted value
+	 * @throws SvException "system.error.copy_type_not_supported" if the field
+	 *                     is a geometry
+	 */
+	Object getCopyValue(DbDataObject dbf, Object value) throws SvException {
+		if (value == null)
+			return null;
+		DbFieldType type = DbFieldType.valueOf((String) dbf.getVal(Sv.FIELD_TYPE));
+		switch (type) {
+		case BOOLEAN:
+			return (Boolean) value;
+		case NUMERIC:
+			return getNumericValue(dbf, value);
+		case DATE:
+		case TIME:
+		case TIMESTAMP:
+			return getTimestampValue(value);
+		case TEXT:
+		case NVARCHAR:
+			return getStringValue(dbf, value);
+		case GEOMETRY:
+			throw (new SvException("system.error.copy_type_not_supported", this.instanceUser, dbf, value));
+		default:
+			return (String) value;
 		}
 	}
 
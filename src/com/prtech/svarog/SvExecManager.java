@@ -15,13 +15,18 @@
 package com.prtech.svarog;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.logging.log4j.LogManager;
@@ -140,6 +145,119 @@ public class SvExecManager extends SvCore {
 		}
 	}
 
+	/**
+	 * Immutable index of the instances of a single executor key, sorted by start
+	 * date. The instance valid on a reference date is found with binary search
+	 * over the start dates and the running maximum of the end dates. The index
+	 * also holds the marker of the OSGI services it was loaded from, so a
+	 * reference date without valid executor is not loaded again from the OSGI
+	 * container and the database until the services change.
+	 */
+	static final class SvExecIndex {
+		final SvExecInstance[] instances;
+		final long[] startDates;
+		final long[] maxEndDates;
+		final Object servicesMarker;
+
+		SvExecIndex(List<SvExecInstance> execs, Object servicesMarker) {
+			this.servicesMarker = servicesMarker;
+			instances = execs.toArray(new SvExecInstance[execs.size()]);
+			// the sort is stable, so instances with the same start date keep
+			// the order in which they were loaded
+			Arrays.sort(instances,
+					Comparator.comparingLong((SvExecInstance sve) -> getMillis(sve.getStartDate(), Long.MIN_VALUE)));
+			startDates = new long[instances.length];
+			maxEndDates = new long[instances.length];
+			long maxEnd = Long.MIN_VALUE;
+			for (int i = 0; i < instances.length; i++) {
+				startDates[i] = getMillis(instances[i].getStartDate(), Long.MIN_VALUE);
+				maxEnd = Math.max(maxEnd, getMillis(instances[i].getEndDate(), Long.MAX_VALUE));
+				maxEndDates[i] = maxEnd;
+			}
+		}
+
+		/**
+		 * Method to find the instance with the oldest start date, which is valid on
+		 * the reference date
+		 * 
+		 * @param referenceDate The reference date
+		 * @return The executor instance or null if none is valid
+		 */
+		SvExecInstance find(DateTime referenceDate) {
+			long refMillis = referenceDate.getMillis();
+			// number of instances started before the reference date
+			int started = firstAbove(startDates, refMillis - 1);
+			// the first instance in start order which ends after the reference
+			// date
+			int first = firstAbove(maxEndDates, refMillis);
+			return first < started ? instances[first] : null;
+		}
+
+		private static long getMillis(DateTime date, long defaultMillis) {
+			return date != null ? date.getMillis() : defaultMillis;
+		}
+
+		/**
+		 * Binary search for the first position holding value bigger than the
+		 * searched one
+		 * 
+		 * @param values Sorted array of values
+		 * @param value  The searched value
+		 * @return The position or the length of the array if there is none
+		 */
+		private static int firstAbove(long[] values, long value) {
+			int low = 0;
+			int high = values.length;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (values[mid] > value)
+					high = mid;
+				else
+					low = mid + 1;
+			}
+			return low;
+		}
+	}
+
+	/**
+	 * Invocation counters of a single executor key
+	 */
+	public static final class SvExecStats {
+		private final AtomicLong invocations = new AtomicLong();
+		private final AtomicLong failures = new AtomicLong();
+		private final AtomicLong totalNanos = new AtomicLong();
+		private final AtomicLong maxNanos = new AtomicLong();
+
+		void record(long nanos, boolean failed) {
+			invocations.incrementAndGet();
+			if (failed)
+				failures.incrementAndGet();
+			totalNanos.addAndGet(nanos);
+			maxNanos.accumulateAndGet(nanos, Math::max);
+		}
+
+		public long getInvocations() {
+			return invocations.get();
+		}
+
+		public long getFailures() {
+			return failures.get();
+		}
+
+		public long getTotalNanos() {
+			return totalNanos.get();
+		}
+
+		public long getMaxNanos() {
+			return maxNanos.get();
+		}
+
+		public long getAverageNanos() {
+			long count = invocations.get();
+			return count > 0 ? totalNanos.get() / count : 0L;
+		}
+	}
+
 	/**
 	 * Global member which we can use for unit testing also! In JUnit just set the
 	 * value of the services you want to test.
@@ -152,10 +270,15 @@ public class SvExecManager extends SvCore {
 	private static final Logger log4j = LogManager.getLogger(SvCore.class.getName());
 
 	/**
-	 * Cache with all executors responding to a specific command string. The Key is
-	 * represents a CATEGORY.NAME
+	 * Cache with the index of all executors responding to a specific command
+	 * string. The Key is represents a CATEGORY.NAME
 	 */
-	static final Cache<String, CopyOnWriteArrayList<SvExecInstance>> executorMap = initExecutorCache();
+	static final Cache<String, SvExecIndex> executorMap = initExecutorCache();
+
+	/**
+	 * Invocation counters per executor key
+	 */
+	static final Map<String, SvExecStats> executorStats = new ConcurrentHashMap<String, SvExecStats>();
 
 	/**
 	 * Constructor to create a SvUtil object according to a user session. This is
@@ -214,7 +337,7 @@ public class SvExecManager extends SvCore {
 	 * @return
 	 */
 	@SuppressWarnings({ "unchecked", "rawtypes" })
-	static Cache<String, CopyOnWriteArrayList<SvExecInstance>> initExecutorCache() {
+	static Cache<String, SvExecIndex> initExecutorCache() {
 		/**
 		 * Callback class to cleanup the executor cache according to changes in Svarog
 		 * 
@@ -240,8 +363,7 @@ public class SvExecManager extends SvCore {
 		builder = builder.expireAfterAccess(10, TimeUnit.MINUTES);
 		ISvOnSave callback = new SvExecutorCacheCallback();
 		SvCore.registerOnSaveCallback(callback, svCONST.OBJECT_TYPE_EXECUTORS);
-		return (Cache<String, CopyOnWriteArrayList<SvExecInstance>>) builder
-				.<String, CopyOnWriteArrayList<SvExecInstance>>build();
+		return (Cache<String, SvExecIndex>) builder.<String, SvExecIndex>build();
 	}
 
 	/**
@@ -324,20 +446,19 @@ public class SvExecManager extends SvCore {
 	 */
 	ISvExecutor getExecutor(String key, DateTime referenceDate) throws SvException {
 
-		ISvExecutor executor = null;
 		if (referenceDate == null)
 			referenceDate = new DateTime();
 		// try to get the executor from Cache
-		executor = getExecutorFromCache(key, referenceDate);
+		SvExecIndex index = getExecutorIndex(key, referenceDate);
 
-		if (executor == null) {
+		if (index == null) {
 			// if not, then look in the OSGI container and initialise
 			String lockKey = key + "-LOADING";
 			ReentrantLock lock = null;
 			try {
 				lock = SvLock.getLock(lockKey, true, SvConf.getMaxLockTimeout());
 				if (lock != null) {
-					executor = loadExecutor(key, referenceDate);
+					index = loadExecutor(key, referenceDate);
 				}
 			} finally {
 				if (lock != null)
@@ -345,7 +466,7 @@ public class SvExecManager extends SvCore {
 			}
 		}
 
-		return executor;
+		return index != null ? getValidExecutor(index, key, referenceDate) : null;
 	}
 
 	/**
@@ -358,19 +479,46 @@ public class SvExecManager extends SvCore {
 	 * @throws SvException Throws exception if executor isn't valid
 	 */
 	ISvExecutor getExecutorFromCache(String key, DateTime referenceDate) throws SvException {
-		ISvExecutor executor = null;
-		CopyOnWriteArrayList<SvExecInstance> execs = executorMap.getIfPresent(key);
-		if (execs != null) {
-			for (SvExecInstance sve : execs) {
-				if (referenceDate.isAfter(sve.getStartDate()) && referenceDate.isBefore(sve.getEndDate())) {
-					if (!svCONST.STATUS_VALID.equals(sve.getStatus()))
-						throw (new SvException("system.error.executor_not_valid", this.getInstanceUser(), null, key));
-					executor = sve.getExecutor();
-					break;
-				}
-			}
-		}
-		return executor;
+		SvExecIndex index = executorMap.getIfPresent(key);
+		return index != null ? getValidExecutor(index, key, referenceDate) : null;
+	}
+
+	/**
+	 * Method to get the cached executor index which can resolve the reference
+	 * date. If the index has no executor valid on the reference date, it is used
+	 * only if the OSGI services didn't change since it was loaded.
+	 * 
+	 * @param key           Key of the executor category and name, concatenated with
+	 *                      a dot
+	 * @param referenceDate Reference Date on which the executor must be valid.
+	 * @return The executor index or null if it has to be loaded
+	 */
+	SvExecIndex getExecutorIndex(String key, DateTime referenceDate) {
+		SvExecIndex index = executorMap.getIfPresent(key);
+		if (index != null && index.find(referenceDate) == null
+				&& !Objects.equals(index.servicesMarker, getServicesMarker()))
+			index = null;
+		return index;
+	}
+
+	/**
+	 * Method to get the executor valid on the reference date from the index
+	 * 
+	 * @param index         The executor index
+	 * @param key           Key of the executor category and name, concatenated with
+	 *                      a dot
+	 * @param referenceDate Reference Date on which the executor must be valid.
+	 * @return Object instance implementing the ISvExecutor interface or null if
+	 *         there's no executor valid on the reference date
+	 * @throws SvException Throws exception if executor isn't valid
+	 */
+	ISvExecutor getValidExecutor(SvExecIndex index, String key, DateTime referenceDate) throws SvException {
+		SvExecInstance sve = index.find(referenceDate);
+		if (sve == null)
+			return null;
+		if (!svCONST.STATUS_VALID.equals(sve.getStatus()))
+			throw (new SvException("system.error.executor_not_valid", this.getInstanceUser(), null, key));
+		return sve.getExecutor();
 	}
 
 	DbDataObject getExecutorDbo(String name, String category, Long version) throws SvException {
@@ -442,34 +590,43 @@ public class SvExecManager extends SvCore {
 		return exeInstance;
 	}
 
+	/**
+	 * Method to initialise all executors available in the OSGI container and
+	 * preload the executor cache with their validity periods
+	 * 
+	 * @throws SvException Pass through of underlying exceptions
+	 */
 	public void initOSGIExecutors() throws SvException {
-		if (this.isAdmin() || this.isSystem())
-			loadOSGIExecutors(null, null);
+		if (this.isAdmin() || this.isSystem()) {
+			Object servicesMarker = getServicesMarker();
+			Map<String, List<SvExecInstance>> execs = new LinkedHashMap<String, List<SvExecInstance>>();
+			loadOSGIExecutors(null, execs);
+			for (Entry<String, List<SvExecInstance>> entry : execs.entrySet())
+				executorMap.put(entry.getKey(), new SvExecIndex(entry.getValue(), servicesMarker));
+		}
 	}
 
 	/**
 	 * Method to load executor services from the OSGI tracker
 	 * 
-	 * @param key   The key of the executor to load
-	 * @param execs List of executors to add the executor to
+	 * @param key   The key of the executor to load, or null to load all executors
+	 * @param execs Map of executor lists per key to add the executors to
 	 */
-	void loadOSGIExecutors(String key, CopyOnWriteArrayList<SvExecInstance> execs) {
+	void loadOSGIExecutors(String key, Map<String, List<SvExecInstance>> execs) {
 		Object[] services = getOSGIServices();
 		for (int i = 0; (services != null) && (i < services.length); i++) {
 			SvExecInstance svx = null;
 			if (services[i] instanceof ISvExecutor && services[i] != null
-					&& (getKey((ISvExecutor) services[i]).equals(key) || (key == null && execs == null))) {
+					&& (key == null || getKey((ISvExecutor) services[i]).equals(key))) {
 				ISvExecutor sve = (ISvExecutor) services[i];
 				// get start and end date from database and
 				// update the SVE
 				svx = new SvExecInstance(sve, sve.getStartDate(), sve.getEndDate());
 				svx.setStatus(svCONST.STATUS_VALID);
-				SvExecInstance s = initExecInstance(svx);
-				if (execs != null)
-					execs.addIfAbsent(s);
+				addExecInstance(execs, initExecInstance(svx));
 			}
 			if (services[i] instanceof ISvExecutorGroup && services[i] != null
-					&& (getKeys((ISvExecutorGroup) services[i]).contains(key) || (key == null && execs == null))) {
+					&& (key == null || getKeys((ISvExecutorGroup) services[i]).contains(key))) {
 				ISvExecutorGroup svg = (ISvExecutorGroup) services[i];
 				List<String> keys = null;
 				if (key == null)
@@ -482,72 +639,60 @@ public class SvExecManager extends SvCore {
 					ISvExecutor svge = new SvExecutorWrapper(svg, getName(svg.getCategory(), singleKey));
 					svx = new SvExecInstance(svge, svge.getStartDate(), svge.getEndDate());
 					svx.setStatus(svCONST.STATUS_VALID);
-					SvExecInstance s = initExecInstance(svx);
-					if (execs != null)
-						execs.addIfAbsent(s);
+					addExecInstance(execs, initExecInstance(svx));
 				}
 			}
 
 		}
 	}
 
+	/**
+	 * Method to add an executor instance to the list of instances with the same
+	 * key, if the same executor version isn't already there
+	 * 
+	 * @param execs Map of executor lists per key
+	 * @param sve   The executor instance to add
+	 */
+	private void addExecInstance(Map<String, List<SvExecInstance>> execs, SvExecInstance sve) {
+		List<SvExecInstance> instances = execs.get(getKey(sve.getExecutor()));
+		if (instances == null) {
+			instances = new ArrayList<SvExecInstance>();
+			execs.put(getKey(sve.getExecutor()), instances);
+		}
+		if (!instances.contains(sve))
+			instances.add(sve);
+	}
+
 	/**
 	 * Method which searches the tracked services from the osgi container, trying to
 	 * find the appropriate executor service. If the service is found then we
 	 * initialise it with the data stored in the svarog database if any along with
-	 * setting up appropriate ACLs
+	 * setting up appropriate ACLs. The index is cached even if there's no executor
+	 * with this key, so missing executors aren't searched again until the services
+	 * change.
 	 * 
 	 * @param key           Key of the executor category and name, concatenated with
 	 *                      a dot
 	 * @param referenceDate Reference Date on which the executor must be valid.
-	 * @return Object instance implementing the ISvExecutor interface
-	 * @throws SvException Throws exception if executor isn't valid
+	 * @return The index of executors with the specified key
 	 */
-	ISvExecutor loadExecutor(String key, DateTime referenceDate) throws SvException {
-		ISvExecutor executor = null;
-		CopyOnWriteArrayList<SvExecInstance> execs = executorMap.getIfPresent(key);
-		if (execs == null)
-			execs = new CopyOnWriteArrayList<SvExecInstance>();
-		else { // just in case the executor was loaded after the long wait, lets
-				// give it one more try
-			for (SvExecInstance sve : execs) {
-				if (referenceDate.isAfter(sve.getStartDate()) && referenceDate.isBefore(sve.getEndDate())) {
-					if (!svCONST.STATUS_VALID.equals(sve.getStatus()))
-						throw (new SvException("system.error.executor_not_valid", this.getInstanceUser(), null, key));
-
-					executor = sve.getExecutor();
-					break;
-				}
-			}
-		}
-		if (executor == null) {
+	SvExecIndex loadExecutor(String key, DateTime referenceDate) {
+		// just in case the executor was loaded after the long wait, lets
+		// give it one more try
+		SvExecIndex index = getExecutorIndex(key, referenceDate);
+		if (index == null) {
 			// if we did reach this point, we haven't found the executor
 			// in the cache so we must search for it in the OSGI world.
 			// See if any of the currently tracked ISvExecutor services
 			// match the specified Category/Name
+			Object servicesMarker = getServicesMarker();
+			Map<String, List<SvExecInstance>> execs = new HashMap<String, List<SvExecInstance>>();
 			loadOSGIExecutors(key, execs);
-
-			// if there's more than 1 executor then sort by start date.
-			if (execs.size() > 1)
-				Collections.sort(execs, new Comparator<SvExecInstance>() {
-					@Override
-					public int compare(SvExecInstance o1, SvExecInstance o2) {
-						return o1.getStartDate().compareTo(o2.getStartDate());
-					}
-				});
-
-			executorMap.put(key, execs);
-			// once again try to find the executor
-			for (SvExecInstance sve : execs) {
-				if (referenceDate.isAfter(sve.getStartDate()) && referenceDate.isBefore(sve.getEndDate())) {
-					if (!svCONST.STATUS_VALID.equals(sve.getStatus()))
-						throw (new SvException("system.error.executor_not_valid", this.getInstanceUser(), null, key));
-					executor = sve.getExecutor();
-					break;
-				}
-			}
+			List<SvExecInstance> instances = execs.get(key);
+			index = new SvExecIndex(instances != null ? instances : new ArrayList<SvExecInstance>(), servicesMarker);
+			executorMap.put(key, index);
 		}
-		return executor;
+		return index;
 	}
 
 	/**
@@ -577,6 +722,39 @@ public class SvExecManager extends SvCore {
 		return osgiServices;
 	}
 
+	/**
+	 * Method to get a marker of the current state of the OSGI services. The marker
+	 * changes when services are added or removed from the tracker, or when the
+	 * unit tests set a new array of services.
+	 * 
+	 * @return The marker of the current OSGI services
+	 */
+	private static Object getServicesMarker() {
+		if (SvCore.svDaemonRunning.get() && SvarogDaemon.svcTracker != null)
+			return SvarogDaemon.svcTracker.getTrackingCount();
+		return osgiServices;
+	}
+
+	/**
+	 * Method to get the invocation counters of an executor
+	 * 
+	 * @param executorKey Key of the executor, category and name, concatenated with
+	 *                    a dot
+	 * @return The counters or null if the executor was never invoked
+	 */
+	public static SvExecStats getExecutorStats(String executorKey) {
+		return executorStats.get(executorKey);
+	}
+
+	/**
+	 * Method to get the invocation counters of all invoked executors
+	 * 
+	 * @return Map with the counters per executor key
+	 */
+	public static Map<String, SvExecStats> getExecutorStats() {
+		return Collections.unmodifiableMap(executorStats);
+	}
+
 	/**
 	 * This method shall be used only for unit testing purposes. When Svarog runs in
 	 * Daemon mode the OSGI services come from the OSGI platform and this setting
@@ -660,7 +838,15 @@ public class SvExecManager extends SvCore {
 					String error = getKey(exec) + ", return type:" + returnType.toString();
 					throw (new SvException("system.err.wrong_return_type", this.getInstanceUser(), null, error));
 				}
-				result = exec.execute(params, this);
+				SvExecStats stats = executorStats.computeIfAbsent(executorKey, k -> new SvExecStats());
+				long startTime = System.nanoTime();
+				boolean failed = true;
+				try {
+					result = exec.execute(params, this);
+					failed = false;
+				} finally {
+					stats.record(System.nanoTime() - startTime, failed);
+				}
 			} else {
 				String error = executorKey + ", reference date:"
 						+ (referenceDate != null ? referenceDate.toString() : new DateTime().toString());
@@ -33,6 +33,7 @@ import com.google.common.cache.CacheBuilder;
 import com.prtech.svarog.SvSDITile.SDIRelation;
 import com.prtech.svarog_common.DbDataArray;
 import com.prtech.svarog_common.DbDataObject;
+import com.prtech.svarog_common.DboFactory;
 import com.prtech.svarog_common.DbSearchCriterion;
 import com.prtech.svarog_common.DbSearchCriterion.DbCompareOperand;
 import com.prtech.svarog_common.SvCharId;
@@ -77,6 +78,11 @@ public class SvGeometry extends SvWriter {
 	static HashMap<String, DbDataObject> geometryFields = new HashMap<>();
 
 	static final Map<Long, Cache<String, SvSDITile>> layerCache = new ConcurrentHashMap<>();
+	/**
+	 * Map of object ids per type, changed on other nodes of the cluster and not
+	 * yet applied to the loaded tiles
+	 */
+	static final Map<Long, Set<Long>> pendingTileDeltas = new ConcurrentHashMap<>();
 	public static final String GEOM_STRUCT_TYPE = initStructType();
 
 	static String initStructType() {
@@ -371,6 +377,7 @@ public class SvGeometry extends SvWriter {
 	 */
 	public static SvSDITile getTile(Long tileTypeId, String tileId, HashMap<String, Object> tileParams)
 			throws SvException {
+		applyPendingTileDeltas(tileTypeId);
 		Cache<String, SvSDITile> cache = getLayerCache(tileTypeId);
 		SvSDITile svTile = null;
 		if (cache != null)
@@ -2163,50 +2170,169 @@ public class SvGeometry extends SvWriter {
 				throw (new SvException("system.error.sdi.geom_field_missing", instanceUser, dba, null));
 		}
 		super.saveObject(dba, isBatch, autoCommit);
-		cacheCleanup(dba);
 	}
 
 	/**
-	 * Method to invalidate the tiles caching the GIS data related to geometries
-	 * held in the DbDataArray
+	 * Method to apply the changes of the geometries held in the DbDataArray to
+	 * the loaded tiles caching the GIS data. The changes are applied after the
+	 * transaction of the core is committed and dropped if it is rolled back.
+	 * The tiles get read-only copies of the saved objects.
 	 * 
+	 * @param svc The core which saved the objects
 	 * @param dba The list of objects containing Geometries
 	 * @throws SvException
 	 */
-	static void cacheCleanup(DbDataArray dba) throws SvException {
-		List<Geometry> tileGeomList = null;
-		Set<SvSDITile> tileList = new HashSet<SvSDITile>();
-
+	static void cacheCleanup(SvCore svc, DbDataArray dba) throws SvException {
+		final List<Long> objectTypes = new ArrayList<>(dba.size());
+		final List<Long> objectIds = new ArrayList<>(dba.size());
+		final List<Geometry> geoms = new ArrayList<>(dba.size());
 		for (DbDataObject dbo : dba.getItems()) {
-			Geometry vdataGeom = SvGeometry.getGeometry(dbo);
-			if (vdataGeom != null) {
-				Envelope env = vdataGeom.getEnvelopeInternal();
-				tileGeomList = SvGeometry.getTileGeometries(env);
-				for (Geometry tgl : tileGeomList) {
-					String tileID = (String) tgl.getUserData();
-					SvSDITile tile = SvGeometry.getTile(dbo.getObjectType(), tileID, null);
-					if (!tileList.contains(tile))
-						tileList.add(tile);
-				}
+			Geometry geom = SvGeometry.getGeometry(dbo);
+			if (geom != null) {
+				geom = geom.copy();
+				geom.setUserData(getTileObject(dbo));
 			}
+			objectTypes.add(dbo.getObjectType());
+			objectIds.add(dbo.getObjectId());
+			geoms.add(geom);
 		}
-		tilesCleanup(tileList);
+		svc.runAfterCommit(() -> {
+			for (int i = 0; i < objectIds.size(); i++)
+				applyCommittedDelta(objectTypes.get(i), objectIds.get(i), geoms.get(i));
+		});
 	}
 
-	private static void tilesCleanup(Set<SvSDITile> tileList) throws SvException {
-		for (SvSDITile tile : tileList) {
-			tile.setIsTileDirty(true);
+	/**
+	 * Method to remove a deleted object from the loaded tiles after the
+	 * transaction of the core is committed
+	 * 
+	 * @param svc          The core which deleted the object
+	 * @param objectTypeId The type of the deleted object
+	 * @param objectId     The id of the deleted object
+	 * @throws SvException
+	 */
+	static void cacheCleanupDeleted(SvCore svc, Long objectTypeId, Long objectId) throws SvException {
+		svc.runAfterCommit(() -> applyCommittedDelta(objectTypeId, objectId, null));
+	}
+
+	/**
+	 * Method to create the object held as user data of a geometry in the tiles.
+	 * The tiles are shared, so they must not hold the instance of the caller.
+	 * 
+	 * @param dbo The saved object
+	 * @return Read-only copy of the object
+	 */
+	static DbDataObject getTileObject(DbDataObject dbo) {
+		DbDataObject tileDbo = new DbDataObject(dbo.getObjectType());
+		tileDbo.setValuesMap(dbo.getValuesMap());
+		tileDbo.setObjectId(dbo.getObjectId());
+		tileDbo.setPkid(dbo.getPkid());
+		tileDbo.setParentId(dbo.getParentId());
+		tileDbo.setStatus(dbo.getStatus());
+		tileDbo.setDtInsert(dbo.getDtInsert());
+		tileDbo.setDtDelete(dbo.getDtDelete());
+		tileDbo.setUserId(dbo.getUserId());
+		tileDbo.setGeometryType(dbo.isGeometryType());
+		tileDbo.setHasGeometry(dbo.getHasGeometry());
+		tileDbo.setIsDirty(false);
+		DboFactory.makeDboReadOnly(tileDbo);
+		return tileDbo;
+	}
+
+	/**
+	 * Method to apply a committed change to the loaded tiles. If the change
+	 * can't be applied, the tiles of the type are marked dirty so they are
+	 * reloaded from the database.
+	 */
+	private static void applyCommittedDelta(Long objectTypeId, Long objectId, Geometry geom) {
+		try {
+			applyTileDelta(objectTypeId, objectId, geom);
+		} catch (SvException e) {
+			log4j.warn("Can't apply the change of object " + objectId + " to the tiles, tiles marked dirty", e);
+			Cache<String, SvSDITile> cache = layerCache.get(objectTypeId);
+			if (cache != null)
+				for (SvSDITile tile : cache.asMap().values())
+					tile.setIsTileDirty(true);
 		}
-		// broadcast the dirty objects to the cluster
-		// if we are coordinator, broadcast through the proxy otherwise
-		// broadcast through the client
-		if (SvCluster.getIsActive().get()) {
-			if (!SvCluster.isCoordinator())
-				SvClusterNotifierClient.publishDirtyTileArray(tileList);
-			else
-				SvClusterNotifierProxy.publishDirtyTileArray(tileList);
+	}
+
+	/**
+	 * Method to apply a change of a single object to all loaded tiles of the
+	 * object type. Tile caches are not created if the type has no loaded tiles.
+	 * 
+	 * @param objectTypeId The type of the changed object
+	 * @param objectId     The id of the changed object
+	 * @param geom         The new geometry with the object as user data, or null
+	 *                     if the object was deleted
+	 * @throws SvException
+	 */
+	static void applyTileDelta(Long objectTypeId, Long objectId, Geometry geom) throws SvException {
+		Cache<String, SvSDITile> cache = layerCache.get(objectTypeId);
+		if (cache != null)
+			for (SvSDITile tile : cache.asMap().values())
+				tile.applyDelta(objectId, geom);
+	}
+
+	/**
+	 * Method to queue a change of an object saved or deleted on another node of
+	 * the cluster. The queued objects are loaded and applied to the tiles on the
+	 * next access to a tile of the object type.
+	 * 
+	 * @param objectId     The id of the changed object
+	 * @param objectTypeId The type of the changed object
+	 */
+	static void queueTileDelta(Long objectId, Long objectTypeId) {
+		if (layerCache.containsKey(objectTypeId))
+			pendingTileDeltas.computeIfAbsent(objectTypeId, k -> ConcurrentHashMap.newKeySet()).add(objectId);
+	}
+
+	/**
+	 * Method to apply the queued changes from the cluster to the loaded tiles of
+	 * a type. If the number of queued changes reaches the tile delta threshold,
+	 * the tiles are marked dirty instead of loading the objects one by one. The
+	 * queued changes are taken before loading, so if the loading fails the tiles
+	 * are marked dirty too.
+	 * 
+	 * @param tileTypeId The type of tiles
+	 * @throws SvException Pass through of underlying exceptions
+	 */
+	static void applyPendingTileDeltas(Long tileTypeId) throws SvException {
+		Set<Long> pending = pendingTileDeltas.get(tileTypeId);
+		if (pending == null || pending.isEmpty())
+			return;
+		List<Long> objectIds = new ArrayList<>();
+		Iterator<Long> it = pending.iterator();
+		while (it.hasNext()) {
+			objectIds.add(it.next());
+			it.remove();
 		}
+		Cache<String, SvSDITile> cache = layerCache.get(tileTypeId);
+		if (cache == null || objectIds.isEmpty())
+			return;
+		if (objectIds.size() >= SvConf.getSdiTileDeltaThreshold()) {
+			markDirtyTiles(cache);
+			return;
+		}
+		try (SvReader svr = new SvReader()) {
+			svr.includeGeometries = true;
+			DbDataObject dbt = getDbt(tileTypeId);
+			for (Long objectId : objectIds) {
+				DbDataObject dbo = svr.getObjectById(objectId, dbt, null, true);
+				Geometry geom = dbo != null ? getGeometry(dbo) : null;
+				if (geom != null)
+					geom.setUserData(dbo);
+				applyTileDelta(tileTypeId, objectId, geom);
+			}
+		} catch (SvException | RuntimeException e) {
+			// the queued changes are lost, so the tiles must be reloaded
+			markDirtyTiles(cache);
+			throw e;
+		}
+	}
 
+	private static void markDirtyTiles(Cache<String, SvSDITile> cache) {
+		for (SvSDITile tile : cache.asMap().values())
+			tile.setIsTileDirty(true);
 	}
 
 	static void markDirtyTile(long tileTypeId, int[] cell) throws SvException {
@@ -0,0 +1,246 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *
+ *******************************************************************************/
+package com.prtech.svarog;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import com.prtech.svarog.SvConf.SvDbType;
+import com.prtech.svarog_common.DbDataArray;
+import com.prtech.svarog_common.DbDataObject;
+import com.prtech.svarog_common.DbSearch;
+import com.prtech.svarog_common.DbSearchCriterion;
+import com.prtech.svarog_common.DbSearchExpression;
+
+/**
+ * Keyset (seek) paging of a query. The objects are sorted by the sort fields
+ * followed by OBJECT_ID, and each next page continues after the keys of the
+ * last object of the previous page, instead of skipping the previous rows with
+ * an offset. The keys are carried between the calls in an opaque continuation
+ * token.
+ *
+ * The sort fields must not hold null values, since the rows with null keys
+ * can't be compared.
+ *
+ * @author ristepejov
+ *
+ */
+final class SvKeyset {
+	private static final byte TOKEN_VERSION = 1;
+
+	/**
+	 * Criterion selecting the rows after the keys of the last object. On
+	 * PostgreSQL it's a row value comparison, which is resolved with a single
+	 * index seek, while the other databases use the expanded form.
+	 */
+	final class KeysetCriterion extends DbSearchCriterion {
+
+		@Override
+		public String getSQLExpression(String repoPrefix, String tblPrefix) throws SvException {
+			List<String> fields = new ArrayList<String>(keyFields.size());
+			for (String field : keyFields)
+				if (repoPrefix != null && !repoPrefix.equals("") && svCONST.repoFieldNames.indexOf(field) >= 0)
+					fields.add(repoPrefix + "." + field);
+				else
+					fields.add(tblPrefix != null && !tblPrefix.equals("") ? tblPrefix + "." + field : field);
+			StringBuilder sql = new StringBuilder();
+			if (SvConf.getDbType().equals(SvDbType.POSTGRES)) {
+				StringBuilder values = new StringBuilder();
+				sql.append("((");
+				for (String field : fields) {
+					sql.append(field + ",");
+					values.append("?,");
+				}
+				sql.setLength(sql.length() - 1);
+				values.setLength(values.length() - 1);
+				sql.append(") > (").append(values).append("))");
+			} else {
+				sql.append("(");
+				for (int i = 0; i < fields.size(); i++) {
+					sql.append(i > 0 ? " OR (" : "(");
+					for (int j = 0; j < i; j++)
+						sql.append(fields.get(j) + "=? AND ");
+					sql.append(fields.get(i) + ">?)");
+				}
+				sql.append(")");
+			}
+			return sql.toString();
+		}
+
+		@Override
+		public ArrayList<Object> getSQLParamVals() throws SvException {
+			ArrayList<Object> params = new ArrayList<Object>();
+			if (SvConf.getDbType().equals(SvDbType.POSTGRES)) {
+				for (Object key : lastKeys)
+					params.add(key);
+			} else {
+				for (int i = 0; i < lastKeys.length; i++)
+					for (int j = 0; j <= i; j++)
+						params.add(lastKeys[j]);
+			}
+			return params;
+		}
+
+		@Override
+		public boolean appendShape(StringBuilder shape) {
+			shape.append('K').append(SvConf.getDbType());
+			for (String field : keyFields)
+				shape.append(',').append(field);
+			shape.append('|');
+			return true;
+		}
+	}
+
+	/**
+	 * The sort fields followed by OBJECT_ID
+	 */
+	private final List<String> keyFields;
+	/**
+	 * The keys of the last object of the previous page, null for the first page
+	 */
+	private final Object[] lastKeys;
+	/**
+	 * The maximum number of objects in a page
+	 */
+	private final int pageSize;
+
+	/**
+	 * Constructor of a keyset paging
+	 *
+	 * @param sortFields        The fields to sort by, null to sort by OBJECT_ID
+	 *                          only
+	 * @param pageSize          The maximum number of objects in a page
+	 * @param continuationToken The token of the previous page, or null for the
+	 *                          first page
+	 * @throws SvException If the page size isn't positive, or the token is
+	 *                     invalid or was created with different sort fields
+	 */
+	SvKeyset(List<String> sortFields, int pageSize, String continuationToken) throws SvException {
+		if (pageSize < 1)
+			throw (new SvException("system.error.keyset_page_size_err", svCONST.systemUser, null, pageSize));
+		this.pageSize = pageSize;
+		keyFields = new ArrayList<String>();
+		if (sortFields != null)
+			for (String field : sortFields)
+				if (!field.trim().equalsIgnoreCase(Sv.OBJECT_ID))
+					keyFields.add(field.trim().toUpperCase());
+		keyFields.add(Sv.OBJECT_ID);
+		lastKeys = continuationToken != null ? decode(continuationToken) : null;
+	}
+
+	/**
+	 * Method to add the keyset criterion to the search of the query
+	 *
+	 * @param search The search criteria of the query, or null
+	 * @return The search restricted to the rows after the previous page
+	 */
+	DbSearch getSearch(DbSearch search) {
+		if (lastKeys == null)
+			return search;
+		DbSearchExpression expr = new DbSearchExpression().addDbSearchItem(new KeysetCriterion());
+		if (search != null)
+			expr.addDbSearchItem(search);
+		return expr;
+	}
+
+	/**
+	 * @return The order by fields of the query
+	 */
+	ArrayList<String> getOrderByFields() {
+		return new ArrayList<String>(keyFields);
+	}
+
+	/**
+	 * The query fetches one row more than the page size, so the last page is
+	 * known without another round trip.
+	 *
+	 * @return The row limit of the query
+	 */
+	int getRowLimit() {
+		return pageSize + 1;
+	}
+
+	/**
+	 * Method to create the page from the rows returned by the query
+	 *
+	 * @param rows The rows returned by the query limited to {@link #getRowLimit()}
+	 * @return The page with the continuation token
+	 * @throws SvException If the keys of the last object can't be put in the
+	 *                     token
+	 */
+	SvPage getPage(DbDataArray rows) throws SvException {
+		if (rows.size() <= pageSize)
+			return new SvPage(rows, null);
+		DbDataArray items = new DbDataArray(new ArrayList<DbDataObject>(rows.getItems().subList(0, pageSize)));
+		return new SvPage(items, encode(items.get(pageSize - 1)));
+	}
+
+	/**
+	 * Method to create the continuation token from the keys of an object
+	 *
+	 * @param dbo The last object of the page
+	 * @return The continuation token
+	 * @throws SvException If a key is null or of unsupported type
+	 */
+	String encode(DbDataObject dbo) throws SvException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeByte(TOKEN_VERSION);
+			out.writeInt(keyFields.size());
+			for (String field : keyFields) {
+				Object key = field.equals(Sv.OBJECT_ID) ? dbo.getObjectId() : dbo.getVal(field, true);
+				SvClusterReplica.writeString(out, field);
+				if (key == null || !SvClusterReplica.writeValue(out, key))
+					throw (new SvException("system.error.keyset_key_err", svCONST.systemUser, dbo, field));
+			}
+		} catch (IOException e) {
+			throw (new SvException("system.error.keyset_key_err", svCONST.systemUser, e));
+		}
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+	}
+
+	/**
+	 * Method to read the keys from a continuation token
+	 *
+	 * @param continuationToken The token
+	 * @return The keys in the order of the key fields
+	 * @throws SvException If the token is invalid or holds different fields
+	 */
+	Object[] decode(String continuationToken) throws SvException {
+		try (DataInputStream in = new DataInputStream(
+				new ByteArrayInputStream(Base64.getUrlDecoder().decode(continuationToken)))) {
+			if (in.readByte() != TOKEN_VERSION || in.readInt() != keyFields.size())
+				throw (new SvException("system.error.keyset_token_err", svCONST.systemUser, null, continuationToken));
+			Object[] keys = new Object[keyFields.size()];
+			for (int i = 0; i < keys.length; i++) {
+				if (!SvClusterReplica.readString(in).equals(keyFields.get(i)))
+					throw (new SvException("system.error.keyset_token_err", svCONST.systemUser, null,
+							continuationToken));
+				keys[i] = SvClusterReplica.readValue(in);
+			}
+			return keys;
+		} catch (IOException | RuntimeException e) {
+			// the token comes from the client, so any failure to read it means
+			// the token is invalid
+			throw (new SvException("system.error.keyset_token_err", svCONST.systemUser, e));
+		}
+	}
+}
@@ -10,6 +10,14 @@ import org.apache.logging.log4j.Logger;
 import com.prtech.svarog_common.DbDataArray;
 import com.prtech.svarog_common.DbDataObject;
 
+/**
+ * Multi threaded writer splitting a DbDataArray over a list of writers.
+ * 
+ * @deprecated Use {@link SvBulkLoader}, which feeds the writers from a bounded
+ *             queue instead of polling and commits or rolls back all writers
+ *             together
+ */
+@Deprecated
 public class SvMTWriter implements java.lang.AutoCloseable {
 	private static final Logger log4j = SvConf.getLogger(SvMTWriter.class);
 
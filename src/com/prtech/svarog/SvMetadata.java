@@ -0,0 +1,186 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *
+ *******************************************************************************/
+package com.prtech.svarog;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.prtech.svarog_common.DbDataArray;
+import com.prtech.svarog_common.DbDataObject;
+
+/**
+ * Immutable registry of the loaded configuration, indexing the object types by
+ * table name, the fields by object type and field name, and the link types by
+ * the pair of linked object types. The registry is built once when the
+ * configuration is loaded and replaced as a whole, so the lookups are hash
+ * lookups without locking.
+ *
+ * A lookup which can't be answered by the registry returns null, so the caller
+ * can fall back to the cache.
+ *
+ * @author ristepejov
+ *
+ */
+final class SvMetadata {
+
+	/**
+	 * Object types per schema and upper case table name. The tables of the
+	 * master repo are also registered without the repo prefix, unless another
+	 * table has that name.
+	 */
+	private final Map<String, Map<String, DbDataObject>> dbtByName;
+	/**
+	 * Field descriptors per object type id and field name
+	 */
+	private final Map<Long, Map<String, DbDataObject>> fieldsByType;
+	/**
+	 * Link types per first and second object type
+	 */
+	private final Map<Long, Map<Long, List<DbDataObject>>> linkTypes;
+	/**
+	 * Link types per object type pair, regardless of the link direction
+	 */
+	private final Map<Long, Map<Long, List<DbDataObject>>> linkTypesBidir;
+
+	/**
+	 * Constructor to build the registry from the loaded configuration
+	 *
+	 * @param objectTypes The object type descriptors
+	 * @param fields      The field descriptors per object type id
+	 * @param links       The link type descriptors
+	 * @param repoPrefix  The prefix of the master repo tables, i.e. SVAROG_
+	 */
+	SvMetadata(Collection<DbDataObject> objectTypes, Map<Long, DbDataArray> fields, DbDataArray links,
+			String repoPrefix) {
+		dbtByName = new HashMap<>();
+		for (DbDataObject dbt : objectTypes)
+			dbtByName.computeIfAbsent(((String) dbt.getVal(Sv.SCHEMA)).toUpperCase(), k -> new HashMap<>())
+					.put(((String) dbt.getVal(Sv.TABLE_NAME)).toUpperCase(), dbt);
+		for (Map<String, DbDataObject> tables : dbtByName.values()) {
+			HashMap<String, DbDataObject> shortNames = new HashMap<>();
+			for (Map.Entry<String, DbDataObject> entry : tables.entrySet())
+				if (entry.getKey().startsWith(repoPrefix))
+					shortNames.put(entry.getKey().substring(repoPrefix.length()), entry.getValue());
+			for (Map.Entry<String, DbDataObject> entry : shortNames.entrySet())
+				if (!tables.containsKey(entry.getKey()))
+					tables.put(entry.getKey(), entry.getValue());
+		}
+
+		fieldsByType = new HashMap<>();
+		for (Map.Entry<Long, DbDataArray> entry : fields.entrySet()) {
+			HashMap<String, DbDataObject> typeFields = new HashMap<>();
+			for (DbDataObject dbf : entry.getValue().getItems())
+				if (!typeFields.containsKey(dbf.getVal(Sv.FIELD_NAME)))
+					typeFields.put((String) dbf.getVal(Sv.FIELD_NAME), dbf);
+			fieldsByType.put(entry.getKey(), typeFields);
+		}
+
+		linkTypes = new HashMap<>();
+		linkTypesBidir = new HashMap<>();
+		for (DbDataObject link : links.getItems()) {
+			Long typeId1 = (Long) link.getVal(Sv.Link.LINK_OBJ_TYPE_1);
+			Long typeId2 = (Long) link.getVal(Sv.Link.LINK_OBJ_TYPE_2);
+			if (typeId1 == null || typeId2 == null)
+				continue;
+			addLinkType(linkTypes, typeId1, typeId2, link);
+			addLinkType(linkTypesBidir, typeId1, typeId2, link);
+			if (!typeId1.equals(typeId2))
+				addLinkType(linkTypesBidir, typeId2, typeId1, link);
+		}
+	}
+
+	private static void addLinkType(Map<Long, Map<Long, List<DbDataObject>>> index, Long typeId1, Long typeId2,
+			DbDataObject link) {
+		index.computeIfAbsent(typeId1, k -> new HashMap<>()).computeIfAbsent(typeId2, k -> new ArrayList<>())
+				.add(link);
+	}
+
+	/**
+	 * Copy constructor, sharing all indexes except the field descriptors
+	 */
+	private SvMetadata(SvMetadata source, Map<Long, Map<String, DbDataObject>> fieldsByType) {
+		this.dbtByName = source.dbtByName;
+		this.fieldsByType = fieldsByType;
+		this.linkTypes = source.linkTypes;
+		this.linkTypesBidir = source.linkTypesBidir;
+	}
+
+	/**
+	 * Method to get an object type by table name
+	 *
+	 * @param tableName The upper case table name, with or without the repo prefix
+	 * @param schema    The schema of the table
+	 * @return The object type descriptor or null if not found
+	 */
+	DbDataObject getDbt(String tableName, String schema) {
+		Map<String, DbDataObject> tables = dbtByName.get(schema);
+		return tables != null ? tables.get(tableName) : null;
+	}
+
+	/**
+	 * Method to check if the fields of an object type are in the registry
+	 *
+	 * @param objectTypeId The object type id
+	 * @return True if {@link #getField(Long, String)} has the fields of the type
+	 */
+	boolean hasFields(Long objectTypeId) {
+		return fieldsByType.containsKey(objectTypeId);
+	}
+
+	/**
+	 * Method to get a field descriptor by name
+	 *
+	 * @param objectTypeId The id of the object type
+	 * @param fieldName    The name of the field
+	 * @return The field descriptor or null if not found
+	 */
+	DbDataObject getField(Long objectTypeId, String fieldName) {
+		Map<String, DbDataObject> typeFields = fieldsByType.get(objectTypeId);
+		return typeFields != null ? typeFields.get(fieldName) : null;
+	}
+
+	/**
+	 * Method to get the link types between two object types
+	 *
+	 * @param typeId1       The first type id
+	 * @param typeId2       The second type id
+	 * @param bidirectional Flag to return the link types in both directions
+	 * @return The link types in the order of loading, empty list if none
+	 */
+	List<DbDataObject> getLinkTypes(Long typeId1, Long typeId2, boolean bidirectional) {
+		Map<Long, List<DbDataObject>> links = (bidirectional ? linkTypesBidir : linkTypes).get(typeId1);
+		List<DbDataObject> retval = links != null ? links.get(typeId2) : null;
+		return retval != null ? retval : Collections.<DbDataObject>emptyList();
+	}
+
+	/**
+	 * Method to create a registry without the fields of an object type, used
+	 * when the fields of the type are changed
+	 *
+	 * @param objectTypeId The id of the changed object type
+	 * @return The new registry, or this if the type has no registered fields
+	 */
+	SvMetadata withoutFields(Long objectTypeId) {
+		if (!fieldsByType.containsKey(objectTypeId))
+			return this;
+		HashMap<Long, Map<String, DbDataObject>> fields = new HashMap<>(fieldsByType);
+		fields.remove(objectTypeId);
+		return new SvMetadata(this, fields);
+	}
+}
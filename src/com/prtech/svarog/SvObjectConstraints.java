@@ -74,6 +74,19 @@ public class SvObjectConstraints {
 		return retVals;
 	}
 
+	/**
+	 * Method to get the number of bind parameters needed per object by the query
+	 * of all constraints
+	 * 
+	 * @return The number of bind parameters
+	 */
+	int getParamCount() {
+		int paramCount = 0;
+		for (SvConstraint svc : constraints.values())
+			paramCount += svc.getParamCount();
+		return paramCount;
+	}
+
 	public HashMap<String, SvConstraint> getConstraints() {
 		return constraints;
 	}
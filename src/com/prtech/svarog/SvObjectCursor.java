@@ -0,0 +1,173 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *
+ *******************************************************************************/
+package com.prtech.svarog;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.apache.logging.log4j.Logger;
+import org.locationtech.jts.io.ParseException;
+
+import com.prtech.svarog_common.DbDataObject;
+import com.prtech.svarog_common.DbQuery;
+
+/**
+ * Forward only cursor over the results of a DbQuery. The cursor reads the
+ * objects one by one from the live JDBC result set, so the memory used is
+ * constant regardless of the size of the result. The cursor holds the JDBC
+ * connection of the SvCore which opened it in a non auto-commit transaction,
+ * so it must be closed before the SvCore instance is released. Closing the
+ * cursor restores the auto-commit state of the connection.
+ *
+ * Since the {@link Iterator} interface doesn't allow checked exceptions, any
+ * SvException raised while fetching is wrapped in an IllegalStateException.
+ *
+ * @author ristepejov
+ *
+ */
+public class SvObjectCursor implements Iterator<DbDataObject>, AutoCloseable {
+	/**
+	 * Log4j instance used for logging
+	 */
+	private static final Logger log4j = SvConf.getLogger(SvObjectCursor.class);
+
+	private final SvCore core;
+	private final DbQuery query;
+	private final String tblPrefix;
+	private final boolean oldAutoCommit;
+
+	private PreparedStatement ps;
+	private ResultSet rs;
+	private SvRowMapper plan;
+	private DbDataObject nextObject;
+	private boolean isClosed = false;
+
+	/**
+	 * Package constructor. Cursors are opened via
+	 * {@link SvReader#getObjectsCursor(DbQuery, Integer)}
+	 *
+	 * @param core          The SvCore instance which owns the connection
+	 * @param query         The executed query, used for parsing the records
+	 * @param tblPrefix     The table prefix of the root query object
+	 * @param oldAutoCommit The auto commit state to be restored on close
+	 */
+	SvObjectCursor(SvCore core, DbQuery query, String tblPrefix, boolean oldAutoCommit) {
+		this.core = core;
+		this.query = query;
+		this.tblPrefix = tblPrefix;
+		this.oldAutoCommit = oldAutoCommit;
+	}
+
+	/**
+	 * Method to attach the executed statement and its result set to the cursor
+	 * and compute the row mapping plan
+	 *
+	 * @param ps The prepared statement which was executed
+	 * @param rs The result set returned by the statement
+	 * @throws SQLException If the result set metadata can't be fetched
+	 */
+	void open(PreparedStatement ps, ResultSet rs) throws SQLException {
+		this.ps = ps;
+		this.rs = rs;
+		this.plan = core.getRowMapper(query, tblPrefix, rs.getMetaData());
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (nextObject == null && !isClosed)
+			nextObject = fetch();
+		return nextObject != null;
+	}
+
+	@Override
+	public DbDataObject next() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+		DbDataObject current = nextObject;
+		nextObject = null;
+		return current;
+	}
+
+	/**
+	 * Method to read the next record from the result set. If there are no more
+	 * records the cursor is closed.
+	 *
+	 * @return The next object or null if the result set is exhausted
+	 */
+	private DbDataObject fetch() {
+		try {
+			if (rs.next())
+				return core.getObjectFromRecord(rs, plan);
+		} catch (SQLException ex) {
+			close();
+			throw new IllegalStateException(
+					new SvException("system.error.sql_statement_err", core.instanceUser, null, query, ex));
+		} catch (ParseException ex) {
+			close();
+			throw new IllegalStateException(
+					new SvException("system.error.wkb_parse_err", core.instanceUser, null, query, ex));
+		} catch (SvException ex) {
+			close();
+			throw new IllegalStateException(ex);
+		}
+		close();
+		return null;
+	}
+
+	/**
+	 * Method to return a sequential stream over the cursor. Closing the stream
+	 * closes the cursor.
+	 *
+	 * @return A stream of DbDataObjects
+	 */
+	public Stream<DbDataObject> stream() {
+		return StreamSupport
+				.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+				.onClose(this::close);
+	}
+
+	public boolean isClosed() {
+		return isClosed;
+	}
+
+	/**
+	 * Method to release the result set and the statement and restore the auto
+	 * commit state of the connection. Calling close on a closed cursor has no
+	 * effect.
+	 */
+	@Override
+	public void close() {
+		if (isClosed)
+			return;
+		isClosed = true;
+		nextObject = null;
+		try {
+			SvCore.closeResource((AutoCloseable) rs, core.instanceUser);
+			SvCore.closeResource((AutoCloseable) ps, core.instanceUser);
+			// restoring the auto commit will also commit the read transaction
+			if (oldAutoCommit)
+				core.dbSetAutoCommit(true);
+		} catch (SvException e) {
+			log4j.error("Error releasing the object cursor", e);
+		}
+	}
+}
@@ -0,0 +1,58 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *
+ *******************************************************************************/
+package com.prtech.svarog;
+
+import com.prtech.svarog_common.DbDataArray;
+
+/**
+ * Single page of objects returned by the keyset paging methods of SvReader.
+ * The continuation token is passed to the next call of the same method to get
+ * the next page. The token is opaque and holds the sort keys of the last
+ * object of the page, so the next page is read with an index seek instead of
+ * skipping all previous rows.
+ *
+ * @author ristepejov
+ *
+ */
+public class SvPage {
+	private final DbDataArray items;
+	private final String continuationToken;
+
+	SvPage(DbDataArray items, String continuationToken) {
+		this.items = items;
+		this.continuationToken = continuationToken;
+	}
+
+	/**
+	 * @return The objects of the page
+	 */
+	public DbDataArray getItems() {
+		return items;
+	}
+
+	/**
+	 * @return The token for the next page, or null if this is the last page
+	 */
+	public String getContinuationToken() {
+		return continuationToken;
+	}
+
+	/**
+	 * @return True if there are more objects after this page
+	 */
+	public boolean hasMore() {
+		return continuationToken != null;
+	}
+}
@@ -18,6 +18,9 @@ import java.lang.reflect.Constructor;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map.Entry;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.logging.log4j.Logger;
@@ -55,6 +58,12 @@ public class SvParameter extends SvCore {
 
 	static Cache<String, DbDataObject> paramsCache = initParamCache();
 
+	/**
+	 * Maximum number of parent ids bound in a single IN list while loading the
+	 * parameters in bulk. Oracle doesn't allow more than 1000 values in a list.
+	 */
+	static final int IN_LIST_SIZE = 1000;
+
 	static int decodeType(Class<?> clazz) {
 		int code = 0;
 		if (clazz == String.class)
@@ -166,24 +175,85 @@ public class SvParameter extends SvCore {
 	 * @throws SvException
 	 */
 	public HashMap<DbDataObject, DbDataArray> getParameters(DbDataObject dbo) throws SvException {
+		DbDataArray owners = new DbDataArray();
+		owners.addDataItem(dbo);
+		return getParameters(owners).get(dbo.getObjectId());
+	}
 
-		HashMap<DbDataObject, DbDataArray> allParams = new HashMap<>();
-		try (SvReader svr = new SvReader(this)) {
-			// get all existing parameters for the object user of the parameters
-			DbDataArray allParamsForObj = svr.getObjectsByParentId(dbo.getObjectId(), svCONST.OBJECT_TYPE_PARAM, null,
-					0, 0);
-
-			if (allParamsForObj != null && allParamsForObj.getItems().size() > 0) {
-				for (DbDataObject dbParam : allParamsForObj.getItems()) {
-					// get all existing values for the parameter
-					DbDataArray allValueFopParam = svr.getObjectsByParentId(dbParam.getObjectId(),
-							svCONST.OBJECT_TYPE_PARAM_VALUE, null, 0, 0);
-					allParams.put(dbParam, allValueFopParam);
-				}
+	/**
+	 * Method that returns the parameters attached to a list of objects. The
+	 * parameters of all objects are loaded with a single query, and the values
+	 * of all parameters with another, instead of a query per object and per
+	 * parameter. The loaded parameters and values are stored in the cache per
+	 * parent, which is cleaned when a parameter or a value is saved.
+	 * 
+	 * @param owners The objects for which we will return the parameters
+	 * @return Map with key the object id of the owner, and value the map of
+	 *         SVAROG_PARAM objects to their SVAROG_PARAM_VALUE objects as in
+	 *         {@link #getParameters(DbDataObject)}
+	 * @throws SvException Pass through of underlying exceptions
+	 */
+	public HashMap<Long, HashMap<DbDataObject, DbDataArray>> getParameters(DbDataArray owners) throws SvException {
+		HashMap<Long, HashMap<DbDataObject, DbDataArray>> allParams = new HashMap<>();
+		ArrayList<Long> ownerIds = new ArrayList<>(owners.size());
+		for (DbDataObject owner : owners.getItems())
+			if (!allParams.containsKey(owner.getObjectId())) {
+				allParams.put(owner.getObjectId(), new HashMap<DbDataObject, DbDataArray>());
+				ownerIds.add(owner.getObjectId());
 			}
 
-			return allParams;
+		try (SvReader svr = new SvReader(this)) {
+			// get all existing parameters for all owners
+			LinkedHashMap<Long, DbDataArray> paramsByOwner = getChildren(svr, ownerIds, svCONST.OBJECT_TYPE_PARAM);
+			ArrayList<Long> paramIds = new ArrayList<>();
+			for (DbDataArray params : paramsByOwner.values())
+				for (DbDataObject dbParam : params.getItems())
+					paramIds.add(dbParam.getObjectId());
+
+			// get all existing values for all parameters
+			LinkedHashMap<Long, DbDataArray> valuesByParam = getChildren(svr, paramIds,
+					svCONST.OBJECT_TYPE_PARAM_VALUE);
+			for (Entry<Long, DbDataArray> params : paramsByOwner.entrySet())
+				for (DbDataObject dbParam : params.getValue().getItems())
+					allParams.get(params.getKey()).put(dbParam, valuesByParam.get(dbParam.getObjectId()));
 		}
+		return allParams;
+	}
+
+	/**
+	 * Method to get the children of a type for a list of parents. The children
+	 * are taken from the cache if available, while the children of all other
+	 * parents are loaded with IN queries of up to {@link #IN_LIST_SIZE} parents
+	 * and added to the cache.
+	 * 
+	 * @param svr        The reader used to load the children
+	 * @param parentIds  The list of parent ids
+	 * @param objectType The type of the children
+	 * @return Map of parent id to its children, in the order of the parent ids
+	 * @throws SvException Pass through of underlying exceptions
+	 */
+	private LinkedHashMap<Long, DbDataArray> getChildren(SvReader svr, List<Long> parentIds, Long objectType)
+			throws SvException {
+		LinkedHashMap<Long, DbDataArray> children = new LinkedHashMap<>();
+		ArrayList<Object> notCached = new ArrayList<>();
+		for (Long parentId : parentIds) {
+			DbDataArray cached = isCfgInDb ? DbCache.getObjectsByParentId(parentId, objectType) : null;
+			if (cached != null && cached.size() > 0)
+				children.put(parentId, cached);
+			else {
+				children.put(parentId, new DbDataArray());
+				notCached.add(parentId);
+			}
+		}
+		for (int i = 0; i < notCached.size(); i += IN_LIST_SIZE) {
+			DbSearchCriterion dbs = new DbSearchCriterion(Sv.PARENT_ID, DbCompareOperand.IN_LIST);
+			dbs.setInList(new ArrayList<>(notCached.subList(i, Math.min(i + IN_LIST_SIZE, notCached.size()))));
+			for (DbDataObject child : svr.getObjects(dbs, objectType, null, 0, 0).getItems())
+				children.get(child.getParentId()).addDataItem(child);
+		}
+		for (Object parentId : notCached)
+			DbCache.addArrayByParentId(children.get(parentId), objectType, (Long) parentId);
+		return children;
 	}
 
 	/**
@@ -938,7 +1008,12 @@ public class SvParameter extends SvCore {
 			dbParamValue.setVal(Sv.PARAM_TYPE, value.getClass().getName());
 			dbParamValue.setVal(Sv.PARAM_VALUE, value);
 			svw.saveObject(dbParamValue, autoCommit);
-			paramsCache.put(Sv.PARAM_NAME, dbParamValue);
+			// cache only committed values, otherwise the next read goes to the db
+			if (autoCommit) {
+				dbParamValue.setIsDirty(false);
+				paramsCache.put(key, dbParamValue);
+			} else
+				paramsCache.invalidate(key);
 		}
 	}
 
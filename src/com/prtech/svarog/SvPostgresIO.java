@@ -16,11 +16,16 @@ package com.prtech.svarog;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Reader;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
 import java.sql.Timestamp;
+import java.util.List;
 import java.util.Map;
 import java.util.PropertyResourceBundle;
 import java.util.ResourceBundle;
@@ -41,6 +46,32 @@ public class SvPostgresIO implements ISvDatabaseIO {
 	private static final Logger logger = LogManager.getLogger(SvPostgresIO.class.getName());
 	static String systemSrid;
 
+	/**
+	 * The PostgreSQL driver is not a compile time dependency of svarog, so the
+	 * copy API is resolved by reflection. If the driver doesn't provide it, the
+	 * fields are null and copy is not supported.
+	 */
+	private static final Class<?> pgConnectionClass;
+	private static final Method getCopyApi;
+	private static final Method copyIn;
+
+	static {
+		Class<?> connClass = null;
+		Method copyApiMethod = null;
+		Method copyInMethod = null;
+		try {
+			connClass = Class.forName("org.postgresql.PGConnection");
+			copyApiMethod = connClass.getMethod("getCopyAPI");
+			copyInMethod = copyApiMethod.getReturnType().getMethod("copyIn", String.class, Reader.class);
+		} catch (ClassNotFoundException | NoSuchMethodException e) {
+			logger.warn("PostgreSQL copy API is not available, copy inserts are disabled");
+			connClass = null;
+		}
+		pgConnectionClass = connClass;
+		getCopyApi = copyApiMethod;
+		copyIn = copyInMethod;
+	}
+
 	@Override
 	public String getGeomReadSQL(String fieldName) {
 		return "ST_AsEWKB(" + fieldName + ")::bytea";
@@ -104,6 +135,49 @@ public class SvPostgresIO implements ISvDatabaseIO {
 		return null;
 	}
 
+	@Override
+	public boolean getSupportsCopy() {
+		return pgConnectionClass != null;
+	}
+
+	@Override
+	public long[] getSequenceValues(Connection conn, String sequenceName, int count) throws SQLException {
+		long[] values = new long[count];
+		try (PreparedStatement ps = conn
+				.prepareStatement("SELECT NEXTVAL(CAST(? AS REGCLASS)) FROM GENERATE_SERIES(1, ?)")) {
+			ps.setString(1, sequenceName);
+			ps.setInt(2, count);
+			try (ResultSet rs = ps.executeQuery()) {
+				int index = 0;
+				while (rs.next() && index < count)
+					values[index++] = rs.getLong(1);
+				if (index != count)
+					throw new SQLException("Sequence " + sequenceName + " returned " + index + " of " + count
+							+ " values");
+			}
+		}
+		return values;
+	}
+
+	@Override
+	public long copyIn(Connection conn, String schema, String tableName, List<String> columns, Reader rows)
+			throws SQLException {
+		if (pgConnectionClass == null)
+			throw new SQLFeatureNotSupportedException("PostgreSQL copy API is not available");
+		String sql = "COPY " + schema + "." + tableName + "(" + String.join(",", columns)
+				+ ") FROM STDIN WITH (FORMAT csv)";
+		try {
+			Object copyManager = getCopyApi.invoke(conn.unwrap(pgConnectionClass));
+			return (Long) copyIn.invoke(copyManager, sql, rows);
+		} catch (InvocationTargetException e) {
+			if (e.getCause() instanceof SQLException)
+				throw (SQLException) e.getCause();
+			throw new SQLException("Copy into " + schema + "." + tableName + " failed", e.getCause());
+		} catch (IllegalAccessException e) {
+			throw new SQLException("PostgreSQL copy API is not accessible", e);
+		}
+	}
+
 	@Override
 	public String getHandlerType() {
 		return SvDbType.POSTGRES.toString();
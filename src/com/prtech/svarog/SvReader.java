@@ -16,7 +16,9 @@ package com.prtech.svarog;
 
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
 
 import org.apache.logging.log4j.Logger;
 import org.joda.time.DateTime;
@@ -199,6 +201,42 @@ public class SvReader extends SvCore {
 		return retval;
 	}
 
+	/**
+	 * Method to get a single page of objects using keyset paging. The objects
+	 * are sorted by the sort fields and OBJECT_ID, and the next page is read
+	 * after the keys of the last object from the previous page, so the time to
+	 * fetch a page doesn't depend on how deep the page is. The sort fields
+	 * should not contain null values.
+	 * 
+	 * @param dbSearch
+	 *            A {@link DbSearch} instance containing the search criteria
+	 * @param objectType
+	 *            ID of the object type to be fetched.
+	 * @param refDate
+	 *            Reference date to be used for the query
+	 * @param sortFields
+	 *            The fields by which the objects are sorted, null to sort by
+	 *            OBJECT_ID only
+	 * @param pageSize
+	 *            maximum number of objects in the page
+	 * @param continuationToken
+	 *            The continuation token of the previous page, null for the
+	 *            first page
+	 * @return A {@link SvPage} with the objects and the token for the next
+	 *         page
+	 * @throws SvException
+	 *             If the continuation token is invalid or pass through
+	 *             exception from super.getObjects
+	 */
+	public SvPage getObjectsPage(DbSearch dbSearch, Long objectType, DateTime refDate, List<String> sortFields,
+			int pageSize, String continuationToken) throws SvException {
+		SvKeyset keyset = new SvKeyset(sortFields, pageSize, continuationToken);
+		DbDataObject dbt = getDbt(objectType);
+		DbQueryObject query = new DbQueryObject(repoDbt, repoDbtFields, dbt, getFields(dbt.getObjectId()),
+				keyset.getSearch(dbSearch), refDate, keyset.getOrderByFields());
+		return keyset.getPage(getObjects(query, keyset.getRowLimit(), 0));
+	}
+
 	/**
 	 * Method that returns an array of DbDataObjects according to specified
 	 * DbQuery object.
@@ -222,6 +260,113 @@ public class SvReader extends SvCore {
 		return retval;
 	}
 
+	/**
+	 * Method to compute aggregate values over the objects matching a search,
+	 * such as counts or sums per group. The aggregation is done by the database
+	 * with GROUP BY, so the objects are never loaded in memory. The read
+	 * access and the reference date are applied as in getObjects.
+	 * 
+	 * @param dbSearch
+	 *            A {@link DbSearch} instance containing the search criteria,
+	 *            or null for all objects
+	 * @param objectType
+	 *            ID of the object type to be aggregated
+	 * @param refDate
+	 *            Reference date to be used for the query
+	 * @param aggregate
+	 *            The group by fields and the aggregate values
+	 * @return Array with one row per group, holding the group by fields and
+	 *         the aggregate values under their aliases
+	 * @throws SvException
+	 *             If a field can't be aggregated or pass-through exception
+	 *             from super.getAggregates
+	 */
+	public DbDataArray getAggregates(DbSearch dbSearch, Long objectType, DateTime refDate, SvAggregate aggregate)
+			throws SvException {
+		DbDataObject dbt = getDbt(objectType);
+		DbQueryObject query = new DbQueryObject(repoDbt, repoDbtFields, dbt, getFields(dbt.getObjectId()), dbSearch,
+				refDate, null);
+		return super.getAggregates(query, aggregate);
+	}
+
+	/**
+	 * Method that opens a streaming cursor over the objects matching the
+	 * DbQuery. The objects are read one by one from the live result set using
+	 * the configured JDBC fetch size, so the memory consumption doesn't depend
+	 * on the size of the result. The cursor must be closed before this
+	 * SvReader is released.
+	 * 
+	 * @param query
+	 *            The DbQuery object which actually describes the query to the
+	 *            DB
+	 * @return An open {@link SvObjectCursor}
+	 * @throws SvException
+	 *             Pass-through exception from super.getObjectsCursor
+	 */
+	public SvObjectCursor getObjectsCursor(DbQuery query) throws SvException {
+		return super.getObjectsCursor(query, null);
+	}
+
+	/**
+	 * Method that opens a streaming cursor over the objects matching the
+	 * DbQuery, with a specific fetch size. The cursor must be closed before
+	 * this SvReader is released.
+	 * 
+	 * @param query
+	 *            The DbQuery object which actually describes the query to the
+	 *            DB
+	 * @param fetchSize
+	 *            The number of rows fetched per round-trip to the database. If
+	 *            null, the value of sys.jdbc.fetch_size is used
+	 * @return An open {@link SvObjectCursor}
+	 * @throws SvException
+	 *             Pass-through exception from super.getObjectsCursor
+	 */
+	@Override
+	public SvObjectCursor getObjectsCursor(DbQuery query, Integer fetchSize) throws SvException {
+		return super.getObjectsCursor(query, fetchSize);
+	}
+
+	/**
+	 * Method that opens a streaming cursor over the objects of a type matching
+	 * the search criteria. The cursor must be closed before this SvReader is
+	 * released.
+	 * 
+	 * @param dbSearch
+	 *            A {@link DbSearch} instance containing the search criteria
+	 * @param objectType
+	 *            ID of the object type to be fetched.
+	 * @param refDate
+	 *            Reference date to be used for the query
+	 * @return An open {@link SvObjectCursor}
+	 * @throws SvException
+	 *             Pass-through exception from super.getObjectsCursor
+	 */
+	public SvObjectCursor getObjectsCursor(DbSearch dbSearch, Long objectType, DateTime refDate)
+			throws SvException {
+		DbDataObject typeDescriptor = getDbt(objectType);
+		DbQueryObject query = new DbQueryObject(repoDbt, repoDbtFields, typeDescriptor,
+				getFields(typeDescriptor.getObjectId()), dbSearch, refDate,
+				dbSearch != null ? dbSearch.getOrderByFields() : null);
+		return super.getObjectsCursor(query, null);
+	}
+
+	/**
+	 * Method that returns a stream of the objects matching the DbQuery, backed
+	 * by a streaming cursor. The stream must be closed (for example with
+	 * try-with-resources) before this SvReader is released.
+	 * 
+	 * @param query
+	 *            The DbQuery object which actually describes the query to the
+	 *            DB
+	 * @return A sequential stream of DbDataObjects
+	 * @throws SvException
+	 *             Pass-through exception from super.getObjectsCursor
+	 */
+	public Stream<DbDataObject> getObjectsStream(DbQuery query) throws SvException {
+		return super.getObjectsCursor(query, null).stream();
+	}
+
 	/**
 	 * Method to return the version history for a specific list of objects
 	 * satifying the search criteria
@@ -689,6 +834,29 @@ public class SvReader extends SvCore {
 		return arr;
 	}
 
+	/**
+	 * Keyset paging version of getObjectsByTypeId. The objects are sorted by
+	 * OBJECT_ID.
+	 * 
+	 * @param typeId
+	 *            The Id of the SVAROG_OBJECT
+	 * @param refDate
+	 *            The reference date at which we want to fetch the object
+	 * @param pageSize
+	 *            Maximum number of objects in the page
+	 * @param continuationToken
+	 *            The continuation token of the previous page, null for the
+	 *            first page
+	 * @return A page of objects of certain SVAROG_OBJECT type
+	 * @throws SvException
+	 *             Pass through exception from the underlying methods
+	 */
+	public SvPage getObjectsByTypeIdPage(Long typeId, DateTime refDate, int pageSize, String continuationToken)
+			throws SvException {
+		DbSearch search = new DbSearchCriterion("OBJECT_TYPE", DbSearchCriterion.DbCompareOperand.EQUAL, typeId);
+		return getObjectsPage(search, typeId, refDate, null, pageSize, continuationToken);
+	}
+
 	/**
 	 * Overloaded version of getObjectsByLinkedId to return objects according to
 	 * link code. Not so smart, issues with reversing.
@@ -830,6 +998,35 @@ public class SvReader extends SvCore {
 		return arr;
 	}
 
+	/**
+	 * Keyset paging version of getObjectsByLinkedId. The linked objects are
+	 * sorted by OBJECT_ID and always read from the database.
+	 * 
+	 * @param LinkObjectId
+	 *            The object to which the result set is linked
+	 * @param dbLink
+	 *            The link descriptor
+	 * @param refDate
+	 *            The reference date on which we want to get the dataset
+	 * @param pageSize
+	 *            Maximum number of objects in the page
+	 * @param continuationToken
+	 *            The continuation token of the previous page, null for the
+	 *            first page
+	 * @return A page of objects linked by a specific link type to the
+	 *         LinkObject
+	 * @throws SvException
+	 *             Pass through exception from the underlying methods
+	 */
+	public SvPage getObjectsByLinkedIdPage(Long LinkObjectId, DbDataObject dbLink, DateTime refDate, int pageSize,
+			String continuationToken) throws SvException {
+		SvKeyset keyset = new SvKeyset(null, pageSize, continuationToken);
+		DbQueryExpression q = getLinkedIdQuery(LinkObjectId, (Long) dbLink.getVal("link_obj_type_1"), dbLink,
+				(Long) dbLink.getVal("link_obj_type_2"), false, refDate, null, keyset.getSearch(null),
+				keyset.getOrderByFields());
+		return keyset.getPage(getObjects(q, keyset.getRowLimit(), 0));
+	}
+
 	/**
 	 * The root method for fetching linked objects. It will first try to load
 	 * from the cache, than try the database if there is no such collection in
@@ -917,7 +1114,44 @@ public class SvReader extends SvCore {
 			Long linkObjectTypeId2, Boolean isReverse, DateTime refDate, Integer rowLimit, Integer offset,
 			String linkStatus) throws SvException {
 		DbDataArray ret = null;
+		DbQueryExpression q = getLinkedIdQuery(LinkObjectId, linkObjectTypeId1, dbLink, linkObjectTypeId2, isReverse,
+				refDate, linkStatus, null, null);
 
+		ret = this.getObjects(q, rowLimit, offset);
+		DbCache.addArrayByLinkedId(ret, LinkObjectId, linkObjectTypeId1, dbLink.getObject_id(), linkObjectTypeId2,
+				linkStatus);
+
+		return ret;
+	}
+
+	/**
+	 * Method to create the query for fetching linked objects
+	 * 
+	 * @param LinkObjectId
+	 *            The object to which the result set is linked
+	 * @param linkObjectTypeId1
+	 *            The type of LinkObjectId
+	 * @param dbLink
+	 *            The link descriptor
+	 * @param linkObjectTypeId2
+	 *            The type of objects which we want in the result set
+	 * @param isReverse
+	 *            If the link descriptor direction is reversed
+	 * @param refDate
+	 *            The reference date on which we want to get the dataset
+	 * @param linkStatus
+	 *            The status of the link between the two objects
+	 * @param search
+	 *            Additional search criteria on the result set objects, or null
+	 * @param orderByFields
+	 *            The fields of the result set objects to order by, or null
+	 * @return The query expression joining the two object types via the link
+	 * @throws SvException
+	 *             Pass through exception from the underlying methods
+	 */
+	DbQueryExpression getLinkedIdQuery(Long LinkObjectId, Long linkObjectTypeId1, DbDataObject dbLink,
+			Long linkObjectTypeId2, Boolean isReverse, DateTime refDate, String linkStatus, DbSearch search,
+			ArrayList<String> orderByFields) throws SvException {
 		// get descriptors for both types
 		DbDataObject dbt = getDbt(linkObjectTypeId1);
 		DbDataObject dbt1 = getDbt(linkObjectTypeId2);
@@ -939,8 +1173,8 @@ public class SvReader extends SvCore {
 		DbQueryObject it = new DbQueryObject(repoDbt, repoDbtFields, dbt, getFields(dbt.getObject_id()), dbs1,
 				DbJoinType.INNER, dbl1, LinkType.DBLINK, null, refDate);
 
-		DbQueryObject it1 = new DbQueryObject(repoDbt, repoDbtFields, dbt1, getFields(dbt1.getObject_id()), null,
-				DbJoinType.INNER, dbl2, LinkType.DBLINK, null, refDate);
+		DbQueryObject it1 = new DbQueryObject(repoDbt, repoDbtFields, dbt1, getFields(dbt1.getObject_id()), search,
+				DbJoinType.INNER, dbl2, LinkType.DBLINK, orderByFields, refDate);
 
 		DbQueryExpression q = new DbQueryExpression();
 
@@ -960,12 +1194,7 @@ public class SvReader extends SvCore {
 		}
 
 		q.setReturnType(dbt1);
-
-		ret = this.getObjects(q, rowLimit, offset);
-		DbCache.addArrayByLinkedId(ret, LinkObjectId, linkObjectTypeId1, dbLink.getObject_id(), linkObjectTypeId2,
-				linkStatus);
-
-		return ret;
+		return q;
 	}
 
 	/**
@@ -1062,6 +1291,37 @@ public class SvReader extends SvCore {
 		return object;
 	}
 
+	/**
+	 * Keyset paging version of getObjectsByParentId. The child objects are
+	 * always read from the database.
+	 * 
+	 * @param parent_id
+	 *            The ID of the parent object
+	 * @param object_type
+	 *            The Id of the type of the child objects
+	 * @param refDate
+	 *            Reference date for which the fetch should be executed
+	 * @param sortByField
+	 *            the field name in the database which shall be used for sorting
+	 *            the objects, null to sort by OBJECT_ID
+	 * @param pageSize
+	 *            Maximum number of objects in the page
+	 * @param continuationToken
+	 *            The continuation token of the previous page, null for the
+	 *            first page
+	 * @return A page of objects saved as children for the parent object
+	 * @throws SvException
+	 *             Pass through exception from the underlying methods
+	 */
+	public SvPage getObjectsByParentIdPage(Long parent_id, Long object_type, DateTime refDate, String sortByField,
+			int pageSize, String continuationToken) throws SvException {
+		List<String> sortFields = new ArrayList<String>();
+		if (sortByField != null && !sortByField.equals(""))
+			sortFields.add(sortByField);
+		return getObjectsPage(new DbSearchCriterion("PARENT_ID", DbCompareOperand.EQUAL, parent_id), object_type,
+				refDate, sortFields, pageSize, continuationToken);
+	}
+
 	/**
 	 * Method for searching object by its type unique id (expecting to return
 	 * one object, if no always return the first one)
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *
+ *******************************************************************************/
+package com.prtech.svarog;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Map;
+
+import com.prtech.svarog_common.DbDataObject;
+import com.prtech.svarog_common.DbQuery;
+import com.prtech.svarog_common.DbQueryExpression;
+import com.prtech.svarog_common.SvCharId;
+
+/**
+ * Row mapping plan computed once per executed query from the result set
+ * metadata. The plan resolves for each column the field id, the field
+ * descriptor, the svarog field type and the JDBC type, so the rows can be
+ * decoded using only index based getters. The indexes of the repo columns are
+ * resolved as well.
+ *
+ * @author ristepejov
+ *
+ */
+final class SvRowMapper {
+
+	/**
+	 * Marker for columns which are repo fields and aren't mapped to values
+	 */
+	static final int SKIP = -1;
+
+	final DbQuery query;
+	final DbDataObject returnType;
+	final boolean hasReturnType;
+	final boolean setRepoData;
+	final boolean hasGeometries;
+	final int columnCount;
+
+	/**
+	 * Field id per column index (0 based). Null for repo columns
+	 */
+	final SvCharId[] fieldIds;
+	/**
+	 * Field descriptor per column index, null if the column isn't a field of the
+	 * return type
+	 */
+	final DbDataObject[] fieldDescriptors;
+	/**
+	 * Svarog field type per column index, null if unknown
+	 */
+	final String[] fieldTypes;
+	/**
+	 * JDBC type per column index
+	 */
+	final int[] sqlTypes;
+	/**
+	 * Scale per column index, only for numeric columns
+	 */
+	final int[] scales;
+
+	/**
+	 * Indexes (1 based) of the repo columns in the order PKID, OBJECT_ID,
+	 * DT_INSERT, DT_DELETE, PARENT_ID, OBJECT_TYPE, STATUS, USER_ID
+	 */
+	final int[] repoIndexes = new int[] { SKIP, SKIP, SKIP, SKIP, SKIP, SKIP, SKIP, SKIP };
+	/**
+	 * Index (1 based) of the META_PKID column, or SKIP if it isn't selected
+	 */
+	final int metaPkidIndex;
+	final String repoPrefix;
+
+	static final String[] REPO_COLUMNS = new String[] { "_PKID", "_OBJECT_ID", "_DT_INSERT", "_DT_DELETE",
+			"_PARENT_ID", "_OBJECT_TYPE", "_STATUS", "_USER_ID" };
+
+	/**
+	 * Constructor to compute the mapping plan of a query
+	 *
+	 * @param query     The executed query
+	 * @param tblPrefix The table prefix of the root query object. MUST BE
+	 *                  UPPERCASED!!!
+	 * @param rsmt      The metadata of the resultset
+	 * @param fields    The map of field descriptors of the return type, may be
+	 *                  null if the query has no return type
+	 * @throws SQLException Underlying exceptions from the JDBC metadata
+	 */
+	SvRowMapper(DbQuery query, String tblPrefix, ResultSetMetaData rsmt, Map<SvCharId, Object> fields)
+			throws SQLException {
+		this.query = query;
+		this.returnType = query.getReturnType();
+		this.hasReturnType = returnType != null;
+		boolean isExpression = query instanceof DbQueryExpression;
+		boolean isReverse = isExpression ? ((DbQueryExpression) query).getIsReverseExpression() : false;
+		this.setRepoData = hasReturnType && (!isExpression || query.getReturnTypes().size() == 1);
+		this.hasGeometries = hasReturnType && SvCore.hasGeometries(returnType.getObjectId());
+
+		if (hasReturnType && !isReverse)
+			tblPrefix = tblPrefix + query.getReturnTypeSequence();
+		this.repoPrefix = tblPrefix;
+
+		columnCount = rsmt.getColumnCount();
+		fieldIds = new SvCharId[columnCount];
+		fieldDescriptors = new DbDataObject[columnCount];
+		fieldTypes = new String[columnCount];
+		sqlTypes = new int[columnCount];
+		scales = new int[columnCount];
+		int metaIndex = SKIP;
+
+		for (int i = 0; i < columnCount; i++) {
+			int colIndex = i + 1;
+			String columnName = rsmt.getColumnName(colIndex).toUpperCase();
+			sqlTypes[i] = rsmt.getColumnType(colIndex);
+			if (sqlTypes[i] == java.sql.Types.NUMERIC)
+				scales[i] = rsmt.getScale(colIndex);
+			if (hasReturnType) {
+				String fieldName = columnName.substring(tblPrefix.length() + 1);
+				// if the column is not a repo field, map it
+				if (svCONST.repoFieldNames.indexOf(fieldName) < 0) {
+					SvCharId fieldId = SvCharId.toSvCharId(fieldName);
+					DbDataObject dbf = fields != null ? (DbDataObject) fields.get(fieldId) : null;
+					fieldIds[i] = fieldId;
+					fieldDescriptors[i] = dbf;
+					fieldTypes[i] = dbf != null ? (String) dbf.getVal(Sv.FIELD_TYPE) : null;
+				}
+			} else
+				fieldIds[i] = SvCharId.toSvCharId(columnName.replace(tblPrefix + "_", "").toUpperCase());
+			for (int r = 0; r < REPO_COLUMNS.length; r++)
+				if (repoIndexes[r] == SKIP && columnName.equals(tblPrefix + REPO_COLUMNS[r]))
+					repoIndexes[r] = colIndex;
+			if (metaIndex == SKIP && columnName.equals(tblPrefix + "_META_PKID"))
+				metaIndex = colIndex;
+		}
+		metaPkidIndex = metaIndex;
+	}
+
+}
@@ -0,0 +1,405 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *
+ *******************************************************************************/
+package com.prtech.svarog;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.Logger;
+
+import com.prtech.svarog_common.DbDataArray;
+import com.prtech.svarog_common.DbDataObject;
+import com.prtech.svarog_common.ISvRuleEngineSave;
+import com.prtech.svarog_common.SvCharId;
+
+/**
+ * Default implementation of the rule engine state persistence. It saves the
+ * execution object and the results of the actions according to the durability
+ * level:
+ * <ul>
+ * <li>ACTION - the state is saved after every action, in the transaction of
+ * the rule engine. This is the legacy behaviour.</li>
+ * <li>RULE - the state is saved once, when the rule finishes, in the
+ * transaction of the rule engine. The results are saved in one batch.</li>
+ * <li>ASYNC - the final state is handed to a background writer, which saves
+ * the states of multiple rules in batches in its own transaction, on behalf of
+ * the user who executed the rule. The state survives a rollback of the rule
+ * engine transaction, but is lost if the JVM stops before the writer flushed
+ * it.</li>
+ * </ul>
+ * With all levels the execution object is inserted before the first action, so
+ * the actions can refer to it by id. With ASYNC it is inserted in its own
+ * transaction, so it survives a rollback together with the results.
+ * An instance holds the execution of the running rule, so it must not be
+ * shared between RuleEngine instances.
+ *
+ * @author ristepejov
+ *
+ */
+public class SvRuleEngineSave implements ISvRuleEngineSave {
+	/**
+	 * Log4j instance used for logging
+	 */
+	private static final Logger log4j = SvConf.getLogger(SvRuleEngineSave.class);
+
+	/**
+	 * Durability levels of the rule engine execution state
+	 */
+	public enum Durability {
+		ACTION, RULE, ASYNC
+	}
+
+	/**
+	 * Final state of a rule execution queued for the background writer
+	 */
+	static final class QueuedState {
+		/**
+		 * The user on behalf of which the state is saved
+		 */
+		final DbDataObject user;
+		/**
+		 * The execution object followed by the dirty action results
+		 */
+		final DbDataArray state;
+
+		QueuedState(DbDataObject user, DbDataArray state) {
+			this.user = user;
+			this.state = state;
+		}
+	}
+
+	/**
+	 * Queue of the final states waiting for the background writer
+	 */
+	private static final BlockingQueue<QueuedState> pendingStates = new LinkedBlockingQueue<>();
+	/**
+	 * Number of states queued, but not yet saved or discarded by the writer
+	 */
+	private static final AtomicLong pendingCount = new AtomicLong();
+	private static final AtomicBoolean writerRunning = new AtomicBoolean(false);
+	private static final Object flushLock = new Object();
+
+	private final Durability durability;
+	private DbDataObject execObj = null;
+
+	/**
+	 * Constructor using the durability configured by
+	 * sys.rule_engine.state_durability
+	 */
+	public SvRuleEngineSave() {
+		this(SvConf.getRuleStateDurability());
+	}
+
+	/**
+	 * Constructor with explicit durability level
+	 *
+	 * @param durability The durability of the execution state
+	 */
+	public SvRuleEngineSave(Durability durability) {
+		this.durability = durability;
+	}
+
+	/**
+	 * Method to insert the execution object before the first action is
+	 * executed, so the actions can use its id. With ASYNC durability the object
+	 * is saved in its own transaction on behalf of the user of the parent core.
+	 *
+	 * @param parentCore The SvCore used for the rule execution
+	 * @param execObj    The new execution descriptor
+	 * @param success    The initial state of success
+	 * @throws SvException Pass through of underlying exceptions
+	 */
+	public void startExecution(SvCore parentCore, DbDataObject execObj, Boolean success) throws SvException {
+		execObj.setVal("IS_SUCCESSFUL", success);
+		if (durability.equals(Durability.ASYNC))
+			try (SvWriter svw = new SvWriter()) {
+				svw.setSaveAsUser(getSaveUser(parentCore));
+				svw.saveObject(execObj);
+			}
+		else
+			try (SvWriter svw = new SvWriter(parentCore)) {
+				svw.saveObject(execObj);
+			}
+		this.execObj = execObj;
+	}
+
+	@Override
+	public void saveCurrentState(SvCore parentCore, DbDataObject currentAction, DbDataObject execObj,
+			DbDataArray actionResults, Boolean success) throws SvException {
+		this.execObj = execObj;
+		if (durability.equals(Durability.ACTION))
+			saveState(parentCore, execObj, actionResults, success, false);
+	}
+
+	@Override
+	public void saveFinalState(SvCore parentCore, DbDataObject targetObject, DbDataArray actionResults,
+			Boolean success) throws SvException {
+		if (execObj == null)
+			return;
+		try {
+			if (durability.equals(Durability.RULE))
+				saveState(parentCore, execObj, actionResults, success, true);
+			else if (durability.equals(Durability.ASYNC)) {
+				updateExecState(execObj, actionResults, success);
+				enqueue(getSaveUser(parentCore), execObj, actionResults);
+			}
+		} finally {
+			execObj = null;
+		}
+	}
+
+	/**
+	 * Method to update the state of the execution object from the action
+	 * results. The execution fails if any of the actions failed.
+	 *
+	 * @param execObj       The execution descriptor
+	 * @param actionResults The result of executed actions
+	 * @param success       The state of success
+	 * @return True if the execution object has to be saved
+	 */
+	static boolean updateExecState(DbDataObject execObj, DbDataArray actionResults, Boolean success) {
+		String currExecutionStatus = execObj.getVal("exec_state") != null ? execObj.getVal("exec_state").toString()
+				: "PASS";
+		for (DbDataObject actionResult : actionResults.getItems()) {
+			String exec_state = actionResult.getVal("exec_state").toString();
+			boolean failed = !(exec_state.equals("PASS") || exec_state.equals("WARNING"));
+			if (currExecutionStatus.equals("PASS") && failed)
+				execObj.setVal("exec_state", "FAIL");
+		}
+		if (execObj.getIs_dirty() || !success.equals(execObj.getVal("IS_SUCCESSFUL"))) {
+			execObj.setVal("IS_SUCCESSFUL", success);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Method for saving the current state of the rule execution in the
+	 * transaction of the parent SvCore
+	 *
+	 * @param parentCore    The SvCore used for the rule execution
+	 * @param execObj       The execution descriptor
+	 * @param actionResults The result of executed actions
+	 * @param success       The state of success
+	 * @param isBatch       Flag to save the dirty results in one batch
+	 * @throws SvException Pass through of underlying exceptions
+	 */
+	static void saveState(SvCore parentCore, DbDataObject execObj, DbDataArray actionResults, Boolean success,
+			boolean isBatch) throws SvException {
+		try (SvWriter svw = new SvWriter(parentCore)) {
+			if (updateExecState(execObj, actionResults, success))
+				svw.saveObject(execObj);
+
+			DbDataArray dirtyResults = new DbDataArray();
+			for (DbDataObject actionResult : actionResults.getItems()) {
+				if (actionResult.getIs_dirty()) {
+					actionResult.setParent_id(execObj.getObject_id());
+					if (isBatch)
+						dirtyResults.addDataItem(actionResult);
+					else
+						svw.saveObject(actionResult);
+				}
+			}
+			if (dirtyResults.size() > 0)
+				svw.saveObject(dirtyResults, true);
+		}
+	}
+
+	/**
+	 * Method to get the user on behalf of which the parent core saves objects
+	 *
+	 * @param parentCore The SvCore used for the rule execution
+	 * @return The save as user if set, otherwise the instance user
+	 */
+	static DbDataObject getSaveUser(SvCore parentCore) {
+		return parentCore.saveAsUser != null ? parentCore.saveAsUser : parentCore.instanceUser;
+	}
+
+	/**
+	 * Method to copy the execution object and the dirty results and queue them
+	 * for the background writer. The copies are queued, so the writer doesn't
+	 * modify objects still used by the caller.
+	 *
+	 * @param user          The user on behalf of which the state is saved
+	 * @param execObj       The execution descriptor
+	 * @param actionResults The result of executed actions
+	 */
+	static void enqueue(DbDataObject user, DbDataObject execObj, DbDataArray actionResults) {
+		DbDataArray state = new DbDataArray();
+		state.addDataItem(copyOf(execObj));
+		for (DbDataObject actionResult : actionResults.getItems())
+			if (actionResult.getIs_dirty()) {
+				state.addDataItem(copyOf(actionResult));
+				actionResult.setIsDirty(false);
+			}
+		pendingCount.incrementAndGet();
+		pendingStates.add(new QueuedState(user, state));
+		startWriter();
+	}
+
+	private static DbDataObject copyOf(DbDataObject dbo) {
+		DbDataObject copy = new DbDataObject(dbo.getObjectType());
+		copy.setObjectId(dbo.getObjectId());
+		copy.setPkid(dbo.getPkid());
+		copy.setParentId(dbo.getParentId());
+		copy.setStatus(dbo.getStatus());
+		for (Entry<SvCharId, Object> entry : dbo.getValuesMap().entrySet())
+			copy.setVal(entry.getKey(), entry.getValue());
+		copy.setIsDirty(dbo.getIs_dirty());
+		return copy;
+	}
+
+	private static void startWriter() {
+		if (writerRunning.compareAndSet(false, true)) {
+			Thread writer = new Thread(SvRuleEngineSave::writeStates, "SvRuleEngineSave-writer");
+			writer.setDaemon(true);
+			writer.start();
+		}
+	}
+
+	/**
+	 * The background writer loop. It takes the queued states in batches of
+	 * sys.rule_engine.state_batch_size and stops once the queue is empty.
+	 */
+	private static void writeStates() {
+		try {
+			List<QueuedState> batch = new ArrayList<>();
+			while (true) {
+				QueuedState state = pendingStates.poll(1, TimeUnit.SECONDS);
+				if (state == null) {
+					writerRunning.set(false);
+					// a state queued after the poll timed out must not be left
+					// without a writer
+					if (pendingStates.isEmpty() || !writerRunning.compareAndSet(false, true))
+						return;
+					continue;
+				}
+				batch.add(state);
+				pendingStates.drainTo(batch, Math.max(SvConf.getRuleStateBatchSize() - 1, 0));
+				writeBatch(batch);
+				batch.clear();
+			}
+		} catch (InterruptedException e) {
+			writerRunning.set(false);
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Method to save a batch of states. The states are grouped by user, so each
+	 * object is saved on behalf of the user who executed the rule. If the save
+	 * fails, the whole batch is rolled back and discarded.
+	 *
+	 * @param batch The list of queued states
+	 */
+	static void writeBatch(List<QueuedState> batch) {
+		try (SvWriter svw = new SvWriter()) {
+			svw.setAutoCommit(false);
+			try {
+				Map<Long, List<QueuedState>> byUser = new LinkedHashMap<>();
+				for (QueuedState state : batch)
+					byUser.computeIfAbsent(state.user.getObjectId(), k -> new ArrayList<>()).add(state);
+				for (List<QueuedState> userStates : byUser.values()) {
+					svw.setSaveAsUser(userStates.get(0).user);
+					DbDataArray execObjects = new DbDataArray();
+					DbDataArray results = new DbDataArray();
+					for (QueuedState state : userStates) {
+						DbDataObject execObj = state.state.get(0);
+						if (execObj.getIs_dirty())
+							execObjects.addDataItem(execObj);
+						for (int i = 1; i < state.state.size(); i++) {
+							state.state.get(i).setParentId(execObj.getObjectId());
+							results.addDataItem(state.state.get(i));
+						}
+					}
+					if (execObjects.size() > 0)
+						svw.saveObject(execObjects, true, false);
+					if (results.size() > 0)
+						svw.saveObject(results, true, false);
+				}
+				svw.dbCommit();
+			} catch (SvException e) {
+				log4j.error("Failed saving " + batch.size() + " rule execution states", e);
+				svw.dbRollback();
+			}
+		} catch (SvException e) {
+			log4j.error("Failed saving " + batch.size() + " rule execution states", e);
+		} finally {
+			if (pendingCount.addAndGet(-batch.size()) == 0)
+				synchronized (flushLock) {
+					flushLock.notifyAll();
+				}
+		}
+	}
+
+	/**
+	 * Method to wait until the background writer saved all queued states
+	 *
+	 * @param timeout The max time to wait in milliseconds
+	 * @return True if all states were saved, false if the timeout expired
+	 * @throws InterruptedException If the waiting thread was interrupted
+	 */
+	public static boolean flush(long timeout) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + timeout;
+		synchronized (flushLock) {
+			while (pendingCount.get() > 0) {
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0)
+					return false;
+				flushLock.wait(remaining);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Method used by the shutdown hook to save the queued states before the JVM
+	 * stops
+	 *
+	 * @param timeout The max time to wait in milliseconds
+	 * @return True if all states were saved
+	 * @throws InterruptedException If the waiting thread was interrupted
+	 */
+	static boolean flushOnShutdown(long timeout) throws InterruptedException {
+		if (getPendingCount() > 0 && !flush(timeout)) {
+			log4j.warn("Rule execution states not saved: " + getPendingCount());
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Method to get the number of queued states not yet saved by the background
+	 * writer
+	 *
+	 * @return The number of pending states
+	 */
+	public static long getPendingCount() {
+		return pendingCount.get();
+	}
+
+	public Durability getDurability() {
+		return durability;
+	}
+
+}
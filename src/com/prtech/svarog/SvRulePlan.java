@@ -0,0 +1,239 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *
+ *******************************************************************************/
+package com.prtech.svarog;
+
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.script.CompiledScript;
+
+import org.apache.logging.log4j.Logger;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.prtech.svarog_common.DbDataObject;
+import com.prtech.svarog_common.ISvOnSave;
+
+/**
+ * Compiled execution plan of a rule engine rule. The plan holds the ordered
+ * actions of the rule with their code already loaded and prepared: compiled
+ * JavaScript, resolved JAR methods and parsed SQL. The plans are cached per
+ * rule id and versioned by the PKID of the rule, so a plan compiled from an
+ * older version of the rule is never used.
+ *
+ * The plans are invalidated by on save callbacks of the rule and action
+ * objects, as well as on deletion of those objects. Since the callbacks run
+ * before the commit, a concurrent execution may compile the plan again from
+ * the old version of an action, so the plan is invalidated once more after the
+ * commit.
+ *
+ * @author ristepejov
+ *
+ */
+final class SvRulePlan {
+	private static final Logger log4j = SvConf.getLogger(SvRulePlan.class);
+
+	static final String CODE_TYPE = "code_type";
+
+	/**
+	 * Cache of plans per rule object id
+	 */
+	private static final Cache<Long, SvRulePlan> plans = initPlanCache();
+
+	/**
+	 * Single prepared action of the rule
+	 */
+	static final class ActionPlan {
+		final DbDataObject action;
+		final String codeType;
+		/**
+		 * The file data of the action, null for executors
+		 */
+		final byte[] fileData;
+		/**
+		 * The compiled script of JavaScript actions, null if the script couldn't
+		 * be compiled, so it is evaluated from source
+		 */
+		final CompiledScript script;
+		/**
+		 * The resolved method of Java actions, null if it couldn't be resolved
+		 */
+		final Method method;
+		/**
+		 * The parsed SQL of SQL actions
+		 */
+		final ActionSQL.SqlTemplate sql;
+
+		ActionPlan(DbDataObject action, byte[] fileData) {
+			this.action = action;
+			this.codeType = (String) action.getVal(CODE_TYPE);
+			this.fileData = fileData;
+			CompiledScript compiled = null;
+			Method actionMethod = null;
+			ActionSQL.SqlTemplate sqlTemplate = null;
+			try {
+				switch (codeType) {
+				case "JavaScript":
+					compiled = ActionJS.compile(new String(fileData, StandardCharsets.UTF_8));
+					break;
+				case "SQL":
+					sqlTemplate = new ActionSQL.SqlTemplate(new String(fileData, StandardCharsets.UTF_8));
+					break;
+				case "Java":
+					actionMethod = ActionJAR.getActionMethod(action.getVal("CLASS_NAME").toString(),
+							action.getVal("METHOD_NAME").toString());
+					break;
+				default:
+					break;
+				}
+			} catch (Exception e) {
+				// the action will fail the same way on execution, so the error
+				// is raised within the rule execution
+				if (log4j.isDebugEnabled())
+					log4j.debug("Failed preparing action " + action.getObjectId(), e);
+			}
+			this.script = compiled;
+			this.method = actionMethod;
+			this.sql = sqlTemplate;
+		}
+	}
+
+	private final Long rulePkid;
+	private final List<ActionPlan> actions;
+
+	SvRulePlan(Long rulePkid, List<ActionPlan> actions) {
+		this.rulePkid = rulePkid;
+		this.actions = Collections.unmodifiableList(new ArrayList<ActionPlan>(actions));
+	}
+
+	/**
+	 * Method to create the plan cache and register the on save callback
+	 * invalidating the plans when rules or actions are saved
+	 *
+	 * @return The plan cache
+	 */
+	private static Cache<Long, SvRulePlan> initPlanCache() {
+		/**
+		 * Call back to invalidate the plan of the rule owning the saved object
+		 */
+		class SvRulePlanCallback implements ISvOnSave {
+
+			@Override
+			public boolean beforeSave(SvCore parentCore, DbDataObject dbo) {
+				return true;
+			}
+
+			@Override
+			public void afterSave(SvCore parentCore, DbDataObject dbo) throws SvException {
+				invalidateOnCommit(parentCore, dbo.getObjectId(), dbo.getParentId(), dbo.getObjectType());
+			}
+		}
+
+		ISvOnSave callback = new SvRulePlanCallback();
+		SvCore.registerOnSaveCallback(callback, svCONST.OBJECT_TYPE_RULE);
+		SvCore.registerOnSaveCallback(callback, svCONST.OBJECT_TYPE_ACTION);
+		return CacheBuilder.newBuilder().maximumSize(1000).expireAfterAccess(10, TimeUnit.MINUTES)
+				.<Long, SvRulePlan>build();
+	}
+
+	/**
+	 * Method to get the cached plan of a rule
+	 *
+	 * @param rule The rule object
+	 * @return The plan or null if there's no plan for this version of the rule
+	 */
+	static SvRulePlan get(DbDataObject rule) {
+		SvRulePlan plan = plans.getIfPresent(rule.getObjectId());
+		if (plan != null && !plan.rulePkid.equals(rule.getPkid())) {
+			plans.invalidate(rule.getObjectId());
+			plan = null;
+		}
+		return plan;
+	}
+
+	/**
+	 * Method to compile a plan from the sorted actions of a rule and cache it.
+	 *
+	 * @param rule        The rule object
+	 * @param actions     The actions of the rule, in execution order
+	 * @param actionFiles The file data of each action, null for executors
+	 * @return The compiled plan
+	 */
+	static SvRulePlan compile(DbDataObject rule, List<DbDataObject> actions, List<byte[]> actionFiles) {
+		List<ActionPlan> actionPlans = new ArrayList<ActionPlan>(actions.size());
+		for (int i = 0; i < actions.size(); i++) {
+			actionPlans.add(new ActionPlan(actions.get(i), actionFiles.get(i)));
+		}
+		SvRulePlan plan = new SvRulePlan(rule.getPkid(), actionPlans);
+		plans.put(rule.getObjectId(), plan);
+		return plan;
+	}
+
+	/**
+	 * Method to invalidate the plan affected by a change of a rule or action
+	 *
+	 * @param objectId   The id of the changed object
+	 * @param parentId   The parent id of the changed object, or null if unknown
+	 * @param objectType The type of the changed object
+	 */
+	static void invalidate(Long objectId, Long parentId, Long objectType) {
+		if (objectType.equals(svCONST.OBJECT_TYPE_RULE))
+			plans.invalidate(objectId);
+		else if (objectType.equals(svCONST.OBJECT_TYPE_ACTION)) {
+			// the rule of an action changed on another node isn't known
+			if (parentId != null)
+				plans.invalidate(parentId);
+			else
+				plans.invalidateAll();
+		}
+	}
+
+	/**
+	 * Method to invalidate the plan affected by a change of a rule or action
+	 * made in a transaction. The plan is invalidated immediately and again after
+	 * the commit, so a plan compiled from the old version in the meantime is
+	 * dropped too.
+	 *
+	 * @param svc        The core which changed the object
+	 * @param objectId   The id of the changed object
+	 * @param parentId   The parent id of the changed object, or null if unknown
+	 * @param objectType The type of the changed object
+	 * @throws SvException Pass through of underlying exceptions
+	 */
+	static void invalidateOnCommit(SvCore svc, Long objectId, Long parentId, Long objectType) throws SvException {
+		invalidate(objectId, parentId, objectType);
+		if (svc != null)
+			svc.runAfterCommit(() -> invalidate(objectId, parentId, objectType));
+	}
+
+	/**
+	 * Method to invalidate the plan of a rule, for example after the file of an
+	 * action was replaced
+	 *
+	 * @param ruleId The id of the rule
+	 */
+	static void invalidate(Long ruleId) {
+		plans.invalidate(ruleId);
+	}
+
+	List<ActionPlan> getActions() {
+		return actions;
+	}
+
+}
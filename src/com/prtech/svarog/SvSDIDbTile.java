@@ -97,4 +97,20 @@ public class SvSDIDbTile extends SvSDITile {
 		return SvUtil.sdiFactory.createGeometryCollection(glist);
 	}
 
+	/**
+	 * Overriden method which skips the changes on tiles loaded for a reference
+	 * date, since they hold historical data. The tiles filtered by additional
+	 * search are marked dirty, because the search can't be evaluated in memory.
+	 */
+	@Override
+	void applyDelta(Long objectId, Geometry geom) throws SvException {
+		if (referenceDate != null)
+			return;
+		if (extSearch != null) {
+			if (isAffected(objectId, geom))
+				setIsTileDirty(true);
+		} else
+			super.applyDelta(objectId, geom);
+	}
+
 }
@@ -18,9 +18,14 @@ import java.io.IOException;
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.logging.log4j.LogManager;
@@ -68,6 +73,26 @@ public abstract class SvSDITile {
 	protected Collection<Geometry> internalGeometries = new ArrayList<Geometry>();
 	protected Collection<Geometry> borderGeometries = new ArrayList<Geometry>();
 
+	/**
+	 * Map of the geometries in the tile, keyed by the object id of the
+	 * DbDataObject set as user data of the geometry
+	 */
+	protected Map<Long, Geometry> objectGeometries = new ConcurrentHashMap<Long, Geometry>();
+	/**
+	 * Geometries added to the tile after the index was built. They are scanned
+	 * sequentially by the queries, until the index is rebuilt
+	 */
+	protected volatile List<PreparedGeometry> deltaGeometries = Collections.emptyList();
+	/**
+	 * Geometries which are still in the index, but were deleted or replaced
+	 * after the index was built
+	 */
+	protected volatile Set<Geometry> removedGeometries = Collections.emptySet();
+	/**
+	 * Number of changes applied to the tile since the index was built
+	 */
+	protected volatile int deltaCount = 0;
+
 	void prepareEnvelope(Object envGeom) throws SvException
 	{
 		Geometry tempGeom = null;
@@ -102,38 +127,17 @@ public abstract class SvSDITile {
 	abstract GeometryCollection loadGeometries() throws SvException;
 
 	public void loadTile() throws SvException {
-		if (!isTileDirty)
+		if (!isTileDirty && !needsRebuild())
 			return;
 
 		ReentrantLock lock = null;
 		try {
 			lock = SvLock.getLock(getTileId(), true, SvConf.getMaxLockTimeout());
 			if (lock != null) {
-				tileIndex = new STRtree();
-				internalGeometries.clear();
-				borderGeometries.clear();
-				Point centroid = null;
-				GeometryCollection gcl = loadGeometries();
-				for (int i = 0; i < gcl.getNumGeometries(); i++) {
-					Geometry geom = gcl.getGeometryN(i);
-					if(geom==null)
-						continue;
-					tileIndex.insert(geom.getEnvelopeInternal(), getPreparedGeom(geom));
-					if (geom.getUserData() != null && geom.getUserData() instanceof DbDataObject) {
-						centroid = SvGeometry.getCentroid((DbDataObject) geom.getUserData());
-					}
-					if (centroid == null)
-						centroid = SvGeometry.calculateCentroid(geom);
-
-					if (tileGeometry.covers(centroid))
-						internalGeometries.add(geom);
-					else
-						borderGeometries.add(geom);
-				}
-
-				tileIndex.build();
-				isTileDirty = false;
-
+				if (isTileDirty)
+					reloadTile();
+				else if (needsRebuild())
+					rebuildIndex();
 			} else
 				log4j.warn("Failed to acquire lock" + getTileId());
 
@@ -144,6 +148,190 @@ public abstract class SvSDITile {
 
 	}
 
+	/**
+	 * Method to load all geometries of the tile and build the spatial index. The
+	 * caller must hold the tile lock.
+	 * 
+	 * @throws SvException Pass through of underlying exceptions
+	 */
+	private void reloadTile() throws SvException {
+		STRtree index = new STRtree();
+		Collection<Geometry> internal = new ArrayList<Geometry>();
+		Collection<Geometry> border = new ArrayList<Geometry>();
+		Map<Long, Geometry> objects = new ConcurrentHashMap<Long, Geometry>();
+		GeometryCollection gcl = loadGeometries();
+		for (int i = 0; i < gcl.getNumGeometries(); i++) {
+			Geometry geom = gcl.getGeometryN(i);
+			if (geom == null)
+				continue;
+			index.insert(geom.getEnvelopeInternal(), getPreparedGeom(geom));
+			if (isInternal(geom))
+				internal.add(geom);
+			else
+				border.add(geom);
+			Long objectId = getObjectId(geom);
+			if (objectId != null)
+				objects.put(objectId, geom);
+		}
+		index.build();
+		tileIndex = index;
+		internalGeometries = internal;
+		borderGeometries = border;
+		objectGeometries = objects;
+		resetDeltas();
+		isTileDirty = false;
+	}
+
+	/**
+	 * Method to rebuild the spatial index from the geometries held in memory,
+	 * merging the changes applied since the last build. The caller must hold the
+	 * tile lock.
+	 */
+	private void rebuildIndex() {
+		STRtree index = new STRtree();
+		for (Geometry geom : internalGeometries)
+			index.insert(geom.getEnvelopeInternal(), getPreparedGeom(geom));
+		for (Geometry geom : borderGeometries)
+			index.insert(geom.getEnvelopeInternal(), getPreparedGeom(geom));
+		index.build();
+		tileIndex = index;
+		resetDeltas();
+	}
+
+	private boolean needsRebuild() {
+		return deltaCount > 0 && deltaCount >= SvConf.getSdiTileDeltaThreshold();
+	}
+
+	private void resetDeltas() {
+		deltaGeometries = Collections.emptyList();
+		removedGeometries = Collections.emptySet();
+		deltaCount = 0;
+	}
+
+	/**
+	 * Method to check if the centroid of a geometry is covered by the tile. If
+	 * the geometry has a DbDataObject as user data, the stored centroid is used
+	 * 
+	 * @param geom The geometry to be checked
+	 * @return True if the geometry is internal, false if it is on the border
+	 */
+	boolean isInternal(Geometry geom) {
+		Point centroid = null;
+		if (geom.getUserData() != null && geom.getUserData() instanceof DbDataObject)
+			centroid = SvGeometry.getCentroid((DbDataObject) geom.getUserData());
+		if (centroid == null)
+			centroid = SvGeometry.calculateCentroid(geom);
+		return tileGeometry.covers(centroid);
+	}
+
+	static Long getObjectId(Geometry geom) {
+		if (geom.getUserData() instanceof DbDataObject)
+			return ((DbDataObject) geom.getUserData()).getObjectId();
+		return null;
+	}
+
+	/**
+	 * Method to check if a change of an object affects this tile, either because
+	 * the tile holds the object or because the new geometry overlaps the tile
+	 * envelope
+	 * 
+	 * @param objectId The id of the changed object
+	 * @param geom     The new geometry of the object, or null if the object was
+	 *                 deleted
+	 * @return True if the tile is affected by the change
+	 */
+	boolean isAffected(Long objectId, Geometry geom) {
+		return (objectId != null && objectGeometries.containsKey(objectId))
+				|| (geom != null && getEnvelope().intersects(geom.getEnvelopeInternal()));
+	}
+
+	/**
+	 * Method to apply a change of a single object to a loaded tile, without
+	 * reloading the tile. The old geometry of the object is removed and the new
+	 * one added if it overlaps the tile envelope. The new geometry is scanned
+	 * sequentially by the queries until the number of changes reaches
+	 * {@link SvConf#getSdiTileDeltaThreshold()}, when the index is rebuilt on
+	 * the next access. Tiles which are not loaded are left for the next load.
+	 * 
+	 * @param objectId The id of the changed object
+	 * @param geom     The new geometry of the object with the DbDataObject as
+	 *                 user data, or null if the object was deleted
+	 * @throws SvException Pass through of underlying exceptions
+	 */
+	void applyDelta(Long objectId, Geometry geom) throws SvException {
+		if (isTileDirty || !isAffected(objectId, geom))
+			return;
+
+		ReentrantLock lock = null;
+		try {
+			lock = SvLock.getLock(getTileId(), true, SvConf.getMaxLockTimeout());
+			if (lock != null) {
+				if (!isTileDirty)
+					applyDeltaImpl(objectId, geom);
+			} else {
+				log4j.warn("Failed to acquire lock" + getTileId() + ", tile marked dirty");
+				isTileDirty = true;
+			}
+		} finally {
+			if (lock != null)
+				SvLock.releaseLock(getTileId(), lock);
+		}
+	}
+
+	private void applyDeltaImpl(Long objectId, Geometry geom) {
+		Geometry oldGeom = objectGeometries.get(objectId);
+		boolean inTile = geom != null && getEnvelope().intersects(geom.getEnvelopeInternal());
+		if (oldGeom == null && !inTile)
+			return;
+		// the same object saved again without changes
+		if (oldGeom != null && geom != null && oldGeom.getUserData() == geom.getUserData()
+				&& oldGeom.equalsExact(geom))
+			return;
+
+		Collection<Geometry> internal = new ArrayList<Geometry>(internalGeometries);
+		Collection<Geometry> border = new ArrayList<Geometry>(borderGeometries);
+		List<PreparedGeometry> deltas = new ArrayList<PreparedGeometry>(deltaGeometries);
+		Set<Geometry> removed = Collections.newSetFromMap(new IdentityHashMap<Geometry, Boolean>());
+		removed.addAll(removedGeometries);
+
+		if (oldGeom != null) {
+			objectGeometries.remove(objectId);
+			if (!removeGeometry(internal, oldGeom))
+				removeGeometry(border, oldGeom);
+			boolean wasDelta = false;
+			for (int i = 0; i < deltas.size() && !wasDelta; i++)
+				if (deltas.get(i).getGeometry() == oldGeom) {
+					deltas.remove(i);
+					wasDelta = true;
+				}
+			if (!wasDelta)
+				removed.add(oldGeom);
+		}
+		if (inTile) {
+			if (isInternal(geom))
+				internal.add(geom);
+			else
+				border.add(geom);
+			deltas.add(getPreparedGeom(geom));
+			objectGeometries.put(objectId, geom);
+		}
+		internalGeometries = internal;
+		borderGeometries = border;
+		deltaGeometries = deltas;
+		removedGeometries = removed;
+		deltaCount++;
+	}
+
+	private static boolean removeGeometry(Collection<Geometry> geoms, Geometry geom) {
+		Iterator<Geometry> it = geoms.iterator();
+		while (it.hasNext())
+			if (it.next() == geom) {
+				it.remove();
+				return true;
+			}
+		return false;
+	}
+
 	public Set<Geometry> getRelations(Geometry geom, SDIRelation relation) throws SvException {
 		return getRelations(geom, relation, false);
 	}
@@ -162,8 +350,16 @@ public abstract class SvSDITile {
 			Boolean returnDuplicates) throws SvException {
 		loadTile();
 		Collection<Geometry> l = returnDuplicates ? new ArrayList<>() : new HashSet<>();
+		Set<Geometry> removed = removedGeometries;
+		List<PreparedGeometry> deltas = deltaGeometries;
+		Envelope env = geom.getEnvelopeInternal();
 		@SuppressWarnings("unchecked")
-		List<PreparedGeometry> geoms = tileIndex.query(geom.getEnvelopeInternal());
+		List<PreparedGeometry> geoms = tileIndex.query(env);
+		if (!removed.isEmpty())
+			geoms.removeIf(g -> removed.contains(g.getGeometry()));
+		for (PreparedGeometry g : deltas)
+			if (env.intersects(g.getGeometry().getEnvelopeInternal()))
+				geoms.add(g);
 		boolean relates = false;
 		for (PreparedGeometry g : geoms) {
 			if (returnOnlyInternal && internalGeometries.contains(g.getGeometry()))
@@ -673,7 +673,7 @@ public class SvSecurity extends SvCore {
 		DbDataObject svToken = DbCache.getObject(sessionId, svCONST.OBJECT_TYPE_SECURITY_LOG);
 		if (svToken != null) {
 			DbCache.removeObject(svToken.getObjectId(), sessionId, svCONST.OBJECT_TYPE_SECURITY_LOG);
-			DbCache.removeByParentId(svCONST.OBJECT_TYPE_ACL, (Long) svToken.getVal("user_object_id"));
+			SvAclSnapshot.invalidate((Long) svToken.getVal("user_object_id"));
 			// distribute the token to the cluster
 			if (SvCluster.getIsActive().get() && !SvCluster.isCoordinator())
 				SvClusterNotifierClient.publishLogoff(sessionId);
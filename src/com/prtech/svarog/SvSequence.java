@@ -14,6 +14,11 @@
  *******************************************************************************/
 package com.prtech.svarog;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.Logger;
+
 import com.prtech.svarog_common.DbDataArray;
 import com.prtech.svarog_common.DbDataObject;
 import com.prtech.svarog_common.DbSearchCriterion;
@@ -25,10 +30,44 @@ import com.prtech.svarog_common.DbSearchCriterion.DbCompareOperand;
  * generation of sequences outside of a transaction scope. The sequences can be
  * guaranteed to be sequential if used in transaction scope.
  * 
+ * The static, out of transaction generator reserves blocks of values (see
+ * {@link SvConf#getSequenceBlockSize()}) with a single database update and
+ * hands them out from memory. Values generated this way are unique and
+ * increasing per node, but not gap-free.
+ * 
  * @author ristepejov
  *
  */
 public class SvSequence extends SvCore {
+	/**
+	 * Log4j instance used for logging
+	 */
+	private static final Logger log4j = SvConf.getLogger(SvSequence.class);
+
+	/**
+	 * Prefix of the cluster wide lock used to serialise block reservations
+	 */
+	static final String SEQ_LOCK_PREFIX = "SVAROG_SEQUENCE.";
+
+	/**
+	 * Interval in milliseconds between two attempts to acquire the distributed
+	 * lock for a block reservation
+	 */
+	private static final long SEQ_LOCK_RETRY_INTERVAL = 10;
+
+	/**
+	 * Map holding the currently reserved block of values per sequence key
+	 */
+	private static final ConcurrentHashMap<String, SeqBlock> seqBlocks = new ConcurrentHashMap<>();
+
+	/**
+	 * Block of sequence values reserved in the database. The values in the range
+	 * from next up to and including last are available to be handed out.
+	 */
+	static class SeqBlock {
+		final AtomicLong next = new AtomicLong(1L);
+		volatile long last = 0L;
+	}
 
 	/**
 	 * Constructor to create a SvSequence object according to a user session.
@@ -79,8 +118,10 @@ public class SvSequence extends SvCore {
 	 * Public static method for generating a new sequence value. The method is
 	 * static for the purpose of using next val without any instantiating of
 	 * SvCore or similar. This method will be run out of the normal transaction.
-	 * The core parameter is used only to validate if this is used by
-	 * ServiceUser
+	 * The values are handed out from a block reserved in the database, so only
+	 * one database round-trip per {@link SvConf#getSequenceBlockSize()} values
+	 * is executed. The core parameter is used only to validate if this is used
+	 * by ServiceUser
 	 * 
 	 * @param sequenceyKey
 	 *            The sequence key
@@ -104,17 +145,97 @@ public class SvSequence extends SvCore {
 		// throw (new SvException("system.error.core_isnot_service",
 		// core.instanceUser));
 
-		Long returnValue = null;
-		SvReader svr = new SvReader();
+		SeqBlock block = seqBlocks.computeIfAbsent(sequenceyKey, k -> new SeqBlock());
+		while (true) {
+			// read the limit before incrementing. If a new block was reserved in
+			// the mean time we will just loop once more.
+			long last = block.last;
+			long value = block.next.getAndIncrement();
+			if (value <= last)
+				return value;
+			synchronized (block) {
+				if (block.next.get() > block.last)
+					reserveBlock(sequenceyKey, block);
+			}
+		}
+	}
+
+	/**
+	 * Method to reserve a new block of values for the sequence key. The
+	 * reservation is executed in a separate transaction which is committed
+	 * immediately. If the svarog cluster is active, the reservation is
+	 * serialised cluster wide via a distributed lock.
+	 * 
+	 * @param sequenceyKey
+	 *            The sequence key
+	 * @param block
+	 *            The in-memory block which shall be reset to the new range
+	 * @throws SvException
+	 *             Any underlying exception
+	 */
+	private static void reserveBlock(String sequenceyKey, SeqBlock block) throws SvException {
+		long blockSize = Math.max(1, SvConf.getSequenceBlockSize());
+		int lockHash = 0;
+		if (SvCluster.getIsActive().get())
+			lockHash = acquireSeqLock(sequenceyKey);
 		try {
-			svr.setAutoCommit(false);
-			returnValue = getSeqNextValImplCore(sequenceyKey, svr);
-			svr.dbCommit();
+			Long lastValue = null;
+			SvReader svr = new SvReader();
+			try {
+				svr.setAutoCommit(false);
+				lastValue = getSeqNextValImplCore(sequenceyKey, svr, blockSize);
+				svr.dbCommit();
+			} finally {
+				svr.release();
+			}
+			// set the start first, so a concurrent reader which sees the new
+			// last value will also see the new start
+			block.next.set(lastValue - blockSize + 1);
+			block.last = lastValue;
+			if (log4j.isDebugEnabled())
+				log4j.debug("Reserved sequence block " + sequenceyKey + ":[" + (lastValue - blockSize + 1) + ","
+						+ lastValue + "]");
 		} finally {
-			svr.release();
+			if (lockHash != 0)
+				SvLock.releaseDistributedLock(lockHash);
 		}
-		return returnValue;
+	}
 
+	/**
+	 * Method to acquire the distributed lock for the sequence key. Since
+	 * distributed locks are non-blocking, the method retries until the lock is
+	 * acquired or the maximum lock timeout is reached.
+	 * 
+	 * @param sequenceyKey
+	 *            The sequence key
+	 * @return The hash of the acquired distributed lock
+	 * @throws SvException
+	 *             system.error.sequence_lock_timeout if the lock wasn't
+	 *             acquired within {@link SvConf#getMaxLockTimeout()}
+	 */
+	private static int acquireSeqLock(String sequenceyKey) throws SvException {
+		long timeout = System.currentTimeMillis() + SvConf.getMaxLockTimeout();
+		int lockHash = SvLock.getDistributedLock(SEQ_LOCK_PREFIX + sequenceyKey);
+		while (lockHash == 0 && System.currentTimeMillis() < timeout) {
+			try {
+				Thread.sleep(SEQ_LOCK_RETRY_INTERVAL);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+			lockHash = SvLock.getDistributedLock(SEQ_LOCK_PREFIX + sequenceyKey);
+		}
+		if (lockHash == 0)
+			throw (new SvException("system.error.sequence_lock_timeout", svCONST.systemUser, null, sequenceyKey));
+		return lockHash;
+	}
+
+	/**
+	 * Method to discard all reserved blocks of sequence values. The unused values
+	 * of the discarded blocks are lost.
+	 */
+	static void clearSeqBlocks() {
+		seqBlocks.clear();
 	}
 
 	/**
@@ -126,11 +247,15 @@ public class SvSequence extends SvCore {
 	 *            The sequence key
 	 * @param core
 	 *            The SvCore instance to be used for load/save
-	 * @return The next sequence value
+	 * @param increment
+	 *            The number of values by which the sequence is increased
+	 * @return The next sequence value, which is the last value of the reserved
+	 *         range
 	 * @throws SvException
 	 *             Any underlying exception
 	 */
-	private static Long getSeqNextValImplCore(String sequenceyKey, SvCore core) throws SvException {
+	private static Long getSeqNextValImplCore(String sequenceyKey, SvCore core, long increment)
+			throws SvException {
 		DbDataObject dbo = null;
 		SvReader svr = new SvReader(core);
 		SvWriter svw = new SvWriter(core);
@@ -143,14 +268,14 @@ public class SvSequence extends SvCore {
 				dbo = new DbDataObject();
 				dbo.setObject_type(svCONST.OBJECT_TYPE_SEQUENCE);
 				dbo.setVal("SEQUENCE_KEY", sequenceyKey);
-				dbo.setVal("SEQUENCE_VALUE", 1L);
+				dbo.setVal("SEQUENCE_VALUE", increment);
 				dba.addDataItem(dbo);
 			} else {
 				if (dba.getItems().size() != 1)
 					throw (new SvException("system.error.double_seq", core.instanceUser, dba, null));
 
 				dbo = dba.getItems().get(0);
-				dbo.setVal("SEQUENCE_VALUE", ((Long) dbo.getVal("SEQUENCE_VALUE")).longValue() + 1L);
+				dbo.setVal("SEQUENCE_VALUE", ((Long) dbo.getVal("SEQUENCE_VALUE")).longValue() + increment);
 			}
 			svw.isInternal = true;
 			svw.saveObjectImpl(dba, false);
@@ -172,7 +297,7 @@ public class SvSequence extends SvCore {
 	 *             Any underlying exception
 	 */
 	Long getSeqNextValImpl(String sequenceyKey) throws SvException {
-		return getSeqNextValImplCore(sequenceyKey, this);
+		return getSeqNextValImplCore(sequenceyKey, this, 1L);
 	}
 
 	/**
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *
+ *******************************************************************************/
+package com.prtech.svarog;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.prtech.svarog_common.DbQuery;
+
+/**
+ * Cache of the SQL text generated from the DbQuery objects. The SQL is cached
+ * per query shape: the object types, joins, criteria operands and field names,
+ * but not the values bound to the query parameters. Queries with a shape
+ * already in the cache skip the SQL generation and get the same SQL text, so
+ * the JDBC driver can reuse its prepared statements per connection.
+ *
+ * The shape holds the versions of the object types and fields, so a change of
+ * the configuration never returns an outdated SQL. The cache holds up to
+ * sys.jdbc.sql_cache_size shapes.
+ *
+ * @author ristepejov
+ *
+ */
+final class SvSqlCache {
+
+	/**
+	 * Cache of SQL text per query shape, null if the cache is disabled
+	 */
+	private static final Cache<String, String> statements = SvConf.getSqlCacheSize() > 0
+			? CacheBuilder.newBuilder().maximumSize(SvConf.getSqlCacheSize()).recordStats().<String, String>build()
+			: null;
+
+	private SvSqlCache() {
+	}
+
+	/**
+	 * Method to get the SQL text of a query. If the shape of the query is cached,
+	 * the cached SQL is returned, otherwise the SQL is generated and cached.
+	 *
+	 * @param query             The query for which the SQL is needed
+	 * @param includeGeometries Flag if the geometry fields should be returned
+	 * @return The SQL text of the query
+	 * @throws SvException Pass through of the SQL generation exceptions
+	 */
+	static String getSQL(DbQuery query, boolean includeGeometries) throws SvException {
+		String shape = getShape(query, includeGeometries);
+		if (shape == null)
+			return query.getSQLExpression(false, includeGeometries).toString();
+		String sql = statements.getIfPresent(shape);
+		if (sql != null)
+			query.applyCachedSQL();
+		else {
+			sql = query.getSQLExpression(false, includeGeometries).toString();
+			statements.put(shape, sql);
+		}
+		return sql;
+	}
+
+	/**
+	 * Method to get the cache key of a query
+	 *
+	 * @param query             The query
+	 * @param includeGeometries Flag if the geometry fields should be returned
+	 * @return The shape of the query, or null if the SQL of the query can't be
+	 *         cached
+	 */
+	static String getShape(DbQuery query, boolean includeGeometries) {
+		if (statements == null)
+			return null;
+		StringBuilder shape = new StringBuilder(256);
+		shape.append(includeGeometries ? 'G' : 'N');
+		return query.appendShape(shape) ? shape.toString() : null;
+	}
+
+	/**
+	 * Method to remove all cached SQL, used on change of the object types or
+	 * their fields
+	 */
+	static void invalidateAll() {
+		if (statements != null)
+			statements.invalidateAll();
+	}
+
+	/**
+	 * @return The number of queries which got the SQL from the cache
+	 */
+	static long getHitCount() {
+		return statements != null ? statements.stats().hitCount() : 0L;
+	}
+}
@@ -22,6 +22,8 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -116,6 +118,11 @@ public class SvWriter extends SvCore {
 	 */
 	int oldTrxIsolation = 0;
 
+	/**
+	 * Max number of bind variables in a single unique constraints query
+	 */
+	static final int MAX_CONSTRAINT_PARAMS = 2000;
+
 	/**
 	 * Map to store pre-built queries
 	 */
@@ -144,6 +151,12 @@ public class SvWriter extends SvCore {
 	 */
 	private static HashMap<String, String> repoSQL = new HashMap<String, String>();
 
+	/**
+	 * The list of repo columns in the order of the values in the copy rows
+	 */
+	static final List<String> REPO_COPY_COLUMNS = Arrays.asList("pkid", "object_id", "dt_insert", "dt_delete",
+			"parent_id", "object_type", "meta_pkid", "status", "user_id");
+
 	/**
 	 * Method used to validate forms before saving.
 	 * 
@@ -418,6 +431,39 @@ public class SvWriter extends SvCore {
 
 	}
 
+	/**
+	 * Method to build the repo data of the objects subject of update from the
+	 * cached versions, in the same layout as {@link #getRepoData}. The cache is
+	 * used only if all objects have a current, non dirty cached version with the
+	 * same PKID and a known meta PKID.
+	 * 
+	 * @param dbt The object type descriptor
+	 * @param dba The list of data objects subject of update
+	 * @return Map of repo data by object id, or null if any of the objects can't
+	 *         be served from the cache
+	 */
+	HashMap<Long, Object[]> getCachedRepoData(DbDataObject dbt, DbDataArray dba) {
+		HashMap<Long, Object[]> cachedRepoData = new LinkedHashMap<>();
+		for (DbDataObject dbo : dba.getItems()) {
+			DbDataObject cached = DbCache.getObject(dbo.getObjectId(), dbt.getObjectId());
+			if (cached == null || cached.getIs_dirty() || !cached.getPkid().equals(dbo.getPkid())
+					|| cached.getMetaPkid() == 0L || cached.getDtDelete() == null
+					|| cached.getDtDelete().getMillis() != SvConf.MAX_DATE.getMillis())
+				return null;
+			Object[] repoObjects = new Object[repoDbtFields.getItems().size()];
+			repoObjects[0] = cached.getPkid();
+			repoObjects[1] = cached.getObjectId();
+			repoObjects[2] = cached.getParentId();
+			repoObjects[3] = cached.getObjectType();
+			repoObjects[4] = cached.getMetaPkid();
+			repoObjects[5] = cached.getDtInsert() != null ? new Timestamp(cached.getDtInsert().getMillis()) : null;
+			repoObjects[6] = SvConf.MAX_DATE_SQL;
+			repoObjects[7] = cached.getStatus();
+			cachedRepoData.put(cached.getObjectId(), repoObjects);
+		}
+		return cachedRepoData;
+	}
+
 	String getRepoInsertSQL(Boolean isUpdate, Boolean withMetaUpdate, String schema, String repo_name) {
 		// this is the repo insert. The sequence is hardcoded cause
 		// it is expected that the repo must have it!
@@ -638,13 +684,16 @@ public class SvWriter extends SvCore {
 	 *                           records
 	 * @param extendedRepoStruct The extender sql structure supporting the insert
 	 *                           (for some SQL engines)
+	 * @param isOptimistic       Flag if the invalidation is guarded by the
+	 *                           dt_delete of the old version
 	 * @throws SvException  "system.error.sdi.sdi_type_limit" is raised if we try to
 	 *                      save SDI object but no geometries have been found
 	 * @throws SQLException any other underlying sql exception
 	 */
 	void prepareRepoBatch(DbDataObject dbt, DbDataArray dba, HashMap<Long, Object[]> oldRepoData,
 			Boolean withMetaUpdate, Boolean isUpdate, Boolean skipPreSaveChecks, PreparedStatement psInvalidate,
-			PreparedStatement psInsert, Object extendedRepoStruct) throws SvException, SQLException {
+			PreparedStatement psInsert, Object extendedRepoStruct, boolean isOptimistic)
+			throws SvException, SQLException {
 		// sort the milis of the ending/starting time
 		long milis = new DateTime().getMillis();
 		Timestamp dtEndPrev = new Timestamp(milis - 1);
@@ -671,7 +720,7 @@ public class SvWriter extends SvCore {
 
 			// ensure the object is batched for saving
 			addRepoBatch(dbt, dbo, withMetaUpdate, repoObjects, psInvalidate, psInsert, dtInsert, dtEndPrev,
-					extendedRepoStruct, rowIndex);
+					extendedRepoStruct, rowIndex, isOptimistic);
 			rowIndex++;
 
 		}
@@ -716,6 +765,65 @@ public class SvWriter extends SvCore {
 		return objectIndex;
 	}
 
+	/**
+	 * Method to check if a batch of objects shall be streamed to the database
+	 * with copy instead of JDBC insert batches. The copy is used for batches of
+	 * new objects without geometries, if enabled by sys.jdbc.copy_batch_size and
+	 * supported by the database handler.
+	 * 
+	 * @param dba The batch of objects subject of saving
+	 * @return True if the batch shall be copied
+	 * @throws SvException any exception raised while resolving the handler
+	 */
+	boolean isCopyInsert(DbDataArray dba) throws SvException {
+		if (SvConf.getCopyBatchSize() < 1 || dba.size() < 2)
+			return false;
+		DbDataObject dboFirst = dba.getItems().get(0);
+		return dboFirst.getObjectId() == 0L && dboFirst.getPkid() == 0L
+				&& !dboFirst.getObjectType().equals(svCONST.OBJECT_TYPE_FORM)
+				&& !hasGeometries(dboFirst.getObjectType()) && SvConf.getDbHandler().getSupportsCopy();
+	}
+
+	/**
+	 * Method to allocate the repo keys of the copied objects. The PKIDs and
+	 * object ids are fetched from the repo sequences in a single round trip
+	 * each, so the keys are known without reading back generated keys.
+	 * 
+	 * @param conn  The connection used for the allocation
+	 * @param count The number of objects
+	 * @return The copy rows holding the allocated keys
+	 * @throws SQLException any underlying sql exception
+	 * @throws SvException  any exception raised while resolving the handler
+	 */
+	SvCopyRows getCopyRepoRows(Connection conn, int count) throws SQLException, SvException {
+		String sequencePrefix = (String) repoDbt.getVal("SCHEMA") + "." + (String) repoDbt.getVal("TABLE_NAME");
+		ISvDatabaseIO dbHandler = SvConf.getDbHandler();
+		return new SvCopyRows(count, dbHandler.getSequenceValues(conn, sequencePrefix + "_pkid", count),
+				dbHandler.getSequenceValues(conn, sequencePrefix + "_oid", count));
+	}
+
+	/**
+	 * Method to copy the repo rows into the repo table and set the
+	 * pre-allocated keys to the objects
+	 * 
+	 * @param dba      The list of objects subject of the copy
+	 * @param repoRows The repo rows of the objects
+	 * @param schema   The schema of the repo table
+	 * @param repoName The name of the repo table
+	 * @return The number of copied rows
+	 * @throws SQLException any underlying sql exception
+	 * @throws SvException  any underlying svarog exception
+	 */
+	int copyRepoKeys(DbDataArray dba, SvCopyRows repoRows, String schema, String repoName)
+			throws SQLException, SvException {
+		long copiedRows = SvConf.getDbHandler().copyIn(this.dbGetConn(), schema, repoName, REPO_COPY_COLUMNS,
+				repoRows.getReader());
+		if (copiedRows == dba.size())
+			for (int objectIndex = 0; objectIndex < copiedRows; objectIndex++)
+				setKeys(dba, repoRows.pkids[objectIndex], repoRows.objectIds[objectIndex], objectIndex);
+		return (int) copiedRows;
+	}
+
 	/**
 	 * Method to save the base repo data for the object.
 	 * 
@@ -732,6 +840,25 @@ public class SvWriter extends SvCore {
 	 */
 	HashMap<Long, Object[]> saveRepoData(DbDataObject dbt, DbDataArray dba, Boolean withMetaUpdate,
 			Boolean skipPreSaveChecks) throws SvException, SQLException {
+		return saveRepoData(dbt, dba, withMetaUpdate, skipPreSaveChecks, false);
+	}
+
+	/**
+	 * Method to save the base repo data for the object.
+	 * 
+	 * @param dbt                  The object type descriptor
+	 * @param dba                  The array of objects to be saved
+	 * @param withMetaUpdate       If there is pending meta data update, the meta
+	 *                             sequence should be increased
+	 * @param skipPreSaveChecks    In certain situations, the pre-save checks need
+	 *                             to be skipped.
+	 * @param constraintsValidated Flag that the unique constraints of the objects
+	 *                             were already validated by the caller
+	 * @throws SvException
+	 * @throws SQLException
+	 */
+	HashMap<Long, Object[]> saveRepoData(DbDataObject dbt, DbDataArray dba, Boolean withMetaUpdate,
+			Boolean skipPreSaveChecks, boolean constraintsValidated) throws SvException, SQLException {
 
 		PreparedStatement psInvalidate = null;
 		PreparedStatement psInsert = null;
@@ -744,14 +871,22 @@ public class SvWriter extends SvCore {
 			String schema = dbt.getVal("schema").toString();
 			String repoName = dbt.getVal("repo_name").toString();
 			Boolean isUpdate = dba.getItems().get(0).getObjectId() != 0L;
+			// in optimistic mode the old repo data may come from the cache, so the
+			// stale versions are detected by the invalidation update. The internal
+			// writers don't check the updated row counts, so they always read the
+			// old versions from the database
+			boolean isOptimistic = isUpdate && SvConf.isOptimisticSave() && !isInternal;
 			String sqlInsRepo = getRepoInsertSQL(isUpdate, withMetaUpdate, schema, repoName);
 			if (log4j.isDebugEnabled())
 				log4j.trace(sqlInsRepo);
 
 			Connection conn = this.dbGetConn();
+			boolean isCopy = !isUpdate && isCopyInsert(dba);
 
-			// prepare the repo insert statements
-			if (!SvConf.getDbHandler().getOverrideInsertRepo())
+			// prepare the repo insert statements, the copy doesn't need one
+			if (isCopy)
+				psInsert = null;
+			else if (!SvConf.getDbHandler().getOverrideInsertRepo())
 				psInsert = conn.prepareStatement(sqlInsRepo, genKeyIds);
 			else {// if the handler overrides the repo insert, pass the
 					// generation of the statement to the handler
@@ -762,21 +897,29 @@ public class SvWriter extends SvCore {
 			}
 			// execute pre-save checks if needed
 			if (!skipPreSaveChecks || isUpdate)
-				oldRepoData = preSaveChecks(dbt, dba, isUpdate, skipPreSaveChecks);
+				oldRepoData = preSaveChecks(dbt, dba, isUpdate, skipPreSaveChecks, isOptimistic,
+						constraintsValidated);
 
 			// if we are updating, invalidate the old versions
 			if (isUpdate)
-				psInvalidate = conn.prepareStatement(getUpdateRepoSql(schema, repoName));
+				psInvalidate = conn.prepareStatement(getUpdateRepoSql(schema, repoName, isOptimistic));
+
+			// the copied rows carry their keys, so allocate them upfront
+			if (isCopy)
+				extendedRepoStruct = getCopyRepoRows(conn, dba.size());
 
 			// prepare the insert and invalidate and bind all params.
 			prepareRepoBatch(dbt, dba, oldRepoData, withMetaUpdate, isUpdate, skipPreSaveChecks, psInvalidate, psInsert,
-					extendedRepoStruct);
+					extendedRepoStruct, isOptimistic);
 
 			// if we have valid invalidate statement execute it
 			updatedRows = psInvalidate != null ? psInvalidate.executeBatch() : null;
+			if (isOptimistic)
+				checkInvalidatedRows(dbt, dba, updatedRows);
 
 			// finally execute the repo insert and load the keys back into the objects
-			int objectIndex = loadRepoKeys(dba, psInsert, extendedRepoStruct);
+			int objectIndex = isCopy ? copyRepoKeys(dba, (SvCopyRows) extendedRepoStruct, schema, repoName)
+					: loadRepoKeys(dba, psInsert, extendedRepoStruct);
 
 			// basic sanity check
 			if (dba.getItems().size() != objectIndex || (isUpdate && !isInternal
@@ -798,12 +941,41 @@ public class SvWriter extends SvCore {
 	/**
 	 * Method to generate the sql statement for update of the delete repo objects
 	 * 
-	 * @param schema   The Schema name
-	 * @param repoName The name of the repo table
+	 * @param schema       The Schema name
+	 * @param repoName     The name of the repo table
+	 * @param isOptimistic Flag to guard the update with the dt_delete of the old
+	 *                     version, so already invalidated versions aren't
+	 *                     updated
 	 * @return String containing valid SQL statement
 	 */
-	private String getUpdateRepoSql(String schema, String repoName) {
-		return "UPDATE " + schema + "." + repoName + " SET dt_delete=? WHERE pkid=?";
+	private String getUpdateRepoSql(String schema, String repoName, boolean isOptimistic) {
+		return "UPDATE " + schema + "." + repoName + " SET dt_delete=? WHERE pkid=?"
+				+ (isOptimistic ? " AND dt_delete=?" : "");
+	}
+
+	/**
+	 * Method to verify that each old version was invalidated by the guarded
+	 * invalidation update. If a version wasn't updated, another transaction has
+	 * already invalidated it, so the cached version is evicted and the save is
+	 * rejected.
+	 * 
+	 * @param dbt         The object type descriptor
+	 * @param dba         The array of objects being saved
+	 * @param updatedRows The row counts returned by the invalidation batch
+	 * @throws SvException "system.error.obj_not_updateable" if the object version
+	 *                     is stale
+	 */
+	void checkInvalidatedRows(DbDataObject dbt, DbDataArray dba, int[] updatedRows) throws SvException {
+		int rowIndex = 0;
+		for (DbDataObject dbo : dba.getItems()) {
+			if (dbo.getPkid() == 0)
+				continue;
+			if (updatedRows == null || rowIndex >= updatedRows.length || updatedRows[rowIndex] == 0) {
+				DbCache.removeObject(dbo.getObjectId(), dbt.getObjectId());
+				throw (new SvException(Sv.Exceptions.OBJECT_NOT_UPDATEABLE, instanceUser, dbo, null));
+			}
+			rowIndex++;
+		}
 	}
 
 	/**
@@ -853,13 +1025,15 @@ public class SvWriter extends SvCore {
 	 *                       update is repo only
 	 * @param conn           SQL Connection to be used for execution of the SQL
 	 *                       statements.
+	 * @param isOptimistic   Flag if the invalidation is guarded by the dt_delete
+	 *                       of the old version
 	 * @throws SQLException
 	 * @throws SvException
 	 * @throws Exception
 	 */
 	void addRepoBatch(DbDataObject dbt, DbDataObject dbo, Boolean withMetaUpdate, Object[] repoObjects,
 			PreparedStatement psInvalidate, PreparedStatement psInsert, Timestamp dtInsert, Timestamp dtEndPrev,
-			Object extendedRepoStruct, int rowIndex) throws SQLException, SvException {
+			Object extendedRepoStruct, int rowIndex, boolean isOptimistic) throws SQLException, SvException {
 
 		ISvDatabaseIO dbHandler = SvConf.getDbHandler();
 		Timestamp tsInsert, tsDelete;
@@ -867,6 +1041,12 @@ public class SvWriter extends SvCore {
 		if (dbo.getPkid() != 0) {
 			psInvalidate.setTimestamp(1, dtEndPrev);
 			psInvalidate.setLong(2, dbo.getPkid());
+			if (isOptimistic) {
+				if (repoObjects != null && repoObjects[6] != null)
+					psInvalidate.setObject(3, repoObjects[6]);
+				else
+					psInvalidate.setTimestamp(3, SvConf.MAX_DATE_SQL);
+			}
 			psInvalidate.addBatch();
 		}
 		String objStatus = dbo.getStatus() != null ? dbo.getStatus() : getDefaultStatus(dbt);
@@ -886,7 +1066,14 @@ public class SvWriter extends SvCore {
 			tsDelete = new Timestamp(dbo.getDtDelete().getMillis());
 		}
 
-		if (!dbHandler.getOverrideInsertRepo()) { // if the handler does not
+		if (extendedRepoStruct instanceof SvCopyRows) {
+			// the copy supports new objects only
+			if (dbo.getObjectId() != 0L)
+				throw (new SvException("system.error.multi_type_batch_err", instanceUser, dbo, null));
+			SvCopyRows repoRows = (SvCopyRows) extendedRepoStruct;
+			repoRows.add(repoRows.pkids[rowIndex]).add(repoRows.objectIds[rowIndex]).add(tsInsert).add(tsDelete)
+					.add(objParent).add(objType).add(repoRows.pkids[rowIndex]).add(objStatus).add(userId).endRow();
+		} else if (!dbHandler.getOverrideInsertRepo()) { // if the handler does not
 			addRepoBatchImpl(0L, oldMetaPKID, dbo.getObjectId(), tsInsert, tsDelete, objParent, objType, objStatus,
 					userId, psInsert);
 		} else {
@@ -987,34 +1174,81 @@ public class SvWriter extends SvCore {
 		}
 	}
 
+	/**
+	 * Method to validate the unique constraints of a whole array of objects
+	 * before it is split in JDBC batches. The duplicates within the array are
+	 * detected in memory, while the check against the database runs as one query
+	 * per chunk of {@link SvConf#getConstraintBatchSize()} objects instead of one
+	 * query per JDBC batch.
+	 * 
+	 * @param dba The array of objects subject of saving
+	 * @throws SvException "system.error.unq_constraint_violated" if any of the
+	 *                     objects violates a unique constraint
+	 */
+	void executeConstraintsBatch(DbDataArray dba) throws SvException {
+		LinkedHashMap<Long, DbDataArray> typeArrays = new LinkedHashMap<>();
+		for (DbDataObject dbo : dba.getItems()) {
+			DbDataArray typeArray = typeArrays.get(dbo.getObjectType());
+			if (typeArray == null) {
+				typeArray = new DbDataArray();
+				typeArrays.put(dbo.getObjectType(), typeArray);
+			}
+			typeArray.addDataItem(dbo);
+		}
+		for (Entry<Long, DbDataArray> entry : typeArrays.entrySet()) {
+			SvObjectConstraints oConstr = SvCore.getObjectConstraints(entry.getKey());
+			if (oConstr == null)
+				continue;
+			DbDataArray typeArray = entry.getValue();
+			for (SvConstraint svc : oConstr.getConstraints().values()) {
+				DbDataObject duplicate = svc.findDuplicate(typeArray);
+				if (duplicate != null)
+					throw (new SvException("system.error.unq_constraint_violated", instanceUser,
+							svc.getConstraintFields(), duplicate.toSimpleJson().toString() + "Constraint violated:"
+									+ svc.getConstraintName() + ", values:" + svc.getUniqueKey(duplicate)));
+			}
+			// keep the number of bind variables under the limits of the JDBC
+			// drivers
+			int chunkSize = Math.max(1, Math.min(SvConf.getConstraintBatchSize(),
+					MAX_CONSTRAINT_PARAMS / Math.max(1, oConstr.getParamCount())));
+			List<DbDataObject> items = typeArray.getItems();
+			for (int start = 0; start < items.size(); start += chunkSize)
+				executeConstraints(new DbDataArray(items.subList(start, Math.min(start + chunkSize, items.size()))));
+		}
+	}
+
 	/**
 	 * Method executing core pre-save checks
 	 * 
-	 * @param dbt The Object Type descriptor
-	 * @param dbo The data object subject of writing to the DB
+	 * @param dbt          The Object Type descriptor
+	 * @param dbo          The data object subject of writing to the DB
+	 * @param isOptimistic Flag to serve the old repo data from the cache if
+	 *                     possible, instead of locking the records in the DB
+	 * @param constraintsValidated Flag that the unique constraints were already
+	 *                     validated for the whole array of the save
 	 * @return Array objects containing the old repo data
 	 * @throws SvException
 	 */
 	HashMap<Long, Object[]> preSaveChecks(DbDataObject dbt, DbDataArray dba, Boolean isFirstOld,
-			boolean skipPreSaveChecks) throws SvException {
+			boolean skipPreSaveChecks, boolean isOptimistic, boolean constraintsValidated) throws SvException {
 		HashMap<Long, Object[]> oldRepoData = null;
 
 		if (!this.getIsInternal() && (dbt.getObjectId().equals(svCONST.OBJECT_TYPE_TABLE)
 				|| dbt.getObjectId().equals(svCONST.OBJECT_TYPE_FIELD)))
 			throw (new SvException("system.error.must_use_upgrade", instanceUser, dba, dbt));
-		// TODO: why do we always hit the DB to get the repo data?
-		// and not to mention that we are ignoring the JDBC batching!!!
-		// if the object is in the cache and its not dirty, does it make sense
-		// to hit the DB?
-		// record locking seems the only feasible explanation, so it would be
-		// deprecated when going
-		// distributed anyway because we'll need to use the distibuted locking
-		// mechanism from SvLock!
-		if (isFirstOld)
-			oldRepoData = getRepoData(dbt, dba, false, false, null);
+		// the DB read locks the records of the old versions. In optimistic mode
+		// we use the cached versions if all of them are available and the stale
+		// versions are detected by the guarded invalidation update
+		if (isFirstOld) {
+			if (isOptimistic)
+				oldRepoData = getCachedRepoData(dbt, dba);
+			if (oldRepoData == null)
+				oldRepoData = getRepoData(dbt, dba, false, false, null);
+		}
 
 		if (!skipPreSaveChecks) {
-			executeConstraints(dba);
+			if (!constraintsValidated)
+				executeConstraints(dba);
 
 			if (dbt.getObjectId().equals(svCONST.OBJECT_TYPE_FORM)) {
 				for (DbDataObject dbo : dba.getItems())
@@ -1036,6 +1270,52 @@ public class SvWriter extends SvCore {
 		DbDataObject dbo = DbCache.getObject(objectId, objectTypeId);
 		if (dbo != null)
 			cacheCleanup(dbo);
+		else if (objectTypeId.equals(svCONST.OBJECT_TYPE_TABLE) || objectTypeId.equals(svCONST.OBJECT_TYPE_FIELD))
+			// a new descriptor isn't cached, but still changes the metadata
+			cacheCleanup(objectId, null, objectTypeId);
+		else if (isCfgInDb && objectTypeId.equals(svCONST.OBJECT_TYPE_LINK))
+			invalidateLinkAcls(objectId);
+		if (SvCore.hasGeometries(objectTypeId))
+			SvGeometry.queueTileDelta(objectId, objectTypeId);
+		SvRulePlan.invalidate(objectId, null, objectTypeId);
+		if (objectTypeId.equals(svCONST.OBJECT_TYPE_CODE))
+			SvCodeListSnapshot.invalidate(objectId, null);
+		else if (objectTypeId.equals(svCONST.OBJECT_TYPE_LABEL))
+			SvCodeListSnapshot.invalidateLabel(null);
+		else if (objectTypeId.equals(svCONST.OBJECT_TYPE_TABLE) || objectTypeId.equals(svCONST.OBJECT_TYPE_FIELD))
+			SvSqlCache.invalidateAll();
+	}
+
+	/**
+	 * Method for cleaning up the cache for a batch of objects of the same type.
+	 * The cached objects are removed with one bulk invalidation of the cache
+	 * table, together with their parent lists, same as
+	 * {@link #cacheCleanup(Long, Long)} does per object. The types with side
+	 * effects on the configuration, security or the rule engine are cleaned up
+	 * per object.
+	 * 
+	 * As with a single dirty notification, only the id and type of the objects
+	 * are known, so the parent lists of objects which are not cached on this
+	 * node are not invalidated and are refreshed when they expire.
+	 * 
+	 * @param objectIds    The object ids for which the cache should be purged
+	 * @param objectTypeId The object type id of the objects
+	 * @throws SvException
+	 */
+	static void cacheCleanup(Collection<Long> objectIds, Long objectTypeId) throws SvException {
+		if (!isCfgInDb || objectTypeId.equals(svCONST.OBJECT_TYPE_TABLE)
+				|| objectTypeId.equals(svCONST.OBJECT_TYPE_FIELD) || objectTypeId.equals(svCONST.OBJECT_TYPE_LINK)
+				|| objectTypeId.equals(svCONST.OBJECT_TYPE_SYS_PARAMS) || objectTypeId.equals(svCONST.OBJECT_TYPE_CODE)
+				|| objectTypeId.equals(svCONST.OBJECT_TYPE_LABEL) || objectTypeId.equals(svCONST.OBJECT_TYPE_RULE)
+				|| objectTypeId.equals(svCONST.OBJECT_TYPE_ACTION) || SvAclSnapshot.isSecurityType(objectTypeId)) {
+			for (Long objectId : objectIds)
+				cacheCleanup(objectId, objectTypeId);
+			return;
+		}
+		DbCache.removeObjects(objectIds, objectTypeId);
+		if (SvCore.hasGeometries(objectTypeId))
+			for (Long objectId : objectIds)
+				SvGeometry.queueTileDelta(objectId, objectTypeId);
 	}
 
 	/**
@@ -1049,8 +1329,11 @@ public class SvWriter extends SvCore {
 		cacheCleanup(dbo.getObjectId(), dbo.getParentId(), dbo.getObjectType());
 
 		if (isCfgInDb) {
-			if (dbo.getObjectType().equals(svCONST.OBJECT_TYPE_LINK))
+			if (dbo.getObjectType().equals(svCONST.OBJECT_TYPE_LINK)) {
 				removeLinkCache(dbo);
+				if (isUserGroupLink(dbo))
+					SvAclSnapshot.invalidate((Long) dbo.getVal("LINK_OBJ_ID_1"));
+			}
 			if (dbo.getObjectType().equals(svCONST.OBJECT_TYPE_SYS_PARAMS))
 				SvParameter.paramsCache.invalidate(dbo.getVal(Sv.PARAM_NAME));
 
@@ -1058,6 +1341,22 @@ public class SvWriter extends SvCore {
 
 	}
 
+	/**
+	 * Method to invalidate the ACL snapshots affected by a change of a link. If
+	 * the link isn't cached, its type and users are unknown, so the snapshots
+	 * of all users are invalidated.
+	 * 
+	 * @param linkObjectId The object id of the changed link
+	 * @throws SvException
+	 */
+	static void invalidateLinkAcls(Long linkObjectId) throws SvException {
+		DbDataObject link = DbCache.getObject(linkObjectId, svCONST.OBJECT_TYPE_LINK);
+		if (link == null)
+			SvAclSnapshot.invalidateAll();
+		else if (isUserGroupLink(link))
+			SvAclSnapshot.invalidate((Long) link.getVal("LINK_OBJ_ID_1"));
+	}
+
 	/**
 	 * Method for cleaning up the cache for a specific repo object
 	 * 
@@ -1067,6 +1366,10 @@ public class SvWriter extends SvCore {
 	static void cacheCleanup(Long objectId, Long parentId, Long objectType) throws SvException {
 
 		if (isCfgInDb) {
+			// any change of the security objects may change the permissions of
+			// any user
+			if (SvAclSnapshot.isSecurityType(objectType))
+				SvAclSnapshot.invalidateAll();
 			if (objectType != svCONST.OBJECT_TYPE_TABLE && objectType != svCONST.OBJECT_TYPE_FIELD) {
 				DbCache.removeObject(objectId, objectType);
 				DbCache.removeObjectSupport(parentId, objectType);
@@ -1077,6 +1380,9 @@ public class SvWriter extends SvCore {
 				}
 				if (dboRefresh != null)
 					DbCache.addObject(dboRefresh);
+				if (parentId == null && dboRefresh != null)
+					parentId = dboRefresh.getParentId();
+				SvCore.invalidateMetadata(objectType.equals(svCONST.OBJECT_TYPE_TABLE) ? objectId : parentId);
 			}
 		}
 
@@ -1119,6 +1425,10 @@ public class SvWriter extends SvCore {
 			throws SvException {
 		// get the table columns (object fields) to generate the insert
 		DbDataArray objectFields = DbCache.getObjectsByParentId(dbt.getObjectId(), svCONST.OBJECT_TYPE_FIELD_SORT);
+		if (!isUpdate && isCopyInsert(arrayToSave)) {
+			copyTableData(arrayToSave, dbt, objectFields);
+			return;
+		}
 
 		DbDataObject dboFirst = arrayToSave.get(0);
 		boolean hasNullGeometry = SvGeometry.getGeometry(dboFirst) == null;
@@ -1151,6 +1461,52 @@ public class SvWriter extends SvCore {
 		}
 	}
 
+	/**
+	 * Method to stream the data of new objects into the underlying table using
+	 * the copy of the database handler. The field values are validated the same
+	 * way as in the insert batches.
+	 * 
+	 * @param arrayToSave  Array of new objects with already assigned PKIDs
+	 * @param dbt          The table descriptor
+	 * @param objectFields The list of columns/fields of the object
+	 * @throws SvException any validation or underlying sql exception
+	 */
+	void copyTableData(DbDataArray arrayToSave, DbDataObject dbt, DbDataArray objectFields) throws SvException {
+		List<String> columns = new ArrayList<String>(objectFields.size());
+		columns.add("PKID");
+		for (DbDataObject dbf : objectFields.getItems())
+			if (!dbf.getVal("FIELD_NAME").equals("PKID"))
+				columns.add(SvConf.getSqlkw().getString("OBJECT_QUALIFIER_LEFT") + dbf.getVal("FIELD_NAME")
+						+ SvConf.getSqlkw().getString("OBJECT_QUALIFIER_RIGHT"));
+
+		SvCopyRows rows = new SvCopyRows(arrayToSave.size());
+		for (DbDataObject objToSave : arrayToSave.getItems()) {
+			rows.add(objToSave.getPkid());
+			for (DbDataObject dbf : objectFields.getItems()) {
+				String fName = (String) dbf.getVal("FIELD_NAME");
+				if (fName.equals("PKID"))
+					continue;
+				Object value = objToSave.getVal(fName);
+				try {
+					validateFieldData(dbf, value, false);
+				} catch (SvException ex) {
+					ex.setUserData(objToSave);
+					throw (ex);
+				}
+				rows.add(getCopyValue(dbf, value));
+			}
+			rows.endRow();
+		}
+		try {
+			long copiedRows = SvConf.getDbHandler().copyIn(this.dbGetConn(), (String) dbt.getVal("schema"),
+					(String) dbt.getVal("table_name"), columns, rows.getReader());
+			if (arrayToSave.size() != copiedRows)
+				throw (new SvException("system.error.batch_size_err", instanceUser, arrayToSave, dbt));
+		} catch (SQLException e) {
+			throw (new SvException(Sv.Exceptions.SQL_ERR, instanceUser, arrayToSave, dbt, e));
+		}
+	}
+
 	/**
 	 * Method to bind the object field values to the parameters of the prepared
 	 * statement
@@ -1309,6 +1665,21 @@ public class SvWriter extends SvCore {
 	 * @throws SvException
 	 */
 	protected void saveObjectImpl(DbDataArray dba, Boolean skipPreSaveChecks) throws SvException {
+		saveObjectImpl(dba, skipPreSaveChecks, false);
+	}
+
+	/**
+	 * The base saveObject method, used by the batched saves which validate the
+	 * unique constraints of the whole array before it is split in batches.
+	 * 
+	 * @param dba                  The array of objects which needs to be saved.
+	 * @param skipPreSaveChecks    Flag to enable skipping of pre-save checks
+	 * @param constraintsValidated Flag that the unique constraints of the objects
+	 *                             were already validated by the caller
+	 * @throws SvException
+	 */
+	void saveObjectImpl(DbDataArray dba, Boolean skipPreSaveChecks, boolean constraintsValidated)
+			throws SvException {
 
 		if (dba == null || dba.getItems().size() < 1)
 			throw (new SvException("system.error.no_obj2save_err", instanceUser, dba, null));
@@ -1328,7 +1699,7 @@ public class SvWriter extends SvCore {
 
 		HashMap<Long, Object[]> oldRepoObjs;
 		try {
-			oldRepoObjs = saveRepoData(dbt, dba, true, skipPreSaveChecks);
+			oldRepoObjs = saveRepoData(dbt, dba, true, skipPreSaveChecks, constraintsValidated);
 		} catch (SQLException e) {
 			throw (new SvException(Sv.Exceptions.JDBC_CANT_RELEASE, instanceUser, dba, dbt, e));
 		}
@@ -1368,14 +1739,73 @@ public class SvWriter extends SvCore {
 			dbo.setIsDirty(false);
 		}
 		// if we have geometry then clean the tile cache
-		if (dboFirst.isGeometryType())
-			SvGeometry.cacheCleanup(dba);
+		if (dboFirst.isGeometryType() || SvCore.hasGeometries(dboFirst.getObjectType()))
+			SvGeometry.cacheCleanup(this, dba);
 
-		// broadcast the dirty objects to the cluster
-		// if we are coordinator, broadcast through the proxy otherwise
-		// broadcast through the client
+		DbDataArray dirtyObjects = queueReplicas(dba);
+		if (dirtyObjects.size() > 0)
+			publishDirtyArray(dirtyObjects);
+	}
+
+	/**
+	 * Method to queue the new versions of the objects with replicated cache for
+	 * publishing after the commit. The other nodes install the replicas instead
+	 * of receiving a dirty notification.
+	 * 
+	 * @param dba The list of saved objects
+	 * @return The list of objects which have to be published as dirty
+	 * @throws SvException
+	 */
+	private DbDataArray queueReplicas(DbDataArray dba) throws SvException {
+		if (!SvCluster.getIsActive().get())
+			return dba;
+		DbDataArray dirtyObjects = new DbDataArray();
+		List<byte[]> replicas = new ArrayList<byte[]>();
+		for (DbDataObject dbo : dba.getItems()) {
+			byte[] replica = SvClusterReplica.isReplicated(dbo.getObjectType()) ? SvClusterReplica.encode(dbo) : null;
+			if (replica != null)
+				replicas.add(replica);
+			else
+				dirtyObjects.addDataItem(dbo);
+		}
+		if (!replicas.isEmpty())
+			queueReplicas(replicas);
+		return dirtyObjects;
+	}
+
+	/**
+	 * Method to queue the tombstones of the deleted objects with replicated
+	 * cache for publishing after the commit
+	 * 
+	 * @param repoData The repo data of the deleted objects
+	 * @throws SvException
+	 */
+	private void queueTombstones(HashMap<Long, Object[]> repoData) throws SvException {
+		if (!SvCluster.getIsActive().get())
+			return;
+		DateTime dtDelete = new DateTime();
+		List<byte[]> tombstones = new ArrayList<byte[]>();
+		for (Object[] repoObjects : repoData.values())
+			if (SvClusterReplica.isReplicated((Long) repoObjects[3]))
+				tombstones.add(SvClusterReplica.encodeTombstone((Long) repoObjects[3], (Long) repoObjects[1],
+						(Long) repoObjects[0], dtDelete));
+		if (!tombstones.isEmpty())
+			queueTombstones(tombstones);
+	}
+
+	/**
+	 * Method to broadcast the dirty objects to the cluster. If we are
+	 * coordinator, broadcast through the proxy otherwise broadcast through the
+	 * client
+	 * 
+	 * @param dba The list of dirty objects
+	 * @throws SvException
+	 */
+	static void publishDirtyArray(DbDataArray dba) throws SvException {
 		if (SvCluster.getIsActive().get()) {
-			if (!SvCluster.isCoordinator())
+			if (SvConf.getDirtyBatchWindow() > 0)
+				SvClusterDirtyPublisher.enqueue(dba);
+			else if (!SvCluster.isCoordinator())
 				SvClusterNotifierClient.publishDirtyArray(dba);
 			else
 				SvClusterNotifierProxy.publishDirtyArray(dba);
@@ -1436,15 +1866,23 @@ public class SvWriter extends SvCore {
 		int currentBatchSize = batchSize;
 		if (!isBatch)
 			currentBatchSize = 1;
+		else if (isCopyInsert(dbDataArray))
+			currentBatchSize = Math.max(batchSize, SvConf.getCopyBatchSize());
 
 		try {
 			this.dbSetAutoCommit(false);
+			// validate the constraints of the whole array upfront, so the
+			// duplicates within the array are caught as well
+			boolean constraintsValidated = dbDataArray.size() > 1;
+			if (constraintsValidated)
+				executeConstraintsBatch(dbDataArray);
 			int start = 0;
 			int end = currentBatchSize;
 			while (start < dbDataArray.size()) {
 				if (end > dbDataArray.size())
 					end = dbDataArray.size();
-				saveObjectImpl(new DbDataArray(dbDataArray.getItems().subList(start, end)), false);
+				saveObjectImpl(new DbDataArray(dbDataArray.getItems().subList(start, end)), false,
+						constraintsValidated);
 				start = end;
 				end = start + currentBatchSize;
 			}
@@ -1616,8 +2054,13 @@ public class SvWriter extends SvCore {
 			int invalidatedRows = executeRepoUpdate(repoData);
 			if (invalidatedRows != repoData.size())
 				throw (new SvException(Sv.Exceptions.OBJECT_COUNT_ERROR, instanceUser, dba, null));
+			// the other nodes must drop the deleted replicated objects
+			queueTombstones(repoData);
 			// now clean the cache
 			cacheCleanup(repoData, deleteLinks);
+			// the other nodes must drop the deleted geometries from their tiles
+			if (SvCore.hasGeometries(dbt.getObjectId()))
+				publishDirtyArray(dba);
 
 		} catch (SQLException e) {
 			throw (new SvException(Sv.Exceptions.SQL_ERR, instanceUser, dba, null, e));
@@ -1702,7 +2145,15 @@ public class SvWriter extends SvCore {
 		Iterator<Entry<Long, Object[]>> it = repoData.entrySet().iterator();
 		while (it.hasNext()) {
 			Entry<Long, Object[]> item = it.next();
+			if (isCfgInDb && svCONST.OBJECT_TYPE_LINK == (Long) item.getValue()[3])
+				invalidateLinkAcls((Long) item.getValue()[1]);
 			cacheCleanup((Long) item.getValue()[1], (Long) item.getValue()[2], (Long) item.getValue()[3]);
+			if (SvCore.hasGeometries((Long) item.getValue()[3]))
+				SvGeometry.cacheCleanupDeleted(this, (Long) item.getValue()[3], (Long) item.getValue()[1]);
+			SvRulePlan.invalidateOnCommit(this, (Long) item.getValue()[1], (Long) item.getValue()[2],
+					(Long) item.getValue()[3]);
+			if (svCONST.OBJECT_TYPE_CODE == (Long) item.getValue()[3])
+				SvCodeListSnapshot.invalidateOnCommit(this, (Long) item.getValue()[1], (Long) item.getValue()[2]);
 			if (deleteLinks && svCONST.OBJECT_TYPE_LINK != (Long) item.getValue()[3])
 				it.remove();
 		}
@@ -2099,6 +2550,19 @@ public class SvWriter extends SvCore {
 		return oldNewOIDPairs;
 	}
 
+	/**
+	 * Method to check if a link object links a user to a user group, thus
+	 * changing the permissions of the user
+	 * 
+	 * @param linkDbo The link object
+	 * @return True if the link type is from user to user group
+	 */
+	static boolean isUserGroupLink(DbDataObject linkDbo) {
+		DbDataObject dbl = getLinkType((Long) linkDbo.getVal("LINK_TYPE_ID"));
+		return dbl != null && Long.valueOf(svCONST.OBJECT_TYPE_USER).equals(dbl.getVal("LINK_OBJ_TYPE_1"))
+				&& Long.valueOf(svCONST.OBJECT_TYPE_GROUP).equals(dbl.getVal("LINK_OBJ_TYPE_2"));
+	}
+
 	/**
 	 * Method to cleanup the linked objects cache based on link object.
 	 * 
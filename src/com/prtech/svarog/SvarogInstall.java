@@ -2827,7 +2827,7 @@ public class SvarogInstall {
 	 */
 	static Boolean installLocales() throws SvException, InterruptedException {
 		log4j.info("Install of system locales started");
-		SvMTWriter mt = null;
+		SvBulkLoader loader = null;
 		DbDataArray locales = getLocaleList();
 		try (SvWriter svw = new SvWriter(); SvWriter svw1 = new SvWriter();) {
 			ArrayList<SvWriter> svs = new ArrayList<SvWriter>();
@@ -2835,16 +2835,14 @@ public class SvarogInstall {
 			svw.isInternal = true;
 			svs.add(svw);
 			svs.add(svw1);
-			mt = new SvMTWriter(svs);
-			mt.start();
-			mt.saveObject(locales, true);
-			mt.commit();
+			loader = new SvBulkLoader(svs);
+			loader.load(locales.getItems().iterator());
 		} finally {
 			try {
-				if (mt != null)
-					mt.close();
+				if (loader != null)
+					loader.close();
 			} catch (Exception e) {
-				log4j.error("Multi threaded Writer failed to close", e);
+				log4j.error("Bulk loader failed to close", e);
 			}
 		}
 		return true;
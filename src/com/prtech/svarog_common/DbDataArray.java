@@ -230,9 +230,9 @@ public class DbDataArray extends Jsonable {
 		Boolean result = false;
 		if (items.size() > 0) {
 			result = true;
-			DbDataObject tempObj = items.get(0);
+			String tempObj = items.get(0).toJson().toString().toLowerCase();
 			for (String fieldName : fields) {
-				if (!tempObj.toJson().toString().toLowerCase().contains(fieldName.toLowerCase())) {
+				if (!tempObj.contains(fieldName.toLowerCase())) {
 					result = false;
 					break;
 				}
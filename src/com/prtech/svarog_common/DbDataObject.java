@@ -85,9 +85,15 @@ public class DbDataObject extends Jsonable {
 	 */
 	Long user_id = 0L;
 	/**
-	 * Hashmap containing all meta data about the object
+	 * Versioning id of the meta data (table) record referenced by the repo
+	 * record of the object. Zero if unknown
 	 */
-	LinkedHashMap<SvCharId, Object> values;
+	private Long metaPkid = 0L;
+	/**
+	 * Map containing all meta data about the object. For objects of a known type
+	 * this is an array backed {@link SvFieldMap}, otherwise a LinkedHashMap
+	 */
+	Map<SvCharId, Object> values;
 
 	boolean isReadOnly = false;
 	/**
@@ -117,6 +123,18 @@ public class DbDataObject extends Jsonable {
 		// values.values().clear();
 	}
 
+	/**
+	 * Constructor creating an object with compact, array backed storage of the
+	 * fields defined in the type schema.
+	 * 
+	 * @param objectType The id of the object type
+	 * @param schema     The shared field schema of the object type
+	 */
+	public DbDataObject(Long objectType, SvFieldSchema schema) {
+		this.object_type = objectType;
+		values = new SvFieldMap(schema);
+	}
+
 	public DbDataObject(Long objectType) {
 		this();
 		this.object_type = objectType;
@@ -180,7 +198,7 @@ public class DbDataObject extends Jsonable {
 	}
 
 	public Object getVal(String key, boolean includeRepoFields) {
-		return getVal(new SvCharId(key), includeRepoFields);
+		return getVal(SvCharId.toSvCharId(key), includeRepoFields);
 	}
 
 	public Object getVal(SvCharId svKey) {
@@ -188,14 +206,14 @@ public class DbDataObject extends Jsonable {
 	}
 
 	public Object getVal(String key) {
-		SvCharId svKey = new SvCharId(key);
+		SvCharId svKey = SvCharId.toSvCharId(key);
 		return values.get(svKey);
 	}
 
 	public void setVal(String key, Object obj) {
 		if (!isReadOnly) {
 			is_dirty = true;
-			SvCharId svKey = new SvCharId(key);
+			SvCharId svKey = SvCharId.toSvCharId(key);
 			values.put(svKey, obj);
 		}
 	}
@@ -263,9 +281,7 @@ public class DbDataObject extends Jsonable {
 	 * Method returning a copy of the key map of values
 	 */
 	public LinkedHashMap<SvCharId, Object> getValuesMap() {
-		@SuppressWarnings("unchecked")
-		LinkedHashMap<SvCharId, Object> copy = (LinkedHashMap<SvCharId, Object>) values.clone();
-		return copy;
+		return new LinkedHashMap<SvCharId, Object>(values);
 	}
 
 	@Deprecated
@@ -510,6 +526,27 @@ public class DbDataObject extends Jsonable {
 		}
 	}
 
+	/**
+	 * Method to get the PKID of the meta data record referenced by the object
+	 * version, as loaded from the database
+	 * 
+	 * @return The meta PKID or zero if it wasn't loaded
+	 */
+	public Long getMetaPkid() {
+		return metaPkid;
+	}
+
+	/**
+	 * Method to set the PKID of the meta data record referenced by the object
+	 * version. The meta PKID is loaded data, so the dirty flag isn't changed
+	 * 
+	 * @param metaPkid The meta PKID of the object version
+	 */
+	public void setMetaPkid(Long metaPkid) {
+		if (!isReadOnly)
+			this.metaPkid = metaPkid;
+	}
+
 	@Deprecated
 	public boolean getIs_dirty() {
 		return getIsDirty();
@@ -803,7 +840,7 @@ public class DbDataObject extends Jsonable {
 	 * @return true if this primitive contains a boolean value, false otherwise.
 	 */
 	public boolean isBoolean(String key) {
-		return isBoolean(new SvCharId(key));
+		return isBoolean(SvCharId.toSvCharId(key));
 	}
 
 	/**
@@ -822,7 +859,7 @@ public class DbDataObject extends Jsonable {
 	 * @return get this element as a primitive boolean value.
 	 */
 	public boolean getAsBoolean(String key) {
-		return getAsBoolean(new SvCharId(key));
+		return getAsBoolean(SvCharId.toSvCharId(key));
 	}
 
 	/**
@@ -845,7 +882,7 @@ public class DbDataObject extends Jsonable {
 	 * @return true if this primitive contains a Number, false otherwise.
 	 */
 	public boolean isNumber(String key) {
-		return isNumber(new SvCharId(key));
+		return isNumber(SvCharId.toSvCharId(key));
 	}
 
 	/**
@@ -865,7 +902,7 @@ public class DbDataObject extends Jsonable {
 	 * @throws NumberFormatException if the value contained is not a valid Number.
 	 */
 	public Number getAsNumber(String key) {
-		return getAsNumber(new SvCharId(key));
+		return getAsNumber(SvCharId.toSvCharId(key));
 	}
 
 	/**
@@ -885,7 +922,7 @@ public class DbDataObject extends Jsonable {
 	 * @return true if this primitive contains a String value, false otherwise.
 	 */
 	public boolean isString(String key) {
-		return isString(new SvCharId(key));
+		return isString(SvCharId.toSvCharId(key));
 	}
 
 	/**
@@ -904,7 +941,7 @@ public class DbDataObject extends Jsonable {
 	 * @return get this element as a String.
 	 */
 	public String getAsString(String key) {
-		return getAsString(new SvCharId(key));
+		return getAsString(SvCharId.toSvCharId(key));
 	}
 
 	/**
@@ -930,7 +967,7 @@ public class DbDataObject extends Jsonable {
 	 * @throws NumberFormatException if the value contained is not a valid double.
 	 */
 	public double getAsDouble(String key) {
-		return getAsDouble(new SvCharId(key));
+		return getAsDouble(SvCharId.toSvCharId(key));
 	}
 
 	/**
@@ -951,7 +988,7 @@ public class DbDataObject extends Jsonable {
 	 *                               {@link BigDecimal}.
 	 */
 	public BigDecimal getAsBigDecimal(String key) {
-		return getAsBigDecimal(new SvCharId(key));
+		return getAsBigDecimal(SvCharId.toSvCharId(key));
 	}
 
 	/**
@@ -974,7 +1011,7 @@ public class DbDataObject extends Jsonable {
 	 *                               {@link BigInteger}.
 	 */
 	public BigInteger getAsBigInteger(String key) {
-		return getAsBigInteger(new SvCharId(key));
+		return getAsBigInteger(SvCharId.toSvCharId(key));
 	}
 
 	/**
@@ -996,7 +1033,7 @@ public class DbDataObject extends Jsonable {
 	 * @throws NumberFormatException if the value contained is not a valid float.
 	 */
 	public float getAsFloat(String key) {
-		return getAsFloat(new SvCharId(key));
+		return getAsFloat(SvCharId.toSvCharId(key));
 	}
 
 	/**
@@ -1016,7 +1053,7 @@ public class DbDataObject extends Jsonable {
 	 * @throws NumberFormatException if the value contained is not a valid long.
 	 */
 	public long getAsLong(String key) {
-		return getAsLong(new SvCharId(key));
+		return getAsLong(SvCharId.toSvCharId(key));
 	}
 
 	/**
@@ -1037,7 +1074,7 @@ public class DbDataObject extends Jsonable {
 	 *                               value.
 	 */
 	public short getAsShort(String key) {
-		return getAsShort(new SvCharId(key));
+		return getAsShort(SvCharId.toSvCharId(key));
 	}
 
 	/**
@@ -1059,7 +1096,7 @@ public class DbDataObject extends Jsonable {
 	 */
 
 	public int getAsInt(String key) {
-		return getAsInt(new SvCharId(key));
+		return getAsInt(SvCharId.toSvCharId(key));
 	}
 
 	/**
@@ -1074,7 +1111,7 @@ public class DbDataObject extends Jsonable {
 	}
 
 	public byte getAsByte(String key) {
-		return getAsByte(new SvCharId(key));
+		return getAsByte(SvCharId.toSvCharId(key));
 	}
 
 	public byte getAsByte(SvCharId key) {
@@ -1083,7 +1120,7 @@ public class DbDataObject extends Jsonable {
 	}
 
 	public char getAsCharacter(String key) {
-		return getAsCharacter(new SvCharId(key));
+		return getAsCharacter(SvCharId.toSvCharId(key));
 	}
 
 	public char getAsCharacter(SvCharId key) {
@@ -15,6 +15,7 @@
 package com.prtech.svarog_common;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import com.prtech.svarog.SvException;
 import com.prtech.svarog_common.DbDataObject;
@@ -76,6 +77,62 @@ public abstract class DbQuery extends Jsonable {
 	 */
 	public abstract ArrayList<Object> getSQLParamVals() throws SvException;
 
+	/**
+	 * The method appends the shape of the query to a cache key. The shape holds
+	 * everything the generated SQL depends on, such as the object types, the
+	 * joins, the operands and field names of the criteria, but not the values
+	 * bound to the query parameters. Two queries with equal shapes generate the
+	 * same SQL.
+	 *
+	 * @param shape The cache key to append to
+	 * @return True if the shape fully describes the SQL, false if the SQL of the
+	 *         query can't be cached
+	 */
+	public boolean appendShape(StringBuilder shape) {
+		return false;
+	}
+
+	/**
+	 * The method applies the changes of the query state, which the SQL generation
+	 * would make, when the SQL was taken from the cache
+	 */
+	public void applyCachedSQL() {
+	}
+
+	/**
+	 * Method to append a single element of a shape. The element is prefixed with
+	 * its length, so free text elements can't be confused with the separators.
+	 *
+	 * @param shape The cache key to append to
+	 * @param value The element to append, or null
+	 */
+	static void appendShapeValue(StringBuilder shape, Object value) {
+		if (value == null)
+			shape.append('-');
+		else {
+			String str = value.toString();
+			shape.append(str.length()).append(':').append(str);
+		}
+		shape.append('|');
+	}
+
+	/**
+	 * Method to append a list of shape elements
+	 *
+	 * @param shape  The cache key to append to
+	 * @param values The list of elements, or null
+	 */
+	static void appendShapeList(StringBuilder shape, List<?> values) {
+		if (values == null)
+			shape.append('-');
+		else {
+			shape.append('[');
+			for (Object value : values)
+				appendShapeValue(shape, value);
+			shape.append(']');
+		}
+	}
+
 	protected ArrayList<DbDataObject> returnTypes = new ArrayList<DbDataObject>();
 	/**
 	 * Variable holding the return type sequence order in the select query
@@ -768,6 +768,46 @@ public class DbQueryExpression extends DbQuery {
 
 	}
 
+	/**
+	 * The shape of a forward expression is the shape of its items along with the
+	 * return types, which are resolved by the SQL generation. The reverse
+	 * expressions collect their parameters while generating the SQL, so they are
+	 * never cached.
+	 */
+	@Override
+	public boolean appendShape(StringBuilder shape) {
+		if (isReverseExpression)
+			return false;
+		shape.append('E');
+		appendShapeValue(shape, dblt != null ? dblt.getPkid() : null);
+		appendShapeValue(shape, returnTypes.size());
+		appendShapeValue(shape, getReturnType() != null ? getReturnType().getObjectId() : null);
+		appendShapeList(shape, linkStatusList);
+		for (DbQueryObject dqo : items)
+			if (!dqo.appendShape(shape))
+				return false;
+		return true;
+	}
+
+	@Override
+	public void applyCachedSQL() {
+		if (items.size() <= 0 && rootQueryObject == null)
+			return;
+		getLegacyReturnType();
+		if (isReverseExpression || this.getReturnType() == null)
+			return;
+		// same as the SQL generation, the sequence of the first DQO with return
+		// type is used
+		int itemSeq = 0;
+		for (DbQueryObject dqo : items) {
+			if (dqo.getIsReturnType()) {
+				this.setReturnTypeSequence(itemSeq);
+				break;
+			}
+			itemSeq++;
+		}
+	}
+
 	private void getReverseReturnTypes(DbQueryObject queryObject, ArrayList<DbDataObject> returnTypes) {
 
 		DbQueryObject currentDqo = queryObject;
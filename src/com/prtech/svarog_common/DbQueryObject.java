@@ -595,6 +595,61 @@ public class DbQueryObject extends DbQuery {
 		return paramVals;
 	}
 
+	/**
+	 * The shape of the DQO holds the versions (PKIDs) of the object type, the
+	 * repo and their fields, so the SQL cached for an older configuration is
+	 * never used.
+	 */
+	@Override
+	public boolean appendShape(StringBuilder shape) {
+		shape.append('O');
+		if (subQuery != null && !subQuery.equals("")) {
+			appendShapeValue(shape, subQuery);
+			appendShapeValue(shape, subQueryFields);
+			return true;
+		}
+		if (repo == null || repoFields == null || dbt == null || dbtFields == null)
+			return false;
+		appendShapeValue(shape, dbt.getObjectId());
+		appendShapeValue(shape, dbt.getPkid());
+		appendShapeValue(shape, repo.getObjectId());
+		appendShapeValue(shape, repo.getPkid());
+		if (customFieldsList == null) {
+			for (DbDataObject field : repoFields.getItems())
+				shape.append(field.getPkid()).append(',');
+			shape.append('|');
+			for (DbDataObject field : dbtFields.getItems())
+				shape.append(field.getPkid()).append(',');
+			shape.append('|');
+		} else
+			appendShapeList(shape, customFieldsList);
+		appendShapeValue(shape, sqlTablePrefix);
+		appendShapeValue(shape, getReturnTypeSequence());
+		appendShapeValue(shape, isReturnType);
+		appendShapeValue(shape, returnLinkObjects);
+		appendShapeValue(shape, referenceDate == null);
+		appendShapeValue(shape, joinToNext);
+		appendShapeValue(shape, linkToNextType);
+		appendShapeValue(shape, linkToNext != null ? linkToNext.getObjectId() : null);
+		appendShapeValue(shape, denormalizedFieldName);
+		appendShapeValue(shape, denormalizedJoinOnFieldName);
+		appendShapeValue(shape, customFreeTextJoin);
+		appendShapeList(shape, customJoinLeft);
+		appendShapeList(shape, customJoinRight);
+		appendShapeList(shape, linkStatusList);
+		appendShapeList(shape, groupByFields);
+		appendShapeValue(shape, havingCondition);
+		appendShapeList(shape, orderByFields);
+		if (search == null)
+			shape.append('-');
+		else {
+			if (!search.appendShape(shape))
+				return false;
+			shape.append(search.nextCritOperand);
+		}
+		return true;
+	}
+
 	public ArrayList<Object> getSubSQLParamVals() {
 		if (subQuery != null)
 			return subParamVals;
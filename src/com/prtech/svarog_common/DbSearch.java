@@ -33,7 +33,19 @@ public abstract class DbSearch extends Jsonable{
 	public abstract String getSQLExpression(String tblPrefix) throws SvException;
 	public abstract String getSQLExpression() throws SvException;
 	public abstract ArrayList<Object> getSQLParamVals() throws SvException;
-	public abstract ArrayList<String> getOrderByFields(); 
+	public abstract ArrayList<String> getOrderByFields();
+
+	/**
+	 * The method appends the shape of the search to a cache key, without the
+	 * compare values which are bound as query parameters
+	 *
+	 * @param shape The cache key to append to
+	 * @return True if the shape fully describes the SQL, false if the SQL of the
+	 *         search can't be cached
+	 */
+	public boolean appendShape(StringBuilder shape) {
+		return false;
+	}
 
 
 }
@@ -67,7 +67,7 @@ public class DbSearchCriterion extends DbSearch {
 	DbQueryObject inSubQuery = null;
 
 	/**
-	 * If the type of operand is SUBQUERY
+	 * If the type of operand is IN_LIST, the values bound to the IN clause
 	 */
 	ArrayList<Object> inList = null;
 
@@ -231,7 +231,7 @@ public class DbSearchCriterion extends DbSearch {
 
 			} else {
 				if (operand != DbCompareOperand.ISNULL && operand != DbCompareOperand.BBOX
-						&& operand != DbCompareOperand.IN_SUBQUERY)
+						&& operand != DbCompareOperand.IN_SUBQUERY && operand != DbCompareOperand.IN_LIST)
 					if (operand.equals(DbCompareOperand.ILIKE))
 						arr.add(compareValue.toString().toUpperCase());
 					else
@@ -250,6 +250,8 @@ public class DbSearchCriterion extends DbSearch {
 						throw (new SvException("system.error.dbsc_missing_fields", svCONST.systemUser, null, this));
 				} else if (operand == DbCompareOperand.IN_SUBQUERY) {
 					arr.addAll(inSubQuery.getSQLParamVals());
+				} else if (operand == DbCompareOperand.IN_LIST && inList != null) {
+					arr.addAll(inList);
 				}
 			}
 		}
@@ -331,6 +333,16 @@ public class DbSearchCriterion extends DbSearch {
 		case IN_SUBQUERY:
 			retval = "(" + fullFieldName + " IN (" + inSubQuery.getSQLExpression() + "))";
 			break;
+		case IN_LIST:
+			if (inList == null || inList.isEmpty())
+				retval = "(1=0)";
+			else {
+				StringBuilder inValues = new StringBuilder(inList.size() * 2);
+				for (int i = 0; i < inList.size(); i++)
+					inValues.append(i > 0 ? ",?" : "?");
+				retval = "(" + fullFieldName + " IN (" + inValues + "))";
+			}
+			break;
 		default:
 			if (isField2FieldJoin) {
 				retval = "(" + leftField + " " + sqlKw.getString(tmpOperand.toString()) + " " + rightField + ")";
@@ -348,6 +360,27 @@ public class DbSearchCriterion extends DbSearch {
 		return getSQLExpression(null, tblPrefix);
 	}
 
+	@Override
+	public boolean appendShape(StringBuilder shape) {
+		shape.append('C');
+		if (freeTextWhere != null && !freeTextWhere.equals("")) {
+			DbQuery.appendShapeValue(shape, freeTextWhere);
+			return true;
+		}
+		DbQuery.appendShapeValue(shape, operand);
+		DbQuery.appendShapeValue(shape, notPrefix);
+		DbQuery.appendShapeValue(shape, fieldName);
+		DbQuery.appendShapeValue(shape, fieldName2);
+		DbQuery.appendShapeValue(shape, isField2FieldJoin);
+		DbQuery.appendShapeValue(shape, leftField);
+		DbQuery.appendShapeValue(shape, rightField);
+		if (operand == DbCompareOperand.IN_SUBQUERY)
+			return inSubQuery != null && inSubQuery.appendShape(shape);
+		if (operand == DbCompareOperand.IN_LIST)
+			DbQuery.appendShapeValue(shape, inList != null ? inList.size() : 0);
+		return true;
+	}
+
 	////// From this point on there's only classic getter/setter methods
 	public Boolean getNotPrefix() {
 		return notPrefix;
@@ -80,6 +80,22 @@ public class DbSearchExpression extends DbSearch {
 		return "(" + retval + ")";
 	}
 
+	@Override
+	public boolean appendShape(StringBuilder shape) {
+		shape.append('(');
+		for (DbSearch dbs : exprList) {
+			if (!dbs.appendShape(shape))
+				return false;
+			if (dbs instanceof DbSearchCriterion)
+				shape.append(((DbSearchCriterion) dbs).nextCritOperand);
+			else
+				shape.append(((DbSearchExpression) dbs).nextCritOperand);
+			shape.append(';');
+		}
+		shape.append(')');
+		return true;
+	}
+
 	public ArrayList<DbSearch> getExprList() {
 		return exprList;
 	}
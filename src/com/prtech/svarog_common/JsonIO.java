@@ -15,7 +15,6 @@ package com.prtech.svarog_common;
 
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
-import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
 import java.math.BigDecimal;
@@ -26,6 +25,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
@@ -42,6 +42,12 @@ import org.joda.time.DateTime;
 public class JsonIO {
 	static final Logger log4j = LogManager.getLogger(JsonIO.class.getName());
 
+	/**
+	 * Cache of the serialisable member fields (non final, static or private)
+	 * per class, so the fields are resolved only once per class
+	 */
+	private static final ConcurrentHashMap<Class<?>, Field[]> jsonFields = new ConcurrentHashMap<Class<?>, Field[]>();
+
 	/**
 	 * Default constructor, sets the timezone to UTC
 	 */
@@ -58,17 +64,7 @@ public class JsonIO {
 
 			return obj;
 		} else if (jsonElement.isString()) {
-			String val = jsonElement.getAsString();
-			if (val.length() > 8 && val.substring(4, 5).equals("-") && val.substring(7, 8).equals("-")) {
-				// possibly a date
-				try {
-					DateTime dt = new DateTime(val);
-					return dt;
-				} catch (Exception e) {
-					return val;
-				}
-			}
-			return val;
+			return getBaseString(jsonElement.getAsString());
 		} else if (jsonElement.isBoolean())
 			return jsonElement.getAsBoolean();
 
@@ -76,6 +72,58 @@ public class JsonIO {
 
 	}
 
+	/**
+	 * Method to convert a JSON string to a DateTime if it looks like a date
+	 * 
+	 * @param val
+	 *            The string value from the JSON
+	 * @return DateTime if the string is a date, otherwise the string itself
+	 */
+	static Object getBaseString(String val) {
+		if (val.length() > 8 && val.charAt(4) == '-' && val.charAt(7) == '-') {
+			// possibly a date
+			try {
+				DateTime dt = new DateTime(val);
+				return dt;
+			} catch (Exception e) {
+				return val;
+			}
+		}
+		return val;
+	}
+
+	/**
+	 * Method to get the member fields of a class which are subject of JSON
+	 * serialisation, i.e. all declared fields which are not final, static or
+	 * private. The fields are resolved and made accessible once per class.
+	 * 
+	 * @param clazz
+	 *            The class of the serialised object
+	 * @return Array of fields in the order of declaration
+	 */
+	static Field[] getJsonFields(Class<?> clazz) {
+		Field[] fields = jsonFields.get(clazz);
+		if (fields == null) {
+			ArrayList<Field> fieldList = new ArrayList<Field>();
+			for (Field field : clazz.getDeclaredFields()) {
+				if (!field.getType().equals(JsonIO.class) && !Modifier.isFinal(field.getModifiers())
+						&& !Modifier.isPrivate(field.getModifiers()) && !Modifier.isStatic(field.getModifiers())) {
+					try {
+						field.setAccessible(true);
+					} catch (Exception e) {
+						log4j.trace("Can't make field " + field.getName() + " accessible", e);
+					}
+					fieldList.add(field);
+				}
+			}
+			fields = fieldList.toArray(new Field[fieldList.size()]);
+			Field[] existing = jsonFields.putIfAbsent(clazz, fields);
+			if (existing != null)
+				fields = existing;
+		}
+		return fields;
+	}
+
 	/**
 	 * A function that returns the Java primitive type for a specific class from
 	 * a JsonElement The function can convert: String,
@@ -235,11 +283,9 @@ public class JsonIO {
 	}
 
 	/**
-	 * Function to get the JsonObject from an object via reflection. The
-	 * function tries to get the predefined getter method for retrieving a
-	 * MembersJson object from the class. If it can get the MembersJson object
-	 * then tries to invoke the method "getMembersToJson" on the MembersJson
-	 * object in order to get the JsonObject for the Object obj
+	 * Function to get the JsonObject from a Jsonable object. The function gets
+	 * the JsonIO instance of the object and invokes "getMembersToJson" in order
+	 * to get the JsonObject for the Object obj
 	 * 
 	 * @param obj
 	 *            The Object from which the JsonObject should be retrieved
@@ -252,25 +298,12 @@ public class JsonIO {
 		JsonObject jsonObject = null;
 		try {
 
-			Class currClass = obj.getClass();
-			while (currClass != null && !currClass.getName().endsWith("Jsonable")) {
-				currClass = currClass.getSuperclass();
-			}
-			Method method = currClass.getDeclaredMethod("getJsonIO", (Class<?>[]) null);
-
-			mJson = (JsonIO) method.invoke(obj, (Object[]) null);
+			mJson = ((Jsonable) obj).getJsonIO();
 
 			if (mJson == null)
 				return null;
 
-			Class<?>[] cArg = new Class[4];
-			cArg[0] = String.class;
-			cArg[1] = Object.class;
-			cArg[2] = JsonObject.class;
-			cArg[3] = Boolean.class;
-
-			Method jsMethod = mJson.getClass().getDeclaredMethod("getMembersToJson", cArg);
-			jsonObject = (JsonObject) jsMethod.invoke(mJson, startsWith, obj, exParams, isSimple);
+			jsonObject = mJson.getMembersToJson(startsWith, obj, exParams, isSimple);
 
 		} catch (Exception ex) {
 			log4j.error("Member object of type " + obj.getClass().getCanonicalName() + " is not Json enabled!", ex);
@@ -313,20 +346,16 @@ public class JsonIO {
 		// LinkedHashMap<String, Object> retMap = new LinkedHashMap<String,
 		// Object>();
 		Class<?> outerClass = obj.getClass();
-		Field[] memberFields = outerClass.getDeclaredFields();
+		Field[] memberFields = getJsonFields(outerClass);
 
 		for (int i = 0; i < memberFields.length; i++) {
 			String fieldName = memberFields[i].getName();
 			if (fieldName.equals("isReadOnly"))
 				continue;
 
-			if (!memberFields[i].getType().equals(this.getClass()) && fieldName.startsWith(startsWith)
-					&& !Modifier.isFinal(memberFields[i].getModifiers())
-					&& !Modifier.isPrivate(memberFields[i].getModifiers())
-					&& !Modifier.isStatic(memberFields[i].getModifiers())) {
+			if (fieldName.startsWith(startsWith)) {
 				Object fieldValue = null;
 				try {
-					memberFields[i].setAccessible(true);
 					fieldValue = memberFields[i].get(obj);
 				} catch (Exception e) {
 					e.printStackTrace();
@@ -433,7 +462,7 @@ public class JsonIO {
 	private JsonObject getRowFromDbObject(String startsWith, DbDataObject obj, DbDataArray objTypeDbt,
 			DbDataArray objTypeDbf, JsonObject exParams, JsonParser jParser, ISvCodeList codeList) {
 
-		Field[] memberFields = obj.getClass().getDeclaredFields();
+		Field[] memberFields = getJsonFields(obj.getClass());
 		// map the single object to a row
 		JsonObject row = new JsonObject();
 		// the array holding the actual values
@@ -443,16 +472,12 @@ public class JsonIO {
 		for (int i = 0; i < memberFields.length; i++) {
 			String fieldName = memberFields[i].getName();
 
-			// make sure we only seralise non final/static/private members
-			if (!memberFields[i].getType().equals(this.getClass()) && fieldName.startsWith(startsWith)
-					&& !Modifier.isFinal(memberFields[i].getModifiers())
-					&& !Modifier.isPrivate(memberFields[i].getModifiers())
-					&& !Modifier.isStatic(memberFields[i].getModifiers())) {
+			// the cached fields are only non final/static/private members
+			if (fieldName.startsWith(startsWith)) {
 
 				// get member field value
 				Object fieldValue = null;
 				try {
-					memberFields[i].setAccessible(true);
 					fieldValue = memberFields[i].get(obj);
 
 				} catch (Exception e) {
@@ -650,7 +675,7 @@ public class JsonIO {
 								}
 							}
 							if (useSvCharId)
-								fieldMap.put(new SvCharId(fieldName), fieldValue);
+								fieldMap.put(SvCharId.toSvCharId(fieldName), fieldValue);
 							else
 								fieldMap.put(fieldName.toUpperCase(), fieldValue);
 
@@ -701,40 +726,19 @@ public class JsonIO {
 	private Boolean setMembersFromJsonImpl(Object obj, JsonObject jsonObject, Boolean isSimple) {
 		if (obj == null)
 			return false;
-		JsonIO mJson = null;
+		if (!(obj instanceof Jsonable)) {
+			log4j.error("Member object of type " + obj.getClass().getCanonicalName() + " is not Json enabled!");
+			return false;
+		}
 		Boolean retval = true;
-		Method jsMethod = null;
 		try {
-			try {
-				if (!isSimple) {
-					Class<?>[] cArg = new Class[1];
-					cArg[0] = JsonObject.class;
-					jsMethod = obj.getClass().getDeclaredMethod("fromJson", cArg);
-					if (jsMethod != null)
-						retval = (Boolean) jsMethod.invoke(obj, jsonObject);
-				}
-			} catch (NoSuchMethodException ex) {
-				jsMethod = null;
-			}
-			if (jsMethod == null) {
-				Class currClass = obj.getClass();
-				while (currClass != null && !currClass.getName().endsWith("Jsonable")) {
-					currClass = currClass.getSuperclass();
-				}
-				Method method = currClass.getDeclaredMethod("getJsonIO", (Class<?>[]) null);
-
-				mJson = (JsonIO) method.invoke(obj, (Object[]) null);
-
+			if (!isSimple)
+				retval = ((Jsonable) obj).fromJson(jsonObject);
+			else {
+				JsonIO mJson = ((Jsonable) obj).getJsonIO();
 				if (mJson == null)
 					return null;
-
-				Class<?>[] cArg = new Class[4];
-				cArg[0] = String.class;
-				cArg[1] = Object.class;
-				cArg[2] = JsonObject.class;
-				cArg[3] = Boolean.class;
-				jsMethod = mJson.getClass().getDeclaredMethod("setMembersFromJson", cArg);
-				retval = (Boolean) jsMethod.invoke(mJson, "", obj, jsonObject, isSimple);
+				retval = mJson.setMembersFromJson("", obj, jsonObject, isSimple);
 			}
 
 		} catch (Exception ex) {
@@ -806,6 +810,29 @@ public class JsonIO {
 		return setMembersFromJson(startsWith, obj, jsonObject, false);
 	}
 
+	/**
+	 * Method to set a single member field of an object from a JsonElement
+	 * 
+	 * @param obj
+	 *            The object to which the field belongs
+	 * @param fieldName
+	 *            The name of the member field
+	 * @param jsonElement
+	 *            The JsonElement from which the value is set
+	 * @param isSimple
+	 *            Flag if the JSON is in the simple format
+	 * @throws Exception
+	 *             NoSuchFieldException if the object has no such field or any
+	 *             exception thrown while setting the value
+	 */
+	void setMemberFromJson(Object obj, String fieldName, JsonElement jsonElement, Boolean isSimple)
+			throws Exception {
+		Field field = obj.getClass().getDeclaredField(fieldName);
+		field.setAccessible(true);
+		if (!setField(field, obj, jsonElement, isSimple))
+			log4j.info("Class:" + obj.getClass().toString() + ", field:" + fieldName + ", could not be set");
+	}
+
 	private boolean isDboBase(String fieldName) {
 		return svCONST.repoFieldNames.contains(fieldName.toUpperCase());
 
@@ -855,7 +882,7 @@ public class JsonIO {
 									"Class:" + outerClass.toString() + ", field:" + fieldName + ", could not be set");
 						}
 					} else if (fieldValue.isJsonPrimitive()) {
-						fieldMap.put(new SvCharId(fieldName), getBaseJsonPrimitive(fieldValue.getAsJsonPrimitive()));
+						fieldMap.put(SvCharId.toSvCharId(fieldName), getBaseJsonPrimitive(fieldValue.getAsJsonPrimitive()));
 					} else if (obj instanceof DbDataArray && fieldName.equals("items")) {
 						field = outerClass.getDeclaredField(fieldName);
 						field.setAccessible(true);
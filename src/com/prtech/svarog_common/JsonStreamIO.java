@@ -0,0 +1,564 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *******************************************************************************/
+package com.prtech.svarog_common;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.joda.time.DateTime;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.prtech.svarog.svCONST;
+
+/**
+ * Streaming JSON serialisation of Jsonable objects. The output is byte
+ * compatible with the JsonObject produced by {@link JsonIO}, but it is written
+ * directly to a {@link JsonWriter} without building the tree. The serialisable
+ * fields of each class are resolved once by {@link JsonIO#getJsonFields(Class)}
+ * while the members of DbDataObject and DbDataArray are accessed directly.
+ * Reading of DbDataObject and DbDataArray is streaming as well, while other
+ * classes are parsed to a JsonObject and set via {@link JsonIO}.
+ *
+ * @author ristepejov
+ *
+ */
+final class JsonStreamIO {
+	static final Logger log4j = LogManager.getLogger(JsonStreamIO.class.getName());
+
+	static final String DBO_CLASS = DbDataObject.class.getCanonicalName();
+	static final String DBA_CLASS = DbDataArray.class.getCanonicalName();
+
+	/**
+	 * Flags if the direct member access of DbDataObject and DbDataArray can be
+	 * used. If the declared fields don't match the hard coded order, the
+	 * generic field based serialisation is used.
+	 */
+	static final boolean dboDirect = hasJsonFields(DbDataObject.class, "pkid", "object_id", "dt_insert",
+			"dt_delete", "parent_id", "object_type", "status", "user_id", "values", "isReadOnly");
+	static final boolean dbaDirect = hasJsonFields(DbDataArray.class, "indexField", "filter", "items",
+			"idxItems");
+
+	private JsonStreamIO() {
+	}
+
+	private static boolean hasJsonFields(Class<?> clazz, String... names) {
+		Field[] fields = JsonIO.getJsonFields(clazz);
+		String[] fieldNames = new String[fields.length];
+		for (int i = 0; i < fields.length; i++)
+			fieldNames[i] = fields[i].getName();
+		return Arrays.equals(names, fieldNames);
+	}
+
+	/**
+	 * Method to write a Jsonable object to a writer
+	 *
+	 * @param writer   The writer to which the JSON is written
+	 * @param obj      The object to be serialised
+	 * @param isSimple Flag to write the simple JSON format
+	 * @throws IOException If writing fails
+	 */
+	static void write(Writer writer, Jsonable obj, boolean isSimple) throws IOException {
+		JsonWriter out = new JsonWriter(writer);
+		// same as JsonElement.toString()
+		out.setLenient(true);
+		write(out, obj, isSimple);
+		out.flush();
+	}
+
+	/**
+	 * Method to write a Jsonable object as JSON object to a JsonWriter
+	 *
+	 * @param out      The JsonWriter to which the object is written
+	 * @param obj      The object to be serialised
+	 * @param isSimple Flag to write the simple JSON format
+	 * @throws IOException If writing fails
+	 */
+	static void write(JsonWriter out, Object obj, boolean isSimple) throws IOException {
+		Class<?> clazz = obj.getClass();
+		if (!isSimple) {
+			out.beginObject();
+			out.name(clazz.getCanonicalName());
+		}
+		out.beginObject();
+		if (clazz == DbDataObject.class && dboDirect)
+			writeMembers(out, (DbDataObject) obj, isSimple);
+		else if (clazz == DbDataArray.class && dbaDirect)
+			writeMembers(out, (DbDataArray) obj, isSimple);
+		else
+			for (Field field : JsonIO.getJsonFields(clazz)) {
+				if (field.getName().equals("isReadOnly"))
+					continue;
+				Object value = null;
+				try {
+					value = field.get(obj);
+				} catch (IllegalAccessException e) {
+					log4j.error("Can't read field " + field.getName() + " of " + clazz.getCanonicalName(), e);
+				}
+				writeMember(out, field.getName(), field.getType(), value, isSimple);
+			}
+		out.endObject();
+		if (!isSimple)
+			out.endObject();
+	}
+
+	private static void writeMembers(JsonWriter out, DbDataObject dbo, boolean isSimple) throws IOException {
+		writeMember(out, "pkid", Long.class, dbo.pkid, isSimple);
+		writeMember(out, "object_id", Long.class, dbo.object_id, isSimple);
+		writeMember(out, "dt_insert", DateTime.class, dbo.dt_insert, isSimple);
+		writeMember(out, "dt_delete", DateTime.class, dbo.dt_delete, isSimple);
+		writeMember(out, "parent_id", Long.class, dbo.parent_id, isSimple);
+		writeMember(out, "object_type", Long.class, dbo.object_type, isSimple);
+		writeMember(out, "status", String.class, dbo.status, isSimple);
+		writeMember(out, "user_id", Long.class, dbo.user_id, isSimple);
+		writeMember(out, "values", Map.class, dbo.values, isSimple);
+	}
+
+	private static void writeMembers(JsonWriter out, DbDataArray dba, boolean isSimple) throws IOException {
+		writeMember(out, "indexField", SvCharId.class, dba.indexField, isSimple);
+		writeMember(out, "filter", IDbFilter.class, dba.filter, isSimple);
+		writeMember(out, "items", ArrayList.class, dba.items, isSimple);
+		writeMember(out, "idxItems", HashMap.class, dba.idxItems, isSimple);
+	}
+
+	/**
+	 * Method to write a single member field, following the rules of
+	 * {@link JsonIO#getMembersToJson(String, Object, JsonObject, Boolean)}
+	 */
+	private static void writeMember(JsonWriter out, String name, Class<?> type, Object value, boolean isSimple)
+			throws IOException {
+		if (value == null) {
+			out.name(name).nullValue();
+			return;
+		}
+		Object primitive = getPrimitive(value.getClass(), value);
+		if (primitive != null) {
+			out.name(name);
+			writePrimitive(out, primitive);
+		} else if (type.isArray()) {
+			out.name(name).beginArray();
+			for (Object item : (Object[]) value)
+				writeArrayItem(out, type.getComponentType(), item, isSimple);
+			out.endArray();
+		} else if (value instanceof List<?>) {
+			out.name(name).beginArray();
+			for (Object item : (List<?>) value)
+				writeArrayItem(out, item != null ? item.getClass() : Object.class, item, isSimple);
+			out.endArray();
+		} else if (value instanceof Map<?, ?>) {
+			// the simple JSON flattens the map in the parent object, while the
+			// complex one holds an array of single property objects
+			if (!isSimple)
+				out.name(name).beginArray();
+			for (Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				Object entryValue = entry.getValue();
+				if (entryValue == null)
+					continue;
+				primitive = getPrimitive(entryValue.getClass(), entryValue);
+				if (!isSimple) {
+					out.beginObject();
+					out.name(entry.getKey().toString());
+					if (primitive != null)
+						writePrimitive(out, primitive);
+					else
+						writeComplex(out, entryValue, isSimple);
+					out.endObject();
+				} else if (primitive != null) {
+					out.name(entry.getKey().toString());
+					writePrimitive(out, primitive);
+				}
+			}
+			if (!isSimple)
+				out.endArray();
+		} else {
+			out.name(name);
+			writeComplex(out, value, isSimple);
+		}
+	}
+
+	private static void writeArrayItem(JsonWriter out, Class<?> type, Object item, boolean isSimple)
+			throws IOException {
+		if (item == null) {
+			out.nullValue();
+			return;
+		}
+		Object primitive = getPrimitive(type, item);
+		if (primitive != null)
+			writePrimitive(out, primitive);
+		else
+			writeComplex(out, item, isSimple);
+	}
+
+	private static void writeComplex(JsonWriter out, Object value, boolean isSimple) throws IOException {
+		if (value instanceof Jsonable)
+			write(out, value, isSimple);
+		else
+			out.value(value.toString());
+	}
+
+	/**
+	 * Method to get the JSON primitive representation of a value, same as
+	 * JsonIO.getJsonPrimitive without extra formatting parameters
+	 *
+	 * @param type  The type of the value
+	 * @param value The value
+	 * @return String, Boolean or Number to be written, null if the value isn't
+	 *         primitive
+	 */
+	private static Object getPrimitive(Class<?> type, Object value) {
+		if (type == String.class || type == Boolean.class || type == Integer.class || type == Long.class
+				|| type == Double.class || type == Float.class || type == BigDecimal.class
+				|| type == BigInteger.class)
+			return value;
+		else if (type == DateTime.class || value instanceof Enum)
+			return value.toString();
+		return null;
+	}
+
+	private static void writePrimitive(JsonWriter out, Object primitive) throws IOException {
+		if (primitive instanceof String)
+			out.value((String) primitive);
+		else if (primitive instanceof Boolean)
+			out.value(((Boolean) primitive).booleanValue());
+		else
+			out.value((Number) primitive);
+	}
+
+	/**
+	 * Method to read a Jsonable object from a reader
+	 *
+	 * @param reader   The reader from which the JSON is read
+	 * @param obj      The object to be populated
+	 * @param isSimple Flag if the JSON is in the simple format
+	 * @return True if the object was populated
+	 * @throws IOException If reading fails or the JSON is malformed
+	 */
+	static Boolean read(Reader reader, Jsonable obj, boolean isSimple) throws IOException {
+		JsonReader in = new JsonReader(reader);
+		in.setLenient(true);
+		return read(in, obj, isSimple);
+	}
+
+	/**
+	 * Method to read a Jsonable object from the next JSON object of a JsonReader
+	 *
+	 * @param in       The JsonReader positioned at the object
+	 * @param obj      The object to be populated
+	 * @param isSimple Flag if the JSON is in the simple format
+	 * @return True if the object was populated
+	 * @throws IOException If reading fails or the JSON is malformed
+	 */
+	static Boolean read(JsonReader in, Jsonable obj, boolean isSimple) throws IOException {
+		try {
+			if (obj.getClass() == DbDataObject.class && dboDirect) {
+				DbDataObject dbo = (DbDataObject) obj;
+				if (isSimple) {
+					readMembers(in, dbo, true);
+					return true;
+				}
+				if (dbo.isReadOnly) {
+					in.skipValue();
+					return false;
+				}
+				dbo.setIsDirty(true);
+				return readWrapped(in, dbo, DBO_CLASS);
+			} else if (obj.getClass() == DbDataArray.class && dbaDirect) {
+				DbDataArray dba = (DbDataArray) obj;
+				if (isSimple) {
+					readMembers(in, dba, true);
+					return true;
+				}
+				return readWrapped(in, dba, DBA_CLASS);
+			}
+			JsonElement json = JsonParser.parseReader(in);
+			if (!json.isJsonObject())
+				return false;
+			return isSimple ? obj.fromSimpleJson(json.getAsJsonObject()) : obj.fromJson(json.getAsJsonObject());
+		} catch (RuntimeException ex) {
+			log4j.error("Failed setting class members for class:" + obj.getClass().toString() + " from JSON", ex);
+			return false;
+		}
+	}
+
+	private static boolean readWrapped(JsonReader in, Object obj, String className) throws IOException {
+		boolean found = false;
+		in.beginObject();
+		while (in.hasNext()) {
+			String name = in.nextName();
+			if (!found && name.equals(className)) {
+				if (obj instanceof DbDataObject)
+					readMembers(in, (DbDataObject) obj, false);
+				else
+					readMembers(in, (DbDataArray) obj, false);
+				found = true;
+			} else
+				in.skipValue();
+		}
+		in.endObject();
+		if (!found)
+			log4j.error("Class " + className + " could not be found in JSON");
+		return found;
+	}
+
+	private static void readMembers(JsonReader in, DbDataObject dbo, boolean isSimple) throws IOException {
+		LinkedHashMap<SvCharId, Object> values = new LinkedHashMap<SvCharId, Object>();
+		dbo.values = values;
+		in.beginObject();
+		while (in.hasNext()) {
+			String name = in.nextName();
+			// the simple format holds the values as plain properties
+			if (isSimple && !svCONST.repoFieldNames.contains(name.toUpperCase())) {
+				if (isPrimitive(in.peek()))
+					values.put(SvCharId.toSvCharId(name), readBaseValue(in, isSimple));
+				else
+					in.skipValue();
+				continue;
+			}
+			switch (name) {
+			case "pkid":
+				dbo.pkid = readLong(in);
+				break;
+			case "object_id":
+				dbo.object_id = readLong(in);
+				break;
+			case "dt_insert":
+				dbo.dt_insert = readDateTime(in);
+				break;
+			case "dt_delete":
+				dbo.dt_delete = readDateTime(in);
+				break;
+			case "parent_id":
+				dbo.parent_id = readLong(in);
+				break;
+			case "object_type":
+				dbo.object_type = readLong(in);
+				break;
+			case "status":
+				dbo.status = readString(in);
+				break;
+			case "user_id":
+				dbo.user_id = readLong(in);
+				break;
+			case "values":
+				if (in.peek() == JsonToken.NULL) {
+					in.nextNull();
+					dbo.values = null;
+				} else
+					readMap(in, values, true, isSimple);
+				break;
+			default:
+				if (isSimple || name.equals("isReadOnly"))
+					in.skipValue();
+				else
+					readMember(in, dbo, name, isSimple);
+			}
+		}
+		in.endObject();
+	}
+
+	private static void readMembers(JsonReader in, DbDataArray dba, boolean isSimple) throws IOException {
+		in.beginObject();
+		while (in.hasNext()) {
+			String name = in.nextName();
+			if (name.equals("items") && in.peek() != JsonToken.NULL) {
+				ArrayList<DbDataObject> items = new ArrayList<DbDataObject>();
+				in.beginArray();
+				while (in.hasNext()) {
+					if (isSimple && in.peek() == JsonToken.BEGIN_OBJECT) {
+						DbDataObject dbo = new DbDataObject();
+						readMembers(in, dbo, true);
+						items.add(dbo);
+					} else if (in.peek() == JsonToken.BEGIN_OBJECT) {
+						Object item = readComplex(in, isSimple);
+						if (item instanceof DbDataObject)
+							items.add((DbDataObject) item);
+					} else
+						in.skipValue();
+				}
+				in.endArray();
+				dba.items = items;
+			} else if (isSimple || name.equals("isReadOnly"))
+				in.skipValue();
+			else if (name.equals("items")) {
+				in.nextNull();
+				dba.items = null;
+			} else if (name.equals("idxItems")) {
+				if (in.peek() == JsonToken.NULL) {
+					in.nextNull();
+					dba.idxItems = null;
+				} else {
+					LinkedHashMap<String, DbDataObject> idxItems = new LinkedHashMap<String, DbDataObject>();
+					LinkedHashMap<Object, Object> idxValues = new LinkedHashMap<Object, Object>();
+					readMap(in, idxValues, false, isSimple);
+					for (Entry<Object, Object> entry : idxValues.entrySet())
+						if (entry.getValue() instanceof DbDataObject)
+							idxItems.put((String) entry.getKey(), (DbDataObject) entry.getValue());
+					dba.idxItems = idxItems;
+				}
+			} else if (name.equals("indexField")) {
+				// the index field can't be set from a JSON primitive
+				if (in.peek() == JsonToken.NULL) {
+					in.nextNull();
+					dba.indexField = null;
+				} else
+					in.skipValue();
+			} else
+				readMember(in, dba, name, isSimple);
+		}
+		in.endObject();
+	}
+
+	/**
+	 * Method to read the array of single property objects in which the complex
+	 * JSON holds a map
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static void readMap(JsonReader in, Map map, boolean useSvCharId, boolean isSimple) throws IOException {
+		in.beginArray();
+		while (in.hasNext()) {
+			if (in.peek() != JsonToken.BEGIN_OBJECT) {
+				in.skipValue();
+				continue;
+			}
+			in.beginObject();
+			while (in.hasNext()) {
+				String key = in.nextName();
+				map.put(useSvCharId ? SvCharId.toSvCharId(key) : key.toUpperCase(), readBaseValue(in, isSimple));
+			}
+			in.endObject();
+		}
+		in.endArray();
+	}
+
+	/**
+	 * Method to set a member field which has no direct mapping, via the field
+	 * based JsonIO
+	 */
+	private static void readMember(JsonReader in, Object obj, String name, boolean isSimple) throws IOException {
+		JsonElement json = JsonParser.parseReader(in);
+		try {
+			Jsonable.jsonIO.setMemberFromJson(obj, name, json, isSimple);
+		} catch (NoSuchFieldException e) {
+			log4j.trace("JSON key doesn't exist as field in object:" + name);
+		} catch (Exception e) {
+			throw new JsonParseException("Failed to set field " + name + " from JSON", e);
+		}
+	}
+
+	private static boolean isPrimitive(JsonToken token) {
+		return token == JsonToken.STRING || token == JsonToken.NUMBER || token == JsonToken.BOOLEAN;
+	}
+
+	/**
+	 * Method to read a value of unknown type, same as
+	 * JsonIO.getBaseJsonPrimitive for primitives
+	 */
+	private static Object readBaseValue(JsonReader in, boolean isSimple) throws IOException {
+		switch (in.peek()) {
+		case NUMBER:
+			BigDecimal number = new BigDecimal(in.nextString());
+			if (number.scale() == 0)
+				return number.longValue();
+			return number;
+		case STRING:
+			return JsonIO.getBaseString(in.nextString());
+		case BOOLEAN:
+			return in.nextBoolean();
+		case BEGIN_OBJECT:
+			return readComplex(in, isSimple);
+		default:
+			in.skipValue();
+			return null;
+		}
+	}
+
+	/**
+	 * Method to read a complex object, written as JSON object holding the
+	 * members under the canonical class name
+	 */
+	private static Object readComplex(JsonReader in, boolean isSimple) throws IOException {
+		Object result = null;
+		in.beginObject();
+		while (in.hasNext()) {
+			String name = in.nextName();
+			if (name.equals(DBO_CLASS) && dboDirect) {
+				DbDataObject dbo = new DbDataObject();
+				readMembers(in, dbo, false);
+				result = dbo;
+			} else if (name.equals(DBA_CLASS) && dbaDirect) {
+				DbDataArray dba = new DbDataArray();
+				readMembers(in, dba, false);
+				result = dba;
+			} else if (name.contains("com.prtech.svarog")) {
+				JsonObject json = new JsonObject();
+				json.add(name, JsonParser.parseReader(in));
+				try {
+					Object complexObj = Class.forName(name).newInstance();
+					if (!(complexObj instanceof Jsonable))
+						throw new JsonParseException("Member object of type " + name + " is not Json enabled!");
+					if (isSimple)
+						((Jsonable) complexObj).fromSimpleJson(json);
+					else
+						((Jsonable) complexObj).fromJson(json);
+					result = complexObj;
+				} catch (ReflectiveOperationException e) {
+					throw new JsonParseException("Can't instantiate " + name, e);
+				}
+			} else
+				in.skipValue();
+		}
+		in.endObject();
+		return result;
+	}
+
+	private static Long readLong(JsonReader in) throws IOException {
+		if (in.peek() == JsonToken.NULL) {
+			in.nextNull();
+			return null;
+		}
+		return in.nextLong();
+	}
+
+	private static String readString(JsonReader in) throws IOException {
+		if (in.peek() == JsonToken.NULL) {
+			in.nextNull();
+			return null;
+		}
+		return in.nextString();
+	}
+
+	private static DateTime readDateTime(JsonReader in) throws IOException {
+		String value = readString(in);
+		return value != null ? new DateTime(value) : null;
+	}
+
+}
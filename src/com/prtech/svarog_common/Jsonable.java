@@ -13,7 +13,13 @@
  *******************************************************************************/
 package com.prtech.svarog_common;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
 /**
  * Interface for implementing JSON serialisation
@@ -86,6 +92,86 @@ public abstract class Jsonable {
 		return jsonIO.getMembersToJson("", this, null, true);
 	}
 
+	/**
+	 * Method to write the JSON of the implementing class instance directly to a
+	 * writer, without building a JsonObject. The output is the same as
+	 * toJson().toString()
+	 * 
+	 * @param writer The writer to which the JSON is written
+	 * @throws IOException If writing to the writer fails
+	 */
+	public void writeJson(Writer writer) throws IOException {
+		JsonStreamIO.write(writer, this, false);
+	}
+
+	/**
+	 * Method to write the JSON of the implementing class instance as the next
+	 * value of a JsonWriter, for example as an element of a streamed array
+	 * 
+	 * @param out The JsonWriter to which the JSON is written
+	 * @throws IOException If writing fails
+	 */
+	public void writeJson(JsonWriter out) throws IOException {
+		JsonStreamIO.write(out, this, false);
+	}
+
+	/**
+	 * Method to write the simple JSON of the implementing class instance directly
+	 * to a writer. The output is the same as toSimpleJson().toString()
+	 * 
+	 * @param writer The writer to which the JSON is written
+	 * @throws IOException If writing to the writer fails
+	 */
+	public void writeSimpleJson(Writer writer) throws IOException {
+		JsonStreamIO.write(writer, this, true);
+	}
+
+	/**
+	 * Method to write the simple JSON of the implementing class instance as the
+	 * next value of a JsonWriter
+	 * 
+	 * @param out The JsonWriter to which the JSON is written
+	 * @throws IOException If writing fails
+	 */
+	public void writeSimpleJson(JsonWriter out) throws IOException {
+		JsonStreamIO.write(out, this, true);
+	}
+
+	/**
+	 * Method to populate the Object from JSON read from a reader, without parsing
+	 * the JSON to a JsonObject first. The result is the same as fromJson
+	 * 
+	 * @param reader The reader from which the JSON is read
+	 * @return true if it was successful
+	 * @throws IOException If reading fails or the JSON is malformed
+	 */
+	public Boolean readJson(Reader reader) throws IOException {
+		return JsonStreamIO.read(reader, this, false);
+	}
+
+	/**
+	 * Method to populate the Object from the next value of a JsonReader
+	 * 
+	 * @param in The JsonReader from which the JSON is read
+	 * @return true if it was successful
+	 * @throws IOException If reading fails or the JSON is malformed
+	 */
+	public Boolean readJson(JsonReader in) throws IOException {
+		return JsonStreamIO.read(in, this, false);
+	}
+
+	/**
+	 * Method to populate the Object from simple JSON read from a reader. The
+	 * result is the same as fromSimpleJson
+	 * 
+	 * @param reader The reader from which the JSON is read
+	 * @return true if it was successful
+	 * @throws IOException If reading fails or the JSON is malformed
+	 */
+	public Boolean readSimpleJson(Reader reader) throws IOException {
+		return JsonStreamIO.read(reader, this, true);
+	}
+
 	public JsonObject toTabularJson(DbDataArray objTypeDbt, DbDataArray objTypeDbf, JsonObject exParams) {
 		return jsonIO.getTabularJson("", this, objTypeDbt, objTypeDbf, exParams, null);
 
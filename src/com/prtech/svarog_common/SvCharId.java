@@ -14,6 +14,7 @@
 package com.prtech.svarog_common;
 
 import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.prtech.svarog.svCONST;
 
@@ -44,6 +45,14 @@ public class SvCharId {
 			getHash(DbDataObject.DT_INSERT), getHash(DbDataObject.DT_DELETE), getHash(DbDataObject.OBJECT_ID),
 			getHash(DbDataObject.PARENT_ID), getHash(DbDataObject.OBJECT_TYPE), getHash(DbDataObject.STATUS),
 			getHash(DbDataObject.USER_ID) };
+	/**
+	 * Global table of canonical ids, mapped by the string from which the id is
+	 * looked up. The table is populated with the field names of all object types
+	 * when svarog loads its configuration, so the lookups of known fields via
+	 * {@link #toSvCharId(String)} don't allocate.
+	 */
+	private static final ConcurrentHashMap<String, SvCharId> internTable = new ConcurrentHashMap<>();
+
 	/**
 	 * The char array holding the value of the ID
 	 */
@@ -187,7 +196,66 @@ public class SvCharId {
 		return Arrays.equals(value, ((SvCharId) obj).value);
 	}
 
+	/**
+	 * Method to get an id from a string. If the string has been interned, the
+	 * canonical id is returned without any allocation, otherwise a new id is
+	 * created.
+	 * 
+	 * @param id The string on which the ID is based
+	 * @return The canonical SvCharId or a new instance
+	 */
 	public static SvCharId toSvCharId(String id) {
+		if (id != null) {
+			SvCharId canonical = internTable.get(id);
+			if (canonical != null)
+				return canonical;
+		}
 		return new SvCharId(id);
 	}
+
+	/**
+	 * Method to register a canonical id in the global interning table. The id
+	 * is registered under the string as well as under its upper and lower case
+	 * variants, as long as the variants resolve to the same id.
+	 * 
+	 * @param id The string on which the ID is based
+	 * @return The canonical SvCharId
+	 */
+	public static SvCharId intern(String id) {
+		if (id == null)
+			return new SvCharId(id);
+		SvCharId canonical = internTable.get(id);
+		if (canonical != null)
+			return canonical;
+		SvCharId newId = new SvCharId(id);
+		canonical = internTable.computeIfAbsent(newId.toString(), k -> newId);
+		internVariant(id, canonical);
+		internVariant(id.toLowerCase(), canonical);
+		return canonical;
+	}
+
+	/**
+	 * Method to register a variant of the string under which the canonical id
+	 * shall be found. Since the repo fields are recognised case sensitive, the
+	 * variant is mapped to the canonical id only if it resolves to the same type.
+	 * 
+	 * @param variant   The variant of the id string
+	 * @param canonical The canonical id
+	 */
+	private static void internVariant(String variant, SvCharId canonical) {
+		if (internTable.containsKey(variant))
+			return;
+		SvCharId variantId = new SvCharId(variant);
+		internTable.putIfAbsent(variant, variantId.type == canonical.type ? canonical : variantId);
+	}
+
+	/**
+	 * Method returning the number of strings registered in the global interning
+	 * table
+	 * 
+	 * @return the number of interned strings
+	 */
+	public static int internedCount() {
+		return internTable.size();
+	}
 }
\ No newline at end of file
@@ -0,0 +1,247 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *******************************************************************************/
+package com.prtech.svarog_common;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Compact map of field values of a typed DbDataObject. The values of the fields
+ * defined in the shared {@link SvFieldSchema} are stored in an Object[] indexed
+ * by slot, while any other (extended) field falls back to a LinkedHashMap which
+ * is created only when needed. The iteration order is the schema order followed
+ * by the insertion order of the extended fields, same as the LinkedHashMap
+ * created from the type template. As with the template, all schema fields are
+ * present with null value until removed.
+ *
+ * @author ristepejov
+ *
+ */
+public class SvFieldMap extends AbstractMap<SvCharId, Object> {
+	/**
+	 * Marker of a schema field which was removed from the map
+	 */
+	private static final Object ABSENT = new Object();
+
+	private final SvFieldSchema schema;
+	private final Object[] slots;
+	private LinkedHashMap<SvCharId, Object> extended;
+	private int removedCount = 0;
+
+	/**
+	 * Constructor creating a map with all schema fields set to null
+	 *
+	 * @param schema The shared schema of the object type
+	 */
+	public SvFieldMap(SvFieldSchema schema) {
+		this.schema = schema;
+		this.slots = new Object[schema.size()];
+	}
+
+	public SvFieldSchema getSchema() {
+		return schema;
+	}
+
+	@Override
+	public Object get(Object key) {
+		int slot = schema.slotOf(key);
+		if (slot >= 0) {
+			Object val = slots[slot];
+			return val == ABSENT ? null : val;
+		}
+		return extended != null ? extended.get(key) : null;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		int slot = schema.slotOf(key);
+		if (slot >= 0)
+			return slots[slot] != ABSENT;
+		return extended != null && extended.containsKey(key);
+	}
+
+	@Override
+	public Object put(SvCharId key, Object value) {
+		int slot = schema.slotOf(key);
+		if (slot >= 0) {
+			Object old = slots[slot];
+			slots[slot] = value;
+			if (old == ABSENT) {
+				removedCount--;
+				return null;
+			}
+			return old;
+		}
+		if (extended == null)
+			extended = new LinkedHashMap<>();
+		return extended.put(key, value);
+	}
+
+	@Override
+	public Object remove(Object key) {
+		int slot = schema.slotOf(key);
+		if (slot >= 0) {
+			Object old = slots[slot];
+			if (old == ABSENT)
+				return null;
+			slots[slot] = ABSENT;
+			removedCount++;
+			return old;
+		}
+		return extended != null ? extended.remove(key) : null;
+	}
+
+	@Override
+	public void clear() {
+		for (int i = 0; i < slots.length; i++)
+			slots[i] = ABSENT;
+		removedCount = slots.length;
+		if (extended != null)
+			extended.clear();
+	}
+
+	@Override
+	public int size() {
+		return slots.length - removedCount + (extended != null ? extended.size() : 0);
+	}
+
+	@Override
+	public Set<Map.Entry<SvCharId, Object>> entrySet() {
+		return new AbstractSet<Map.Entry<SvCharId, Object>>() {
+			@Override
+			public Iterator<Map.Entry<SvCharId, Object>> iterator() {
+				return new EntryIterator();
+			}
+
+			@Override
+			public int size() {
+				return SvFieldMap.this.size();
+			}
+		};
+	}
+
+	/**
+	 * Iterator over the schema slots followed by the extended fields
+	 */
+	private class EntryIterator implements Iterator<Map.Entry<SvCharId, Object>> {
+		int nextSlot = advance(0);
+		int lastSlot = -1;
+		Iterator<Map.Entry<SvCharId, Object>> extIterator = null;
+
+		private int advance(int from) {
+			while (from < slots.length && slots[from] == ABSENT)
+				from++;
+			return from;
+		}
+
+		private Iterator<Map.Entry<SvCharId, Object>> extIterator() {
+			if (extIterator == null && extended != null)
+				extIterator = extended.entrySet().iterator();
+			return extIterator;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (nextSlot < slots.length)
+				return true;
+			Iterator<Map.Entry<SvCharId, Object>> it = extIterator();
+			return it != null && it.hasNext();
+		}
+
+		@Override
+		public Map.Entry<SvCharId, Object> next() {
+			if (nextSlot < slots.length) {
+				lastSlot = nextSlot;
+				nextSlot = advance(nextSlot + 1);
+				return new SlotEntry(lastSlot);
+			}
+			lastSlot = -1;
+			Iterator<Map.Entry<SvCharId, Object>> it = extIterator();
+			if (it == null)
+				throw new NoSuchElementException();
+			return it.next();
+		}
+
+		@Override
+		public void remove() {
+			if (lastSlot >= 0) {
+				if (slots[lastSlot] == ABSENT)
+					throw new IllegalStateException();
+				slots[lastSlot] = ABSENT;
+				removedCount++;
+			} else if (extIterator != null)
+				extIterator.remove();
+			else
+				throw new IllegalStateException();
+		}
+	}
+
+	/**
+	 * Map entry backed by a schema slot
+	 */
+	private class SlotEntry implements Map.Entry<SvCharId, Object> {
+		private final int slot;
+
+		SlotEntry(int slot) {
+			this.slot = slot;
+		}
+
+		@Override
+		public SvCharId getKey() {
+			return schema.keyAt(slot);
+		}
+
+		@Override
+		public Object getValue() {
+			Object val = slots[slot];
+			return val == ABSENT ? null : val;
+		}
+
+		@Override
+		public Object setValue(Object value) {
+			Object old = slots[slot];
+			slots[slot] = value;
+			if (old == ABSENT) {
+				removedCount--;
+				return null;
+			}
+			return old;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Map.Entry))
+				return false;
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			Object value = getValue();
+			return getKey().equals(e.getKey()) && (value == null ? e.getValue() == null : value.equals(e.getValue()));
+		}
+
+		@Override
+		public int hashCode() {
+			Object value = getValue();
+			return getKey().hashCode() ^ (value == null ? 0 : value.hashCode());
+		}
+
+		@Override
+		public String toString() {
+			return getKey() + "=" + getValue();
+		}
+	}
+}
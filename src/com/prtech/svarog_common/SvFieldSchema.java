@@ -0,0 +1,105 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *******************************************************************************/
+package com.prtech.svarog_common;
+
+import java.util.Collection;
+
+/**
+ * Immutable schema of the fields of an object type, mapping each field id to a
+ * slot in the value array of a {@link SvFieldMap}. One schema instance is
+ * shared by all objects of the same type.
+ *
+ * @author ristepejov
+ *
+ */
+public final class SvFieldSchema {
+	/**
+	 * The field ids in the order of the slots
+	 */
+	private final SvCharId[] keys;
+	/**
+	 * Open addressing hash table of field ids
+	 */
+	private final SvCharId[] table;
+	/**
+	 * The slot index of the field id at the same position in the hash table
+	 */
+	private final int[] tableSlots;
+	private final int mask;
+
+	/**
+	 * Constructor to create a schema from an ordered list of field ids
+	 *
+	 * @param fieldIds The ordered collection of field ids. Duplicates are ignored
+	 */
+	public SvFieldSchema(Collection<SvCharId> fieldIds) {
+		int capacity = Integer.highestOneBit(Math.max(fieldIds.size(), 1) * 2 - 1) << 1;
+		table = new SvCharId[capacity];
+		tableSlots = new int[capacity];
+		mask = capacity - 1;
+		SvCharId[] tmpKeys = new SvCharId[fieldIds.size()];
+		int size = 0;
+		for (SvCharId fieldId : fieldIds) {
+			int pos = fieldId.hashCode() & mask;
+			while (table[pos] != null && !table[pos].equals(fieldId))
+				pos = (pos + 1) & mask;
+			if (table[pos] == null) {
+				table[pos] = fieldId;
+				tableSlots[pos] = size;
+				tmpKeys[size++] = fieldId;
+			}
+		}
+		if (size < tmpKeys.length) {
+			keys = new SvCharId[size];
+			System.arraycopy(tmpKeys, 0, keys, 0, size);
+		} else
+			keys = tmpKeys;
+	}
+
+	/**
+	 * Method to get the slot of a field
+	 *
+	 * @param key The field id
+	 * @return The slot index, or -1 if the field is not part of the schema
+	 */
+	public int slotOf(Object key) {
+		if (!(key instanceof SvCharId))
+			return -1;
+		int pos = key.hashCode() & mask;
+		SvCharId current;
+		while ((current = table[pos]) != null) {
+			if (current == key || current.equals(key))
+				return tableSlots[pos];
+			pos = (pos + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * Method to get the field id stored in a slot
+	 *
+	 * @param slot The slot index
+	 * @return The field id
+	 */
+	public SvCharId keyAt(int slot) {
+		return keys[slot];
+	}
+
+	/**
+	 * @return The number of fields in the schema
+	 */
+	public int size() {
+		return keys.length;
+	}
+}
@@ -13,11 +13,14 @@
  *******************************************************************************/
 package com.prtech.svarog_interfaces;
 
+import java.io.Reader;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
 import java.sql.Timestamp;
+import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
 
@@ -161,6 +164,59 @@ public interface ISvDatabaseIO {
 	 */
 	Map<Long, Long> repoSaveGetKeys(PreparedStatement repoInsert, Object insertRepoStruct) throws SQLException;
 
+	/**
+	 * If the handler is able to stream rows of new objects directly into the
+	 * repo and type tables (for example via the PostgreSQL COPY protocol)
+	 * instead of using JDBC insert batches. If true, svarog pre-allocates the
+	 * primary keys with getSequenceValues and loads the rows with copyIn.
+	 * 
+	 * @return True if the handler supports copyIn and getSequenceValues
+	 */
+	default boolean getSupportsCopy() {
+		return false;
+	}
+
+	/**
+	 * Method to allocate a block of values from a database sequence in a single
+	 * round trip. Used for pre-allocation of the primary keys of rows loaded by
+	 * copyIn.
+	 * 
+	 * @param conn
+	 *            The JDBC connection used to fetch the values
+	 * @param sequenceName
+	 *            The fully qualified name of the sequence
+	 * @param count
+	 *            The number of values to allocate
+	 * @return Array holding the allocated values
+	 * @throws SQLException
+	 */
+	default long[] getSequenceValues(Connection conn, String sequenceName, int count) throws SQLException {
+		throw new SQLFeatureNotSupportedException("Sequence blocks are not supported by " + getHandlerType());
+	}
+
+	/**
+	 * Method to stream rows into a table. The rows are in CSV format, with
+	 * comma as delimiter and double quote as quote character. An unquoted
+	 * empty value is NULL, while a quoted empty value is an empty string.
+	 * 
+	 * @param conn
+	 *            The JDBC connection used for loading the rows
+	 * @param schema
+	 *            The database schema in which the table resides
+	 * @param tableName
+	 *            The name of the table in which the rows shall be loaded
+	 * @param columns
+	 *            The list of columns, in the order of the values in each row
+	 * @param rows
+	 *            Reader providing the rows in CSV format
+	 * @return The number of loaded rows
+	 * @throws SQLException
+	 */
+	default long copyIn(Connection conn, String schema, String tableName, List<String> columns, Reader rows)
+			throws SQLException {
+		throw new SQLFeatureNotSupportedException("Copy is not supported by " + getHandlerType());
+	}
+
 	/**
 	 * Method to prepare array type specific to the database in case of
 	 * executing procedures under ther Rule Engine
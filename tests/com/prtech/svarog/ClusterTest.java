@@ -2,20 +2,35 @@ package com.prtech.svarog;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.joda.time.DateTime;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.zeromq.SocketType;
+import org.zeromq.ZContext;
+import org.zeromq.ZMQ;
 
 import com.prtech.svarog_common.DbDataArray;
 import com.prtech.svarog_common.DbDataObject;
@@ -560,7 +575,104 @@ public class ClusterTest {
 		}
 	}
 
-	
+	@Test
+	public void ClusterDirtyBatchEncodingTest() {
+		System.out.print("Test ClusterDirtyBatchEncodingTest");
+		List<long[]> runs = new ArrayList<long[]>();
+		runs.add(new long[] { 1005L, 12L, 1L << 40 });
+		runs.add(new long[] { 12L, 7L, 1005L });
+		runs.add(new long[] { 130L });
+		long[] ids = SvClusterDirtyPublisher.coalesce(runs);
+		assertArrayEquals(new long[] { 7L, 12L, 130L, 1005L, 1L << 40 }, ids);
+
+		byte[] msg = SvClusterDirtyPublisher.encode(svCONST.OBJECT_TYPE_ACL, ids, 1, ids.length);
+		// the small deltas must take less space than the plain longs
+		assertTrue(msg.length < 1 + 8 + 4 + 8 * (ids.length - 1));
+		ByteBuffer msgBuffer = ByteBuffer.wrap(msg);
+		assertEquals(SvCluster.NOTE_DIRTY_BATCH, msgBuffer.get());
+		assertEquals(svCONST.OBJECT_TYPE_ACL, msgBuffer.getLong());
+		assertArrayEquals(Arrays.copyOfRange(ids, 1, ids.length), SvClusterDirtyPublisher.decode(msgBuffer));
+		assertFalse(msgBuffer.hasRemaining());
+	}
+
+	@Test
+	public void ClusterCacheReplicaEncodingTest() {
+		System.out.print("Test ClusterCacheReplicaEncodingTest");
+		DbDataObject dbo = new DbDataObject(svCONST.OBJECT_TYPE_LABEL);
+		dbo.setObjectId(1234L);
+		dbo.setPkid(5678L);
+		dbo.setParentId(0L);
+		dbo.setDtInsert(new DateTime());
+		dbo.setDtDelete(SvConf.MAX_DATE);
+		dbo.setStatus(svCONST.STATUS_VALID);
+		dbo.setVal("LABEL_CODE", "test.replica");
+		dbo.setVal("LABEL_TEXT", "\u0422\u0435\u0441\u0442");
+		dbo.setVal("SORT_ORDER", 3);
+		dbo.setVal("IS_ACTIVE", true);
+		dbo.setVal("AMOUNT", new BigDecimal("12.50"));
+		dbo.setVal("NOTE", null);
+		try {
+			byte[] replica = SvClusterReplica.encode(dbo);
+			assertNotNull(replica);
+			DbDataObject copy = SvClusterReplica
+					.decode(new DataInputStream(new ByteArrayInputStream(replica)));
+			assertEquals(dbo.getObjectType(), copy.getObjectType());
+			assertEquals(dbo.getObjectId(), copy.getObjectId());
+			assertEquals(dbo.getPkid(), copy.getPkid());
+			assertEquals(dbo.getParentId(), copy.getParentId());
+			assertEquals(dbo.getDtInsert(), copy.getDtInsert());
+			assertEquals(dbo.getDtDelete(), copy.getDtDelete());
+			assertEquals(dbo.getStatus(), copy.getStatus());
+			assertEquals(dbo.getValuesMap(), copy.getValuesMap());
+			assertFalse(copy.getIs_dirty());
+		} catch (IOException e) {
+			e.printStackTrace();
+			fail("Replica can't be decoded");
+		}
+		// values which can't be serialized fall back to dirty notifications
+		dbo.setVal("PAYLOAD", new byte[] { 1, 2 });
+		assertNull(SvClusterReplica.encode(dbo));
+	}
+
+	@Test
+	public void ClusterCacheTombstoneTest() {
+		System.out.print("Test ClusterCacheTombstoneTest");
+		DbDataObject dbo = new DbDataObject(svCONST.OBJECT_TYPE_LABEL);
+		dbo.setObjectId(4321L);
+		dbo.setPkid(8765L);
+		dbo.setParentId(0L);
+		dbo.setDtInsert(new DateTime());
+		dbo.setDtDelete(SvConf.MAX_DATE);
+		dbo.setStatus(svCONST.STATUS_VALID);
+		dbo.setVal("LABEL_CODE", "test.tombstone");
+		try {
+			byte[] replica = SvClusterReplica.encode(dbo);
+			byte[] tombstone = SvClusterReplica.encodeTombstone(dbo.getObjectType(), dbo.getObjectId(),
+					dbo.getPkid(), new DateTime());
+			assertEquals(SvClusterReplica.getVersionKey(replica), SvClusterReplica.getVersionKey(tombstone));
+			DbDataObject replicaCopy = SvClusterReplica
+					.decode(new DataInputStream(new ByteArrayInputStream(replica)));
+			DbDataObject tombstoneCopy = SvClusterReplica
+					.decode(new DataInputStream(new ByteArrayInputStream(tombstone)));
+			assertFalse(SvClusterReplica.isTombstone(replicaCopy));
+			assertTrue(SvClusterReplica.isTombstone(tombstoneCopy));
+			assertEquals(dbo.getPkid(), tombstoneCopy.getPkid());
+
+			// the tombstone removes the installed version and a delayed replica
+			// of the deleted version is dropped
+			assertTrue(SvClusterReplica.install(replicaCopy));
+			assertNotNull(DbCache.getObject(dbo.getObjectId(), dbo.getObjectType()));
+			assertTrue(SvClusterReplica.install(tombstoneCopy));
+			assertNull(DbCache.getObject(dbo.getObjectId(), dbo.getObjectType()));
+			assertFalse(SvClusterReplica.install(SvClusterReplica
+					.decode(new DataInputStream(new ByteArrayInputStream(replica)))));
+			assertNull(DbCache.getObject(dbo.getObjectId(), dbo.getObjectType()));
+		} catch (IOException | SvException e) {
+			e.printStackTrace();
+			fail("Tombstone can't be installed");
+		}
+	}
+
 	@Test
 	public void ClusterDirtyArrayTest() {
 		System.out.print("Test ClusterDirtyObjectTest");
@@ -1157,6 +1269,172 @@ public class ClusterTest {
 		}
 	}
 
+	/**
+	 * Simulated cluster node used by the lock load test. The node is registered
+	 * on the coordinator and acknowledges the lock notifications, so the
+	 * coordinator waits for its acks as it does for any other node.
+	 */
+	static class SimulatedNode implements Runnable {
+		final long nodeId;
+		final ZContext context = new ZContext();
+		final ZMQ.Socket pubSock;
+		final ZMQ.Socket subSock;
+		final AtomicBoolean running = new AtomicBoolean(true);
+
+		SimulatedNode(long nodeId) {
+			this.nodeId = nodeId;
+			pubSock = context.createSocket(SocketType.PUB);
+			pubSock.connect("tcp://127.0.0.1:" + SvClusterNotifierProxy.subscriberPort);
+			subSock = context.createSocket(SocketType.SUB);
+			subSock.connect("tcp://127.0.0.1:" + SvClusterNotifierProxy.publisherPort);
+			subSock.subscribe(ZMQ.SUBSCRIPTION_ALL);
+			subSock.setReceiveTimeOut(100);
+			SvClusterServer.nodeHeartBeats.put(nodeId, DateTime.now());
+		}
+
+		@Override
+		public void run() {
+			while (running.get()) {
+				byte[] msg = subSock.recv(0);
+				if (msg != null && msg[0] == SvCluster.NOTE_LOCK_ACQUIRED) {
+					ByteBuffer ack = ByteBuffer.allocate(SvUtil.sizeof.BYTE + SvUtil.sizeof.LONG + SvUtil.sizeof.INT + 1);
+					ack.put(SvCluster.NOTE_ACK);
+					ack.putLong(nodeId);
+					ack.putInt(ByteBuffer.wrap(msg).getInt(SvUtil.sizeof.BYTE + SvUtil.sizeof.LONG));
+					ack.put(SvCluster.MSG_SUCCESS);
+					pubSock.send(ack.array(), 0);
+				}
+			}
+			SvClusterServer.nodeHeartBeats.remove(nodeId);
+			context.close();
+		}
+	}
+
+	/**
+	 * Method to acquire a lock on the coordinator on behalf of a node
+	 * 
+	 * @return The hash of the lock, 0 if the lock failed
+	 */
+	static int lockAs(long nodeId, String lockKey) throws SvException {
+		byte[] key = lockKey.getBytes(ZMQ.CHARSET);
+		ByteBuffer msgBuffer = ByteBuffer.allocate(SvUtil.sizeof.BYTE + SvUtil.sizeof.LONG + key.length);
+		msgBuffer.put(SvCluster.MSG_LOCK);
+		msgBuffer.putLong(nodeId);
+		msgBuffer.put(key);
+		byte[] msg = SvClusterClient.requestSingle(msgBuffer.array());
+		if (msg == null || msg[0] != SvCluster.MSG_SUCCESS)
+			return 0;
+		return ByteBuffer.wrap(msg).getInt(SvUtil.sizeof.BYTE + SvUtil.sizeof.LONG);
+	}
+
+	/**
+	 * Method to release a lock on the coordinator on behalf of a node
+	 * 
+	 * @return True if the lock was released
+	 */
+	static boolean releaseAs(long nodeId, int lockHash) throws SvException {
+		ByteBuffer msgBuffer = ByteBuffer.allocate(SvUtil.sizeof.BYTE + SvUtil.sizeof.LONG + SvUtil.sizeof.INT);
+		msgBuffer.put(SvCluster.MSG_LOCK_RELEASE);
+		msgBuffer.putLong(nodeId);
+		msgBuffer.putInt(lockHash);
+		byte[] msg = SvClusterClient.requestSingle(msgBuffer.array());
+		return msg != null && msg[0] == SvCluster.MSG_SUCCESS;
+	}
+
+	@Test
+	public void ClusterLockLoadTest() {
+		System.out.print("Test ClusterLockLoadTest");
+		final int simulatedNodes = 3;
+		final int threadsPerNode = 4;
+		final int opsPerThread = 100;
+		List<SimulatedNode> nodes = new ArrayList<SimulatedNode>();
+		ExecutorService executor = Executors.newFixedThreadPool((simulatedNodes + 1) * threadsPerNode);
+		try {
+			SvCore.initSvCore();
+			SvCluster.autoStartClient = false;
+			SvClusterServer.heartBeatTimeOut = 50000;
+			SvCluster.initCluster();
+			String ipAddressList = (String) SvCluster.getCoordinatorNode().getVal("local_ip");
+			SvClusterClient.initClient(ipAddressList);
+			SvClusterNotifierProxy.processNotification = true;
+			SvClusterNotifierClient.initClient(ipAddressList);
+			Thread clientThread = new Thread(new SvClusterClient());
+			clientThread.start();
+			Thread notifierThread = new Thread(new SvClusterNotifierClient());
+			notifierThread.start();
+
+			// the local node plus the simulated nodes
+			List<Long> nodeIds = new ArrayList<Long>();
+			nodeIds.add(SvClusterClient.nodeId);
+			for (int i = 0; i < simulatedNodes; i++) {
+				SimulatedNode node = new SimulatedNode(Long.MAX_VALUE - i);
+				nodes.add(node);
+				nodeIds.add(node.nodeId);
+				new Thread(node).start();
+			}
+			// some milis to start all threads properly and we don't hit the slow
+			// joiner syndrome
+			Thread.sleep(500);
+
+			List<Future<long[]>> results = new ArrayList<Future<long[]>>();
+			long startTime = System.nanoTime();
+			for (final Long nodeId : nodeIds)
+				for (int t = 0; t < threadsPerNode; t++) {
+					final String keyPrefix = "TEST_LOCK_LOAD_" + nodeId + "_" + t + "_";
+					results.add(executor.submit(() -> {
+						// latency of each lock and release, the last item holds the
+						// number of failures
+						long[] latencies = new long[2 * opsPerThread + 1];
+						for (int i = 0; i < opsPerThread; i++) {
+							long opStart = System.nanoTime();
+							int lockHash = lockAs(nodeId, keyPrefix + (i % 16));
+							latencies[2 * i] = System.nanoTime() - opStart;
+							opStart = System.nanoTime();
+							if (lockHash == 0 || !releaseAs(nodeId, lockHash))
+								latencies[latencies.length - 1]++;
+							latencies[2 * i + 1] = System.nanoTime() - opStart;
+						}
+						return latencies;
+					}));
+				}
+
+			List<Long> allLatencies = new ArrayList<Long>();
+			long failures = 0;
+			for (Future<long[]> result : results) {
+				long[] latencies = result.get();
+				for (int i = 0; i < latencies.length - 1; i++)
+					allLatencies.add(latencies[i]);
+				failures += latencies[latencies.length - 1];
+			}
+			long elapsed = System.nanoTime() - startTime;
+			Long[] sorted = allLatencies.toArray(new Long[0]);
+			Arrays.sort(sorted);
+			long p99 = sorted[(int) Math.ceil(sorted.length * 0.99) - 1];
+			System.out.println(" nodes:" + nodeIds.size() + ", lock ops:" + sorted.length + ", ops/sec:"
+					+ (sorted.length * TimeUnit.SECONDS.toNanos(1) / elapsed) + ", p99 latency ms:"
+					+ (p99 / 1000000.0));
+
+			if (failures > 0)
+				fail("Lock acquire/release failed " + failures + " times under load");
+			for (Long nodeId : nodeIds)
+				if (SvClusterServer.nodeLocks.containsKey(nodeId) && !SvClusterServer.nodeLocks.get(nodeId).isEmpty())
+					fail("Locks were present on the Cluster after the load test");
+
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail("Test raised exception");
+		} finally {
+			executor.shutdownNow();
+			for (SimulatedNode node : nodes)
+				node.running.set(false);
+			SvClusterServer.heartBeatTimeOut = SvConf.getHeartBeatTimeOut();
+			SvClusterNotifierClient.shutdown();
+			SvClusterClient.shutdown();
+			SvCluster.shutdown();
+			SvLock.clearLocks();
+		}
+	}
+
 	@Test
 	public void ClusterReentrantLockTest() {
 		try {
@@ -1,5 +1,6 @@
 package com.prtech.svarog;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
 import java.util.HashMap;
@@ -25,4 +26,23 @@ public class CodeListTest {
 			// TODO: handle exception
 		}
 	}
+
+	@Test
+	public void getCodeListSnapshot() throws SvException {
+		try (CodeList cl = new CodeList()) {
+			Long listId = cl.getCodeListObjectId("ORG_UNIT_TYPE");
+			if (listId == null)
+				fail("codelists fail");
+			HashMap<String, Long> hm = cl.getCodeListValues(listId);
+			// the returned maps are copies, changing them must not change the
+			// cached snapshot
+			hm.clear();
+			hm = cl.getCodeListValues(listId);
+			if (hm.size() < 1)
+				fail("codelists fail");
+			assertEquals(hm.size(), cl.getCodeListBase("ORG_UNIT_TYPE").size());
+			assertEquals(hm.size(), cl.getCodeList(listId, true).size());
+			assertEquals(hm.size(), cl.getCodeListId(SvConf.getDefaultLocale(), listId).size());
+		}
+	}
 }
@@ -0,0 +1,66 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *
+ *******************************************************************************/
+package com.prtech.svarog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.prtech.svarog_common.DbDataArray;
+import com.prtech.svarog_common.DbDataObject;
+
+public class DbCacheTableTest {
+
+	private static DbDataArray children(Long parentId, Long... objectIds) {
+		DbDataArray children = new DbDataArray();
+		for (Long objectId : objectIds) {
+			DbDataObject dbo = new DbDataObject(svCONST.OBJECT_TYPE_CODE);
+			dbo.setObjectId(objectId);
+			dbo.setPkid(objectId);
+			dbo.setParentId(parentId);
+			dbo.setIsDirty(false);
+			children.addDataItem(dbo);
+		}
+		return children;
+	}
+
+	@Test
+	public void testRemoveObjects() {
+		DbCacheTable tbl = new DbCacheTable(new String[] { Sv.CODE_VALUE }, Sv.PARENT);
+		tbl.addArrayByParentId(children(1L, 10L, 11L), svCONST.OBJECT_TYPE_CODE, 1L);
+		tbl.addArrayByParentId(children(2L, 20L), svCONST.OBJECT_TYPE_CODE, 2L);
+		tbl.addArrayByParentId(children(3L, 30L), svCONST.OBJECT_TYPE_CODE, 3L);
+
+		// the removal of a batch shall have the same effect as removing the
+		// objects one by one
+		tbl.removeObjects(Arrays.asList(10L, 20L, 99L));
+		tbl.removeObject(30L, null);
+		assertNull(tbl.getObject(10L));
+		assertNull(tbl.getObject(20L));
+		assertNotNull(tbl.getObject(11L));
+		assertNull(tbl.getObjectsByParentId(1L));
+		assertNull(tbl.getObjectsByParentId(2L));
+		assertNull(tbl.getObjectsByParentId(3L));
+
+		tbl.addArrayByParentId(children(1L, 11L), svCONST.OBJECT_TYPE_CODE, 1L);
+		tbl.removeObjects(Arrays.asList(99L));
+		assertEquals("Objects which are not cached have no parent list to remove", 1,
+				tbl.getObjectsByParentId(1L).size());
+	}
+}
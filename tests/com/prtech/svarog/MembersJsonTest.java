@@ -16,17 +16,24 @@ package com.prtech.svarog;
 
 import static org.junit.Assert.*;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Locale;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
+import org.joda.time.DateTime;
 import org.junit.Test;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import com.prtech.svarog_common.SvCharId;
 import com.prtech.svarog_common.DbDataArray;
 import com.prtech.svarog_common.DbDataObject;
@@ -185,4 +192,86 @@ public class MembersJsonTest {
 		}
 
 	}
+
+	private DbDataArray getStreamTestArray() {
+		DbDataArray dba = new DbDataArray();
+		DateTime dt = new DateTime("2020-02-03T04:05:06.789+01:00");
+		for (int i = 0; i < 5; i++) {
+			DbDataObject dbo = new DbDataObject(svCONST.OBJECT_TYPE_NOTES);
+			dbo.setObjectId((long) i + 1);
+			dbo.setPkid((long) i + 10);
+			dbo.setParentId(1L);
+			dbo.setDtInsert(dt);
+			dbo.setVal("NOTE_NAME", "NOTE_" + i);
+			dbo.setVal("NOTE_TEXT", "Some \"quoted\" <note>\ntext");
+			dbo.setVal("SORT_ORDER", i);
+			dbo.setVal("AMOUNT", new BigDecimal("12.50"));
+			dbo.setVal("RATIO", 0.5 * i);
+			dbo.setVal("IS_ACTIVE", i % 2 == 0);
+			dbo.setVal("VALID_FROM", dt.plusDays(i));
+			dbo.setVal("UNIT", TimeUnit.SECONDS);
+			dbo.setVal("BUFFER", new StringBuilder("buffer"));
+			dbo.setVal("EMPTY", null);
+			if (i == 0) {
+				DbDataObject inner = new DbDataObject(svCONST.OBJECT_TYPE_NOTES);
+				inner.setVal("NOTE_NAME", "INNER");
+				dbo.setVal("INNER_OBJECT", inner);
+			}
+			dba.addDataItem(dbo);
+		}
+		dba.rebuildIndex("NOTE_NAME");
+		return dba;
+	}
+
+	@Test
+	public void testStreamingSerialisation() throws IOException {
+		DbDataArray dba = getStreamTestArray();
+		StringWriter writer = new StringWriter();
+		dba.writeJson(writer);
+		assertEquals(dba.toJson().toString(), writer.toString());
+
+		writer = new StringWriter();
+		dba.writeSimpleJson(writer);
+		assertEquals(dba.toSimpleJson().toString(), writer.toString());
+
+		DbDataObject dbo = dba.get(0);
+		writer = new StringWriter();
+		dbo.writeJson(writer);
+		assertEquals(dbo.toJson().toString(), writer.toString());
+
+		writer = new StringWriter();
+		dbo.writeSimpleJson(writer);
+		assertEquals(dbo.toSimpleJson().toString(), writer.toString());
+	}
+
+	@Test
+	public void testStreamingDeserialisation() throws IOException {
+		DbDataArray dba = getStreamTestArray();
+		String json = dba.toJson().toString();
+
+		DbDataArray legacy = new DbDataArray();
+		assertTrue(legacy.fromJson(JsonParser.parseString(json).getAsJsonObject()));
+		DbDataArray streamed = new DbDataArray();
+		assertTrue(streamed.readJson(new StringReader(json)));
+		assertEquals(legacy.toJson().toString(), streamed.toJson().toString());
+		assertEquals(dba.size(), streamed.size());
+		assertEquals("INNER", ((DbDataObject) streamed.get(0).getVal("INNER_OBJECT")).getVal("NOTE_NAME"));
+
+		// the legacy simple deserialisation fails on an indexed array
+		json = new DbDataArray(dba.getItems()).toSimpleJson().toString();
+		legacy = new DbDataArray();
+		assertTrue(legacy.fromSimpleJson(JsonParser.parseString(json).getAsJsonObject()));
+		streamed = new DbDataArray();
+		assertTrue(streamed.readSimpleJson(new StringReader(json)));
+		assertEquals(legacy.toJson().toString(), streamed.toJson().toString());
+
+		json = dba.get(1).toJson().toString();
+		DbDataObject legacyDbo = new DbDataObject();
+		assertTrue(legacyDbo.fromJson(JsonParser.parseString(json).getAsJsonObject()));
+		DbDataObject streamedDbo = new DbDataObject();
+		assertTrue(streamedDbo.readJson(new StringReader(json)));
+		assertEquals(legacyDbo.toJson().toString(), streamedDbo.toJson().toString());
+		assertEquals(new BigDecimal("12.50"), streamedDbo.getVal("AMOUNT"));
+		assertEquals(1L, streamedDbo.getVal("SORT_ORDER"));
+	}
 }
@@ -0,0 +1,126 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *
+ *******************************************************************************/
+package com.prtech.svarog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import com.prtech.svarog.SvCore.SvAccess;
+import com.prtech.svarog_common.DbDataArray;
+import com.prtech.svarog_common.DbDataObject;
+
+public class SvAclSnapshotTest {
+
+	static final Long TEST_USER_ID = -1000L;
+
+	private static DbDataObject acl(String label, Long objectId, Long objectType, String unqConfig,
+			SvAccess access) {
+		DbDataObject dbo = new DbDataObject(svCONST.OBJECT_TYPE_ACL);
+		dbo.setVal(Sv.LABEL_CODE, label);
+		dbo.setVal(Sv.ACL_OBJECT_ID, objectId);
+		dbo.setVal(Sv.ACL_OBJECT_TYPE, objectType);
+		dbo.setVal(Sv.ACL_CONFIG_UNQ, unqConfig);
+		dbo.setVal(Sv.ACCESS_TYPE, access);
+		return dbo;
+	}
+
+	@Test
+	public void testCompile() {
+		DbDataArray acls = new DbDataArray();
+		acls.addDataItem(acl("TEST.READ", 5L, svCONST.OBJECT_TYPE_TABLE, null, SvAccess.READ));
+		acls.addDataItem(acl("TEST.MODIFY", 5L, svCONST.OBJECT_TYPE_TABLE, null, SvAccess.MODIFY));
+		acls.addDataItem(acl("TEST.CFG", 5L, svCONST.OBJECT_TYPE_TABLE, "CFG1", SvAccess.READ));
+		SvAclSnapshot snapshot = SvAclSnapshot.compile(acls, SvAclSnapshot.getGeneration());
+
+		SvAclKey key = new SvAclKey(acls.get(0));
+		assertEquals(key, new SvAclKey(acls.get(2)));
+		// the highest access per key and config is kept
+		assertEquals(2, snapshot.getAcls(key).size());
+		assertEquals("TEST.MODIFY", snapshot.getAcls(key).get(null).getVal(Sv.LABEL_CODE));
+		assertTrue(snapshot.hasAccess(key, null, SvAccess.MODIFY));
+		assertTrue(snapshot.hasAccess(key, "CFG1", SvAccess.READ));
+		assertFalse(snapshot.hasAccess(key, "CFG1", SvAccess.MODIFY));
+		assertFalse(snapshot.hasAccess(key, "CFG2", SvAccess.READ));
+		assertNull(snapshot.getAcls(new SvAclKey(acl("X", 6L, svCONST.OBJECT_TYPE_TABLE, null, SvAccess.READ))));
+		assertEquals(3, snapshot.getAclsByLabel().size());
+		try {
+			snapshot.getAcls(key).remove(null);
+			fail("The snapshot shall be immutable");
+		} catch (UnsupportedOperationException e) {
+		}
+	}
+
+	@Test
+	public void testInvalidation() {
+		DbDataArray acls = new DbDataArray();
+		acls.addDataItem(acl("TEST.READ", 5L, svCONST.OBJECT_TYPE_TABLE, null, SvAccess.READ));
+
+		SvAclSnapshot.put(TEST_USER_ID, SvAclSnapshot.compile(acls, SvAclSnapshot.getGeneration()));
+		assertNotNull(SvAclSnapshot.get(TEST_USER_ID));
+		SvAclSnapshot.invalidate(TEST_USER_ID);
+		assertNull(SvAclSnapshot.get(TEST_USER_ID));
+
+		// a snapshot compiled before a change of the security objects is not
+		// published
+		long generation = SvAclSnapshot.getGeneration();
+		SvAclSnapshot.invalidateAll();
+		SvAclSnapshot.put(TEST_USER_ID, SvAclSnapshot.compile(acls, generation));
+		assertNull(SvAclSnapshot.get(TEST_USER_ID));
+	}
+
+	@Test
+	public void testUserInvalidation() {
+		DbDataArray acls = new DbDataArray();
+		acls.addDataItem(acl("TEST.READ", 5L, svCONST.OBJECT_TYPE_TABLE, null, SvAccess.READ));
+		Long otherUserId = TEST_USER_ID - 1;
+
+		// a snapshot compiled before the user group membership of the user
+		// changed is not published, while the other users are not affected
+		long generation = SvAclSnapshot.getGeneration();
+		SvAclSnapshot.put(otherUserId, SvAclSnapshot.compile(acls, generation));
+		SvAclSnapshot.invalidate(TEST_USER_ID);
+		SvAclSnapshot.put(TEST_USER_ID, SvAclSnapshot.compile(acls, generation));
+		assertNull(SvAclSnapshot.get(TEST_USER_ID));
+		assertNotNull(SvAclSnapshot.get(otherUserId));
+
+		SvAclSnapshot.put(TEST_USER_ID, SvAclSnapshot.compile(acls, SvAclSnapshot.getGeneration()));
+		assertNotNull(SvAclSnapshot.get(TEST_USER_ID));
+		SvAclSnapshot.invalidateAll();
+	}
+
+	@Test
+	public void testUncachedLinkNotification() throws SvException {
+		DbDataArray acls = new DbDataArray();
+		acls.addDataItem(acl("TEST.READ", 5L, svCONST.OBJECT_TYPE_TABLE, null, SvAccess.READ));
+		SvAclSnapshot.put(TEST_USER_ID, SvAclSnapshot.compile(acls, SvAclSnapshot.getGeneration()));
+
+		Boolean isCfgInDb = SvCore.isCfgInDb;
+		try {
+			SvCore.isCfgInDb = true;
+			// a dirty notification of a link which isn't cached on this node
+			// may change the user groups of any user
+			SvWriter.cacheCleanup(TEST_USER_ID, svCONST.OBJECT_TYPE_LINK);
+		} finally {
+			SvCore.isCfgInDb = isCfgInDb;
+		}
+		assertNull(SvAclSnapshot.get(TEST_USER_ID));
+	}
+}
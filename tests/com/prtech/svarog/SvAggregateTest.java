@@ -0,0 +1,68 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *
+ *******************************************************************************/
+package com.prtech.svarog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.prtech.svarog_common.DbDataArray;
+import com.prtech.svarog_common.DbDataObject;
+
+public class SvAggregateTest {
+
+	@Test
+	public void testSQL() throws SvException {
+		SvAggregate aggregate = new SvAggregate().groupBy("status").count("cnt").max("dt_insert", "last_insert");
+		assertEquals(Arrays.asList(Sv.OBJECT_ID, "STATUS", "DT_INSERT"), aggregate.getSourceFields());
+		assertEquals("SELECT AGG_STATUS,COUNT(*) CNT,MAX(AGG_DT_INSERT) LAST_INSERT FROM (SRC) AGG_SRC"
+				+ " GROUP BY AGG_STATUS ORDER BY AGG_STATUS", aggregate.getSQL("SRC"));
+
+		// without group by fields a single row is returned
+		assertEquals("SELECT SUM(AGG_PKID) TOTAL FROM (SRC) AGG_SRC",
+				new SvAggregate().sum("PKID", "TOTAL").getSQL("SRC"));
+	}
+
+	@Test
+	public void testInvalidNames() throws SvException {
+		for (String alias : new String[] { "STATUS", "CNT", "1CNT", "CNT; DROP", null }) {
+			try {
+				new SvAggregate().groupBy("STATUS").count("CNT").count(alias);
+				fail("Invalid alias was accepted: " + alias);
+			} catch (SvException e) {
+				assertEquals("system.error.aggregate_alias_err", e.getLabelCode());
+			}
+		}
+	}
+
+	@Test
+	public void testCountByStatus() {
+		try (SvReader svr = new SvReader()) {
+			DbDataArray users = svr.getObjectsByTypeId(svCONST.OBJECT_TYPE_USER, null, 0, 0);
+			DbDataArray groups = svr.getAggregates(null, svCONST.OBJECT_TYPE_USER, null,
+					new SvAggregate().groupBy(Sv.STATUS).count("CNT"));
+			long count = 0;
+			for (DbDataObject group : groups.getItems())
+				count += ((Number) group.getVal("CNT")).longValue();
+			assertEquals(users.size(), count);
+		} catch (SvException e) {
+			e.printStackTrace();
+			fail("Exception was thrown");
+		}
+	}
+}
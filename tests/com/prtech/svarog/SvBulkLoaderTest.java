@@ -0,0 +1,176 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *
+ *******************************************************************************/
+package com.prtech.svarog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.prtech.svarog_common.DbDataArray;
+import com.prtech.svarog_common.DbDataObject;
+
+public class SvBulkLoaderTest {
+
+	static final Long PARENT_ID = 51L;
+
+	@BeforeClass
+	public static void deleteRecs() throws SQLException {
+		String sql = "DELETE FROM " + SvConf.getDefaultSchema() + "." + SvConf.getMasterRepo()
+				+ "_SYS_PARAMS WHERE param_name like 'BLST%'";
+		try (SvReader svr = new SvReader(); Statement st = svr.dbGetConn().createStatement()) {
+			st.execute(sql);
+			svr.dbCommit();
+		} catch (SvException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private DbDataArray getParams() throws SvException {
+		DbDataArray params = new DbDataArray();
+		for (DbDataObject dbo : SvarogInstall.getLocaleList().getItems()) {
+			DbDataObject dbParamValue = new DbDataObject(svCONST.OBJECT_TYPE_SYS_PARAMS);
+			dbParamValue.setVal(Sv.PARAM_NAME, "BLST" + dbo.getVal("LOCALE_ID").toString());
+			dbParamValue.setVal(Sv.PARAM_VALUE, dbo.getVal("COUNTRY").toString());
+			dbParamValue.setVal(Sv.PARAM_TYPE, String.class);
+			dbParamValue.setParentId(PARENT_ID);
+			params.addDataItem(dbParamValue);
+		}
+		return params;
+	}
+
+	private int countParams(SvReader svr) throws SvException {
+		DbDataArray dba = svr.getObjectsByParentId(PARENT_ID, svCONST.OBJECT_TYPE_SYS_PARAMS, null, null, null);
+		int resultSize = 0;
+		for (DbDataObject dbo : dba.getItems())
+			if (dbo.getAsString(Sv.PARAM_NAME).startsWith("BLST"))
+				resultSize++;
+		return resultSize;
+	}
+
+	@Test
+	public void testBulkLoad() {
+		DbDataArray params = null;
+		try (SvWriter sv = new SvWriter();
+				SvWriter sv1 = new SvWriter();
+				SvWriter sv2 = new SvWriter();
+				SvReader svr = new SvReader();) {
+			params = getParams();
+			ArrayList<SvWriter> svs = new ArrayList<SvWriter>();
+			svs.add(sv);
+			svs.add(sv1);
+			svs.add(sv2);
+			try (SvBulkLoader loader = new SvBulkLoader(svs)) {
+				loader.setBatchSize(50);
+				loader.setCommitInterval(svCONST.OBJECT_TYPE_SYS_PARAMS, 200);
+				long saved = loader.load(params.getItems().stream());
+				assertEquals(params.size(), saved);
+				assertEquals(params.size(), loader.getCommittedCount());
+			}
+			assertEquals(params.size(), countParams(svr));
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail("test failed because of exception");
+		} finally {
+			deleteRecsQuietly();
+		}
+		if (SvConnTracker.hasTrackedConnections(true, false))
+			fail("You have a connection leak, you dirty animal!");
+	}
+
+	@Test
+	public void testBulkLoadRollback() {
+		try (SvWriter sv = new SvWriter(); SvWriter sv1 = new SvWriter(); SvReader svr = new SvReader();) {
+			DbDataArray params = getParams();
+			// the parameter name is mandatory, so the batch of the last object
+			// fails after the other writers have already saved their batches
+			params.getItems().get(params.size() - 1).setVal(Sv.PARAM_NAME, null);
+			ArrayList<SvWriter> svs = new ArrayList<SvWriter>();
+			svs.add(sv);
+			svs.add(sv1);
+			try (SvBulkLoader loader = new SvBulkLoader(svs)) {
+				loader.setBatchSize(20);
+				loader.load(params.getItems().iterator());
+				fail("The load shall fail on the invalid object");
+			} catch (SvException e) {
+				// expected
+			}
+			assertEquals("All writers shall be rolled back", 0, countParams(svr));
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail("test failed because of exception");
+		} finally {
+			deleteRecsQuietly();
+		}
+		if (SvConnTracker.hasTrackedConnections(true, false))
+			fail("You have a connection leak, you dirty animal!");
+	}
+
+	@Test
+	public void testBulkLoadSourceFailure() {
+		try (SvWriter sv = new SvWriter(); SvWriter sv1 = new SvWriter(); SvReader svr = new SvReader();) {
+			DbDataArray params = getParams();
+			Iterator<DbDataObject> it = params.getItems().iterator();
+			// the source fails after the writers have saved some of the batches
+			Iterator<DbDataObject> failing = new Iterator<DbDataObject>() {
+				int count = 0;
+
+				@Override
+				public boolean hasNext() {
+					return true;
+				}
+
+				@Override
+				public DbDataObject next() {
+					if (++count > params.size() / 2 || !it.hasNext())
+						throw new IllegalStateException("Source failed");
+					return it.next();
+				}
+			};
+			ArrayList<SvWriter> svs = new ArrayList<SvWriter>();
+			svs.add(sv);
+			svs.add(sv1);
+			try (SvBulkLoader loader = new SvBulkLoader(svs)) {
+				loader.setBatchSize(5);
+				loader.load(failing);
+				fail("The load shall fail on the failed source");
+			} catch (SvException e) {
+				assertEquals("system.err.bulk_load_failed", e.getLabelCode());
+			}
+			assertEquals("All writers shall be rolled back", 0, countParams(svr));
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail("test failed because of exception");
+		} finally {
+			deleteRecsQuietly();
+		}
+		if (SvConnTracker.hasTrackedConnections(true, false))
+			fail("You have a connection leak, you dirty animal!");
+	}
+
+	private static void deleteRecsQuietly() {
+		try {
+			deleteRecs();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,100 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *
+ *******************************************************************************/
+package com.prtech.svarog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.Test;
+
+import com.prtech.svarog_common.DbDataObject;
+import com.prtech.svarog_common.SvCharId;
+
+public class SvCharIdTest {
+
+	static final int LOOKUPS = 100000;
+
+	@Test
+	public void testInternCanonical() {
+		SvCharId canonical = SvCharId.intern("TEST_INTERN_FIELD");
+		assertSame(canonical, SvCharId.toSvCharId("TEST_INTERN_FIELD"));
+		assertSame(canonical, SvCharId.toSvCharId("test_intern_field"));
+		assertSame(canonical, SvCharId.intern("test_intern_field"));
+		assertEquals(canonical, new SvCharId("Test_Intern_Field"));
+	}
+
+	@Test
+	public void testInternRepoField() {
+		// repo fields are recognised case sensitive, the lower case variant
+		// must not resolve to the repo field
+		SvCharId.intern("PKID");
+		DbDataObject dbo = new DbDataObject();
+		dbo.setPkid(5L);
+		assertEquals(5L, dbo.getVal("PKID", true));
+		assertEquals(null, dbo.getVal("pkid", true));
+	}
+
+	@Test
+	public void testGetSetVal() {
+		SvCharId.intern("TEST_ALLOC_FIELD");
+		DbDataObject dbo = new DbDataObject();
+		dbo.setVal("test_alloc_field", 1L);
+		assertEquals(1L, dbo.getVal("TEST_ALLOC_FIELD"));
+		assertEquals(1L, dbo.getVal(new SvCharId("TEST_ALLOC_FIELD")));
+	}
+
+	@Test
+	public void testLookupAllocation() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) bean;
+		assumeTrue(mx.isThreadAllocatedMemorySupported());
+		mx.setThreadAllocatedMemoryEnabled(true);
+
+		SvCharId.intern("TEST_INTERNED_LOOKUP");
+		DbDataObject dbo = new DbDataObject();
+		dbo.setVal("TEST_INTERNED_LOOKUP", Boolean.TRUE);
+		dbo.setVal("TEST_PLAIN_LOOKUP", Boolean.TRUE);
+		long threadId = Thread.currentThread().getId();
+
+		// warm up both paths
+		long found = lookup(dbo, "TEST_INTERNED_LOOKUP") + lookup(dbo, "TEST_PLAIN_LOOKUP");
+
+		long start = mx.getThreadAllocatedBytes(threadId);
+		found += lookup(dbo, "TEST_PLAIN_LOOKUP");
+		long plainBytes = mx.getThreadAllocatedBytes(threadId) - start;
+
+		start = mx.getThreadAllocatedBytes(threadId);
+		found += lookup(dbo, "TEST_INTERNED_LOOKUP");
+		long internedBytes = mx.getThreadAllocatedBytes(threadId) - start;
+
+		assertEquals(4L * LOOKUPS, found);
+		System.out.println("Bytes per lookup, plain:" + ((double) plainBytes / LOOKUPS) + ", interned:"
+				+ ((double) internedBytes / LOOKUPS));
+		assertTrue("Interned lookups shall allocate less than plain lookups", internedBytes * 10 < plainBytes);
+	}
+
+	private long lookup(DbDataObject dbo, String key) {
+		long found = 0;
+		for (int i = 0; i < LOOKUPS; i++)
+			if (dbo.getVal(key) != null)
+				found++;
+		return found;
+	}
+}
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *
+ *******************************************************************************/
+package com.prtech.svarog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import com.prtech.svarog_common.DbDataArray;
+import com.prtech.svarog_common.DbDataObject;
+
+public class SvCodeListSnapshotTest {
+
+	private static DbDataArray codes(Long listId, Long firstId, String... values) {
+		DbDataArray codes = new DbDataArray();
+		long id = firstId;
+		for (String value : values) {
+			DbDataObject code = new DbDataObject(svCONST.OBJECT_TYPE_CODE);
+			code.setObjectId(id++);
+			code.setParentId(listId);
+			code.setVal(Sv.CODE_VALUE, value);
+			code.setVal(Sv.LABEL_CODE, "label." + value);
+			codes.addDataItem(code);
+		}
+		return codes;
+	}
+
+	@Test
+	public void testInvalidation() {
+		SvCodeListSnapshot first = SvCodeListSnapshot.compile(codes(-10L, -100L, "A", "B"),
+				SvCodeListSnapshot.getGeneration());
+		SvCodeListSnapshot.put(-10L, first);
+		SvCodeListSnapshot second = SvCodeListSnapshot.compile(codes(-20L, -200L, "C"),
+				SvCodeListSnapshot.getGeneration());
+		SvCodeListSnapshot.put(-20L, second);
+
+		SvCodeListSnapshot.invalidate(-100L, -10L);
+		assertNull(SvCodeListSnapshot.get(-10L));
+		assertSame("A change of a code must not drop the other lists", second, SvCodeListSnapshot.get(-20L));
+
+		SvCodeListSnapshot.invalidate(-200L, null);
+		assertNull("The list holding the code is found without parent", SvCodeListSnapshot.get(-20L));
+	}
+
+	@Test
+	public void testPublishRace() {
+		long generation = SvCodeListSnapshot.getGeneration();
+		SvCodeListSnapshot snapshot = SvCodeListSnapshot.compile(codes(-30L, -300L, "D"), generation);
+		// a code saved while the snapshot was compiled
+		SvCodeListSnapshot.invalidate(-300L, -30L);
+		SvCodeListSnapshot.put(-30L, snapshot);
+		assertNull("A snapshot compiled before a change must not be published", SvCodeListSnapshot.get(-30L));
+
+		snapshot = SvCodeListSnapshot.compile(codes(-30L, -300L, "D"), SvCodeListSnapshot.getGeneration());
+		SvCodeListSnapshot.put(-30L, snapshot);
+		assertNotNull(SvCodeListSnapshot.get(-30L));
+		SvCodeListSnapshot.invalidate(-300L, -30L);
+	}
+
+	@Test
+	public void testReadOnlyCodes() {
+		DbDataArray codes = codes(-40L, -400L, "E");
+		SvCodeListSnapshot snapshot = SvCodeListSnapshot.compile(codes, SvCodeListSnapshot.getGeneration());
+		DbDataObject code = snapshot.getCodes().get(0);
+		code.setVal(Sv.CODE_VALUE, "F");
+		assertEquals("The codes of the snapshot must be read-only", "E", code.getVal(Sv.CODE_VALUE));
+		assertEquals(Long.valueOf(-400L), snapshot.getIdsByValue().get("E"));
+		codes.get(0).setVal(Sv.CODE_VALUE, "G");
+		assertEquals("The snapshot must not share the loaded codes", "E", code.getVal(Sv.CODE_VALUE));
+	}
+
+	@Test
+	public void testInvalidationOnCommit() throws SvException {
+		try (SvReader svr = new SvReader()) {
+			svr.dbSetAutoCommit(false);
+			SvCodeListSnapshot.invalidateOnCommit(svr, -500L, -50L);
+			// a concurrent reader loads the old codes before the change is
+			// committed
+			SvCodeListSnapshot snapshot = SvCodeListSnapshot.compile(codes(-50L, -500L, "H"),
+					SvCodeListSnapshot.getGeneration());
+			SvCodeListSnapshot.put(-50L, snapshot);
+			assertNotNull(SvCodeListSnapshot.get(-50L));
+			svr.dbCommit();
+			assertNull("The snapshot loaded before the commit shall be dropped", SvCodeListSnapshot.get(-50L));
+		}
+	}
+}
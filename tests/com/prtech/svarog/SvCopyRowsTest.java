@@ -0,0 +1,36 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *
+ *******************************************************************************/
+package com.prtech.svarog;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+
+import org.junit.Test;
+
+public class SvCopyRowsTest {
+
+	@Test
+	public void testCsvEncoding() {
+		Timestamp ts = Timestamp.valueOf("2020-01-02 03:04:05.678");
+		SvCopyRows rows = new SvCopyRows(2, new long[] { 10L, 11L }, new long[] { 20L, 21L });
+		rows.add(rows.pkids[0]).add(null).add("").add("say \"hi\", bye\nnext").add(true).endRow();
+		rows.add(new BigDecimal("1E+3")).add(ts).add(null).endRow();
+		assertEquals(2, rows.getRowCount());
+		assertEquals("10,,\"\",\"say \"\"hi\"\", bye\nnext\",true\n1000,2020-01-02 03:04:05.678,\n", rows.toString());
+		assertEquals(21L, rows.objectIds[1]);
+	}
+}
@@ -1,12 +1,21 @@
 package com.prtech.svarog;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+
 import org.joda.time.DateTime;
 import org.junit.Test;
 
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.prtech.svarog.SvConf.SvDbType;
 import com.prtech.svarog_common.DbDataArray;
 import com.prtech.svarog_common.DbDataObject;
 import com.prtech.svarog_common.DbQueryExpression;
@@ -14,12 +23,134 @@ import com.prtech.svarog_common.DbQueryObject;
 import com.prtech.svarog_common.DbQueryObject.DbJoinType;
 import com.prtech.svarog_common.DbQueryObject.LinkType;
 import com.prtech.svarog_common.DbSearchCriterion;
+import com.prtech.svarog_common.DbSearchExpression;
 import com.prtech.svarog_common.DbSearchCriterion.DbCompareOperand;
 import com.prtech.svarog_common.DboFactory;
 import com.prtech.svarog_common.DboUnderground;
 
 public class SvCoreTest {
 
+	@Test
+	public void sqlShapeTest() throws SvException {
+		DbSearchExpression search1 = new DbSearchExpression()
+				.addDbSearchItem(new DbSearchCriterion("USER_NAME", DbCompareOperand.EQUAL, "ADMIN"))
+				.addDbSearchItem(new DbSearchCriterion("OBJECT_ID", DbCompareOperand.BETWEEN, 1L, 10L));
+		DbSearchExpression search2 = new DbSearchExpression()
+				.addDbSearchItem(new DbSearchCriterion("USER_NAME", DbCompareOperand.EQUAL, "USER1"))
+				.addDbSearchItem(new DbSearchCriterion("OBJECT_ID", DbCompareOperand.BETWEEN, 5L, 50L));
+		DbSearchExpression search3 = new DbSearchExpression()
+				.addDbSearchItem(new DbSearchCriterion("USER_NAME", DbCompareOperand.LIKE, "ADMIN"))
+				.addDbSearchItem(new DbSearchCriterion("OBJECT_ID", DbCompareOperand.BETWEEN, 1L, 10L));
+
+		StringBuilder shape1 = new StringBuilder();
+		StringBuilder shape2 = new StringBuilder();
+		StringBuilder shape3 = new StringBuilder();
+		assertTrue(search1.appendShape(shape1) && search2.appendShape(shape2) && search3.appendShape(shape3));
+		// the bound values are not part of the shape
+		assertEquals(shape1.toString(), shape2.toString());
+		assertNotEquals(shape1.toString(), shape3.toString());
+	}
+
+	@Test
+	public void inListTest() throws SvException {
+		DbSearchCriterion dbs = new DbSearchCriterion("PARENT_ID", DbCompareOperand.IN_LIST);
+		dbs.setInList(new ArrayList<Object>(Arrays.asList(1L, 2L, 3L)));
+		assertEquals("(TBL0.PARENT_ID IN (?,?,?))", dbs.getSQLExpression("TBL0"));
+		assertEquals(Arrays.asList(1L, 2L, 3L), dbs.getSQLParamVals());
+
+		// the number of bound values is part of the shape
+		StringBuilder shape3 = new StringBuilder();
+		StringBuilder shape2 = new StringBuilder();
+		dbs.appendShape(shape3);
+		dbs.setInList(new ArrayList<Object>(Arrays.asList(1L, 2L)));
+		dbs.appendShape(shape2);
+		assertNotEquals(shape3.toString(), shape2.toString());
+	}
+
+	@Test
+	public void sqlCacheTest() {
+		try (SvReader svr = new SvReader()) {
+			DbDataArray result = null;
+			long hits = SvSqlCache.getHitCount();
+			for (String userName : new String[] { "ADMIN", "ADMIN" }) {
+				DbQueryObject dqo = new DbQueryObject(SvCore.getDbt(svCONST.OBJECT_TYPE_USER),
+						new DbSearchCriterion("USER_NAME", DbCompareOperand.EQUAL, userName), null, null);
+				DbDataArray current = svr.getObjects(dqo, 1, 0);
+				if (result != null)
+					assertEquals(result.size(), current.size());
+				result = current;
+			}
+			if (SvConf.getSqlCacheSize() > 0 && SvSqlCache.getHitCount() <= hits)
+				fail("The SQL of the second query wasn't taken from the cache");
+		} catch (SvException e) {
+			e.printStackTrace();
+			fail("Exception was thrown");
+		}
+	}
+
+	@Test
+	public void keysetTokenTest() throws SvException {
+		DbDataObject dbo = new DbDataObject();
+		dbo.setObjectId(42L);
+		dbo.setVal("USER_NAME", "ADMIN");
+		SvKeyset keyset = new SvKeyset(Arrays.asList("user_name"), 10, null);
+		String token = keyset.encode(dbo);
+
+		SvKeyset next = new SvKeyset(Arrays.asList("USER_NAME"), 10, token);
+		Object[] keys = next.decode(token);
+		assertEquals("ADMIN", keys[0]);
+		assertEquals(42L, keys[1]);
+		assertEquals(Arrays.asList("USER_NAME", "OBJECT_ID"), next.getOrderByFields());
+		// the row value comparison binds each key once, the expanded form binds
+		// the leading keys repeatedly
+		assertEquals(SvConf.getDbType().equals(SvDbType.POSTGRES) ? 2 : 3,
+				next.getSearch(null).getSQLParamVals().size());
+		assertEquals(null, keyset.getSearch(null));
+
+		// a token created for other sort fields must be rejected
+		try {
+			new SvKeyset(Arrays.asList("E_MAIL"), 10, token);
+			fail("Token for different sort fields was accepted");
+		} catch (SvException e) {
+			assertEquals("system.error.keyset_token_err", e.getLabelCode());
+		}
+
+		// a forged string length must be rejected without allocating it
+		ByteBuffer forged = ByteBuffer.allocate(9);
+		forged.put((byte) 1).putInt(2).putInt(Integer.MAX_VALUE);
+		try {
+			next.decode(Base64.getUrlEncoder().withoutPadding().encodeToString(forged.array()));
+			fail("Token with forged string length was accepted");
+		} catch (SvException e) {
+			assertEquals("system.error.keyset_token_err", e.getLabelCode());
+		}
+	}
+
+	@Test
+	public void keysetPageTest() {
+		try (SvReader svr = new SvReader()) {
+			DbDataArray all = svr.getObjectsByTypeId(svCONST.OBJECT_TYPE_USER, null, 0, 0);
+			int count = 0;
+			Long lastId = null;
+			SvPage page = svr.getObjectsByTypeIdPage(svCONST.OBJECT_TYPE_USER, null, 1, null);
+			while (true) {
+				for (DbDataObject dbo : page.getItems().getItems()) {
+					if (lastId != null && dbo.getObjectId() <= lastId)
+						fail("The pages are not ordered by OBJECT_ID");
+					lastId = dbo.getObjectId();
+					count++;
+				}
+				if (!page.hasMore())
+					break;
+				page = svr.getObjectsByTypeIdPage(svCONST.OBJECT_TYPE_USER, null, 1, page.getContinuationToken());
+			}
+			assertEquals(all.size(), count);
+		} catch (SvException e) {
+			e.printStackTrace();
+			fail("Exception was thrown");
+		}
+	}
+
 	@Test
 	public void poaTest() {
 		try (SvSecurity svs = new SvSecurity(DateTime.now().toString())) {
@@ -358,6 +358,33 @@ public class SvExecManagerTest {
 
 	}
 
+	@Test
+	public void callExecutorHistoricalDate() {
+		try (SvExecManager sve = new SvExecManager();) {
+			sve.osgiServices = new Object[1];
+			sve.osgiServices[0] = new TestExecutor(null);
+			String key = SvExecManager.getKey(category, name);
+			sve.execute(category, name, null, new DateTime("2015-01-01T00:00:00+00"));
+			long invocations = SvExecManager.getExecutorStats(key).getInvocations();
+
+			// the missing executor is served from the cached index, the second
+			// time without loading it again
+			for (int i = 0; i < 2; i++) {
+				try {
+					sve.execute(category, name, null, new DateTime("2010-01-01T00:00:00+00"));
+					fail("No exception was raised!");
+				} catch (SvException ex) {
+					assertEquals("system.err.exec_not_found", ex.getLabelCode());
+				}
+			}
+			sve.execute(category, name, null, new DateTime("2013-06-01T00:00:00+00"));
+			assertEquals(invocations + 1, SvExecManager.getExecutorStats(key).getInvocations());
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail("Test raised execption" + e.toString());
+		}
+	}
+
 	@Test
 	public void initExecsPack() throws SvException {
 		try (SvExecManager sve = new SvExecManager()) {
@@ -0,0 +1,150 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *
+ *******************************************************************************/
+package com.prtech.svarog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.prtech.svarog_common.DbDataObject;
+import com.prtech.svarog_common.SvCharId;
+import com.prtech.svarog_common.SvFieldMap;
+import com.prtech.svarog_common.SvFieldSchema;
+
+public class SvFieldMapTest {
+
+	static final int FIELDS = 20;
+	static final int OBJECTS = 10000;
+
+	private static List<SvCharId> fieldIds(int count) {
+		List<SvCharId> ids = new ArrayList<SvCharId>();
+		for (int i = 0; i < count; i++)
+			ids.add(SvCharId.intern("TEST_COMPACT_FIELD_" + i));
+		return ids;
+	}
+
+	@Test
+	public void testMapSemantics() {
+		List<SvCharId> ids = fieldIds(3);
+		SvFieldMap map = new SvFieldMap(new SvFieldSchema(ids));
+		LinkedHashMap<SvCharId, Object> reference = new LinkedHashMap<SvCharId, Object>();
+		for (SvCharId id : ids)
+			reference.put(id, null);
+
+		assertEquals(reference, map);
+		assertTrue(map.containsKey(ids.get(0)));
+		assertNull(map.put(ids.get(1), "B"));
+		reference.put(ids.get(1), "B");
+		assertEquals("B", map.put(ids.get(1), "B2"));
+		reference.put(ids.get(1), "B2");
+
+		SvCharId extId = new SvCharId("TEST_COMPACT_EXTENDED");
+		map.put(extId, 5L);
+		reference.put(extId, 5L);
+		assertEquals(reference, map);
+		assertEquals(4, map.size());
+
+		assertEquals("B2", map.remove(ids.get(1)));
+		reference.remove(ids.get(1));
+		assertFalse(map.containsKey(ids.get(1)));
+		assertNull(map.get(ids.get(1)));
+		assertEquals(reference, map);
+		assertEquals(new ArrayList<SvCharId>(reference.keySet()), new ArrayList<SvCharId>(map.keySet()));
+
+		// re-adding a removed schema field keeps the schema order
+		map.put(ids.get(1), "B3");
+		assertEquals(ids.get(1), new ArrayList<SvCharId>(map.keySet()).get(1));
+		assertEquals(4, map.size());
+
+		Iterator<Map.Entry<SvCharId, Object>> it = map.entrySet().iterator();
+		it.next().setValue("A");
+		it.remove();
+		assertEquals(3, map.size());
+		assertFalse(map.containsKey(ids.get(0)));
+
+		map.clear();
+		assertTrue(map.isEmpty());
+		assertFalse(map.containsKey("TEST_COMPACT_FIELD_0"));
+	}
+
+	@Test
+	public void testDbDataObject() {
+		List<SvCharId> ids = fieldIds(FIELDS);
+		DbDataObject dbo = new DbDataObject(1L, new SvFieldSchema(ids));
+		dbo.setVal("test_compact_field_3", "VAL");
+		dbo.setVal("TEST_COMPACT_OTHER", 1L);
+		assertEquals("VAL", dbo.getVal("TEST_COMPACT_FIELD_3"));
+		assertEquals(1L, dbo.getVal("TEST_COMPACT_OTHER"));
+		LinkedHashMap<SvCharId, Object> copy = dbo.getValuesMap();
+		assertEquals(FIELDS + 1, copy.size());
+		copy.put(ids.get(0), "CHANGED");
+		assertNull(dbo.getVal(ids.get(0)));
+	}
+
+	@Test
+	public void testFootprint() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) bean;
+		assumeTrue(mx.isThreadAllocatedMemorySupported());
+		mx.setThreadAllocatedMemoryEnabled(true);
+
+		List<SvCharId> ids = fieldIds(FIELDS);
+		SvFieldSchema schema = new SvFieldSchema(ids);
+		LinkedHashMap<SvCharId, Object> template = new LinkedHashMap<SvCharId, Object>();
+		for (SvCharId id : ids)
+			template.put(id, null);
+		long threadId = Thread.currentThread().getId();
+
+		// warm up both paths
+		fill(ids, schema, null);
+		fill(ids, null, template);
+
+		long start = mx.getThreadAllocatedBytes(threadId);
+		DbDataObject[] mapObjects = fill(ids, null, template);
+		long mapBytes = mx.getThreadAllocatedBytes(threadId) - start;
+
+		start = mx.getThreadAllocatedBytes(threadId);
+		DbDataObject[] compactObjects = fill(ids, schema, null);
+		long compactBytes = mx.getThreadAllocatedBytes(threadId) - start;
+
+		assertEquals(mapObjects.length, compactObjects.length);
+		System.out.println("Bytes per object, map:" + (mapBytes / OBJECTS) + ", compact:" + (compactBytes / OBJECTS));
+		assertTrue("Compact objects shall allocate less than map objects", compactBytes * 2 < mapBytes);
+	}
+
+	private DbDataObject[] fill(List<SvCharId> ids, SvFieldSchema schema, LinkedHashMap<SvCharId, Object> template) {
+		DbDataObject[] objects = new DbDataObject[OBJECTS];
+		Long value = 1L;
+		for (int i = 0; i < OBJECTS; i++) {
+			DbDataObject dbo = schema != null ? new DbDataObject(1L, schema) : new DbDataObject(1L, template);
+			for (SvCharId id : ids)
+				dbo.setVal(id, value);
+			objects[i] = dbo;
+		}
+		return objects;
+	}
+}
@@ -1013,4 +1013,113 @@ public class SvGeometryTest {
 		}
 	}
 
+
+	static Geometry deltaGeom(Long objectId, double x, double y) {
+		DbDataObject dbo = new DbDataObject(TEST_LAYER_TYPE_ID);
+		dbo.setObjectId(objectId);
+		Geometry geom = SvUtil.sdiFactory.toGeometry(new Envelope(x, x + 50, y, y + 50));
+		geom.setUserData(dbo);
+		return geom;
+	}
+
+	static Set<Long> deltaRelations(SvSDITile tile, double x, double y) throws SvException {
+		Set<Long> objectIds = new HashSet<>();
+		Geometry query = SvUtil.sdiFactory.toGeometry(new Envelope(x, x + 10, y, y + 10));
+		for (Geometry g : tile.getRelations(query, SDIRelation.INTERSECTS))
+			objectIds.add(((DbDataObject) g.getUserData()).getObjectId());
+		return objectIds;
+	}
+
+	@Test
+	public void testTileDelta() throws SvException {
+		int threshold = SvConf.getSdiTileDeltaThreshold();
+		try {
+			SvConf.setSdiTileDeltaThreshold(3);
+			Geometry[] geoms = new Geometry[] { deltaGeom(1L, 100, 100), deltaGeom(2L, 300, 300) };
+			SvSDITile tile = new SvTestTile(new Envelope(gridX0, 1000, gridY0, 1000), TEST_LAYER_TYPE_ID,
+					SvUtil.sdiFactory.createGeometryCollection(geoms));
+			tile.tilelId = "DELTA";
+			tile.loadTile();
+
+			// insert a new object and move an existing one
+			tile.applyDelta(3L, deltaGeom(3L, 500, 500));
+			tile.applyDelta(1L, deltaGeom(1L, 700, 700));
+			if (!deltaRelations(tile, 110, 110).isEmpty())
+				fail("The old geometry of the updated object was found");
+			if (!deltaRelations(tile, 710, 710).contains(1L) || !deltaRelations(tile, 510, 510).contains(3L))
+				fail("The changed geometries were not found");
+			if (tile.getIsTileDirty() || tile.deltaCount != 2)
+				fail("The changes were not applied incrementally");
+
+			// objects outside of the tile are ignored
+			tile.applyDelta(4L, deltaGeom(4L, 5000, 5000));
+			if (tile.deltaCount != 2)
+				fail("Object outside the tile was applied");
+
+			// delete an object, which reaches the threshold and rebuilds the index
+			tile.applyDelta(2L, null);
+			if (!deltaRelations(tile, 310, 310).isEmpty())
+				fail("The deleted geometry was found");
+			if (tile.getIsTileDirty() || tile.deltaCount != 0 || !tile.deltaGeometries.isEmpty())
+				fail("The index was not rebuilt after reaching the threshold");
+			if (!deltaRelations(tile, 710, 710).contains(1L) || tile.getInternalGeometries().size() != 2)
+				fail("The rebuilt index lost the changes");
+		} finally {
+			SvConf.setSdiTileDeltaThreshold(threshold);
+		}
+	}
+
+	@Test
+	public void testTileDeltaAfterCommit() throws SvException {
+		Long layerTypeId = 997L;
+		CacheBuilder<String, SvSDITile> b = (CacheBuilder<String, SvSDITile>) DbCache.createBuilder(null);
+		Cache<String, SvSDITile> cache = b.<String, SvSDITile>build();
+		DbDataObject existing = new DbDataObject(layerTypeId);
+		existing.setObjectId(1L);
+		Geometry existingGeom = SvUtil.sdiFactory.toGeometry(new Envelope(100, 150, 100, 150));
+		existingGeom.setUserData(existing);
+		SvSDITile tile = new SvTestTile(new Envelope(gridX0, 1000, gridY0, 1000), layerTypeId,
+				SvUtil.sdiFactory.createGeometryCollection(new Geometry[] { existingGeom }));
+		tile.tilelId = "COMMIT";
+		tile.loadTile();
+		cache.put(tile.tilelId, tile);
+		SvGeometry.layerCache.put(layerTypeId, cache);
+
+		DbDataObject dbo = new DbDataObject(layerTypeId);
+		dbo.setObjectId(2L);
+		SvGeometry.setGeometry(dbo, SvUtil.sdiFactory.toGeometry(new Envelope(500, 550, 500, 550)));
+		DbDataArray dba = new DbDataArray();
+		dba.addDataItem(dbo);
+		try (SvGeometry svg = new SvGeometry()) {
+			svg.dbSetAutoCommit(false);
+			// the rolled back change is never applied to the tile
+			SvGeometry.cacheCleanup(svg, dba);
+			if (!deltaRelations(tile, 510, 510).isEmpty())
+				fail("The change was applied before the commit");
+			svg.dbRollback();
+			if (!deltaRelations(tile, 510, 510).isEmpty())
+				fail("The rolled back change was applied");
+
+			SvGeometry.cacheCleanup(svg, dba);
+			svg.dbCommit();
+			if (!deltaRelations(tile, 510, 510).contains(2L))
+				fail("The committed change was not applied");
+			for (Geometry g : tile.getRelations(SvUtil.sdiFactory.toGeometry(new Envelope(510, 520, 510, 520)),
+					SDIRelation.INTERSECTS)) {
+				DbDataObject tileDbo = (DbDataObject) g.getUserData();
+				if (tileDbo == dbo || !tileDbo.isReadOnly())
+					fail("The tile must hold a read-only copy of the saved object");
+			}
+
+			// deletes are applied after the commit as well
+			SvGeometry.cacheCleanupDeleted(svg, layerTypeId, 1L);
+			if (deltaRelations(tile, 110, 110).isEmpty())
+				fail("The delete was applied before the commit");
+			svg.dbCommit();
+			if (!deltaRelations(tile, 110, 110).isEmpty())
+				fail("The committed delete was not applied");
+		} finally {
+			SvGeometry.layerCache.remove(layerTypeId);
+		}
+	}
 }
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *
+ *******************************************************************************/
+package com.prtech.svarog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.prtech.svarog_common.DbDataArray;
+import com.prtech.svarog_common.DbDataObject;
+
+public class SvMetadataTest {
+
+	private static DbDataObject dbt(Long id, String tableName) {
+		DbDataObject dbt = new DbDataObject();
+		dbt.setObjectId(id);
+		dbt.setVal(Sv.SCHEMA, "public");
+		dbt.setVal(Sv.TABLE_NAME, tableName);
+		return dbt;
+	}
+
+	private static DbDataObject field(Long id, Long parentId, String fieldName) {
+		DbDataObject dbf = new DbDataObject();
+		dbf.setObjectId(id);
+		dbf.setParentId(parentId);
+		dbf.setVal(Sv.FIELD_NAME, fieldName);
+		return dbf;
+	}
+
+	private static DbDataObject link(Long id, Long typeId1, Long typeId2) {
+		DbDataObject link = new DbDataObject();
+		link.setObjectId(id);
+		link.setVal(Sv.Link.LINK_OBJ_TYPE_1, typeId1);
+		link.setVal(Sv.Link.LINK_OBJ_TYPE_2, typeId2);
+		return link;
+	}
+
+	private static SvMetadata registry() {
+		DbDataObject users = dbt(1L, "svarog_users");
+		DbDataObject shortUsers = dbt(2L, "users");
+		DbDataObject orgUnits = dbt(3L, "svarog_org_units");
+		HashMap<Long, DbDataArray> fields = new HashMap<Long, DbDataArray>();
+		fields.put(1L, new DbDataArray(Arrays.asList(field(10L, 1L, "USER_NAME"), field(11L, 1L, "PIN"))));
+		DbDataArray links = new DbDataArray(
+				Arrays.asList(link(20L, 1L, 3L), link(21L, 3L, 1L), link(22L, 1L, 1L), link(23L, 1L, 3L)));
+		return new SvMetadata(Arrays.asList(users, shortUsers, orgUnits), fields, links, "SVAROG_");
+	}
+
+	@Test
+	public void testDbtByName() {
+		SvMetadata registry = registry();
+		assertEquals(Long.valueOf(1L), registry.getDbt("SVAROG_USERS", "PUBLIC").getObjectId());
+		// a table with the short name has precedence over the repo table
+		assertEquals(Long.valueOf(2L), registry.getDbt("USERS", "PUBLIC").getObjectId());
+		assertEquals(Long.valueOf(3L), registry.getDbt("ORG_UNITS", "PUBLIC").getObjectId());
+		assertNull(registry.getDbt("ORG_UNITS", "OTHER"));
+		assertNull(registry.getDbt("NONE", "PUBLIC"));
+	}
+
+	@Test
+	public void testFields() {
+		SvMetadata registry = registry();
+		assertEquals(Long.valueOf(11L), registry.getField(1L, "PIN").getObjectId());
+		assertNull(registry.getField(1L, "NONE"));
+		assertFalse(registry.hasFields(3L));
+
+		SvMetadata changed = registry.withoutFields(1L);
+		assertFalse(changed.hasFields(1L));
+		assertTrue(registry.hasFields(1L));
+		assertSame(changed, changed.withoutFields(1L));
+		assertEquals(Long.valueOf(3L), changed.getDbt("ORG_UNITS", "PUBLIC").getObjectId());
+	}
+
+	@Test
+	public void testLinkTypes() {
+		SvMetadata registry = registry();
+		assertEquals(Arrays.asList(20L, 23L), ids(registry.getLinkTypes(1L, 3L, false)));
+		assertEquals(Arrays.asList(20L, 21L, 23L), ids(registry.getLinkTypes(1L, 3L, true)));
+		assertEquals(Arrays.asList(20L, 21L, 23L), ids(registry.getLinkTypes(3L, 1L, true)));
+		// a link of a type to itself is returned once
+		assertEquals(Arrays.asList(22L), ids(registry.getLinkTypes(1L, 1L, true)));
+		assertTrue(registry.getLinkTypes(3L, 3L, true).isEmpty());
+		assertTrue(registry.getLinkTypes(null, 3L, true).isEmpty());
+	}
+
+	private static List<Long> ids(List<DbDataObject> objects) {
+		List<Long> ids = new ArrayList<Long>();
+		for (DbDataObject dbo : objects)
+			ids.add(dbo.getObjectId());
+		return ids;
+	}
+}
@@ -356,6 +356,41 @@ public class SvParametersTest {
 		return result;
 	}
 
+	@Test
+	public void testGetParametersBulk() {
+		try (SvReader svr = new SvReader(); SvWriter svw = new SvWriter(svr)) {
+			svw.setAutoCommit(false);
+			try (SvParameter svp = new SvParameter(svw)) {
+				DbDataObject paramType = searchForObject(svCONST.OBJECT_TYPE_PARAM_TYPE, "LABEL_CODE", "param.module",
+						svr);
+				if (paramType == null) {
+					createParamType(0L, "param.module", "String", "DROP_DOWN", null, null, null, null, 1L, "Кампања",
+							"mk_MK", svr, svw);
+				}
+				svp.setParamString("param.module", "TEST_BULK");
+
+				DbDataArray owners = new DbDataArray();
+				owners.addDataItem(SvCore.repoDbt);
+				owners.addDataItem(SvCore.getDbt(svCONST.OBJECT_TYPE_SECURITY_LOG));
+				HashMap<Long, HashMap<DbDataObject, DbDataArray>> bulk = svp.getParameters(owners);
+				if (bulk.size() != 2)
+					fail("Parameters not returned for all owners");
+
+				HashMap<DbDataObject, DbDataArray> single = svp.getParameters(SvCore.repoDbt);
+				HashMap<DbDataObject, DbDataArray> fromBulk = bulk.get(SvCore.repoDbt.getObjectId());
+				if (single.size() == 0 || single.size() != fromBulk.size())
+					fail("Bulk parameters differ from the parameters of a single object");
+				for (DbDataObject dbParam : fromBulk.keySet())
+					if (fromBulk.get(dbParam).size() == 0)
+						fail("Parameter values not loaded");
+				svp.dbRollback();
+			}
+		} catch (SvException ex) {
+			ex.printStackTrace();
+			fail(ex.getFormattedMessage());
+		}
+	}
+
 	@Test
 	public void testSysParamInt() throws SvException {
 		try (SvParameter svp = new SvParameter()) {
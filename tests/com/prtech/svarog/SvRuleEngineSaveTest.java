@@ -0,0 +1,167 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *
+ *******************************************************************************/
+package com.prtech.svarog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.prtech.svarog.SvRuleEngineSave.Durability;
+import com.prtech.svarog_common.DbDataArray;
+import com.prtech.svarog_common.DbDataObject;
+
+public class SvRuleEngineSaveTest {
+
+	static DbDataObject rule = null;
+	static DbDataObject action = null;
+
+	@BeforeClass
+	public static void createRule() throws SvException {
+		try (SvWriter svw = new SvWriter()) {
+			rule = new DbDataObject(svCONST.OBJECT_TYPE_RULE);
+			rule.setVal("rule_name", "rule.test.state");
+			rule.setVal("rule_label", "rule.test.state");
+			rule.setVal("is_stoppable", true);
+			rule.setVal("is_transactional", true);
+			rule.setVal("is_rolling_back", true);
+			svw.saveObject(rule);
+
+			action = new DbDataObject(svCONST.OBJECT_TYPE_ACTION);
+			action.setParentId(rule.getObjectId());
+			action.setVal("action_name", "test.state");
+			action.setVal("action_label", "action.test.state");
+			action.setVal("ACTION_TYPE", "TEST");
+			action.setVal("SORT_ORDER", 1L);
+			action.setVal("CODE_TYPE", "Executor");
+			action.setVal("RETURN_TYPE", "Object");
+			action.setVal("METHOD_NAME", "TEST.STATE");
+			svw.saveObject(action);
+		}
+	}
+
+	private static DbDataObject newExecution() {
+		DbDataObject execObj = new DbDataObject(svCONST.OBJECT_TYPE_EXECUTION);
+		execObj.setParentId(rule.getObjectId());
+		execObj.setVal("OBJ_EXEC_ON", rule.getObjectId());
+		return execObj;
+	}
+
+	private static DbDataArray newResults() {
+		DbDataArray results = new DbDataArray();
+		DbDataObject result = new DbDataObject(svCONST.OBJECT_TYPE_RESULT);
+		result.setVal("action_id", action.getObjectId());
+		result.setVal("errors", "");
+		result.setVal("is_successful", true);
+		result.setVal("exec_state", "PASS");
+		result.setVal("result", "{}");
+		results.addDataItem(result);
+		return results;
+	}
+
+	private static int countResults(SvCore svc, DbDataObject execObj) throws SvException {
+		try (SvReader svr = new SvReader(svc)) {
+			return svr.getObjectsByParentId(execObj.getObjectId(), svCONST.OBJECT_TYPE_RESULT, null).size();
+		}
+	}
+
+	@Test
+	public void testActionDurability() throws SvException {
+		try (SvWriter svw = new SvWriter()) {
+			svw.setAutoCommit(false);
+			SvRuleEngineSave save = new SvRuleEngineSave(Durability.ACTION);
+			DbDataObject execObj = newExecution();
+			save.startExecution(svw, execObj, true);
+			assertNotNull("The execution must be saved before the first action", execObj.getObjectId());
+
+			save.saveCurrentState(svw, action, execObj, newResults(), true);
+			assertEquals(1, countResults(svw, execObj));
+			save.saveFinalState(svw, rule, new DbDataArray(), true);
+			svw.dbRollback();
+		}
+	}
+
+	@Test
+	public void testRuleDurability() throws SvException {
+		try (SvWriter svw = new SvWriter()) {
+			svw.setAutoCommit(false);
+			SvRuleEngineSave save = new SvRuleEngineSave(Durability.RULE);
+			DbDataObject execObj = newExecution();
+			save.startExecution(svw, execObj, true);
+			assertNotNull("The execution must be saved before the first action", execObj.getObjectId());
+
+			DbDataArray results = newResults();
+			save.saveCurrentState(svw, action, execObj, results, true);
+			assertEquals("The results are saved when the rule finishes", 0, countResults(svw, execObj));
+			save.saveFinalState(svw, rule, results, true);
+			assertEquals(1, countResults(svw, execObj));
+			svw.dbRollback();
+		}
+	}
+
+	@Test
+	public void testAsyncDurability() throws SvException, InterruptedException {
+		DbDataObject user = SvReader.getUserBySession(SvarogRolesTest.getUserToken(true));
+		DbDataObject execObj = newExecution();
+		try (SvWriter svw = new SvWriter()) {
+			svw.setAutoCommit(false);
+			svw.setSaveAsUser(user);
+			SvRuleEngineSave save = new SvRuleEngineSave(Durability.ASYNC);
+			save.startExecution(svw, execObj, true);
+			assertNotNull("The execution must be saved before the first action", execObj.getObjectId());
+
+			DbDataArray results = newResults();
+			save.saveCurrentState(svw, action, execObj, results, true);
+			save.saveFinalState(svw, rule, results, false);
+			// the state shall survive the rollback of the rule engine
+			svw.dbRollback();
+		}
+		assertTrue("The queued states were not saved", SvRuleEngineSave.flush(30000));
+		try (SvReader svr = new SvReader()) {
+			DbDataObject savedExec = svr.getObjectById(execObj.getObjectId(), svCONST.OBJECT_TYPE_EXECUTION, null);
+			assertNotNull(savedExec);
+			assertEquals(false, savedExec.getVal("IS_SUCCESSFUL"));
+			assertEquals("The execution must be saved as the rule engine user", user.getObjectId(),
+					savedExec.getUserId());
+			DbDataArray savedResults = svr.getObjectsByParentId(execObj.getObjectId(), svCONST.OBJECT_TYPE_RESULT,
+					null);
+			assertEquals(1, savedResults.size());
+			assertEquals("The result must be saved as the rule engine user", user.getObjectId(),
+					savedResults.get(0).getUserId());
+		}
+	}
+
+	@Test
+	public void testShutdownFlush() throws SvException, InterruptedException {
+		DbDataObject[] execObjects = new DbDataObject[5];
+		try (SvWriter svw = new SvWriter()) {
+			for (int i = 0; i < execObjects.length; i++) {
+				execObjects[i] = newExecution();
+				svw.saveObject(execObjects[i]);
+				SvRuleEngineSave.enqueue(svw.getInstanceUser(), execObjects[i], newResults());
+			}
+		}
+		if (!SvRuleEngineSave.flushOnShutdown(30000))
+			fail("The queued states were not saved before shutdown");
+		assertEquals(0, SvRuleEngineSave.getPendingCount());
+		try (SvReader svr = new SvReader()) {
+			for (DbDataObject execObj : execObjects)
+				assertEquals(1, countResults(svr, execObj));
+		}
+	}
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ *   Copyright (c) 2013, 2019 Perun Technologii DOOEL Skopje.
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Apache License
+ *   Version 2.0 or the Svarog License Agreement (the "License");
+ *   You may not use this file except in compliance with the License.
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See LICENSE file in the project root for the specific language governing
+ *   permissions and limitations under the License.
+ *
+ *******************************************************************************/
+package com.prtech.svarog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.prtech.svarog_common.DbDataObject;
+
+public class SvRulePlanTest {
+
+	static final Long TEST_RULE_ID = -2000L;
+
+	private static DbDataObject rule(Long pkid) {
+		DbDataObject rule = new DbDataObject(svCONST.OBJECT_TYPE_RULE);
+		rule.setObjectId(TEST_RULE_ID);
+		rule.setPkid(pkid);
+		return rule;
+	}
+
+	private static SvRulePlan compile(DbDataObject rule) {
+		List<DbDataObject> actions = new ArrayList<DbDataObject>();
+		for (long i = 1; i <= 2; i++) {
+			DbDataObject action = new DbDataObject(svCONST.OBJECT_TYPE_ACTION);
+			action.setObjectId(TEST_RULE_ID - i);
+			action.setParentId(TEST_RULE_ID);
+			action.setVal(SvRulePlan.CODE_TYPE, "Executor");
+			actions.add(action);
+		}
+		return SvRulePlan.compile(rule, actions, Arrays.asList((byte[]) null, (byte[]) null));
+	}
+
+	@Test
+	public void testPlanCache() {
+		SvRulePlan plan = compile(rule(10L));
+		assertEquals(2, plan.getActions().size());
+		assertSame(plan, SvRulePlan.get(rule(10L)));
+		// a plan compiled from an older version of the rule is not used
+		assertNull(SvRulePlan.get(rule(11L)));
+		assertNull(SvRulePlan.get(rule(10L)));
+	}
+
+	@Test
+	public void testInvalidation() {
+		compile(rule(10L));
+		SvRulePlan.invalidate(TEST_RULE_ID - 1, TEST_RULE_ID, svCONST.OBJECT_TYPE_ACTION);
+		assertNull("Change of an action invalidates the plan of its rule", SvRulePlan.get(rule(10L)));
+
+		compile(rule(10L));
+		SvRulePlan.invalidate(TEST_RULE_ID - 1, null, svCONST.OBJECT_TYPE_ACTION);
+		assertNull("Change of an action with unknown rule invalidates all plans", SvRulePlan.get(rule(10L)));
+
+		compile(rule(10L));
+		SvRulePlan.invalidate(TEST_RULE_ID, null, svCONST.OBJECT_TYPE_RULE);
+		assertNull(SvRulePlan.get(rule(10L)));
+	}
+
+	@Test
+	public void testInvalidationOnCommit() throws SvException {
+		try (SvReader svr = new SvReader()) {
+			svr.dbSetAutoCommit(false);
+			compile(rule(10L));
+			SvRulePlan.invalidateOnCommit(svr, TEST_RULE_ID - 1, TEST_RULE_ID, svCONST.OBJECT_TYPE_ACTION);
+			assertNull(SvRulePlan.get(rule(10L)));
+			// a concurrent execution compiles the plan from the old action
+			// before the change is committed
+			compile(rule(10L));
+			assertNotNull(SvRulePlan.get(rule(10L)));
+			svr.dbCommit();
+			assertNull("The plan compiled before the commit shall be dropped", SvRulePlan.get(rule(10L)));
+		}
+	}
+}
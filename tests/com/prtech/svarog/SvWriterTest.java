@@ -118,6 +118,148 @@ public class SvWriterTest {
 
 	}
 
+	@Test
+	public void testOptimisticSave() {
+		boolean oldOptimistic = SvConf.isOptimisticSave();
+		Long objectId = null;
+		try (SvReader svr = new SvReader(); SvWriter svw = new SvWriter(svr)) {
+			svw.setAutoCommit(false);
+			SvConf.setOptimisticSave(true);
+
+			DbDataArray codes = svr.getObjects(null, svCONST.OBJECT_TYPE_CODE, null, 1, 0);
+			if (codes.size() < 1)
+				fail("No codes found");
+			objectId = codes.get(0).getObjectId();
+			// load the code via the reader so it gets cached
+			DbDataObject cached = svr.getObjectById(objectId, svCONST.OBJECT_TYPE_CODE, null);
+			DbDataObject dbt = SvCore.getDbt(svCONST.OBJECT_TYPE_CODE);
+			if (cached.getMetaPkid() == 0L)
+				fail("Meta PKID wasn't loaded");
+
+			DbDataObject dbo = copyVersion(cached);
+			DbDataArray dba = new DbDataArray();
+			dba.addDataItem(dbo);
+			assertNotNull("Repo data wasn't served from the cache", svw.getCachedRepoData(dbt, dba));
+			svw.saveObject(dbo, false);
+			if (dbo.getPkid().equals(cached.getPkid()))
+				fail("Object version wasn't updated");
+
+			// put the old version back in the cache, the guarded invalidation
+			// must detect that the version is stale
+			DbCache.addObject(cached);
+			DbDataObject stale = copyVersion(cached);
+			try {
+				svw.saveObject(stale, false);
+				fail("Stale version was saved");
+			} catch (SvException e) {
+				if (!e.getLabelCode().equals(Sv.Exceptions.OBJECT_NOT_UPDATEABLE))
+					fail("test raised wrong exception!" + e.getLabelCode());
+			}
+			if (DbCache.getObject(objectId, svCONST.OBJECT_TYPE_CODE) != null)
+				fail("Stale version wasn't evicted from the cache");
+			svw.dbRollback();
+		} catch (SvException e) {
+			e.printStackTrace();
+			fail("Test failed with exception" + e.getFormattedMessage());
+		} finally {
+			SvConf.setOptimisticSave(oldOptimistic);
+			if (objectId != null)
+				DbCache.removeObject(objectId, svCONST.OBJECT_TYPE_CODE);
+		}
+	}
+
+	@Test
+	public void testBatchConstraints() {
+		try (SvReader svr = new SvReader(); SvWriter svw = new SvWriter(svr)) {
+			svw.setAutoCommit(false);
+			Long parentId = SvSequence.getSeqNextVal("TEST_BATCH_CONSTRAINTS", (SvCore) null);
+			DbDataArray notes = new DbDataArray();
+			for (int i = 0; i < 25; i++) {
+				DbDataObject note = new DbDataObject(svCONST.OBJECT_TYPE_NOTES);
+				note.setParentId(parentId);
+				note.setVal("NOTE_NAME", "BATCH_NOTE_" + i);
+				note.setVal("NOTE_TEXT", "text");
+				notes.addDataItem(note);
+			}
+			// duplicate in a different JDBC batch than the original
+			DbDataObject duplicate = new DbDataObject(svCONST.OBJECT_TYPE_NOTES);
+			duplicate.setParentId(parentId);
+			duplicate.setVal("NOTE_NAME", "BATCH_NOTE_0");
+			duplicate.setVal("NOTE_TEXT", "text");
+			notes.addDataItem(duplicate);
+			try {
+				svw.saveObject(notes, true, false);
+				fail("Duplicate within the array was saved");
+			} catch (SvException e) {
+				if (!e.getLabelCode().equals("system.error.unq_constraint_violated"))
+					fail("test raised wrong exception!" + e.getLabelCode());
+			}
+			for (DbDataObject note : notes.getItems())
+				if (note.getObjectId() != 0L)
+					fail("Objects were saved before the constraints were validated");
+
+			notes.getItems().remove(duplicate);
+			svw.saveObject(notes, true, false);
+			for (DbDataObject note : notes.getItems())
+				if (note.getObjectId() == 0L)
+					fail("Object wasn't saved");
+			svw.dbRollback();
+		} catch (SvException e) {
+			e.printStackTrace();
+			fail("Test failed with exception" + e.getFormattedMessage());
+		}
+	}
+
+	@Test
+	public void testCopyInsert() {
+		int oldCopyBatchSize = SvConf.getCopyBatchSize();
+		try (SvReader svr = new SvReader(); SvWriter svw = new SvWriter(svr)) {
+			if (!SvConf.getDbHandler().getSupportsCopy())
+				return;
+			SvConf.setCopyBatchSize(100);
+			svw.setAutoCommit(false);
+			Long parentId = SvSequence.getSeqNextVal("TEST_COPY_INSERT", (SvCore) null);
+			DbDataArray notes = new DbDataArray();
+			for (int i = 0; i < 250; i++) {
+				DbDataObject note = new DbDataObject(svCONST.OBJECT_TYPE_NOTES);
+				note.setParentId(parentId);
+				note.setVal("NOTE_NAME", "COPY_NOTE_" + i);
+				note.setVal("NOTE_TEXT", i % 2 == 0 ? "text, \"quoted\"\nline" : "plain");
+				notes.addDataItem(note);
+			}
+			svw.saveObject(notes, true, false);
+			for (DbDataObject note : notes.getItems())
+				if (note.getObjectId() == 0L || note.getPkid() == 0L)
+					fail("Copied object didn't get its keys");
+
+			DbDataArray saved = svr.getObjectsByParentId(parentId, svCONST.OBJECT_TYPE_NOTES, null);
+			assertEquals(notes.size(), saved.size());
+			for (DbDataObject note : notes.getItems()) {
+				DbDataObject dbo = svr.getObjectById(note.getObjectId(), svCONST.OBJECT_TYPE_NOTES, null);
+				assertEquals(note.getPkid(), dbo.getPkid());
+				assertEquals(note.getVal("NOTE_NAME"), dbo.getVal("NOTE_NAME"));
+				assertEquals(note.getVal("NOTE_TEXT"), dbo.getVal("NOTE_TEXT"));
+				assertEquals(svCONST.STATUS_VALID, dbo.getStatus());
+			}
+			svw.dbRollback();
+		} catch (SvException e) {
+			e.printStackTrace();
+			fail("Test failed with exception" + e.getFormattedMessage());
+		} finally {
+			SvConf.setCopyBatchSize(oldCopyBatchSize);
+		}
+	}
+
+	private DbDataObject copyVersion(DbDataObject source) {
+		DbDataObject dbo = new DbDataObject(source.getObjectType());
+		dbo.setObjectId(source.getObjectId());
+		dbo.setPkid(source.getPkid());
+		dbo.setParentId(source.getParentId());
+		dbo.setStatus(source.getStatus());
+		dbo.setValuesMap(source.getValuesMap());
+		return dbo;
+	}
+
 	@Test
 	public void testDelete() {
 
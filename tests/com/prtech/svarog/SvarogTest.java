@@ -30,6 +30,10 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.io.IOUtils;
 import org.joda.time.DateTime;
@@ -1838,6 +1842,51 @@ public class SvarogTest {
 
 	}
 
+	@Test
+	public void testBlockSequence() {
+		String seqName = "TEST_BLOCK_SEQ";
+		int oldBlockSize = SvConf.getSequenceBlockSize();
+		SvConf.setSequenceBlockSize(10);
+		SvSequence.clearSeqBlocks();
+		final Set<Long> values = ConcurrentHashMap.newKeySet();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			for (int i = 0; i < 100; i++)
+				executor.submit(() -> {
+					try {
+						values.add(SvSequence.getSeqNextVal(seqName, (SvCore) null));
+					} catch (SvException e) {
+						e.printStackTrace();
+					}
+				});
+			executor.shutdown();
+			if (!executor.awaitTermination(60, TimeUnit.SECONDS))
+				fail("Sequence generation timed out");
+			if (values.size() != 100)
+				fail("Block sequence generated duplicate or missing values");
+
+			// the in-transaction sequence shall continue after the reserved
+			// blocks
+			SvSequence svs = new SvSequence();
+			try {
+				Long seqVal = svs.getSeqNextVal(seqName);
+				for (Long value : values)
+					if (value >= seqVal)
+						fail("Sequence value overlaps with a reserved block");
+			} finally {
+				svs.release();
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail("The test raised an exception!");
+		} finally {
+			SvConf.setSequenceBlockSize(oldBlockSize);
+			SvSequence.clearSeqBlocks();
+		}
+		if (SvConnTracker.hasTrackedConnections(false, false))
+			fail("You have a connection leak, you dirty animal!");
+	}
+
 	@Test
 	public void testSvReaderInstanceWithoutToken() {
 		SvReader dbu = null;
@@ -1935,6 +1984,35 @@ public class SvarogTest {
 
 	}
 
+	@Test
+	public void testGetObjectsCursor() {
+		try (SvReader svr = new SvReader()) {
+			Long typeId = SvCore.getTypeIdByName("TABLES");
+			DbDataArray array = svr.getObjects(null, typeId, null, null, null);
+			boolean autoCommit = svr.dbGetConn().getAutoCommit();
+			int count = 0;
+			try (SvObjectCursor cursor = svr.getObjectsCursor(null, typeId, null)) {
+				while (cursor.hasNext()) {
+					DbDataObject dbo = cursor.next();
+					if (!dbo.getObjectType().equals(typeId))
+						fail("Cursor returned object of wrong type");
+					count++;
+				}
+				if (!cursor.isClosed())
+					fail("Exhausted cursor wasn't closed");
+			}
+			if (count != array.size())
+				fail("Cursor returned different number of objects than getObjects");
+			if (svr.dbGetConn().getAutoCommit() != autoCommit)
+				fail("Auto commit wasn't restored after closing the cursor");
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail("The test raised an exception");
+		}
+		if (SvConnTracker.hasTrackedConnections(false, false))
+			fail("You have a connection leak, you dirty animal!");
+	}
+
 	@Test
 	public void testGetObjectByType() {
 